@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar.
+ * <p>
+ * Accepts the usual JMH command line options, and always adds the GC
+ * profiler so that every result reports allocation per operation
+ * ({@code gc.alloc.rate.norm}). For example, to run only the TTB put
+ * encoders on large batches:
+ * </p>
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar 'TsPutReqBenchmark.ttb.*' -p rowCount=10000,1000000
+ * </pre>
+ *
+ * @since 2.1.2
+ */
+public final class BenchmarkRunner
+{
+    private BenchmarkRunner()
+    {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException
+    {
+        final Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
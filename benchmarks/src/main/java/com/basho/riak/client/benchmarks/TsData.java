@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.benchmarks;
+
+import com.basho.riak.client.core.query.timeseries.Cell;
+import com.basho.riak.client.core.query.timeseries.CollectionConverters;
+import com.basho.riak.client.core.query.timeseries.ColumnDescription;
+import com.basho.riak.client.core.query.timeseries.ColumnDescription.ColumnType;
+import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.protobuf.RiakTsPB;
+import com.ericsson.otp.erlang.OtpExternal;
+import com.ericsson.otp.erlang.OtpOutputStream;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic Time Series fixtures for the codec benchmarks.
+ *
+ * @since 2.1.2
+ */
+final class TsData
+{
+    /**
+     * The column type mixes the benchmarks are run against.
+     */
+    enum ColumnMix
+    {
+        /** A timestamp and fixed-width numeric columns only. */
+        NUMERIC(ColumnType.TIMESTAMP, ColumnType.SINT64, ColumnType.SINT64,
+                ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.BOOLEAN),
+        /** The GeoCheckin shape: keys, a timestamp, and one column of every type. */
+        MIXED(ColumnType.VARCHAR, ColumnType.VARCHAR, ColumnType.TIMESTAMP, ColumnType.VARCHAR,
+              ColumnType.DOUBLE, ColumnType.SINT64, ColumnType.BOOLEAN, ColumnType.BLOB),
+        /** Mostly varchar columns, as in log or event tables. */
+        TEXT(ColumnType.VARCHAR, ColumnType.TIMESTAMP, ColumnType.VARCHAR, ColumnType.VARCHAR,
+             ColumnType.VARCHAR, ColumnType.VARCHAR);
+
+        private final ColumnType[] types;
+
+        ColumnMix(ColumnType... types)
+        {
+            this.types = types;
+        }
+    }
+
+    private static final String[] WORDS = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf",
+                                           "hotel", "india", "juliett", "kilo", "lima", "mike", "november"};
+
+    private TsData()
+    {
+    }
+
+    static List<ColumnDescription> columns(ColumnMix mix)
+    {
+        final List<ColumnDescription> columns = new ArrayList<>(mix.types.length);
+        for (int i = 0; i < mix.types.length; i++)
+        {
+            columns.add(new ColumnDescription("col" + i, mix.types[i]));
+        }
+        return columns;
+    }
+
+    static List<Row> rows(ColumnMix mix, int count)
+    {
+        final Random random = new Random(42);
+        final List<Row> rows = new ArrayList<>(count);
+        final long start = 1443796900000L;
+
+        for (int r = 0; r < count; r++)
+        {
+            final Cell[] cells = new Cell[mix.types.length];
+            for (int c = 0; c < cells.length; c++)
+            {
+                switch (mix.types[c])
+                {
+                    case VARCHAR:
+                        cells[c] = new Cell(WORDS[random.nextInt(WORDS.length)] + "-" + random.nextInt(1000));
+                        break;
+                    case SINT64:
+                        cells[c] = new Cell(random.nextLong() >> random.nextInt(64));
+                        break;
+                    case DOUBLE:
+                        cells[c] = new Cell(random.nextDouble() * 100);
+                        break;
+                    case TIMESTAMP:
+                        cells[c] = Cell.newTimestamp(start + r * 1000L);
+                        break;
+                    case BOOLEAN:
+                        cells[c] = new Cell(random.nextBoolean());
+                        break;
+                    case BLOB:
+                        final byte[] blob = new byte[16];
+                        random.nextBytes(blob);
+                        cells[c] = new Cell(blob);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(mix.types[c].name());
+                }
+            }
+            rows.add(new Row(cells));
+        }
+        return rows;
+    }
+
+    static List<RiakTsPB.TsRow> pbRows(List<Row> rows)
+    {
+        final List<RiakTsPB.TsRow> pbRows = new ArrayList<>(rows.size());
+        for (Row row : rows)
+        {
+            pbRows.add(row.getPbRow());
+        }
+        return pbRows;
+    }
+
+    static byte[] pbQueryResponse(List<ColumnDescription> columns, List<Row> rows)
+    {
+        return RiakTsPB.TsQueryResp.newBuilder()
+                                   .addAllColumns(CollectionConverters.convertColumnDescriptionsToPb(columns))
+                                   .addAllRows(pbRows(rows))
+                                   .build()
+                                   .toByteArray();
+    }
+
+    /**
+     * Encode a TsQueryResp as Riak TS sends it over TTB:
+     * {@code {'tsqueryresp', {ColNames, ColTypes, Rows}}}.
+     */
+    static byte[] ttbQueryResponse(List<ColumnDescription> columns, List<Row> rows)
+    {
+        final OtpOutputStream os = new OtpOutputStream();
+        os.write(OtpExternal.versionTag);
+        os.write_tuple_head(2);
+        os.write_atom("tsqueryresp");
+        os.write_tuple_head(3);
+
+        os.write_list_head(columns.size());
+        for (ColumnDescription column : columns)
+        {
+            os.write_binary(column.getName().getBytes(StandardCharsets.UTF_8));
+        }
+        os.write_nil();
+
+        os.write_list_head(columns.size());
+        for (ColumnDescription column : columns)
+        {
+            os.write_atom(column.getType().name().toLowerCase(Locale.US));
+        }
+        os.write_nil();
+
+        os.write_list_head(rows.size());
+        for (Row row : rows)
+        {
+            os.write_tuple_head(row.getCellsCount());
+            for (Cell cell : row)
+            {
+                if (cell == null)
+                {
+                    os.write_nil();
+                }
+                else if (cell.hasVarcharValue())
+                {
+                    os.write_binary(cell.getVarcharAsUTF8String().getBytes(StandardCharsets.UTF_8));
+                }
+                else if (cell.hasLong())
+                {
+                    os.write_long(cell.getLong());
+                }
+                else if (cell.hasTimestamp())
+                {
+                    os.write_long(cell.getTimestamp());
+                }
+                else if (cell.hasBoolean())
+                {
+                    os.write_boolean(cell.getBoolean());
+                }
+                else if (cell.hasDouble())
+                {
+                    os.write_double(cell.getDouble());
+                }
+                else
+                {
+                    os.write_binary(cell.getBlob());
+                }
+            }
+        }
+        os.write_nil();
+
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.benchmarks;
+
+import com.basho.riak.client.core.codec.TermToBinaryByteBufEncoder;
+import com.basho.riak.client.core.codec.TermToBinaryCodec;
+import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.basho.riak.protobuf.RiakTsPB;
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of a TsPutReq from Rows, with Protocol Buffers and with TTB.
+ * <p>
+ * Run with the GC profiler (the default in {@link BenchmarkRunner}) to see
+ * the bytes allocated per operation next to the time taken.
+ * </p>
+ *
+ * @since 2.1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TsPutReqBenchmark
+{
+    private static final String TABLE_NAME = "GeoCheckin";
+
+    @Param({"1", "100", "10000", "1000000"})
+    public int rowCount;
+
+    @Param({"NUMERIC", "MIXED", "TEXT"})
+    public TsData.ColumnMix columnMix;
+
+    private List<Row> rows;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        rows = TsData.rows(columnMix, rowCount);
+    }
+
+    @Benchmark
+    public byte[] pbEncode()
+    {
+        return RiakTsPB.TsPutReq.newBuilder()
+                                .setTable(ByteString.copyFromUtf8(TABLE_NAME))
+                                .addAllRows(TsData.pbRows(rows))
+                                .build()
+                                .toByteArray();
+    }
+
+    @Benchmark
+    public byte[] ttbEncode()
+    {
+        return TermToBinaryCodec.encodeTsPutRequest(TABLE_NAME, rows).toByteArray();
+    }
+
+    @Benchmark
+    public int ttbByteBufEncode()
+    {
+        final ByteBuf frame = TermToBinaryByteBufEncoder.encodeTsPutRequest(PooledByteBufAllocator.DEFAULT,
+                                                                            RiakMessageCodes.MSG_TsTtbMsg,
+                                                                            TABLE_NAME,
+                                                                            Collections.<String>emptyList(),
+                                                                            rows);
+        final int size = frame.readableBytes();
+        frame.release();
+        return size;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.benchmarks;
+
+import com.basho.riak.client.core.codec.InvalidTermToBinaryException;
+import com.basho.riak.client.core.codec.TermToBinaryCodec;
+import com.basho.riak.client.core.query.timeseries.Cell;
+import com.basho.riak.client.core.query.timeseries.ColumnDescription;
+import com.basho.riak.client.core.query.timeseries.ColumnarQueryResult;
+import com.basho.riak.client.core.query.timeseries.QueryResult;
+import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.protobuf.RiakTsPB;
+import com.ericsson.otp.erlang.OtpErlangDecodeException;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of a TsQueryResp, with Protocol Buffers and with TTB.
+ * <p>
+ * The row-based decoders are measured up to and including a walk over every
+ * cell, since the PB QueryResult converts its rows lazily. The columnar TTB
+ * decoder is measured to its finished result.
+ * </p>
+ *
+ * @since 2.1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TsQueryRespBenchmark
+{
+    @Param({"1", "100", "10000", "1000000"})
+    public int rowCount;
+
+    @Param({"NUMERIC", "MIXED", "TEXT"})
+    public TsData.ColumnMix columnMix;
+
+    private byte[] pbResponse;
+    private byte[] ttbResponse;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        final List<ColumnDescription> columns = TsData.columns(columnMix);
+        final List<Row> rows = TsData.rows(columnMix, rowCount);
+        pbResponse = TsData.pbQueryResponse(columns, rows);
+        ttbResponse = TsData.ttbQueryResponse(columns, rows);
+    }
+
+    private static void consume(QueryResult result, Blackhole blackhole)
+    {
+        for (Row row : result)
+        {
+            for (Cell cell : row)
+            {
+                blackhole.consume(cell);
+            }
+        }
+    }
+
+    @Benchmark
+    public void pbDecode(Blackhole blackhole) throws InvalidProtocolBufferException
+    {
+        final RiakTsPB.TsQueryResp response = RiakTsPB.TsQueryResp.parseFrom(pbResponse);
+        consume(new QueryResult(response.getColumnsList(), response.getRowsList()), blackhole);
+    }
+
+    @Benchmark
+    public void ttbDecode(Blackhole blackhole) throws OtpErlangDecodeException, InvalidTermToBinaryException
+    {
+        consume(TermToBinaryCodec.decodeTsResultResponse(ttbResponse), blackhole);
+    }
+
+    @Benchmark
+    public ColumnarQueryResult ttbColumnarDecode() throws OtpErlangDecodeException, InvalidTermToBinaryException
+    {
+        return TermToBinaryCodec.decodeTsColumnarResultResponse(ttbResponse);
+    }
+}
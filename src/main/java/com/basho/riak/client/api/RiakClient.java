@@ -15,9 +15,28 @@
  */
 package com.basho.riak.client.api;
 
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.api.commands.buckets.BucketPropertiesCache;
+import com.basho.riak.client.api.commands.buckets.FetchBucketProperties;
+import com.basho.riak.client.api.commands.buckets.ResetBucketProperties;
+import com.basho.riak.client.api.commands.buckets.StoreBucketProperties;
+import com.basho.riak.client.api.commands.buckets.StoreBucketTypeProperties;
+import com.basho.riak.client.api.commands.datatypes.DatatypeCache;
+import com.basho.riak.client.api.commands.datatypes.FetchDatatype;
+import com.basho.riak.client.api.commands.datatypes.UpdateDatatype;
+import com.basho.riak.client.api.commands.kv.DeleteValue;
+import com.basho.riak.client.api.commands.kv.FetchValue;
+import com.basho.riak.client.api.commands.kv.CoveragePlan;
+import com.basho.riak.client.api.commands.kv.CoveragePlanCache;
+import com.basho.riak.client.api.commands.kv.FetchValueCache;
+import com.basho.riak.client.api.commands.kv.StoreValue;
+import com.basho.riak.client.api.commands.kv.UpdateValue;
 import com.basho.riak.client.core.RiakCluster;
 import com.basho.riak.client.core.RiakFuture;
 import com.basho.riak.client.core.RiakNode;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.util.BinaryValue;
 import com.basho.riak.client.core.util.HostAndPort;
 
 import java.net.InetSocketAddress;
@@ -26,6 +45,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -162,6 +183,12 @@ import java.util.concurrent.TimeoutException;
 public class RiakClient
 {
     private final RiakCluster cluster;
+    private volatile FetchValueCache fetchValueCache;
+    private volatile DatatypeCache datatypeCache;
+    private volatile BucketPropertiesCache bucketPropertiesCache;
+    private volatile CoveragePlanCache coveragePlanCache;
+    private volatile boolean singleFlight;
+    private final ConcurrentHashMap<Object, RiakFuture<?,?>> inFlightFetches = new ConcurrentHashMap<>();
 
     /**
      * Create a new RiakClient to perform operations on the given cluster.
@@ -352,7 +379,9 @@ public class RiakClient
      */
     public <T,S> T execute(RiakCommand<T,S> command) throws ExecutionException, InterruptedException
     {
-        return command.execute(cluster);
+        RiakFuture<T, S> future = executeAsync(command);
+        future.await();
+        return future.get();
     }
 
     /**
@@ -384,7 +413,8 @@ public class RiakClient
      */
     public <T, S> T execute(RiakCommand<T, S> command, long timeout, TimeUnit unit) throws ExecutionException,
     InterruptedException, TimeoutException {
-        return command.execute(cluster, timeout, unit);
+        RiakFuture<T, S> future = executeAsync(command);
+        return future.get(timeout, unit);
     }
 
     /**
@@ -399,8 +429,113 @@ public class RiakClient
      * @return a RiakFuture for the operation.
      * @see RiakFuture
      */
+    @SuppressWarnings("unchecked")
     public <T,S> RiakFuture<T,S> executeAsync(RiakCommand<T,S> command)
     {
+        final Object key = singleFlight ? command.getSingleFlightKey() : null;
+        if (key != null)
+        {
+            final SettableRiakFuture<T,S> shared = new SettableRiakFuture<>(command.getSingleFlightQueryInfo());
+            final RiakFuture<T,S> inFlight = (RiakFuture<T,S>) inFlightFetches.putIfAbsent(key, shared);
+            if (inFlight != null)
+            {
+                return inFlight;
+            }
+
+            // Dispatched outside the map, so the caches and the cluster never run under its lock
+            final RiakFuture<T,S> future;
+            try
+            {
+                future = dispatch(command);
+            }
+            catch (RuntimeException ex)
+            {
+                inFlightFetches.remove(key, shared);
+                shared.setException(ex);
+                throw ex;
+            }
+
+            future.addListener(f ->
+            {
+                inFlightFetches.remove(key, shared);
+                if (f.isSuccess())
+                {
+                    shared.setResponse(f.getNow());
+                }
+                else
+                {
+                    shared.setException(f.isCancelled() ? new CancellationException() : f.cause());
+                }
+            });
+            return shared;
+        }
+
+        return dispatch(command);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T,S> RiakFuture<T,S> dispatch(RiakCommand<T,S> command)
+    {
+        final FetchValueCache valueCache = fetchValueCache;
+        final DatatypeCache dtCache = datatypeCache;
+        final BucketPropertiesCache propsCache = bucketPropertiesCache;
+        final CoveragePlanCache planCache = coveragePlanCache;
+
+        if (valueCache != null)
+        {
+            if (command instanceof FetchValue)
+            {
+                return (RiakFuture<T,S>) valueCache.execute(cluster, (FetchValue) command);
+            }
+
+            if (command instanceof StoreValue || command instanceof UpdateValue || command instanceof DeleteValue)
+            {
+                final RiakFuture<T,S> future = command.executeAsync(cluster);
+                future.addListener(f -> valueCache.invalidate((Location) f.getQueryInfo()));
+                return future;
+            }
+        }
+
+        if (dtCache != null)
+        {
+            if (command instanceof FetchDatatype)
+            {
+                return (RiakFuture<T,S>) dtCache.execute(cluster, (FetchDatatype<?,T>) command);
+            }
+
+            if (command instanceof UpdateDatatype)
+            {
+                return (RiakFuture<T,S>) dtCache.execute(cluster, (UpdateDatatype<?,T>) command);
+            }
+        }
+
+        if (propsCache != null)
+        {
+            if (command instanceof FetchBucketProperties)
+            {
+                return (RiakFuture<T,S>) propsCache.execute(cluster, (FetchBucketProperties) command);
+            }
+
+            if (command instanceof StoreBucketProperties || command instanceof ResetBucketProperties)
+            {
+                final RiakFuture<T,S> future = command.executeAsync(cluster);
+                future.addListener(f -> propsCache.invalidate((Namespace) f.getQueryInfo()));
+                return future;
+            }
+
+            if (command instanceof StoreBucketTypeProperties)
+            {
+                final RiakFuture<T,S> future = command.executeAsync(cluster);
+                future.addListener(f -> propsCache.invalidateBucketType((BinaryValue) f.getQueryInfo()));
+                return future;
+            }
+        }
+
+        if (planCache != null && command instanceof CoveragePlan)
+        {
+            return (RiakFuture<T,S>) planCache.execute(cluster, (CoveragePlan) command);
+        }
+
         return command.executeAsync(cluster);
     }
 
@@ -442,6 +577,156 @@ public class RiakClient
         return command.executeAsyncStreaming(cluster, timeoutMS);
     }
 
+    /**
+     * Install a client-side cache for {@link FetchValue} commands.
+     * <p>
+     * Once set, every FetchValue without options executed through this client
+     * is served by the cache, and every StoreValue, UpdateValue and DeleteValue executed
+     * through this client invalidates the affected location. Commands executed
+     * by other clients or applications are not seen; the cache's time to live
+     * bounds how long their changes can go unnoticed.
+     * </p>
+     * @param fetchValueCache the cache to use, or null to disable caching.
+     * @since 2.1.2
+     * @see FetchValueCache
+     */
+    public void setFetchValueCache(FetchValueCache fetchValueCache)
+    {
+        this.fetchValueCache = fetchValueCache;
+    }
+
+    /**
+     * Get the FetchValue cache used by this client.
+     * @return the cache, or null if caching is disabled.
+     * @since 2.1.2
+     */
+    public FetchValueCache getFetchValueCache()
+    {
+        return fetchValueCache;
+    }
+
+    /**
+     * Install a client-side near-cache for datatype (CRDT) fetches.
+     * <p>
+     * Once set, every {@link FetchDatatype} executed through this client is
+     * served by the cache, and every {@link UpdateDatatype} executed through
+     * this client refreshes or invalidates the affected location.
+     * </p>
+     * @param datatypeCache the cache to use, or null to disable caching.
+     * @since 2.1.2
+     * @see DatatypeCache
+     */
+    public void setDatatypeCache(DatatypeCache datatypeCache)
+    {
+        this.datatypeCache = datatypeCache;
+    }
+
+    /**
+     * Get the datatype cache used by this client.
+     * @return the cache, or null if caching is disabled.
+     * @since 2.1.2
+     */
+    public DatatypeCache getDatatypeCache()
+    {
+        return datatypeCache;
+    }
+
+    /**
+     * Install a client-side cache for {@link FetchBucketProperties} commands.
+     * <p>
+     * Once set, bucket properties fetched through this client are cached per
+     * namespace and refreshed in the background. Storing or resetting bucket
+     * (or bucket type) properties through this client invalidates the
+     * affected namespaces.
+     * </p>
+     * @param bucketPropertiesCache the cache to use, or null to disable caching.
+     * @since 2.1.2
+     * @see BucketPropertiesCache
+     */
+    public void setBucketPropertiesCache(BucketPropertiesCache bucketPropertiesCache)
+    {
+        this.bucketPropertiesCache = bucketPropertiesCache;
+    }
+
+    /**
+     * Get the bucket properties cache used by this client.
+     * @return the cache, or null if caching is disabled.
+     * @since 2.1.2
+     */
+    public BucketPropertiesCache getBucketPropertiesCache()
+    {
+        return bucketPropertiesCache;
+    }
+
+    /**
+     * Install a client-side cache for {@link CoveragePlan} commands.
+     * <p>
+     * Once set, coverage plans fetched through this client are cached per
+     * namespace and minimum partition count. The cache is registered with the
+     * cluster as a node state listener, and drops its plans when a node goes
+     * down; a previously installed cache is unregistered.
+     * </p>
+     * @param coveragePlanCache the cache to use, or null to disable caching.
+     * @since 2.1.2
+     * @see CoveragePlanCache
+     */
+    public synchronized void setCoveragePlanCache(CoveragePlanCache coveragePlanCache)
+    {
+        final CoveragePlanCache previous = this.coveragePlanCache;
+        if (previous != null)
+        {
+            cluster.removeNodeStateListener(previous);
+        }
+        if (coveragePlanCache != null)
+        {
+            cluster.registerNodeStateListener(coveragePlanCache);
+        }
+        this.coveragePlanCache = coveragePlanCache;
+    }
+
+    /**
+     * Get the coverage plan cache used by this client.
+     * @return the cache, or null if caching is disabled.
+     * @since 2.1.2
+     */
+    public CoveragePlanCache getCoveragePlanCache()
+    {
+        return coveragePlanCache;
+    }
+
+    /**
+     * Enable or disable single-flight execution of fetches.
+     * <p>
+     * When enabled, a {@link FetchValue} or {@link FetchDatatype} executed
+     * while an equal command (same location and options, as they were when
+     * it was executed) is still in flight
+     * is not sent to Riak; it shares the future, and so the response, of the
+     * command already running. This protects a hot location from a thundering
+     * herd of identical reads, each of which would otherwise take a connection.
+     * </p>
+     * <p>
+     * The objects in a shared response are the same for every caller and must not be
+     * modified. Disabled by default.
+     * </p>
+     * @param enabled true to enable single-flight fetches.
+     * @since 2.1.2
+     */
+    public void setSingleFlightEnabled(boolean enabled)
+    {
+        this.singleFlight = enabled;
+    }
+
+    /**
+     * Returns whether single-flight execution of fetches is enabled.
+     * @return true if enabled.
+     * @since 2.1.2
+     * @see #setSingleFlightEnabled(boolean)
+     */
+    public boolean isSingleFlightEnabled()
+    {
+        return singleFlight;
+    }
+
     /**
      * Shut down the client and the underlying RiakCluster.
      * <p>
@@ -101,5 +101,32 @@ public abstract class RiakCommand<T, S>
     }
 
     protected abstract RiakFuture<T, S> executeAsync(RiakCluster cluster);
+
+    /**
+     * Returns an immutable snapshot of what this command reads, used by
+     * {@link RiakClient#setSingleFlightEnabled(boolean)} to share one request
+     * between equal commands in flight.
+     *
+     * @return the key, or null if the command can't be shared.
+     * @since 2.1.2
+     */
+    protected Object getSingleFlightKey()
+    {
+        return null;
+    }
+
+    /**
+     * Returns the query info of the future shared by equal commands in flight.
+     * <p>
+     * Only called when {@link #getSingleFlightKey()} returns a key.
+     * </p>
+     *
+     * @return the query info.
+     * @since 2.1.2
+     */
+    protected S getSingleFlightQueryInfo()
+    {
+        return null;
+    }
 }
 
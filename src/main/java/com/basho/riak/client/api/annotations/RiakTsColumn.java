@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 Basho Technologies Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates a field in a class to map it to a column of a Riak Time Series table.
+ * <p>
+ * The column name defaults to the name of the field. The field type must
+ * match the column type: {@code String} for VARCHAR, {@code byte[]} for BLOB,
+ * {@code long} or {@code Long} for SINT64 and TIMESTAMP, {@code double} or
+ * {@code Double} for DOUBLE, and {@code boolean} or {@code Boolean} for BOOLEAN.
+ * Use the boxed types for nullable columns.
+ * </p>
+ * <pre>
+ * public class GeoCheckin
+ * {
+ *     {@literal @}RiakTsColumn
+ *     private String region;
+ *
+ *     {@literal @}RiakTsColumn(name="time")
+ *     private long timestamp;
+ *
+ *     {@literal @}RiakTsColumn
+ *     private Double temperature;
+ * }
+ * </pre>
+ *
+ * @since 2.1.2
+ * @see com.basho.riak.client.core.query.timeseries.TsRowMapper#forClass(Class, com.basho.riak.client.core.query.timeseries.TableDefinition)
+ */
+@Retention(RetentionPolicy.RUNTIME) @Target(ElementType.FIELD) public @interface RiakTsColumn
+{
+    /**
+     * @return the column name, or an empty String to use the field name.
+     */
+    String name() default "";
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands;
+
+import com.basho.riak.client.core.RiakFuture;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the elements of a paged query, fetching pages ahead of the caller.
+ * <p>
+ * The request for the next page is issued as soon as the previous page
+ * arrives, rather than once the caller has finished processing it. Up to
+ * {@code prefetchDepth} pages are buffered ahead of the caller; once the
+ * buffer is full, fetching resumes as pages are consumed.
+ * </p>
+ * <p>
+ * Subclasses build and execute the request for each page, and decide from
+ * each response where the next page starts. Every method of this class, and
+ * every hook it calls, runs while holding the iterator's monitor.
+ * </p>
+ * <p>
+ * If a page request fails, {@link #hasNext()} throws a {@link RuntimeException}
+ * wrapping the cause once the pages already received have been consumed.
+ * </p>
+ *
+ * @param <R> the type of the core response for a page.
+ * @param <P> the type of a page.
+ * @param <E> the type of the elements.
+ * @since 2.1.2
+ */
+public abstract class PrefetchingPageIterator<R, P, E> implements Iterator<E>
+{
+    private final int prefetchDepth;
+
+    private final Deque<P> pages = new ArrayDeque<>();
+    private Iterator<? extends E> currentIterator = Collections.emptyIterator();
+    private RiakFuture<R, ?> inFlight;
+    private boolean nextPagePending;
+    private Throwable failure;
+    private boolean lastPageReceived;
+    private boolean closed;
+
+    /**
+     * @param prefetchDepth the maximum number of pages to buffer ahead of the caller.
+     * @throws IllegalArgumentException if prefetchDepth is less than 1.
+     */
+    protected PrefetchingPageIterator(int prefetchDepth)
+    {
+        if (prefetchDepth < 1)
+        {
+            throw new IllegalArgumentException("Prefetch depth must be at least 1");
+        }
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    /**
+     * Request the first page.
+     * <p>
+     * Called once by the subclass constructor, after its own state is set.
+     * </p>
+     */
+    protected final synchronized void start()
+    {
+        fetch();
+    }
+
+    /**
+     * Build and execute the request for the next page.
+     *
+     * @return the future for the page.
+     */
+    protected abstract RiakFuture<R, ?> fetchPage();
+
+    /**
+     * Convert the response for a page.
+     *
+     * @param response the core response.
+     * @return the page.
+     */
+    protected abstract P convertPage(R response);
+
+    /**
+     * Record where the page after this one starts.
+     *
+     * @param response the core response.
+     * @param page the converted page.
+     * @return true if there is another page.
+     * @throws RuntimeException to fail the iteration after this page.
+     */
+    protected abstract boolean advance(R response, P page);
+
+    /**
+     * Start iterating a page, once the caller has consumed the previous one.
+     *
+     * @param page the page.
+     * @return an iterator over the elements of the page.
+     */
+    protected abstract Iterator<? extends E> iterate(P page);
+
+    /**
+     * Returns true if there are more elements.
+     * <p>
+     * This method will block and wait for the next page if the buffered pages
+     * have been consumed and more remain. If the thread is interrupted while
+     * waiting, a {@link RuntimeException} is thrown.
+     * </p>
+     *
+     * @return true if there are more elements.
+     * @throws RuntimeException if a page request failed.
+     */
+    @Override
+    public synchronized boolean hasNext()
+    {
+        while (!currentIterator.hasNext())
+        {
+            final P page = pages.poll();
+            if (page != null)
+            {
+                currentIterator = iterate(page);
+                fetchIfRoom();
+                continue;
+            }
+
+            if (failure != null)
+            {
+                throw new RuntimeException("Fetching the next page failed", failure);
+            }
+
+            if (lastPageReceived || closed)
+            {
+                return false;
+            }
+
+            try
+            {
+                wait();
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the next page", ex);
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public synchronized E next()
+    {
+        if (hasNext())
+        {
+            return currentIterator.next();
+        }
+
+        throw new NoSuchElementException();
+    }
+
+    /**
+     * Stop fetching further pages.
+     * <p>
+     * Any page request in flight is cancelled and the buffered pages are
+     * discarded; {@link #hasNext()} returns false from then on.
+     * </p>
+     */
+    public synchronized void close()
+    {
+        closed = true;
+        pages.clear();
+        currentIterator = Collections.emptyIterator();
+        nextPagePending = false;
+
+        if (inFlight != null)
+        {
+            inFlight.cancel(false);
+            inFlight = null;
+        }
+
+        notifyAll();
+    }
+
+    private void fetchIfRoom()
+    {
+        if (inFlight == null && nextPagePending && !closed && pages.size() < prefetchDepth)
+        {
+            nextPagePending = false;
+            fetch();
+        }
+    }
+
+    private void fetch()
+    {
+        final RiakFuture<R, ?> future = fetchPage();
+        inFlight = future;
+        future.addListener(this::handle);
+    }
+
+    private synchronized void handle(RiakFuture<R, ?> future)
+    {
+        if (future != inFlight)
+        {
+            // Cancelled by close()
+            return;
+        }
+
+        inFlight = null;
+
+        if (future.isSuccess())
+        {
+            final R response = future.getNow();
+            final P page = convertPage(response);
+            pages.add(page);
+
+            try
+            {
+                if (advance(response, page))
+                {
+                    nextPagePending = true;
+                    fetchIfRoom();
+                }
+                else
+                {
+                    lastPageReceived = true;
+                }
+            }
+            catch (RuntimeException ex)
+            {
+                failure = ex;
+            }
+        }
+        else
+        {
+            failure = future.cause();
+        }
+
+        notifyAll();
+    }
+}
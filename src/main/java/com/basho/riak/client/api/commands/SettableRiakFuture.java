@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basho.riak.client.api.commands;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A RiakFuture that is completed explicitly by its creator.
+ * <p>
+ * Used by commands that are not backed by a single core operation, e.g. ones
+ * that are answered from a client-side cache or that combine the results of
+ * several operations.
+ * </p>
+ *
+ * @param <T> The response type
+ * @param <S> The query info type
+ * @since 2.1.2
+ */
+public class SettableRiakFuture<T,S> extends ListenableFuture<T,S>
+{
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final S queryInfo;
+    private volatile T response;
+    private volatile Throwable exception;
+
+    public SettableRiakFuture(S queryInfo)
+    {
+        this.queryInfo = queryInfo;
+    }
+
+    /**
+     * Create a future that is already completed with the supplied response.
+     * @param response the response.
+     * @param queryInfo the query info.
+     * @return a completed future.
+     */
+    public static <T,S> SettableRiakFuture<T,S> completed(T response, S queryInfo)
+    {
+        SettableRiakFuture<T,S> future = new SettableRiakFuture<>(queryInfo);
+        future.setResponse(response);
+        return future;
+    }
+
+    /**
+     * Complete this future successfully.
+     * <p>
+     * Has no effect if the future has already been completed.
+     * </p>
+     * @param response the response.
+     * @return true if this call completed the future.
+     */
+    public boolean setResponse(T response)
+    {
+        synchronized (latch)
+        {
+            if (isDone())
+            {
+                return false;
+            }
+            this.response = response;
+            latch.countDown();
+        }
+        notifyListeners();
+        return true;
+    }
+
+    /**
+     * Complete this future exceptionally.
+     * <p>
+     * Has no effect if the future has already been completed.
+     * </p>
+     * @param t the cause of the failure.
+     * @return true if this call completed the future.
+     */
+    public boolean setException(Throwable t)
+    {
+        synchronized (latch)
+        {
+            if (isDone())
+            {
+                return false;
+            }
+            this.exception = t;
+            latch.countDown();
+        }
+        notifyListeners();
+        return true;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning)
+    {
+        return false;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException
+    {
+        latch.await();
+
+        if (exception != null)
+        {
+            throw new ExecutionException(exception);
+        }
+        return response;
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+    {
+        if (!latch.await(timeout, unit))
+        {
+            throw new TimeoutException();
+        }
+        else if (exception != null)
+        {
+            throw new ExecutionException(exception);
+        }
+        return response;
+    }
+
+    @Override
+    public T getNow()
+    {
+        return response;
+    }
+
+    @Override
+    public boolean isCancelled()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean isDone()
+    {
+        return latch.getCount() != 1;
+    }
+
+    @Override
+    public void await() throws InterruptedException
+    {
+        latch.await();
+    }
+
+    @Override
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return latch.await(timeout, unit);
+    }
+
+    @Override
+    public boolean isSuccess()
+    {
+        return isDone() && exception == null;
+    }
+
+    @Override
+    public Throwable cause()
+    {
+        return exception;
+    }
+
+    @Override
+    public S getQueryInfo()
+    {
+        return queryInfo;
+    }
+}
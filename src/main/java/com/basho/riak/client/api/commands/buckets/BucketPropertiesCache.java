@@ -0,0 +1,277 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.buckets;
+
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.FetchBucketPropsOperation;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.client.core.util.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A client-side cache for {@link FetchBucketProperties}.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * Once installed via {@link com.basho.riak.client.api.RiakClient#setBucketPropertiesCache(BucketPropertiesCache)},
+ * bucket properties fetched through the client are cached per {@link Namespace}.
+ * </p>
+ * <p>
+ * When a cached entry is older than the refresh interval it is still served,
+ * but a single background fetch is started to refresh it; callers never wait
+ * for a refresh. Only entries older than the expiry interval (for example
+ * because refreshes keep failing) are fetched synchronously.
+ * {@link StoreBucketProperties} and {@link ResetBucketProperties} invalidate
+ * the namespace, and {@link StoreBucketTypeProperties} invalidates every
+ * namespace of the bucket type, when executed through the same client.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * client.setBucketPropertiesCache(new BucketPropertiesCache.Builder()
+ *                                     .withRefreshAfter(1, TimeUnit.MINUTES)
+ *                                     .build());
+ * BucketProperties props =
+ *     client.execute(new FetchBucketProperties.Builder(ns).build()).getBucketProperties();}</pre>
+ *
+ * @since 2.1.2
+ */
+public final class BucketPropertiesCache
+{
+    private final Logger logger = LoggerFactory.getLogger(BucketPropertiesCache.class);
+    private final LruCache<Namespace, Entry> cache;
+    private final long refreshAfterNanos;
+    private final long expireAfterNanos;
+
+    private BucketPropertiesCache(Builder builder)
+    {
+        this.cache = new LruCache<>(builder.maxEntries);
+        this.refreshAfterNanos = builder.refreshAfterNanos;
+        this.expireAfterNanos = builder.expireAfterNanos;
+    }
+
+    /**
+     * Execute a FetchBucketProperties command, answering it from the cache when possible.
+     * <p>
+     * This is used by the {@link com.basho.riak.client.api.RiakClient}; there
+     * should be no need to call it directly.
+     * </p>
+     * @param cluster the cluster to fetch from.
+     * @param fetch the command to execute.
+     * @return a future for the response.
+     */
+    public RiakFuture<FetchBucketPropsOperation.Response, Namespace> execute(RiakCluster cluster,
+                                                                            FetchBucketProperties fetch)
+    {
+        final Namespace namespace = fetch.getNamespace();
+        final Entry entry = cache.get(namespace);
+
+        if (entry != null)
+        {
+            final long age = System.nanoTime() - entry.loadedAt;
+
+            if (age < expireAfterNanos)
+            {
+                if (age >= refreshAfterNanos && entry.refreshing.compareAndSet(false, true))
+                {
+                    refresh(cluster, namespace, entry);
+                }
+                return SettableRiakFuture.completed(entry.response, namespace);
+            }
+        }
+
+        final SettableRiakFuture<FetchBucketPropsOperation.Response, Namespace> future =
+            new SettableRiakFuture<>(namespace);
+
+        cluster.execute(fetch.buildCoreOperation()).addListener(f ->
+        {
+            if (f.isSuccess())
+            {
+                cache.put(namespace, new Entry(f.getNow()));
+                future.setResponse(f.getNow());
+            }
+            else
+            {
+                future.setException(f.cause());
+            }
+        });
+
+        return future;
+    }
+
+    private void refresh(RiakCluster cluster, Namespace namespace, Entry entry)
+    {
+        logger.debug("Refreshing bucket properties for {}", namespace);
+
+        cluster.execute(new FetchBucketPropsOperation.Builder(namespace).build()).addListener(f ->
+        {
+            if (f.isSuccess())
+            {
+                // Don't resurrect an entry that was invalidated while refreshing
+                cache.replace(namespace, entry, new Entry(f.getNow()));
+            }
+            else
+            {
+                logger.warn("Refreshing bucket properties for {} failed", namespace, f.cause());
+                entry.refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Remove the cached properties for a namespace.
+     * @param namespace the namespace to invalidate.
+     */
+    public void invalidate(Namespace namespace)
+    {
+        cache.remove(namespace);
+    }
+
+    /**
+     * Remove the cached properties of every namespace in a bucket type.
+     * @param bucketType the bucket type to invalidate.
+     */
+    public void invalidateBucketType(BinaryValue bucketType)
+    {
+        cache.removeIf(namespace -> namespace.getBucketType().equals(bucketType));
+    }
+
+    /**
+     * Remove all cached properties.
+     */
+    public void invalidateAll()
+    {
+        cache.clear();
+    }
+
+    /**
+     * Returns the number of cached namespaces.
+     * @return the number of entries.
+     */
+    public int size()
+    {
+        return cache.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("{cache: %s, refreshAfterNanos: %d, expireAfterNanos: %d}",
+                             cache, refreshAfterNanos, expireAfterNanos);
+    }
+
+    private static final class Entry
+    {
+        private final FetchBucketPropsOperation.Response response;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(FetchBucketPropsOperation.Response response)
+        {
+            this.response = response;
+            this.loadedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Used to construct a BucketPropertiesCache.
+     */
+    public static class Builder
+    {
+        private long maxEntries = 1000;
+        private long refreshAfterNanos = TimeUnit.SECONDS.toNanos(30);
+        private long expireAfterNanos = TimeUnit.MINUTES.toNanos(10);
+
+        public Builder()
+        {
+        }
+
+        /**
+         * Set the maximum number of cached namespaces.
+         * <p>
+         * Defaults to 1000.
+         * </p>
+         * @param maxEntries the maximum number of entries.
+         * @return a reference to this object.
+         */
+        public Builder withMaxEntries(long maxEntries)
+        {
+            if (maxEntries <= 0)
+            {
+                throw new IllegalArgumentException("Max entries must be greater than zero.");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Set the age after which an entry is refreshed in the background.
+         * <p>
+         * Defaults to 30 seconds.
+         * </p>
+         * @param duration the refresh interval.
+         * @param unit the unit of time.
+         * @return a reference to this object.
+         */
+        public Builder withRefreshAfter(long duration, TimeUnit unit)
+        {
+            if (duration < 0)
+            {
+                throw new IllegalArgumentException("Refresh interval can not be negative.");
+            }
+            this.refreshAfterNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Set the age after which an entry is no longer served.
+         * <p>
+         * Defaults to 10 minutes. This bounds how stale properties can get
+         * when background refreshes fail.
+         * </p>
+         * @param duration the expiry interval.
+         * @param unit the unit of time.
+         * @return a reference to this object.
+         */
+        public Builder withExpireAfter(long duration, TimeUnit unit)
+        {
+            if (duration < 0)
+            {
+                throw new IllegalArgumentException("Expiry interval can not be negative.");
+            }
+            this.expireAfterNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Construct the BucketPropertiesCache.
+         * @return a new BucketPropertiesCache.
+         */
+        public BucketPropertiesCache build()
+        {
+            if (expireAfterNanos < refreshAfterNanos)
+            {
+                throw new IllegalStateException("Expiry interval must not be shorter than the refresh interval.");
+            }
+            return new BucketPropertiesCache(this);
+        }
+    }
+}
@@ -49,6 +49,11 @@ public final class FetchBucketProperties extends AsIsRiakCommand<FetchBucketProp
         this.namespace = builder.namespace;
     }
 
+    Namespace getNamespace()
+    {
+        return namespace;
+    }
+
     @Override
     protected FetchBucketPropsOperation buildCoreOperation()
     {
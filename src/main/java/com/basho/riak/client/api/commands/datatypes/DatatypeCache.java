@@ -0,0 +1,398 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.datatypes;
+
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.DtFetchOperation;
+import com.basho.riak.client.core.operations.DtUpdateOperation;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.crdt.types.RiakDatatype;
+import com.basho.riak.client.core.util.LruCache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A client-side near-cache for datatype (CRDT) fetches.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * Once installed via {@link com.basho.riak.client.api.RiakClient#setDatatypeCache(DatatypeCache)},
+ * {@link FetchCounter}, {@link FetchSet}, {@link FetchMap} and {@link FetchHll}
+ * commands executed through the client are answered from a bounded, least recently
+ * used cache of the fetched datatype and its opaque {@link Context}, keyed by
+ * {@link Location}, command and fetch options. The parsed datatype is kept, so
+ * a cached {@link FetchMap} does not rebuild the
+ * {@link com.basho.riak.client.core.query.crdt.types.RiakMap} tree. A fetch
+ * with quorum options is only answered from an entry filled by a fetch with
+ * the same options.
+ * </p>
+ * <p>
+ * Entries expire after the configured time to live. An {@link UpdateDatatype}
+ * executed through the same client refreshes the entry when it returns the
+ * updated datatype (see {@link UpdateDatatype.Builder#withReturnDatatype(boolean)})
+ * and invalidates it otherwise.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * client.setDatatypeCache(new DatatypeCache.Builder()
+ *                             .withMaxEntries(10000)
+ *                             .withTimeToLive(5, TimeUnit.SECONDS)
+ *                             .build());
+ * RiakMap flags = client.execute(new FetchMap.Builder(loc).build()).getDatatype();}</pre>
+ * <p>
+ * Datatypes not found in Riak are not cached.
+ * </p>
+ *
+ * @since 2.1.2
+ */
+public final class DatatypeCache
+{
+    private final LruCache<Key, Entry> cache;
+    private final long timeToLiveNanos;
+    private final AtomicLong generation = new AtomicLong();
+
+    private DatatypeCache(Builder builder)
+    {
+        this.cache = new LruCache<>(builder.maxEntries);
+        this.timeToLiveNanos = builder.timeToLiveNanos;
+    }
+
+    /**
+     * Execute a datatype fetch, answering it from the cache when possible.
+     * <p>
+     * This is used by the {@link com.basho.riak.client.api.RiakClient}; there
+     * should be no need to call it directly.
+     * </p>
+     * @param cluster the cluster to fetch from on a miss.
+     * @param fetch the command to execute.
+     * @return a future for the response.
+     */
+    public <T extends RiakDatatype, S> RiakFuture<S, Location> execute(RiakCluster cluster,
+                                                                      FetchDatatype<T, S> fetch)
+    {
+        final Key key = new Key(fetch.getLocation(), fetch.getClass(), fetch.includesContext(),
+                                fetch.getReadOptions());
+        final Entry entry = cache.get(key);
+        final SettableRiakFuture<S, Location> future = new SettableRiakFuture<>(key.location);
+
+        if (entry != null && System.nanoTime() - entry.loadedAt < timeToLiveNanos)
+        {
+            try
+            {
+                future.setResponse(fetch.convertCoreResponse(entry.response));
+            }
+            catch (RuntimeException ex)
+            {
+                future.setException(ex);
+            }
+            return future;
+        }
+        final DtFetchOperation operation = fetch.buildCoreOperation();
+        final long fetchedAt = generation.get();
+
+        cluster.execute(operation).addListener(f ->
+        {
+            if (!f.isSuccess())
+            {
+                future.setException(f.cause());
+                return;
+            }
+
+            final DtFetchOperation.Response response = f.getNow();
+            final S converted;
+            try
+            {
+                converted = fetch.convertCoreResponse(response);
+            }
+            catch (RuntimeException ex)
+            {
+                // Don't cache a datatype the command can't read
+                cache.remove(key);
+                future.setException(ex);
+                return;
+            }
+
+            if (response.isNotFound())
+            {
+                cache.remove(key);
+            }
+            else
+            {
+                cache.put(key, new Entry(response));
+                if (generation.get() != fetchedAt)
+                {
+                    // Invalidated while the datatype was being fetched
+                    cache.remove(key);
+                }
+            }
+            future.setResponse(converted);
+        });
+
+        return future;
+    }
+
+    /**
+     * Execute a datatype update, refreshing or invalidating the cached value.
+     * <p>
+     * This is used by the {@link com.basho.riak.client.api.RiakClient}; there
+     * should be no need to call it directly.
+     * </p>
+     * @param cluster the cluster to execute the update on.
+     * @param update the command to execute.
+     * @return a future for the response.
+     */
+    public <T extends RiakDatatype, S> RiakFuture<S, Location> execute(RiakCluster cluster,
+                                                                      UpdateDatatype<T, S> update)
+    {
+        final Location location = update.getLocation();
+        final FutureOperation<DtUpdateOperation.Response, ?, Location> operation = update.buildCoreOperation();
+
+        if (location != null)
+        {
+            invalidate(location);
+        }
+
+        final SettableRiakFuture<S, Location> future = new SettableRiakFuture<>(operation.getQueryInfo());
+
+        cluster.execute(operation).addListener(f ->
+        {
+            if (location != null)
+            {
+                invalidate(location);
+            }
+
+            if (!f.isSuccess())
+            {
+                future.setException(f.cause());
+                return;
+            }
+
+            final DtUpdateOperation.Response response = f.getNow();
+            if (location != null && isCacheable(response))
+            {
+                cache.put(new Key(location, fetchType(response.getCrdtElement()), true,
+                                  Collections.<FetchDatatype.Option<?>, Object>emptyMap()),
+                          new Entry(response));
+            }
+
+            try
+            {
+                future.setResponse(update.convertCoreResponse(operation, response));
+            }
+            catch (RuntimeException ex)
+            {
+                future.setException(ex);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Counters and HyperLogLogs have no context; other datatypes need one to be
+     * usable for further updates.
+     */
+    private static boolean isCacheable(DtUpdateOperation.Response response)
+    {
+        if (!response.hasCrdtElement())
+        {
+            return false;
+        }
+
+        final RiakDatatype element = response.getCrdtElement();
+        return response.hasContext() || element.isCounter() || element.isHll();
+    }
+
+    /**
+     * The fetch command that reads the supplied datatype, so an update can
+     * fill the entry a later default fetch of it looks up.
+     */
+    private static Class<?> fetchType(RiakDatatype element)
+    {
+        if (element.isMap())
+        {
+            return FetchMap.class;
+        }
+        else if (element.isSet())
+        {
+            return FetchSet.class;
+        }
+        else if (element.isCounter())
+        {
+            return FetchCounter.class;
+        }
+        else
+        {
+            return FetchHll.class;
+        }
+    }
+
+    /**
+     * Remove the cached datatype for a location.
+     * @param location the location to invalidate.
+     */
+    public void invalidate(Location location)
+    {
+        generation.incrementAndGet();
+        cache.removeIf(key -> key.location.equals(location));
+    }
+
+    /**
+     * Remove all cached datatypes.
+     */
+    public void invalidateAll()
+    {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Returns the number of cached entries.
+     * @return the number of entries.
+     */
+    public int size()
+    {
+        return cache.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("{cache: %s, timeToLiveNanos: %d}", cache, timeToLiveNanos);
+    }
+
+    private static final class Key
+    {
+        private final Location location;
+        private final Class<?> type;
+        private final boolean includeContext;
+        private final Map<FetchDatatype.Option<?>, Object> options;
+
+        private Key(Location location, Class<?> type, boolean includeContext,
+                    Map<FetchDatatype.Option<?>, Object> options)
+        {
+            this.location = location;
+            this.type = type;
+            this.includeContext = includeContext;
+            this.options = options;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            Key other = (Key) o;
+            return includeContext == other.includeContext
+                && type == other.type
+                && location.equals(other.location)
+                && options.equals(other.options);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = location.hashCode();
+            result = 31 * result + type.hashCode();
+            result = 31 * result + (includeContext ? 1 : 0);
+            result = 31 * result + options.hashCode();
+            return result;
+        }
+    }
+
+    private static final class Entry
+    {
+        private final DtFetchOperation.Response response;
+        private final long loadedAt;
+
+        private Entry(DtFetchOperation.Response response)
+        {
+            this.response = response;
+            this.loadedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Used to construct a DatatypeCache.
+     */
+    public static class Builder
+    {
+        private long maxEntries = 10000;
+        private long timeToLiveNanos = TimeUnit.SECONDS.toNanos(1);
+
+        public Builder()
+        {
+        }
+
+        /**
+         * Set the maximum number of cached datatypes.
+         * <p>
+         * Defaults to 10000.
+         * </p>
+         * @param maxEntries the maximum number of entries.
+         * @return a reference to this object.
+         */
+        public Builder withMaxEntries(long maxEntries)
+        {
+            if (maxEntries <= 0)
+            {
+                throw new IllegalArgumentException("Max entries must be greater than zero.");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Set how long a cached datatype is served without contacting Riak.
+         * <p>
+         * Defaults to one second.
+         * </p>
+         * @param duration the time to live.
+         * @param unit the unit of time.
+         * @return a reference to this object.
+         */
+        public Builder withTimeToLive(long duration, TimeUnit unit)
+        {
+            if (duration < 0)
+            {
+                throw new IllegalArgumentException("Time to live can not be negative.");
+            }
+            this.timeToLiveNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Construct the DatatypeCache.
+         * @return a new DatatypeCache.
+         */
+        public DatatypeCache build()
+        {
+            return new DatatypeCache(this);
+        }
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.datatypes;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.util.BinaryValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind aggregation of counter and HyperLogLog updates.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * Rather than sending one {@link UpdateCounter} or {@link UpdateHll} per
+ * event, updates are merged locally per {@link Location}: counter deltas are
+ * summed and HyperLogLog elements are collected into a set. The merged updates
+ * are sent to Riak when the flush interval elapses or as soon as the number of
+ * pending locations reaches the configured threshold, so the number of
+ * operations is one per location per flush rather than one per event.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * DatatypeUpdateBatcher batcher = new DatatypeUpdateBatcher.Builder(client)
+ *                                     .withFlushInterval(500, TimeUnit.MILLISECONDS)
+ *                                     .withMaxPendingLocations(10000)
+ *                                     .build();
+ * batcher.increment(pageViews, 1);
+ * batcher.addToHll(uniqueVisitors, BinaryValue.create(visitorId));
+ * ...
+ * batcher.shutdown();}</pre>
+ * <p>
+ * <b>This trades durability for throughput.</b> Updates only held in memory
+ * are lost if the process dies; the loss window is bounded by the flush
+ * interval (plus the time taken by the flush itself). A flushed update
+ * that fails is logged and counted in {@link #getFailedUpdateCount()} but
+ * not retried, as re-sending a counter increment whose outcome is unknown
+ * could apply it twice. Call {@link #shutdown()} to flush pending updates
+ * before the {@link RiakClient} is shut down.
+ * </p>
+ *
+ * @since 2.1.2
+ */
+public final class DatatypeUpdateBatcher
+{
+    private final Logger logger = LoggerFactory.getLogger(DatatypeUpdateBatcher.class);
+
+    private final RiakClient client;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int maxPendingLocations;
+    private final ScheduledFuture<?> flushTask;
+
+    private final ConcurrentHashMap<Location, Long> counterDeltas = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Location, Set<BinaryValue>> hllAdds = new ConcurrentHashMap<>();
+    private final Set<RiakFuture<?, ?>> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong sentUpdates = new AtomicLong();
+    private final AtomicLong failedUpdates = new AtomicLong();
+    private volatile boolean shutdown;
+
+    private DatatypeUpdateBatcher(Builder builder)
+    {
+        this.client = builder.client;
+        this.maxPendingLocations = builder.maxPendingLocations;
+
+        if (builder.executor == null)
+        {
+            this.executor = Executors.newSingleThreadScheduledExecutor(r ->
+            {
+                Thread t = new Thread(r, "riak-datatype-batcher");
+                t.setDaemon(true);
+                return t;
+            });
+            this.ownsExecutor = true;
+        }
+        else
+        {
+            this.executor = builder.executor;
+            this.ownsExecutor = false;
+        }
+
+        this.flushTask = executor.scheduleWithFixedDelay(this::flush, builder.flushIntervalNanos,
+                                                         builder.flushIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Add a delta to the counter at a location.
+     * @param location the location of the counter.
+     * @param delta the value to add; negative to decrement.
+     */
+    public void increment(Location location, long delta)
+    {
+        checkState();
+        counterDeltas.merge(location, delta, Long::sum);
+        checkThreshold();
+    }
+
+    /**
+     * Merge a counter update for a location.
+     * @param location the location of the counter.
+     * @param update the update.
+     */
+    public void update(Location location, CounterUpdate update)
+    {
+        increment(location, update.getDelta());
+    }
+
+    /**
+     * Add elements to the HyperLogLog at a location.
+     * @param location the location of the HyperLogLog.
+     * @param elements the elements to add.
+     */
+    public void addToHll(Location location, Collection<BinaryValue> elements)
+    {
+        checkState();
+        if (elements.isEmpty())
+        {
+            return;
+        }
+
+        hllAdds.compute(location, (loc, pending) ->
+        {
+            Set<BinaryValue> set = pending == null ? new HashSet<>() : pending;
+            set.addAll(elements);
+            return set;
+        });
+        checkThreshold();
+    }
+
+    /**
+     * Add an element to the HyperLogLog at a location.
+     * @param location the location of the HyperLogLog.
+     * @param element the element to add.
+     */
+    public void addToHll(Location location, BinaryValue element)
+    {
+        checkState();
+        hllAdds.compute(location, (loc, pending) ->
+        {
+            Set<BinaryValue> set = pending == null ? new HashSet<>() : pending;
+            set.add(element);
+            return set;
+        });
+        checkThreshold();
+    }
+
+    /**
+     * Merge a HyperLogLog update for a location.
+     * @param location the location of the HyperLogLog.
+     * @param update the update.
+     */
+    public void update(Location location, HllUpdate update)
+    {
+        addToHll(location, update.getElementAdds());
+    }
+
+    /**
+     * Send all pending updates to Riak now.
+     * <p>
+     * This does not wait for the updates to complete.
+     * </p>
+     * @return the number of update operations sent.
+     */
+    public int flush()
+    {
+        flushScheduled.set(false);
+        int sent = 0;
+
+        for (Location location : counterDeltas.keySet())
+        {
+            final Long delta = counterDeltas.remove(location);
+            if (delta != null && delta != 0)
+            {
+                send(new UpdateCounter.Builder(location, new CounterUpdate(delta)).build());
+                sent++;
+            }
+        }
+
+        for (Location location : hllAdds.keySet())
+        {
+            final Set<BinaryValue> elements = hllAdds.remove(location);
+            if (elements != null)
+            {
+                send(new UpdateHll.Builder(location, new HllUpdate().addAllBinary(elements)).build());
+                sent++;
+            }
+        }
+
+        if (sent > 0)
+        {
+            logger.debug("Flushed {} datatype updates", sent);
+        }
+        return sent;
+    }
+
+    /**
+     * Flush pending updates, wait for all sent updates to complete and stop
+     * the background flush.
+     * <p>
+     * Further updates are rejected with an {@link IllegalStateException}.
+     * </p>
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void shutdown() throws InterruptedException
+    {
+        shutdown = true;
+        flushTask.cancel(false);
+        if (ownsExecutor)
+        {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        flush();
+
+        for (RiakFuture<?, ?> future : inFlight)
+        {
+            future.await();
+        }
+    }
+
+    /**
+     * Returns the number of locations with updates that have not been sent.
+     * @return the number of pending locations.
+     */
+    public int getPendingLocationCount()
+    {
+        return counterDeltas.size() + hllAdds.size();
+    }
+
+    /**
+     * Returns the number of update operations sent to Riak.
+     * @return the number of operations sent.
+     */
+    public long getSentUpdateCount()
+    {
+        return sentUpdates.get();
+    }
+
+    /**
+     * Returns the number of update operations that failed.
+     * <p>
+     * The merged updates of a failed operation are not retried.
+     * </p>
+     * @return the number of failed operations.
+     */
+    public long getFailedUpdateCount()
+    {
+        return failedUpdates.get();
+    }
+
+    private void send(UpdateDatatype<?, ?> update)
+    {
+        final RiakFuture<?, Location> future;
+        try
+        {
+            future = client.executeAsync(update);
+        }
+        catch (RuntimeException ex)
+        {
+            // Don't let one bad update stop the periodic flush
+            failedUpdates.incrementAndGet();
+            logger.warn("Batched datatype update could not be sent", ex);
+            return;
+        }
+
+        sentUpdates.incrementAndGet();
+        inFlight.add(future);
+
+        future.addListener(f ->
+        {
+            inFlight.remove(f);
+            if (!f.isSuccess())
+            {
+                failedUpdates.incrementAndGet();
+                logger.warn("Batched datatype update for {} failed", f.getQueryInfo(), f.cause());
+            }
+        });
+    }
+
+    private void checkState()
+    {
+        if (shutdown)
+        {
+            throw new IllegalStateException("Batcher has been shut down.");
+        }
+    }
+
+    private void checkThreshold()
+    {
+        if (getPendingLocationCount() >= maxPendingLocations && flushScheduled.compareAndSet(false, true))
+        {
+            executor.execute(this::flush);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("{pending: %d, sent: %d, failed: %d}",
+                             getPendingLocationCount(), sentUpdates.get(), failedUpdates.get());
+    }
+
+    /**
+     * Used to construct a DatatypeUpdateBatcher.
+     */
+    public static class Builder
+    {
+        private final RiakClient client;
+        private long flushIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+        private int maxPendingLocations = 10000;
+        private ScheduledExecutorService executor;
+
+        /**
+         * Construct a Builder for a DatatypeUpdateBatcher.
+         * @param client the client used to send the updates.
+         */
+        public Builder(RiakClient client)
+        {
+            if (client == null)
+            {
+                throw new IllegalArgumentException("Client cannot be null");
+            }
+            this.client = client;
+        }
+
+        /**
+         * Set how often pending updates are flushed.
+         * <p>
+         * Defaults to one second. This is the window of updates that can be
+         * lost if the process dies.
+         * </p>
+         * @param duration the flush interval.
+         * @param unit the unit of time.
+         * @return a reference to this object.
+         */
+        public Builder withFlushInterval(long duration, TimeUnit unit)
+        {
+            if (duration <= 0)
+            {
+                throw new IllegalArgumentException("Flush interval must be greater than zero.");
+            }
+            this.flushIntervalNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Set the number of pending locations that triggers an early flush.
+         * <p>
+         * Defaults to 10000.
+         * </p>
+         * @param maxPendingLocations the flush threshold.
+         * @return a reference to this object.
+         */
+        public Builder withMaxPendingLocations(int maxPendingLocations)
+        {
+            if (maxPendingLocations <= 0)
+            {
+                throw new IllegalArgumentException("Max pending locations must be greater than zero.");
+            }
+            this.maxPendingLocations = maxPendingLocations;
+            return this;
+        }
+
+        /**
+         * Set the executor used to run flushes.
+         * <p>
+         * By default a single daemon thread is created and stopped on
+         * {@link DatatypeUpdateBatcher#shutdown()}. A supplied executor is
+         * not shut down.
+         * </p>
+         * @param executor the executor.
+         * @return a reference to this object.
+         */
+        public Builder withExecutor(ScheduledExecutorService executor)
+        {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Construct the DatatypeUpdateBatcher.
+         * @return a new DatatypeUpdateBatcher.
+         */
+        public DatatypeUpdateBatcher build()
+        {
+            return new DatatypeUpdateBatcher(this);
+        }
+    }
+}
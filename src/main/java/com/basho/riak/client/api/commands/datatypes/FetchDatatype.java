@@ -23,6 +23,7 @@ import com.basho.riak.client.core.operations.DtFetchOperation;
 import com.basho.riak.client.core.query.Location;
 import com.basho.riak.client.core.query.crdt.types.RiakDatatype;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -57,6 +58,40 @@ public abstract class FetchDatatype<T extends RiakDatatype,S> extends
 
     public abstract T extractDatatype(RiakDatatype element);
 
+    @Override
+    protected Object getSingleFlightKey()
+    {
+        // The options can still be changed through withOption(), so they are copied
+        return Arrays.asList(getClass(), location, new HashMap<>(options));
+    }
+
+    @Override
+    protected Location getSingleFlightQueryInfo()
+    {
+        return location;
+    }
+
+    boolean includesContext()
+    {
+        return !Boolean.FALSE.equals(options.get(Option.INCLUDE_CONTEXT));
+    }
+
+    /**
+     * The options other than {@link Option#INCLUDE_CONTEXT}, which
+     * {@link #includesContext()} covers.
+     */
+    Map<Option<?>, Object> getReadOptions()
+    {
+        final Map<Option<?>, Object> readOptions = new HashMap<>(options);
+        readOptions.remove(Option.INCLUDE_CONTEXT);
+        return readOptions;
+    }
+
+    S convertCoreResponse(DtFetchOperation.Response coreResponse)
+    {
+        return convertResponse(null, coreResponse);
+    }
+
     @Override
     protected final DtFetchOperation buildCoreOperation()
     {
@@ -102,6 +137,32 @@ public abstract class FetchDatatype<T extends RiakDatatype,S> extends
         return builder.build();
     }
 
+    @Override
+    public int hashCode()
+    {
+        int result = getClass().hashCode();
+        result = 31 * result + (location != null ? location.hashCode() : 0);
+        result = 31 * result + options.hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass())
+        {
+            return false;
+        }
+
+        final FetchDatatype<?,?> other = (FetchDatatype<?,?>) obj;
+        return (location != null ? location.equals(other.location) : other.location == null)
+            && options.equals(other.options);
+    }
+
     /**
      * Tuning parameters for all datatype fetch commands.
      * @author Dave Rusek <drusek at basho dot com>
@@ -54,6 +54,17 @@ public abstract class UpdateDatatype<T extends RiakDatatype,S>
         this.options.putAll(builder.options);
     }
 
+    Location getLocation()
+    {
+        return key != null ? new Location(namespace, key) : null;
+    }
+
+    S convertCoreResponse(FutureOperation<DtUpdateOperation.Response, ?, Location> request,
+                          DtUpdateOperation.Response coreResponse)
+    {
+        return convertResponse(request, coreResponse);
+    }
+
     @Override
     protected FutureOperation<DtUpdateOperation.Response, ?, Location> buildCoreOperation()
     {
@@ -0,0 +1,795 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.indexes;
+
+import com.basho.riak.client.api.RiakCommand;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.StreamingRiakFuture;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.query.indexes.IndexNames;
+import com.basho.riak.client.core.util.BinaryValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combines several 2i queries on a bucket with AND, OR and NOT.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * Riak only supports querying a single index at a time. This command runs
+ * every query in streaming mode with pagination sort enabled, so that each
+ * one returns its keys in key order, and combines the streams with a sorted
+ * merge as they arrive. The matching locations are streamed back without
+ * the key sets ever being held in memory; only the head of each stream is
+ * kept while merging.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * Namespace ns = new Namespace("my_type", "my_bucket");
+ * BinIndexQuery red = new BinIndexQuery.Builder(ns, "colour", "red").build();
+ * IntIndexQuery large = new IntIndexQuery.Builder(ns, "size", 10L).build();
+ * BinIndexQuery sold = new BinIndexQuery.Builder(ns, "status", "sold").build();
+ *
+ * CombinedIndexQuery q = new CombinedIndexQuery.Builder(
+ *     and(match(red), match(large), not(match(sold)))).build();
+ * CombinedIndexQuery.Response response = client.execute(q);
+ *
+ * for (Location location : response)
+ * {
+ *     ...
+ * }}</pre>
+ * <p>
+ * Only exact match queries, and queries on the {@code $bucket} and
+ * {@code $key} indexes, return their keys in key order, so range queries on
+ * other indexes cannot be combined. NOT can only be used as an operand of
+ * AND alongside at least one other operand.
+ * </p>
+ * <p>
+ * The response is available straight away and is computed as it is iterated.
+ * If one of the queries fails, the iterator throws a {@link RuntimeException}
+ * wrapping the cause. A query whose results can no longer change the outcome,
+ * such as the other operands of an AND once one runs out, stops queueing its
+ * results; call {@link Response#close()} to stop them all when iteration
+ * ends early.
+ * </p>
+ *
+ * @since 2.1.2
+ */
+public class CombinedIndexQuery extends RiakCommand<CombinedIndexQuery.Response, Namespace>
+{
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Term term;
+    private final Namespace namespace;
+
+    private CombinedIndexQuery(Builder builder)
+    {
+        this.term = builder.term;
+        this.namespace = builder.namespace;
+    }
+
+    /**
+     * The keys matched by a single 2i query.
+     *
+     * @param query an exact match query, or a query on $bucket or $key.
+     * @return a term for the query.
+     * @throws IllegalArgumentException if the query does not return its keys in key order.
+     */
+    public static Term match(SecondaryIndexQuery<?, ?, ?> query)
+    {
+        return new MatchTerm(query);
+    }
+
+    /**
+     * The keys matched by all of the supplied terms.
+     *
+     * @param terms the terms; at least one must not be a NOT.
+     * @return the intersection of the terms.
+     */
+    public static Term and(Term... terms)
+    {
+        return new AndTerm(Arrays.asList(terms));
+    }
+
+    /**
+     * The keys matched by any of the supplied terms.
+     *
+     * @param terms the terms, none of which can be a NOT.
+     * @return the union of the terms.
+     */
+    public static Term or(Term... terms)
+    {
+        return new OrTerm(Arrays.asList(terms));
+    }
+
+    /**
+     * The keys not matched by a term, as an operand of {@link #and(Term...)}.
+     *
+     * @param term the term to exclude.
+     * @return the negation of the term.
+     */
+    public static Term not(Term term)
+    {
+        return new NotTerm(term);
+    }
+
+    @Override
+    protected RiakFuture<Response, Namespace> executeAsync(RiakCluster cluster)
+    {
+        return SettableRiakFuture.completed(new Response(namespace, term.open(cluster)), namespace);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CombinedIndexQuery {namespace: " + namespace + ", term: " + term + "}";
+    }
+
+    /**
+     * Used to construct a CombinedIndexQuery command.
+     */
+    public static class Builder
+    {
+        private final Term term;
+        private final Namespace namespace;
+
+        /**
+         * Construct a Builder for a CombinedIndexQuery.
+         *
+         * @param term the combination of queries to run.
+         * @throws IllegalArgumentException if the term is a NOT, or if the
+         * queries are not all on the same namespace.
+         */
+        public Builder(Term term)
+        {
+            if (term instanceof NotTerm)
+            {
+                throw new IllegalArgumentException("NOT can only be used as an operand of AND");
+            }
+
+            final List<SecondaryIndexQuery<?, ?, ?>> queries = new ArrayList<>();
+            term.collectQueries(queries);
+            this.namespace = queries.get(0).getNamespace();
+            for (SecondaryIndexQuery<?, ?, ?> query : queries)
+            {
+                if (!namespace.equals(query.getNamespace()))
+                {
+                    throw new IllegalArgumentException("All queries must be on the same namespace");
+                }
+            }
+
+            this.term = term;
+        }
+
+        /**
+         * Construct the CombinedIndexQuery.
+         *
+         * @return a new CombinedIndexQuery.
+         */
+        public CombinedIndexQuery build()
+        {
+            return new CombinedIndexQuery(this);
+        }
+    }
+
+    /**
+     * A combination of 2i queries.
+     *
+     * @see CombinedIndexQuery#match(SecondaryIndexQuery)
+     * @see CombinedIndexQuery#and(Term...)
+     * @see CombinedIndexQuery#or(Term...)
+     * @see CombinedIndexQuery#not(Term)
+     */
+    public static abstract class Term
+    {
+        private Term()
+        {
+        }
+
+        abstract void collectQueries(List<SecondaryIndexQuery<?, ?, ?>> queries);
+
+        abstract Cursor open(RiakCluster cluster);
+    }
+
+    private static class MatchTerm extends Term
+    {
+        private final SecondaryIndexQuery<?, ?, ?> query;
+
+        private MatchTerm(SecondaryIndexQuery<?, ?, ?> query)
+        {
+            if (query.getMatchValue() == null
+                && !IndexNames.BUCKET.equals(query.getIndexName())
+                && !IndexNames.KEY.equals(query.getIndexName()))
+            {
+                throw new IllegalArgumentException(
+                    "Range queries on " + query.getIndexName() + " do not return keys in key order");
+            }
+            if (query.getMaxResults() != null)
+            {
+                throw new IllegalArgumentException("Paginated queries cannot be combined");
+            }
+            this.query = query;
+        }
+
+        @Override
+        void collectQueries(List<SecondaryIndexQuery<?, ?, ?>> queries)
+        {
+            queries.add(query);
+        }
+
+        @Override
+        Cursor open(RiakCluster cluster)
+        {
+            final SecondaryIndexQueryOperation.Query coreQuery =
+                query.createCoreQueryBuilder(query.getContinuation())
+                     .withPaginationSort(true)
+                     .build();
+            final SecondaryIndexQueryOperation operation =
+                new SecondaryIndexQueryOperation.Builder(coreQuery).streamResults(true).build();
+            return new QueryCursor(operation, cluster.execute(operation));
+        }
+
+        @Override
+        public String toString()
+        {
+            return query.getIndexName() + "=" + (query.getMatchValue() != null ? query.getMatchValue()
+                                                   : query.getRangeStart() + ".." + query.getRangeEnd());
+        }
+    }
+
+    private static abstract class CompositeTerm extends Term
+    {
+        final List<Term> terms;
+
+        private CompositeTerm(List<Term> terms)
+        {
+            if (terms.isEmpty())
+            {
+                throw new IllegalArgumentException("At least one term must be supplied");
+            }
+            this.terms = terms;
+        }
+
+        @Override
+        void collectQueries(List<SecondaryIndexQuery<?, ?, ?>> queries)
+        {
+            for (Term term : terms)
+            {
+                term.collectQueries(queries);
+            }
+        }
+
+        String toString(String operator)
+        {
+            final StringBuilder sb = new StringBuilder(operator).append('(');
+            for (int i = 0; i < terms.size(); i++)
+            {
+                sb.append(i == 0 ? "" : ", ").append(terms.get(i));
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+    private static class AndTerm extends CompositeTerm
+    {
+        private AndTerm(List<Term> terms)
+        {
+            super(terms);
+            for (Term term : terms)
+            {
+                if (!(term instanceof NotTerm))
+                {
+                    return;
+                }
+            }
+            throw new IllegalArgumentException("AND needs at least one operand that is not a NOT");
+        }
+
+        @Override
+        Cursor open(RiakCluster cluster)
+        {
+            final List<Cursor> included = new ArrayList<>();
+            final List<Cursor> excluded = new ArrayList<>();
+            for (Term term : terms)
+            {
+                if (term instanceof NotTerm)
+                {
+                    excluded.add(((NotTerm) term).term.open(cluster));
+                }
+                else
+                {
+                    included.add(term.open(cluster));
+                }
+            }
+            return new AndCursor(included, excluded);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toString("AND");
+        }
+    }
+
+    private static class OrTerm extends CompositeTerm
+    {
+        private OrTerm(List<Term> terms)
+        {
+            super(terms);
+            for (Term term : terms)
+            {
+                if (term instanceof NotTerm)
+                {
+                    throw new IllegalArgumentException("NOT can only be used as an operand of AND");
+                }
+            }
+        }
+
+        @Override
+        Cursor open(RiakCluster cluster)
+        {
+            final List<Cursor> cursors = new ArrayList<>();
+            for (Term term : terms)
+            {
+                cursors.add(term.open(cluster));
+            }
+            return new OrCursor(cursors);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toString("OR");
+        }
+    }
+
+    private static class NotTerm extends Term
+    {
+        private final Term term;
+
+        private NotTerm(Term term)
+        {
+            if (term instanceof NotTerm)
+            {
+                throw new IllegalArgumentException("NOT cannot be nested directly");
+            }
+            this.term = term;
+        }
+
+        @Override
+        void collectQueries(List<SecondaryIndexQuery<?, ?, ?>> queries)
+        {
+            term.collectQueries(queries);
+        }
+
+        @Override
+        Cursor open(RiakCluster cluster)
+        {
+            throw new IllegalStateException("NOT can only be used as an operand of AND");
+        }
+
+        @Override
+        public String toString()
+        {
+            return "NOT(" + term + ")";
+        }
+    }
+
+    /**
+     * Compares keys the way Riak orders them: as unsigned bytes.
+     */
+    static int compare(BinaryValue a, BinaryValue b)
+    {
+        final byte[] x = a.unsafeGetValue();
+        final byte[] y = b.unsafeGetValue();
+        final int length = Math.min(x.length, y.length);
+        for (int i = 0; i < length; i++)
+        {
+            final int diff = (x[i] & 0xff) - (y[i] & 0xff);
+            if (diff != 0)
+            {
+                return diff;
+            }
+        }
+        return x.length - y.length;
+    }
+
+    /**
+     * A stream of distinct keys in ascending order.
+     * <p>
+     * A cursor closes itself once it is exhausted, stopping the queries
+     * behind it.
+     * </p>
+     */
+    static abstract class Cursor
+    {
+        private BinaryValue head;
+        private volatile boolean closed;
+
+        /**
+         * The current key, or null once the stream is exhausted.
+         */
+        final BinaryValue head()
+        {
+            return head;
+        }
+
+        /**
+         * Move to the next key.
+         *
+         * @return the new head, or null once the stream is exhausted.
+         */
+        final BinaryValue advance()
+        {
+            head = closed ? null : next();
+            if (head == null)
+            {
+                close();
+            }
+            return head;
+        }
+
+        /**
+         * Move to the first key that is not less than the target.
+         *
+         * @return the new head, or null once the stream is exhausted.
+         */
+        final BinaryValue seek(BinaryValue target)
+        {
+            while (head != null && compare(head, target) < 0)
+            {
+                advance();
+            }
+            return head;
+        }
+
+        /**
+         * Stop the queries behind this cursor; it is exhausted from then on.
+         * <p>
+         * Only releases what is safe to touch from another thread, so a
+         * response can be closed while it is being iterated.
+         * </p>
+         */
+        final void close()
+        {
+            if (!closed)
+            {
+                closed = true;
+                release();
+            }
+        }
+
+        final boolean isClosed()
+        {
+            return closed;
+        }
+
+        abstract BinaryValue next();
+
+        abstract void release();
+    }
+
+    private static class QueryCursor extends Cursor
+    {
+        private final SecondaryIndexQueryOperation operation;
+        private final StreamingRiakFuture<SecondaryIndexQueryOperation.Response,
+                                          SecondaryIndexQueryOperation.Query> coreFuture;
+        private Iterator<SecondaryIndexQueryOperation.Response.Entry> current = Collections.emptyIterator();
+        private BinaryValue last;
+
+        private QueryCursor(SecondaryIndexQueryOperation operation,
+                            StreamingRiakFuture<SecondaryIndexQueryOperation.Response,
+                                                SecondaryIndexQueryOperation.Query> coreFuture)
+        {
+            this.operation = operation;
+            this.coreFuture = coreFuture;
+        }
+
+        @Override
+        BinaryValue next()
+        {
+            while (!isClosed())
+            {
+                while (current.hasNext())
+                {
+                    final BinaryValue key = current.next().getObjectKey();
+                    if (!key.equals(last))
+                    {
+                        last = key;
+                        return key;
+                    }
+                }
+
+                final SecondaryIndexQueryOperation.Response chunk;
+                try
+                {
+                    chunk = coreFuture.getResultsQueue().poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for index results", ex);
+                }
+
+                if (chunk != null)
+                {
+                    current = chunk.getEntryList().iterator();
+                }
+                else if (coreFuture.isDone() && coreFuture.getResultsQueue().isEmpty())
+                {
+                    if (!coreFuture.isSuccess())
+                    {
+                        throw new RuntimeException("Index query failed", coreFuture.cause());
+                    }
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        void release()
+        {
+            operation.discardResults();
+        }
+    }
+
+    private static class AndCursor extends Cursor
+    {
+        private final List<Cursor> included;
+        private final List<Cursor> excluded;
+        private boolean started;
+
+        private AndCursor(List<Cursor> included, List<Cursor> excluded)
+        {
+            this.included = included;
+            this.excluded = excluded;
+        }
+
+        @Override
+        BinaryValue next()
+        {
+            BinaryValue candidate;
+            if (!started)
+            {
+                started = true;
+                for (Cursor cursor : included)
+                {
+                    cursor.advance();
+                }
+                for (Cursor cursor : excluded)
+                {
+                    cursor.advance();
+                }
+                candidate = included.get(0).head();
+            }
+            else
+            {
+                candidate = included.get(0).advance();
+            }
+
+            while (candidate != null)
+            {
+                // Leapfrog the included cursors until they all agree on the candidate
+                boolean agreed = true;
+                for (Cursor cursor : included)
+                {
+                    final BinaryValue head = cursor.seek(candidate);
+                    if (head == null)
+                    {
+                        return null;
+                    }
+                    if (compare(head, candidate) > 0)
+                    {
+                        candidate = head;
+                        agreed = false;
+                        break;
+                    }
+                }
+
+                if (!agreed)
+                {
+                    continue;
+                }
+
+                if (!isExcluded(candidate))
+                {
+                    return candidate;
+                }
+                candidate = included.get(0).advance();
+            }
+            return null;
+        }
+
+        @Override
+        void release()
+        {
+            for (Cursor cursor : included)
+            {
+                cursor.close();
+            }
+            for (Cursor cursor : excluded)
+            {
+                cursor.close();
+            }
+        }
+
+        private boolean isExcluded(BinaryValue candidate)
+        {
+            for (Cursor cursor : excluded)
+            {
+                final BinaryValue head = cursor.seek(candidate);
+                if (head != null && compare(head, candidate) == 0)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class OrCursor extends Cursor
+    {
+        private final List<Cursor> cursors;
+        private final PriorityQueue<Cursor> heads;
+        private boolean started;
+
+        private OrCursor(List<Cursor> cursors)
+        {
+            this.cursors = cursors;
+            this.heads = new PriorityQueue<>(cursors.size(), (a, b) -> compare(a.head(), b.head()));
+        }
+
+        @Override
+        BinaryValue next()
+        {
+            if (!started)
+            {
+                started = true;
+                for (Cursor cursor : cursors)
+                {
+                    if (cursor.advance() != null)
+                    {
+                        heads.add(cursor);
+                    }
+                }
+            }
+
+            final Cursor smallest = heads.poll();
+            if (smallest == null)
+            {
+                return null;
+            }
+
+            final BinaryValue key = smallest.head();
+            requeue(smallest);
+            // Skip the same key in the other streams
+            while (!heads.isEmpty() && compare(heads.peek().head(), key) == 0)
+            {
+                requeue(heads.poll());
+            }
+            return key;
+        }
+
+        private void requeue(Cursor cursor)
+        {
+            if (cursor.advance() != null)
+            {
+                heads.add(cursor);
+            }
+        }
+
+        @Override
+        void release()
+        {
+            for (Cursor cursor : cursors)
+            {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * The locations matched by a CombinedIndexQuery, in key order.
+     * <p>
+     * The response can only be iterated once. Its iterator blocks while
+     * waiting for more results from Riak. If iteration ends before the
+     * iterator is exhausted, {@link #close()} stops the queries that are
+     * still running.
+     * </p>
+     */
+    public static class Response implements Iterable<Location>
+    {
+        private final Namespace namespace;
+        private final Cursor cursor;
+        private boolean iterated;
+
+        private Response(Namespace namespace, Cursor cursor)
+        {
+            this.namespace = namespace;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public synchronized Iterator<Location> iterator()
+        {
+            if (iterated)
+            {
+                throw new IllegalStateException("The response can only be iterated once");
+            }
+            iterated = true;
+
+            return new Iterator<Location>()
+            {
+                private boolean advanced;
+
+                @Override
+                public boolean hasNext()
+                {
+                    if (!advanced)
+                    {
+                        try
+                        {
+                            cursor.advance();
+                        }
+                        catch (RuntimeException ex)
+                        {
+                            cursor.close();
+                            throw ex;
+                        }
+                        advanced = true;
+                    }
+                    return !cursor.isClosed() && cursor.head() != null;
+                }
+
+                @Override
+                public Location next()
+                {
+                    if (!hasNext())
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    advanced = false;
+                    return new Location(namespace, cursor.head());
+                }
+            };
+        }
+
+        /**
+         * Stop the queries that are still running.
+         * <p>
+         * Results already received are dropped, later ones are discarded as
+         * they arrive, and the iterator has no more locations from then on.
+         * This is only needed when iteration ends before the iterator is
+         * exhausted.
+         * </p>
+         */
+        public void close()
+        {
+            cursor.close();
+        }
+    }
+}
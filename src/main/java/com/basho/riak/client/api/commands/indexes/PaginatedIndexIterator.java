@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.indexes;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.PrefetchingPageIterator;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.core.util.BinaryValue;
+
+import java.util.Iterator;
+
+/**
+ * Iterates over every page of a paginated 2i query as one continuous stream.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * The request for the next page is issued as soon as the continuation for the
+ * previous one arrives, rather than once the caller has finished processing it.
+ * Up to {@code prefetchDepth} pages are buffered ahead of the caller; once the
+ * buffer is full, fetching resumes as pages are consumed.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * Namespace ns = new Namespace("my_type", "my_bucket");
+ * BinIndexQuery q = new BinIndexQuery.Builder(ns, "my_index", "a", "z")
+ *                                    .withMaxResults(1000)
+ *                                    .withPaginationSort(true)
+ *                                    .build();
+ * PaginatedIndexIterator<String, BinIndexQuery.Response> entries =
+ *     new PaginatedIndexIterator<>(client, q, 2);
+ *
+ * while (entries.hasNext())
+ * {
+ *     System.out.println(entries.next().getRiakObjectLocation().getKey().toString());
+ * }}</pre>
+ * <p>
+ * If a page request fails, {@link #hasNext()} throws a {@link RuntimeException}
+ * wrapping the cause once the pages already received have been consumed. The
+ * continuation of the last page handed to the caller is available from
+ * {@link #getContinuation()} so that iteration can be resumed from there.
+ * </p>
+ *
+ * @param <T> the type being used for the query.
+ * @param <S> the type of the query response.
+ * @since 2.1.2
+ */
+public class PaginatedIndexIterator<T, S extends SecondaryIndexQuery.Response<T, ?>>
+        extends PrefetchingPageIterator<SecondaryIndexQueryOperation.Response, S, SecondaryIndexQuery.Response.Entry<T>>
+{
+    /**
+     * The default number of pages buffered ahead of the caller.
+     */
+    public static final int DEFAULT_PREFETCH_DEPTH = 2;
+
+    private final RiakCluster cluster;
+    private final SecondaryIndexQuery<T, S, ?> query;
+
+    private BinaryValue currentContinuation;
+    private BinaryValue nextContinuation;
+
+    /**
+     * Start iterating over a query with the default prefetch depth.
+     *
+     * @param client the client to execute the page requests with.
+     * @param query the query; its continuation, if any, is where iteration starts.
+     */
+    public PaginatedIndexIterator(RiakClient client, SecondaryIndexQuery<T, S, ?> query)
+    {
+        this(client, query, DEFAULT_PREFETCH_DEPTH);
+    }
+
+    /**
+     * Start iterating over a query.
+     *
+     * @param client the client to execute the page requests with.
+     * @param query the query; its continuation, if any, is where iteration starts.
+     * @param prefetchDepth the maximum number of pages to buffer ahead of the caller.
+     * @throws IllegalArgumentException if prefetchDepth is less than 1.
+     */
+    public PaginatedIndexIterator(RiakClient client, SecondaryIndexQuery<T, S, ?> query, int prefetchDepth)
+    {
+        super(prefetchDepth);
+        this.cluster = client.getRiakCluster();
+        this.query = query;
+        this.currentContinuation = query.getContinuation();
+        this.nextContinuation = query.getContinuation();
+        start();
+    }
+
+    /**
+     * Get the continuation of the page currently being iterated.
+     * <p>
+     * Passing it to {@link SecondaryIndexQuery.Init#withContinuation(BinaryValue)}
+     * resumes iteration after the current page.
+     * </p>
+     *
+     * @return the continuation, or null if the current page is the last one.
+     */
+    public synchronized BinaryValue getContinuation()
+    {
+        return currentContinuation;
+    }
+
+    @Override
+    protected RiakFuture<SecondaryIndexQueryOperation.Response, ?> fetchPage()
+    {
+        final FutureOperation<SecondaryIndexQueryOperation.Response, ?, SecondaryIndexQueryOperation.Query> operation =
+            query.buildCoreOperation(false, nextContinuation);
+        return cluster.execute(operation);
+    }
+
+    @Override
+    protected S convertPage(SecondaryIndexQueryOperation.Response response)
+    {
+        return query.convertResponse(null, response);
+    }
+
+    @Override
+    protected boolean advance(SecondaryIndexQueryOperation.Response response, S page)
+    {
+        nextContinuation = response.hasContinuation() ? response.getContinuation() : null;
+        return nextContinuation != null;
+    }
+
+    @Override
+    protected Iterator<? extends SecondaryIndexQuery.Response.Entry<T>> iterate(S page)
+    {
+        currentContinuation = page.hasContinuation() ? page.getContinuation() : null;
+        return page.iterator();
+    }
+}
@@ -21,6 +21,7 @@ import com.basho.riak.client.api.commands.ChunkedResponseIterator;
 import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.StreamingRiakFuture;
 import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.core.query.CompactKeyList;
 import com.basho.riak.client.core.query.ConvertibleIterator;
 import com.basho.riak.client.core.query.Location;
 import com.basho.riak.client.core.query.Namespace;
@@ -75,6 +76,7 @@ public abstract class SecondaryIndexQuery<T, S extends SecondaryIndexQuery.Respo
     protected Integer timeout;
     protected final byte[] coverageContext;
     protected final boolean returnBody;
+    protected final boolean compactKeys;
     private final StreamableResponseCreator<T, S> streamableResponseCreator;
     private final GatherableResponseCreator<T, S> gatherableResponseCreator;
 
@@ -94,6 +96,7 @@ public abstract class SecondaryIndexQuery<T, S extends SecondaryIndexQuery.Respo
         this.timeout = builder.timeout;
         this.coverageContext = builder.coverageContext;
         this.returnBody = builder.returnBody;
+        this.compactKeys = builder.compactKeys;
         this.streamableResponseCreator = streamableCreator;
         this.gatherableResponseCreator = gatherableResponseCreator;
     }
@@ -212,6 +215,38 @@ public abstract class SecondaryIndexQuery<T, S extends SecondaryIndexQuery.Respo
 
     @Override
     protected SecondaryIndexQueryOperation buildCoreOperation(boolean streamResults)
+    {
+        return buildCoreOperation(streamResults, continuation);
+    }
+
+    /**
+     * Build the core operation for this query, starting from the supplied continuation
+     * rather than the one this query was built with.
+     *
+     * @param streamResults whether the operation should stream its results.
+     * @param continuation the continuation to start from, or null for the first page.
+     * @return the core operation.
+     */
+    protected SecondaryIndexQueryOperation buildCoreOperation(boolean streamResults, BinaryValue continuation)
+    {
+        return new SecondaryIndexQueryOperation.Builder(createCoreQueryBuilder(continuation).build())
+                .streamResults(streamResults)
+                .compactKeys(compactKeys)
+                .build();
+    }
+
+    /**
+     * Create a builder for the core query described by this 2i query.
+     * <p>
+     * Used by commands that drive the core operation themselves, such as
+     * {@link com.basho.riak.client.api.commands.kv.IndexFetch}. A new builder
+     * is returned on each call, so it can be modified freely.
+     * </p>
+     *
+     * @param continuation the continuation to start from, or null for the first page.
+     * @return a builder for the core query.
+     */
+    public SecondaryIndexQueryOperation.Query.Builder createCoreQueryBuilder(BinaryValue continuation)
     {
         IndexConverter<T> converter = getConverter();
 
@@ -252,7 +287,7 @@ public abstract class SecondaryIndexQuery<T, S extends SecondaryIndexQuery.Respo
             coreQueryBuilder.withCoverageContext(coverageContext);
         }
 
-        return new SecondaryIndexQueryOperation.Builder(coreQueryBuilder.build()).streamResults(streamResults).build();
+        return coreQueryBuilder;
     }
 
     @Override
@@ -410,6 +445,7 @@ public abstract class SecondaryIndexQuery<T, S extends SecondaryIndexQuery.Respo
         private volatile Integer timeout;
         private volatile byte[] coverageContext;
         private volatile boolean returnBody;
+        private volatile boolean compactKeys;
 
         /**
          * Build a range query.
@@ -581,6 +617,29 @@ public abstract class SecondaryIndexQuery<T, S extends SecondaryIndexQuery.Respo
             this.returnBody = returnBody;
             return self();
         }
+
+        /**
+         * Set whether to store the returned keys compactly.
+         * <p>
+         * A query that returns millions of keys normally holds an entry and a
+         * byte array for each of them. With this set, the keys are copied into
+         * a single byte slab as they are received, and can be read through
+         * {@link Response#getCompactKeys()} without creating an object per key.
+         * The other accessors on the response still work, creating the entries
+         * as they are asked for.
+         * </p>
+         * <p>
+         * Only the object keys are kept, so this cannot be combined with
+         * {@link #withKeyAndIndex(boolean)}.
+         * </p>
+         * @param compactKeys true to store the keys compactly.
+         * @return a reference to this object.
+         */
+        public T withCompactKeys(boolean compactKeys)
+        {
+            this.compactKeys = compactKeys;
+            return self();
+        }
     }
 
     /**
@@ -705,10 +764,39 @@ public abstract class SecondaryIndexQuery<T, S extends SecondaryIndexQuery.Respo
             {
                 return chunkedResponseIterator.hasNext();
             }
+            else if (coreResponse.hasCompactKeys())
+            {
+                return !coreResponse.getCompactKeys().isEmpty();
+            }
 
             return !coreResponse.getEntryList().isEmpty();
         }
 
+        /**
+         * Get the keys of the results, stored compactly.
+         * <p>
+         * Only available when the query was built with
+         * {@link Init#withCompactKeys(boolean)}.
+         * </p>
+         *
+         * @return the keys of the results.
+         * @throws IllegalStateException when called while using the streaming API,
+         *                               or if the query didn't ask for compact keys.
+         */
+        public CompactKeyList getCompactKeys()
+        {
+            if (isStreaming())
+            {
+                throw new IllegalStateException("Use the iterator() while using the streaming API");
+            }
+            else if (!coreResponse.hasCompactKeys())
+            {
+                throw new IllegalStateException("The query was not built with compact keys");
+            }
+
+            return coreResponse.getCompactKeys();
+        }
+
         /**
          * Get a list of the result entries for this response.
          *
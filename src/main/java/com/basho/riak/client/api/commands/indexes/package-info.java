@@ -6,6 +6,7 @@
  * <li>{@link com.basho.riak.client.api.commands.indexes.BinIndexQuery}</li>
  * <li>{@link com.basho.riak.client.api.commands.indexes.IntIndexQuery}</li>
  * <li>{@link com.basho.riak.client.api.commands.indexes.BigIntIndexQuery}</li>
+ * <li>{@link com.basho.riak.client.api.commands.indexes.CombinedIndexQuery}</li>
  * </ul>
  */
 package com.basho.riak.client.api.commands.indexes;
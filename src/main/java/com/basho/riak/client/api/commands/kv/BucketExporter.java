@@ -0,0 +1,856 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.kv;
+
+import com.basho.riak.client.api.RiakCommand;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.CoveragePlanOperation;
+import com.basho.riak.client.core.operations.CoveragePlanOperation.Response.CoverageEntry;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.client.core.util.HostAndPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command used to export all the objects of a bucket, reading every coverage entry in parallel.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * The coverage plan for the bucket is fetched first. Then a paginated
+ * {@link FullBucketRead} is run for every coverage entry, each one being sent
+ * to the host of its entry, with at most {@code maxInFlight} entries being read
+ * at a time. Every page of results is passed to the {@link PageHandler}.
+ * </p>
+ * <p>
+ * If reading an entry fails, a replacement for it is requested with
+ * {@link CoveragePlanOperation.AbstractBuilder#withReplaceCoverageEntry(CoverageEntry)},
+ * marking the entries that failed so far as unavailable, and reading resumes
+ * from the last continuation of the failed entry. An entry is replaced at
+ * most {@code maxRetries} times before the export fails.
+ * </p>
+ * <p>
+ * With a {@link CheckpointStore}, the continuation of every unfinished entry
+ * is saved after each page has been handled. A later export of the same
+ * bucket with the same store resumes from the saved checkpoint instead of
+ * fetching a new plan, so at most the pages in progress are handled twice.
+ * The checkpoint is cleared once the export completes.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * BucketExporter exporter = new BucketExporter.Builder(namespace, (entry, page) ->
+ *     {
+ *         for (FullBucketRead.Response.Entry e : page)
+ *         {
+ *             writer.write(e.getRiakObjectLocation(), e.getFetchedValue());
+ *         }
+ *     })
+ *     .withCheckpointStore(new BucketExporter.FileCheckpointStore(Paths.get("export.checkpoint")))
+ *     .withExecutor(exportExecutor)
+ *     .build();
+ * BucketExporter.Response response = client.execute(exporter);}</pre>
+ *
+ * @since 2.1.2
+ */
+public class BucketExporter extends RiakCommand<BucketExporter.Response, Namespace>
+{
+    private static final Logger logger = LoggerFactory.getLogger(BucketExporter.class);
+    private static final int DEFAULT_MAX_IN_FLIGHT = 10;
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final int DEFAULT_MAX_RETRIES = 3;
+
+    private final Namespace namespace;
+    private final PageHandler handler;
+    private final int maxInFlight;
+    private final int pageSize;
+    private final int maxRetries;
+    private final boolean returnBody;
+    private final Integer minPartitions;
+    private final Integer timeout;
+    private final CheckpointStore checkpointStore;
+    private final Executor executor;
+
+    private BucketExporter(Builder builder)
+    {
+        this.namespace = builder.namespace;
+        this.handler = builder.handler;
+        this.maxInFlight = builder.maxInFlight;
+        this.pageSize = builder.pageSize;
+        this.maxRetries = builder.maxRetries;
+        this.returnBody = builder.returnBody;
+        this.minPartitions = builder.minPartitions;
+        this.timeout = builder.timeout;
+        this.checkpointStore = builder.checkpointStore;
+        this.executor = builder.executor;
+    }
+
+    @Override
+    protected RiakFuture<Response, Namespace> executeAsync(final RiakCluster cluster)
+    {
+        final SettableRiakFuture<Response, Namespace> future = new SettableRiakFuture<>(namespace);
+
+        final Checkpoint checkpoint;
+        try
+        {
+            checkpoint = checkpointStore == null ? null : checkpointStore.load();
+        }
+        catch (IOException ex)
+        {
+            future.setException(ex);
+            return future;
+        }
+
+        if (checkpoint != null && checkpoint.isFor(namespace))
+        {
+            logger.info("Resuming the export of {} from a checkpoint of {} coverage entries",
+                        namespace, checkpoint.getPositions().size());
+            new Execution(cluster, future, checkpoint.getPositions(), true).start();
+            return future;
+        }
+
+        final CoveragePlan.Builder planBuilder = new CoveragePlan.Builder(namespace);
+        if (minPartitions != null)
+        {
+            planBuilder.withMinPartitions(minPartitions);
+        }
+
+        cluster.execute(planBuilder.buildOperation()).addListener(f ->
+        {
+            if (!f.isSuccess())
+            {
+                future.setException(f.cause());
+                return;
+            }
+
+            final List<Position> positions = new ArrayList<>();
+            for (CoverageEntry entry : f.getNow())
+            {
+                positions.add(new Position(entry, null));
+            }
+            new Execution(cluster, future, positions, false).start();
+        });
+
+        return future;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("BucketExporter {namespace: %s, maxInFlight: %d, pageSize: %d, returnBody: %s}",
+                             namespace, maxInFlight, pageSize, returnBody);
+    }
+
+    /**
+     * Reads the coverage entries, starting the next one whenever one completes.
+     */
+    private class Execution
+    {
+        private final RiakCluster cluster;
+        private final SettableRiakFuture<Response, Namespace> future;
+        private final Deque<Task> pending = new ArrayDeque<>();
+        private final Set<Task> unfinished = new LinkedHashSet<>();
+        private final List<byte[]> unavailable = new ArrayList<>();
+        private final Response response;
+        private final Object checkpointLock = new Object();
+        private int active;
+        private boolean done;
+
+        private Execution(RiakCluster cluster, SettableRiakFuture<Response, Namespace> future,
+                          List<Position> positions, boolean resumed)
+        {
+            this.cluster = cluster;
+            this.future = future;
+            this.response = new Response(resumed);
+
+            for (Position position : positions)
+            {
+                final Task task = new Task(position.getCoverageEntry(), position.getContinuation(), 0);
+                pending.add(task);
+                unfinished.add(task);
+            }
+            response.entryCount.set(positions.size());
+        }
+
+        private void start()
+        {
+            fill();
+        }
+
+        /**
+         * Start pending entries up to the in flight limit, or complete the
+         * export if there is nothing left to read.
+         */
+        private void fill()
+        {
+            final List<Task> toRun = new ArrayList<>();
+            boolean finished = false;
+
+            synchronized (this)
+            {
+                while (!done && active < maxInFlight && !pending.isEmpty())
+                {
+                    active++;
+                    toRun.add(pending.poll());
+                }
+
+                if (!done && active == 0 && pending.isEmpty())
+                {
+                    done = true;
+                    finished = true;
+                }
+            }
+
+            for (Task task : toRun)
+            {
+                read(task);
+            }
+
+            if (finished)
+            {
+                complete();
+            }
+        }
+
+        private void read(final Task task)
+        {
+            final FullBucketRead.Builder builder = new FullBucketRead.Builder(namespace, task.entry.getCoverageContext())
+                                                                     .withReturnBody(returnBody)
+                                                                     .withMaxResults(pageSize)
+                                                                     .withPaginationSort(true);
+            if (task.continuation != null)
+            {
+                builder.withContinuation(BinaryValue.unsafeCreate(task.continuation));
+            }
+            if (timeout != null)
+            {
+                builder.withTimeout(timeout);
+            }
+
+            final FullBucketRead command = builder.build();
+            final HostAndPort host = HostAndPort.fromParts(task.entry.getHost(), task.entry.getPort());
+
+            cluster.executeOnHost(command.buildOperation(), host).addListener(f ->
+            {
+                if (!f.isSuccess())
+                {
+                    replace(task, f.cause());
+                    return;
+                }
+
+                final FullBucketRead.Response page = command.convertCoreResponse(f.getNow());
+                dispatch(() -> handle(task, page));
+            });
+        }
+
+        private void handle(Task task, FullBucketRead.Response page)
+        {
+            if (isDone())
+            {
+                return;
+            }
+
+            try
+            {
+                handler.handle(task.entry, page.getEntries());
+            }
+            catch (Exception ex)
+            {
+                fail(ex);
+                return;
+            }
+
+            response.objectCount.addAndGet(page.getEntries().size());
+            response.pageCount.incrementAndGet();
+
+            final boolean finished = !page.hasContinuation();
+            synchronized (this)
+            {
+                if (finished)
+                {
+                    unfinished.remove(task);
+                }
+                else
+                {
+                    task.continuation = page.getContinuation().getValue();
+                }
+            }
+
+            if (!saveCheckpoint())
+            {
+                return;
+            }
+
+            if (finished)
+            {
+                synchronized (this)
+                {
+                    active--;
+                }
+                fill();
+            }
+            else
+            {
+                read(task);
+            }
+        }
+
+        /**
+         * Request a replacement for a failed entry, and queue the entries of
+         * the replacement to resume from the same continuation.
+         */
+        private void replace(final Task task, Throwable cause)
+        {
+            if (task.attempts >= maxRetries)
+            {
+                fail(cause);
+                return;
+            }
+
+            logger.warn("Reading coverage entry {} of {} failed, requesting a replacement",
+                        task.entry, namespace, cause);
+
+            final CoveragePlan.Builder planBuilder = new CoveragePlan.Builder(namespace);
+            final List<byte[]> unavailableContexts;
+            synchronized (this)
+            {
+                unavailable.add(task.entry.getCoverageContext());
+                unavailableContexts = new ArrayList<>(unavailable);
+            }
+            planBuilder.withReplaceCoverageEntry(task.entry);
+            planBuilder.withUnavailableCoverageContext(unavailableContexts);
+
+            cluster.execute(planBuilder.buildOperation()).addListener(f ->
+            {
+                final List<Task> replacements = new ArrayList<>();
+                if (f.isSuccess())
+                {
+                    for (CoverageEntry entry : f.getNow())
+                    {
+                        replacements.add(new Task(entry, task.continuation, task.attempts + 1));
+                    }
+                }
+
+                synchronized (this)
+                {
+                    if (replacements.isEmpty())
+                    {
+                        // No replacement available yet, retry the entry itself
+                        replacements.add(new Task(task.entry, task.continuation, task.attempts + 1));
+                    }
+
+                    unfinished.remove(task);
+                    for (int i = replacements.size() - 1; i >= 0; i--)
+                    {
+                        pending.addFirst(replacements.get(i));
+                    }
+                    unfinished.addAll(replacements);
+                    active--;
+                }
+
+                response.replacedEntryCount.incrementAndGet();
+                response.entryCount.addAndGet(replacements.size());
+
+                if (saveCheckpoint())
+                {
+                    fill();
+                }
+            });
+        }
+
+        private boolean saveCheckpoint()
+        {
+            if (checkpointStore == null)
+            {
+                return true;
+            }
+
+            // Snapshots are taken and saved under one lock, so an older
+            // snapshot never overwrites a newer one
+            synchronized (checkpointLock)
+            {
+                final List<Position> positions = new ArrayList<>();
+                synchronized (this)
+                {
+                    for (Task task : unfinished)
+                    {
+                        positions.add(new Position(task.entry, task.continuation));
+                    }
+                }
+
+                try
+                {
+                    checkpointStore.save(new Checkpoint(namespace, positions));
+                    return true;
+                }
+                catch (IOException ex)
+                {
+                    fail(ex);
+                    return false;
+                }
+            }
+        }
+
+        private void complete()
+        {
+            if (checkpointStore != null)
+            {
+                try
+                {
+                    checkpointStore.clear();
+                }
+                catch (IOException ex)
+                {
+                    logger.warn("Unable to clear the export checkpoint of {}", namespace, ex);
+                }
+            }
+            future.setResponse(response);
+        }
+
+        private void fail(Throwable cause)
+        {
+            synchronized (this)
+            {
+                if (done)
+                {
+                    return;
+                }
+                done = true;
+            }
+            future.setException(cause);
+        }
+
+        private synchronized boolean isDone()
+        {
+            return done;
+        }
+
+        private void dispatch(Runnable runnable)
+        {
+            if (executor == null)
+            {
+                runnable.run();
+                return;
+            }
+
+            try
+            {
+                executor.execute(runnable);
+            }
+            catch (RuntimeException ex)
+            {
+                fail(ex);
+            }
+        }
+    }
+
+    /**
+     * A coverage entry being read, and where to continue reading it from.
+     */
+    private static class Task
+    {
+        private final CoverageEntry entry;
+        private final int attempts;
+        private volatile byte[] continuation;
+
+        private Task(CoverageEntry entry, byte[] continuation, int attempts)
+        {
+            this.entry = entry;
+            this.continuation = continuation;
+            this.attempts = attempts;
+        }
+    }
+
+    /**
+     * Handles the pages of objects read by a BucketExporter.
+     * <p>
+     * Pages of different coverage entries are handled concurrently, so
+     * implementations must be thread-safe. Without an executor, pages are
+     * handled on the I/O threads of the client.
+     * </p>
+     */
+    @FunctionalInterface
+    public interface PageHandler
+    {
+        /**
+         * Handle a page of objects.
+         * @param coverageEntry the coverage entry the page was read from.
+         * @param entries the objects of the page.
+         * @throws Exception to fail the export.
+         */
+        void handle(CoverageEntry coverageEntry, List<FullBucketRead.Response.Entry> entries) throws Exception;
+    }
+
+    /**
+     * Persists the checkpoints of a BucketExporter.
+     */
+    public interface CheckpointStore
+    {
+        /**
+         * @return the saved checkpoint, or null if there is none.
+         * @throws IOException if the checkpoint can not be read.
+         */
+        Checkpoint load() throws IOException;
+
+        void save(Checkpoint checkpoint) throws IOException;
+
+        void clear() throws IOException;
+    }
+
+    /**
+     * A CheckpointStore that serializes checkpoints to a file.
+     * <p>
+     * Each checkpoint is written to a temporary file which then replaces the
+     * checkpoint file, so a crash never leaves a partially written checkpoint.
+     * </p>
+     */
+    public static class FileCheckpointStore implements CheckpointStore
+    {
+        private final Path path;
+        private final Path tempPath;
+
+        public FileCheckpointStore(Path path)
+        {
+            this.path = path;
+            this.tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        }
+
+        @Override
+        public Checkpoint load() throws IOException
+        {
+            try (InputStream in = Files.newInputStream(path);
+                 ObjectInputStream ois = new ObjectInputStream(in))
+            {
+                return (Checkpoint) ois.readObject();
+            }
+            catch (NoSuchFileException ex)
+            {
+                return null;
+            }
+            catch (ClassNotFoundException ex)
+            {
+                throw new IOException("Invalid checkpoint file " + path, ex);
+            }
+        }
+
+        @Override
+        public void save(Checkpoint checkpoint) throws IOException
+        {
+            try (OutputStream out = Files.newOutputStream(tempPath);
+                 ObjectOutputStream oos = new ObjectOutputStream(out))
+            {
+                oos.writeObject(checkpoint);
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void clear() throws IOException
+        {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * The coverage entries of an export that are not finished, and the
+     * continuation to resume each of them from.
+     */
+    public static class Checkpoint implements Serializable
+    {
+        private static final long serialVersionUID = 0;
+        private final byte[] bucketType;
+        private final byte[] bucketName;
+        private final List<Position> positions;
+
+        public Checkpoint(Namespace namespace, List<Position> positions)
+        {
+            this.bucketType = namespace.getBucketType().getValue();
+            this.bucketName = namespace.getBucketName().getValue();
+            this.positions = Collections.unmodifiableList(new ArrayList<>(positions));
+        }
+
+        public boolean isFor(Namespace namespace)
+        {
+            return Arrays.equals(bucketType, namespace.getBucketType().unsafeGetValue()) &&
+                   Arrays.equals(bucketName, namespace.getBucketName().unsafeGetValue());
+        }
+
+        public List<Position> getPositions()
+        {
+            return positions;
+        }
+    }
+
+    /**
+     * A coverage entry, and the continuation to resume reading it from.
+     */
+    public static class Position implements Serializable
+    {
+        private static final long serialVersionUID = 0;
+        private final CoverageEntry coverageEntry;
+        private final byte[] continuation;
+
+        public Position(CoverageEntry coverageEntry, byte[] continuation)
+        {
+            this.coverageEntry = coverageEntry;
+            this.continuation = continuation;
+        }
+
+        public CoverageEntry getCoverageEntry()
+        {
+            return coverageEntry;
+        }
+
+        /**
+         * @return the continuation, or null to read the entry from the start.
+         */
+        public byte[] getContinuation()
+        {
+            return continuation;
+        }
+    }
+
+    /**
+     * The statistics of a completed export.
+     */
+    public static class Response
+    {
+        private final boolean resumed;
+        private final AtomicInteger entryCount = new AtomicInteger();
+        private final AtomicInteger replacedEntryCount = new AtomicInteger();
+        private final AtomicLong pageCount = new AtomicLong();
+        private final AtomicLong objectCount = new AtomicLong();
+
+        private Response(boolean resumed)
+        {
+            this.resumed = resumed;
+        }
+
+        /**
+         * @return true if the export was resumed from a checkpoint.
+         */
+        public boolean isResumed()
+        {
+            return resumed;
+        }
+
+        /**
+         * @return the number of coverage entries read, including replacements.
+         */
+        public int getEntryCount()
+        {
+            return entryCount.get();
+        }
+
+        public int getReplacedEntryCount()
+        {
+            return replacedEntryCount.get();
+        }
+
+        public long getPageCount()
+        {
+            return pageCount.get();
+        }
+
+        /**
+         * @return the number of objects passed to the handler.
+         */
+        public long getObjectCount()
+        {
+            return objectCount.get();
+        }
+    }
+
+    /**
+     * Used to construct a BucketExporter command.
+     */
+    public static class Builder
+    {
+        private final Namespace namespace;
+        private final PageHandler handler;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+        private boolean returnBody = true;
+        private Integer minPartitions;
+        private Integer timeout;
+        private CheckpointStore checkpointStore;
+        private Executor executor;
+
+        /**
+         * Construct a Builder for a BucketExporter command.
+         * @param namespace Required. The bucket to export.
+         * @param handler Required. Handles the pages of objects.
+         */
+        public Builder(Namespace namespace, PageHandler handler)
+        {
+            if (namespace == null)
+            {
+                throw new IllegalArgumentException("Namespace can not be null");
+            }
+            if (handler == null)
+            {
+                throw new IllegalArgumentException("Handler can not be null");
+            }
+            this.namespace = namespace;
+            this.handler = handler;
+        }
+
+        /**
+         * Set the maximum number of coverage entries to be read simultaneously.
+         * <p>
+         * Defaults to 10.
+         * </p>
+         * @param maxInFlight the max number of entries being read.
+         * @return a reference to this object.
+         */
+        public Builder withMaxInFlight(int maxInFlight)
+        {
+            if (maxInFlight <= 0)
+            {
+                throw new IllegalArgumentException("Max in flight must be greater than zero.");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of objects in a page.
+         * <p>
+         * Checkpoints are saved after every page. Defaults to 1000.
+         * </p>
+         * @param pageSize the max number of objects in a page.
+         * @return a reference to this object.
+         */
+        public Builder withPageSize(int pageSize)
+        {
+            if (pageSize <= 0)
+            {
+                throw new IllegalArgumentException("Page size must be greater than zero.");
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Set the number of times a failed coverage entry is replaced before the export fails.
+         * <p>
+         * Defaults to 3.
+         * </p>
+         * @param maxRetries the max number of replacements per entry.
+         * @return a reference to this object.
+         */
+        public Builder withMaxRetries(int maxRetries)
+        {
+            if (maxRetries < 0)
+            {
+                throw new IllegalArgumentException("Max retries must not be negative.");
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Set whether to read the objects or only their keys.
+         * <p>
+         * Defaults to true.
+         * </p>
+         * @param returnBody true to read the objects.
+         * @return a reference to this object.
+         */
+        public Builder withReturnBody(boolean returnBody)
+        {
+            this.returnBody = returnBody;
+            return this;
+        }
+
+        /**
+         * Request a coverage plan of at least this many entries, to read the bucket in smaller parts.
+         * @param minPartitions the minimum number of coverage entries.
+         * @return a reference to this object.
+         */
+        public Builder withMinPartitions(int minPartitions)
+        {
+            this.minPartitions = minPartitions;
+            return this;
+        }
+
+        /**
+         * Set the timeout of each page read.
+         * @param timeout the timeout in milliseconds.
+         * @return a reference to this object.
+         */
+        public Builder withTimeout(int timeout)
+        {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Save checkpoints to this store, and resume from its checkpoint if it has one.
+         * @param checkpointStore the store of the checkpoints.
+         * @return a reference to this object.
+         */
+        public Builder withCheckpointStore(CheckpointStore checkpointStore)
+        {
+            this.checkpointStore = checkpointStore;
+            return this;
+        }
+
+        /**
+         * Handle the pages, and save the checkpoints, on this executor rather
+         * than on the I/O threads of the client.
+         * @param executor the executor.
+         * @return a reference to this object.
+         */
+        public Builder withExecutor(Executor executor)
+        {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Construct the BucketExporter.
+         * @return a new BucketExporter.
+         */
+        public BucketExporter build()
+        {
+            return new BucketExporter(this);
+        }
+    }
+}
@@ -17,6 +17,8 @@ package com.basho.riak.client.api.commands.kv;
 
 import com.basho.riak.client.api.GenericRiakCommand;
 import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
 import com.basho.riak.client.core.operations.CoveragePlanOperation;
 import com.basho.riak.client.core.query.Namespace;
 
@@ -29,10 +31,39 @@ public class CoveragePlan  extends GenericRiakCommand.GenericRiakCommandWithSame
         Namespace,CoveragePlanOperation.Response>
 {
     private final CoveragePlanOperation operation;
+    private final Namespace namespace;
+    private final int minPartitions;
+    private final boolean replacing;
 
     private CoveragePlan(Builder builder)
     {
         this.operation = builder.buildOperation();
+        this.namespace = builder.getNamespace();
+        this.minPartitions = builder.getMinPartitions();
+        this.replacing = builder.hasCoverageReplacements();
+    }
+
+    /**
+     * Fetch the plan from Riak, for {@link CoveragePlanCache}.
+     */
+    RiakFuture<Response, Namespace> fetchPlan(RiakCluster cluster)
+    {
+        return executeAsync(cluster);
+    }
+
+    Namespace getNamespace()
+    {
+        return namespace;
+    }
+
+    int getMinPartitions()
+    {
+        return minPartitions;
+    }
+
+    boolean isReplacing()
+    {
+        return replacing;
     }
 
     @Override
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.kv;
+
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.NodeStateListener;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.RiakNode;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.util.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A client-side cache for {@link CoveragePlan}.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * Once installed via {@link com.basho.riak.client.api.RiakClient#setCoveragePlanCache(CoveragePlanCache)},
+ * coverage plans fetched through the client are cached per {@link Namespace}
+ * and minimum partition count, so repeated full bucket reads don't ask Riak
+ * to compute the same plan each time.
+ * </p>
+ * <p>
+ * A plan is only valid while the nodes it names are up. The cache listens to
+ * the cluster's nodes and drops every plan as soon as any node stops running.
+ * A plan that replaces an unavailable coverage entry is never served from the
+ * cache, and it drops the cached plans of its namespace, since the caller has
+ * found one of their entries unavailable. Plans also expire after a fixed age
+ * to pick up ring changes.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * client.setCoveragePlanCache(new CoveragePlanCache.Builder()
+ *                                 .withExpireAfter(1, TimeUnit.MINUTES)
+ *                                 .build());
+ * CoveragePlan.Response plan = client.execute(new CoveragePlan.Builder(ns).build());}</pre>
+ *
+ * @since 2.1.2
+ */
+public final class CoveragePlanCache implements NodeStateListener
+{
+    private final Logger logger = LoggerFactory.getLogger(CoveragePlanCache.class);
+    private final LruCache<Key, Entry> cache;
+    private final long expireAfterNanos;
+    // Bumped on every invalidation so plans fetched before it aren't cached after it
+    private final AtomicLong generation = new AtomicLong();
+
+    private CoveragePlanCache(Builder builder)
+    {
+        this.cache = new LruCache<>(builder.maxEntries);
+        this.expireAfterNanos = builder.expireAfterNanos;
+    }
+
+    /**
+     * Execute a CoveragePlan command, answering it from the cache when possible.
+     * <p>
+     * This is used by the {@link com.basho.riak.client.api.RiakClient}; there
+     * should be no need to call it directly.
+     * </p>
+     * @param cluster the cluster to fetch from.
+     * @param plan the command to execute.
+     * @return a future for the response.
+     */
+    public RiakFuture<CoveragePlan.Response, Namespace> execute(RiakCluster cluster, CoveragePlan plan)
+    {
+        final Namespace namespace = plan.getNamespace();
+
+        if (plan.isReplacing())
+        {
+            invalidate(namespace);
+            return plan.fetchPlan(cluster);
+        }
+
+        final Key key = new Key(namespace, plan.getMinPartitions());
+        final Entry entry = cache.get(key);
+
+        if (entry != null)
+        {
+            if (System.nanoTime() - entry.loadedAt < expireAfterNanos)
+            {
+                return SettableRiakFuture.completed(entry.response, namespace);
+            }
+            cache.remove(key);
+        }
+
+        final long fetchedAt = generation.get();
+        final RiakFuture<CoveragePlan.Response, Namespace> future = plan.fetchPlan(cluster);
+        future.addListener(f ->
+        {
+            if (f.isSuccess())
+            {
+                cache.put(key, new Entry(f.getNow()));
+                if (generation.get() != fetchedAt)
+                {
+                    // Invalidated while the plan was being fetched
+                    cache.remove(key);
+                }
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Drops every cached plan when a node stops running.
+     * @param node the node whose state changed.
+     * @param state the new state.
+     */
+    @Override
+    public void nodeStateChanged(RiakNode node, RiakNode.State state)
+    {
+        if (state != RiakNode.State.CREATED && state != RiakNode.State.RUNNING)
+        {
+            logger.debug("Node {}:{} is {}, invalidating cached coverage plans",
+                         node.getRemoteAddress(), node.getPort(), state);
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Remove the cached plans for a namespace.
+     * @param namespace the namespace to invalidate.
+     */
+    public void invalidate(Namespace namespace)
+    {
+        generation.incrementAndGet();
+        cache.removeIf(key -> key.namespace.equals(namespace));
+    }
+
+    /**
+     * Remove all cached plans.
+     */
+    public void invalidateAll()
+    {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Returns the number of cached plans.
+     * @return the number of entries.
+     */
+    public int size()
+    {
+        return cache.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("{cache: %s, expireAfterNanos: %d}", cache, expireAfterNanos);
+    }
+
+    private static final class Key
+    {
+        private final Namespace namespace;
+        private final int minPartitions;
+
+        private Key(Namespace namespace, int minPartitions)
+        {
+            this.namespace = namespace;
+            this.minPartitions = minPartitions;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            final Key other = (Key) o;
+            return minPartitions == other.minPartitions && namespace.equals(other.namespace);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * namespace.hashCode() + minPartitions;
+        }
+
+        @Override
+        public String toString()
+        {
+            return namespace + "/" + minPartitions;
+        }
+    }
+
+    private static final class Entry
+    {
+        private final CoveragePlan.Response response;
+        private final long loadedAt;
+
+        private Entry(CoveragePlan.Response response)
+        {
+            this.response = response;
+            this.loadedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Used to construct a CoveragePlanCache.
+     */
+    public static class Builder
+    {
+        private long maxEntries = 100;
+        private long expireAfterNanos = TimeUnit.MINUTES.toNanos(5);
+
+        public Builder()
+        {
+        }
+
+        /**
+         * Set the maximum number of cached plans.
+         * <p>
+         * Defaults to 100.
+         * </p>
+         * @param maxEntries the maximum number of entries.
+         * @return a reference to this object.
+         */
+        public Builder withMaxEntries(long maxEntries)
+        {
+            if (maxEntries <= 0)
+            {
+                throw new IllegalArgumentException("Max entries must be greater than zero.");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Set the age after which a plan is no longer served.
+         * <p>
+         * Defaults to 5 minutes. Node failures invalidate plans straight
+         * away; this bounds how long a plan outlives a ring change.
+         * </p>
+         * @param duration the expiry interval.
+         * @param unit the unit of time.
+         * @return a reference to this object.
+         */
+        public Builder withExpireAfter(long duration, TimeUnit unit)
+        {
+            if (duration < 0)
+            {
+                throw new IllegalArgumentException("Expiry interval can not be negative.");
+            }
+            this.expireAfterNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Construct the CoveragePlanCache.
+         * @return a new CoveragePlanCache.
+         */
+        public CoveragePlanCache build()
+        {
+            return new CoveragePlanCache(this);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import com.basho.riak.client.core.RiakFuture;
 import com.basho.riak.client.api.commands.RiakOption;
 import com.basho.riak.client.core.query.Location;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -88,9 +89,36 @@ public final class FetchValue extends GenericRiakCommand.GenericRiakCommandWithS
         return super.executeAsync(cluster);
     }
 
+    Location getLocation()
+    {
+        return location;
+    }
+
+    @Override
+    protected Object getSingleFlightKey()
+    {
+        return Arrays.asList(FetchValue.class, location, new HashMap<>(options));
+    }
+
+    @Override
+    protected Location getSingleFlightQueryInfo()
+    {
+        return location;
+    }
+
+    Map<RiakOption<?>, Object> getOptions()
+    {
+        return options;
+    }
+
     @Override
     protected Response convertResponse(FutureOperation<FetchOperation.Response, ?, Location> request,
                                        FetchOperation.Response coreResponse)
+    {
+        return convertResponse(location, coreResponse);
+    }
+
+    static Response convertResponse(Location location, FetchOperation.Response coreResponse)
     {
         return new Response.Builder().withNotFound(coreResponse.isNotFound())
                             .withUnchanged(coreResponse.isUnchanged())
@@ -101,6 +129,15 @@ public final class FetchValue extends GenericRiakCommand.GenericRiakCommandWithS
 
     @Override
     protected FetchOperation buildCoreOperation()
+    {
+        return buildCoreOperation(location, options);
+    }
+
+    /**
+     * Build a fetch for the supplied location, so that commands fetching many
+     * keys with the same options need not build a FetchValue for each one.
+     */
+    static FetchOperation buildCoreOperation(Location location, Map<RiakOption<?>, Object> options)
     {
         FetchOperation.Builder builder = new FetchOperation.Builder(location);
 
@@ -0,0 +1,378 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.kv;
+
+import com.basho.riak.client.api.cap.VClock;
+import com.basho.riak.client.api.commands.RiakOption;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.converters.RiakObjectConverter;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.RiakObject;
+import com.basho.riak.client.core.util.LruCache;
+import com.basho.riak.protobuf.RiakKvPB.RpbContent;
+import com.google.protobuf.ByteString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A client-side read-through cache for {@link FetchValue}.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * Once installed via {@link com.basho.riak.client.api.RiakClient#setFetchValueCache(FetchValueCache)},
+ * fetches executed through the client are answered from a bounded, least recently
+ * used cache keyed by {@link Location}. The size of the cache is accounted in
+ * (approximate) bytes of the cached objects.
+ * </p>
+ * <p>
+ * An entry younger than the configured time to live is served locally. An
+ * older entry is, by default, revalidated with a conditional fetch using
+ * {@link FetchValue.Option#IF_MODIFIED}; if Riak replies that the object is
+ * unchanged only that flag crosses the wire and the cached value is served.
+ * With revalidation disabled the cache runs in TTL-only mode, and expired
+ * entries are simply fetched again.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * FetchValueCache cache = new FetchValueCache.Builder()
+ *                              .withMaxBytes(64 * 1024 * 1024)
+ *                              .withTimeToLive(1, TimeUnit.SECONDS)
+ *                              .build();
+ * client.setFetchValueCache(cache);
+ * FetchValue.Response response = client.execute(new FetchValue.Builder(loc).build());}</pre>
+ * <p>
+ * Only fetches with no options are cached. A fetch with any option, such as
+ * a quorum, {@link FetchValue.Option#HEAD} or {@link FetchValue.Option#IF_MODIFIED},
+ * bypasses the cache, so a read asking for stronger guarantees is never
+ * answered from an entry filled by a default read. Responses that are not
+ * found or contain tombstones are not cached either. Store, update and
+ * delete commands executed through the same client invalidate the affected
+ * location.
+ * </p>
+ * <p>
+ * The cache keeps the objects in their wire form, and every caller served
+ * from it gets its own copies, so the usual fetch, modify and store pattern
+ * does not affect other readers.
+ * </p>
+ *
+ * @since 2.1.2
+ */
+public final class FetchValueCache
+{
+    /**
+     * Rough per-object overhead in bytes for the RiakObject and its metadata.
+     */
+    private static final int OBJECT_OVERHEAD = 256;
+
+    private final LruCache<Location, Entry> cache;
+    private final long timeToLiveNanos;
+    private final boolean revalidate;
+    private final AtomicLong generation = new AtomicLong();
+
+    private FetchValueCache(Builder builder)
+    {
+        this.cache = new LruCache<>(builder.maxBytes, (location, entry) -> entry.weight);
+        this.timeToLiveNanos = builder.timeToLiveNanos;
+        this.revalidate = builder.revalidate;
+    }
+
+    /**
+     * Execute a FetchValue command, answering it from the cache when possible.
+     * <p>
+     * This is used by the {@link com.basho.riak.client.api.RiakClient}; there
+     * should be no need to call it directly.
+     * </p>
+     * @param cluster the cluster to fetch from on a miss.
+     * @param fetchValue the command to execute.
+     * @return a future for the response.
+     */
+    public RiakFuture<FetchValue.Response, Location> execute(RiakCluster cluster, FetchValue fetchValue)
+    {
+        if (!isCacheable(fetchValue))
+        {
+            return fetchValue.executeAsync(cluster);
+        }
+
+        final Location location = fetchValue.getLocation();
+        final Entry entry = cache.get(location);
+
+        if (entry != null && System.nanoTime() - entry.validatedAt < timeToLiveNanos)
+        {
+            return SettableRiakFuture.completed(entry.toResponse(location), location);
+        }
+
+        final FetchValue command;
+        if (entry != null && revalidate)
+        {
+            command = conditionalFetch(fetchValue, entry.vclock);
+        }
+        else
+        {
+            command = fetchValue;
+        }
+
+        final SettableRiakFuture<FetchValue.Response, Location> future = new SettableRiakFuture<>(location);
+        final long fetchedAt = generation.get();
+
+        command.executeAsync(cluster).addListener(f ->
+        {
+            if (!f.isSuccess())
+            {
+                future.setException(f.cause());
+                return;
+            }
+
+            final FetchValue.Response response = f.getNow();
+            if (entry != null && response.isUnchanged())
+            {
+                entry.validatedAt = System.nanoTime();
+                future.setResponse(entry.toResponse(location));
+                return;
+            }
+
+            if (isCacheable(response))
+            {
+                cache.put(location, new Entry(response));
+                if (generation.get() != fetchedAt)
+                {
+                    // Invalidated while the value was being fetched
+                    cache.remove(location);
+                }
+            }
+            else
+            {
+                cache.remove(location);
+            }
+            future.setResponse(response);
+        });
+
+        return future;
+    }
+
+    /**
+     * Remove the cached value for a location.
+     * @param location the location to invalidate.
+     */
+    public void invalidate(Location location)
+    {
+        generation.incrementAndGet();
+        cache.remove(location);
+    }
+
+    /**
+     * Remove all cached values.
+     */
+    public void invalidateAll()
+    {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Returns the number of cached locations.
+     * @return the number of entries.
+     */
+    public int size()
+    {
+        return cache.size();
+    }
+
+    /**
+     * Returns the approximate size in bytes of all cached values.
+     * @return the size in bytes.
+     */
+    public long getSizeInBytes()
+    {
+        return cache.getWeight();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("{cache: %s, timeToLiveNanos: %d, revalidate: %s}", cache, timeToLiveNanos, revalidate);
+    }
+
+    private static boolean isCacheable(FetchValue fetchValue)
+    {
+        // Every option changes what Riak may answer, so only default reads share entries
+        return fetchValue.getOptions().isEmpty();
+    }
+
+    private static boolean isCacheable(FetchValue.Response response)
+    {
+        if (response.isNotFound() || response.isUnchanged() || !response.hasValues())
+        {
+            return false;
+        }
+
+        for (RiakObject ro : response.getValues())
+        {
+            if (ro.isDeleted() || ro.getVClock() == null)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FetchValue conditionalFetch(FetchValue fetchValue, VClock vclock)
+    {
+        final FetchValue.Builder builder = new FetchValue.Builder(fetchValue.getLocation());
+
+        for (Map.Entry<RiakOption<?>, Object> opPair : fetchValue.getOptions().entrySet())
+        {
+            builder.addOption(opPair.getKey(), opPair.getValue());
+        }
+
+        return builder.withOption(FetchValue.Option.IF_MODIFIED, vclock).build();
+    }
+
+    private static RpbContent snapshot(RiakObject ro)
+    {
+        final RpbContent.Builder builder = RiakObjectConverter.convert(ro).toBuilder();
+
+        if (ro.getVTag() != null)
+        {
+            builder.setVtag(ByteString.copyFromUtf8(ro.getVTag()));
+        }
+
+        if (ro.getLastModified() != 0)
+        {
+            builder.setLastMod((int) (ro.getLastModified() / 1000))
+                   .setLastModUsecs((int) (ro.getLastModified() % 1000) * 1000);
+        }
+
+        return builder.build();
+    }
+
+    private static final class Entry
+    {
+        private final List<RpbContent> contents;
+        private final ByteString vclockBytes;
+        private final VClock vclock;
+        private final long weight;
+        private volatile long validatedAt;
+
+        private Entry(FetchValue.Response response)
+        {
+            final Location location = response.getLocation();
+            long weight = location.getKey().length()
+                + location.getNamespace().getBucketName().length()
+                + location.getNamespace().getBucketType().length();
+
+            this.contents = new ArrayList<>(response.getNumberOfValues());
+            for (RiakObject ro : response.getValues())
+            {
+                final RpbContent content = snapshot(ro);
+                contents.add(content);
+                weight += OBJECT_OVERHEAD + content.getSerializedSize();
+            }
+
+            this.vclock = response.getVectorClock();
+            this.vclockBytes = ByteString.copyFrom(vclock.getBytes());
+            this.weight = weight + vclockBytes.size();
+            this.validatedAt = System.nanoTime();
+        }
+
+        private FetchValue.Response toResponse(Location location)
+        {
+            return new FetchValue.Response.Builder()
+                .withValues(RiakObjectConverter.convert(contents, vclockBytes))
+                .withLocation(location)
+                .build();
+        }
+    }
+
+    /**
+     * Used to construct a FetchValueCache.
+     */
+    public static class Builder
+    {
+        private long maxBytes = 64 * 1024 * 1024;
+        private long timeToLiveNanos = TimeUnit.SECONDS.toNanos(1);
+        private boolean revalidate = true;
+
+        public Builder()
+        {
+        }
+
+        /**
+         * Set the maximum size of the cache.
+         * <p>
+         * Defaults to 64MB.
+         * </p>
+         * @param maxBytes the maximum approximate size in bytes of all cached values.
+         * @return a reference to this object.
+         */
+        public Builder withMaxBytes(long maxBytes)
+        {
+            if (maxBytes <= 0)
+            {
+                throw new IllegalArgumentException("Max bytes must be greater than zero.");
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Set how long a cached value is served without contacting Riak.
+         * <p>
+         * Defaults to one second. A value of zero revalidates every fetch.
+         * </p>
+         * @param duration the time to live.
+         * @param unit the unit of time.
+         * @return a reference to this object.
+         */
+        public Builder withTimeToLive(long duration, TimeUnit unit)
+        {
+            if (duration < 0)
+            {
+                throw new IllegalArgumentException("Time to live can not be negative.");
+            }
+            this.timeToLiveNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Set whether expired entries are revalidated with a conditional fetch.
+         * <p>
+         * Defaults to true. When false the cache runs in TTL-only mode and
+         * an expired entry is replaced by a full fetch.
+         * </p>
+         * @param revalidate true to revalidate expired entries.
+         * @return a reference to this object.
+         */
+        public Builder withRevalidation(boolean revalidate)
+        {
+            this.revalidate = revalidate;
+            return this;
+        }
+
+        /**
+         * Construct the FetchValueCache.
+         * @return a new FetchValueCache.
+         */
+        public FetchValueCache build()
+        {
+            return new FetchValueCache(this);
+        }
+    }
+}
@@ -70,6 +70,20 @@ public class FullBucketRead extends SecondaryIndexQuery<BinaryValue, FullBucketR
         return converter;
     }
 
+    /**
+     * Build the non-streaming core operation, so that it can be routed to
+     * the host of its coverage entry.
+     */
+    SecondaryIndexQueryOperation buildOperation()
+    {
+        return buildCoreOperation(false);
+    }
+
+    Response convertCoreResponse(SecondaryIndexQueryOperation.Response coreResponse)
+    {
+        return convertResponse(null, coreResponse);
+    }
+
     /**
      * Builder used to construct a FullBucketRead command.
      */
@@ -187,6 +201,17 @@ public class FullBucketRead extends SecondaryIndexQuery<BinaryValue, FullBucketR
             return this;
         }
 
+        /**
+         * Set the timeout for the query.
+         * @param timeout the timeout in milliseconds.
+         * @return a reference to this object.
+         */
+        public Builder withTimeout(int timeout)
+        {
+            builder2i.withTimeout(timeout);
+            return this;
+        }
+
         /**
          * Construct the query.
          * @return a new FullBucketRead
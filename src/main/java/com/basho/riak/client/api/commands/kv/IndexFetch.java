@@ -0,0 +1,484 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.kv;
+
+import com.basho.riak.client.api.RiakCommand;
+import com.basho.riak.client.api.commands.ImmediateCoreFutureAdapter;
+import com.basho.riak.client.api.commands.RiakOption;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.api.commands.indexes.SecondaryIndexQuery;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.StreamingRiakFuture;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.query.indexes.IndexNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command used to fetch every object matched by a 2i query.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * The 2i query is run in streaming mode, and each key is fetched as soon as
+ * the index stream delivers it, rather than once the whole key list has
+ * arrived, with at most {@code maxInFlight} fetches outstanding at a time.
+ * The fetched values are streamed back through the {@link Response} in the
+ * order the fetches complete. To bound the values held for a slow reader as
+ * well, set {@link Builder#withMaxBuffered(int)}.
+ * </p>
+ * <p>
+ * When executed asynchronously, the response is available straight away and
+ * values can be consumed while the query is still running; the future
+ * completes once every key has been fetched. Executing it synchronously
+ * waits for every value to be fetched before returning.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * Namespace ns = new Namespace("my_type", "my_bucket");
+ * BinIndexQuery q = new BinIndexQuery.Builder(ns, "my_index", "a", "z").build();
+ * IndexFetch fetch = new IndexFetch.Builder(q).withMaxInFlight(20).build();
+ * RiakFuture<IndexFetch.Response, SecondaryIndexQuery<?, ?, ?>> future = client.executeAsync(fetch);
+ *
+ * for (FetchValue.Response value : future.get())
+ * {
+ *     MyPojo pojo = value.getValue(MyPojo.class);
+ *     ...
+ * }
+ * // Wait for the command to fully finish.
+ * future.await();}</pre>
+ * <p>
+ * For the {@code $bucket} and {@code $key} indexes, Riak can return the
+ * objects as part of the index stream, so that no separate fetches are
+ * needed; see {@link Builder#withReturnBody(boolean)}.
+ * </p>
+ *
+ * @since 2.1.2
+ * @see MultiFetch
+ */
+public class IndexFetch extends RiakCommand<IndexFetch.Response, SecondaryIndexQuery<?, ?, ?>>
+{
+    private static final Logger logger = LoggerFactory.getLogger(IndexFetch.class);
+    private static final int DEFAULT_MAX_IN_FLIGHT = 10;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final SecondaryIndexQuery<?, ?, ?> query;
+    private final int maxInFlight;
+    private final int maxBuffered;
+    private final boolean returnBody;
+    private final Map<RiakOption<?>, Object> options = new HashMap<>();
+
+    private IndexFetch(Builder builder)
+    {
+        this.query = builder.query;
+        this.maxInFlight = builder.maxInFlight;
+        this.maxBuffered = builder.maxBuffered;
+        this.returnBody = builder.returnBody;
+        this.options.putAll(builder.options);
+    }
+
+    @Override
+    protected RiakFuture<Response, SecondaryIndexQuery<?, ?, ?>> executeAsync(RiakCluster cluster)
+    {
+        final SecondaryIndexQueryOperation.Query coreQuery =
+            query.createCoreQueryBuilder(query.getContinuation())
+                 .withReturnBody(returnBody)
+                 .build();
+        final StreamingRiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> coreFuture =
+            cluster.execute(new SecondaryIndexQueryOperation.Builder(coreQuery).streamResults(true).build());
+
+        final Response response = new Response(maxBuffered);
+        final SettableRiakFuture<Response, SecondaryIndexQuery<?, ?, ?>> pipelineFuture =
+            new SettableRiakFuture<>(query);
+
+        final Thread worker = new Thread(new Pipeline(cluster, coreFuture, response, pipelineFuture));
+        worker.setDaemon(true);
+        worker.start();
+
+        final ImmediateCoreFutureAdapter.SameQueryInfo<Response, SecondaryIndexQuery<?, ?, ?>, Response> future =
+            new ImmediateCoreFutureAdapter.SameQueryInfo<Response, SecondaryIndexQuery<?, ?, ?>, Response>(
+                pipelineFuture, response) {};
+        pipelineFuture.addListener(future);
+        return future;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("IndexFetch {query: %s, maxInFlight: %d, maxBuffered: %d, returnBody: %s, options: %s}",
+                             query, maxInFlight, maxBuffered, returnBody, options);
+    }
+
+    /**
+     * Takes the keys off the index stream and fetches them, on a worker daemon thread.
+     */
+    private class Pipeline implements Runnable
+    {
+        private final RiakCluster cluster;
+        private final StreamingRiakFuture<SecondaryIndexQueryOperation.Response,
+                                          SecondaryIndexQueryOperation.Query> coreFuture;
+        private final Response response;
+        private final SettableRiakFuture<Response, SecondaryIndexQuery<?, ?, ?>> future;
+        private final Namespace namespace = query.getNamespace();
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        private volatile Throwable failure;
+
+        private Pipeline(RiakCluster cluster,
+                         StreamingRiakFuture<SecondaryIndexQueryOperation.Response,
+                                             SecondaryIndexQueryOperation.Query> coreFuture,
+                         Response response,
+                         SettableRiakFuture<Response, SecondaryIndexQuery<?, ?, ?>> future)
+        {
+            this.cluster = cluster;
+            this.coreFuture = coreFuture;
+            this.response = response;
+            this.future = future;
+        }
+
+        @Override
+        public void run()
+        {
+            logger.debug("Running IndexFetch daemon worker thread.");
+            try
+            {
+                while (failure == null)
+                {
+                    final SecondaryIndexQueryOperation.Response chunk =
+                        coreFuture.getResultsQueue().poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+                    if (chunk != null)
+                    {
+                        for (SecondaryIndexQueryOperation.Response.Entry entry : chunk.getEntryList())
+                        {
+                            submit(entry);
+                        }
+                    }
+                    else if (coreFuture.isDone() && coreFuture.getResultsQueue().isEmpty())
+                    {
+                        if (!coreFuture.isSuccess())
+                        {
+                            failure = coreFuture.cause();
+                        }
+                        break;
+                    }
+                }
+
+                // Wait for the fetches still in flight
+                inFlight.acquire(maxInFlight);
+            }
+            catch (InterruptedException ex)
+            {
+                logger.error("IndexFetch daemon worker thread interrupted.");
+                failure = ex;
+            }
+
+            response.finish(failure);
+            if (failure == null)
+            {
+                future.setResponse(response);
+            }
+            else
+            {
+                future.setException(failure);
+            }
+        }
+
+        private void submit(SecondaryIndexQueryOperation.Response.Entry entry) throws InterruptedException
+        {
+            final Location location = new Location(namespace, entry.getObjectKey());
+
+            // Blocks while the reader is maxBuffered values behind
+            response.reserve();
+
+            if (entry.hasBody())
+            {
+                response.add(FetchValue.convertResponse(location, entry.getBody()));
+                return;
+            }
+
+            inFlight.acquire();
+            if (failure != null)
+            {
+                inFlight.release();
+                response.unreserve();
+                return;
+            }
+
+            cluster.execute(FetchValue.buildCoreOperation(location, options)).addListener(f ->
+            {
+                if (f.isSuccess())
+                {
+                    response.add(FetchValue.convertResponse(location, f.getNow()));
+                }
+                else
+                {
+                    if (failure == null)
+                    {
+                        failure = f.cause();
+                    }
+                    response.unreserve();
+                }
+                inFlight.release();
+            });
+        }
+    }
+
+    /**
+     * Used to construct an IndexFetch command.
+     */
+    public static class Builder
+    {
+        private final SecondaryIndexQuery<?, ?, ?> query;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private int maxBuffered = Integer.MAX_VALUE;
+        private boolean returnBody;
+        private final Map<RiakOption<?>, Object> options = new HashMap<>();
+
+        /**
+         * Construct a Builder for an IndexFetch command.
+         *
+         * @param query the 2i query matching the objects to fetch.
+         */
+        public Builder(SecondaryIndexQuery<?, ?, ?> query)
+        {
+            this.query = query;
+        }
+
+        /**
+         * Set the maximum number of fetches to be in progress simultaneously.
+         *
+         * @param maxInFlight the max number of outstanding fetches.
+         * @return a reference to this object.
+         */
+        public Builder withMaxInFlight(int maxInFlight)
+        {
+            if (maxInFlight <= 0)
+            {
+                throw new IllegalArgumentException("maxInFlight must be greater than zero");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of values held ahead of the reader.
+         * <p>
+         * This counts the values waiting to be read as well as the fetches in
+         * flight. Once it is reached, no more keys are fetched, and no more
+         * returned bodies are taken off the index stream, until the reader
+         * catches up. By default the values are not bounded.
+         * </p>
+         * <p>
+         * When set, the command must be executed asynchronously and the
+         * response read before waiting for the future. The future only
+         * completes once every value has been fetched, which can't happen
+         * while nothing is reading them.
+         * </p>
+         *
+         * @param maxBuffered the max number of values held ahead of the reader.
+         * @return a reference to this object.
+         */
+        public Builder withMaxBuffered(int maxBuffered)
+        {
+            if (maxBuffered <= 0)
+            {
+                throw new IllegalArgumentException("maxBuffered must be greater than zero");
+            }
+            this.maxBuffered = maxBuffered;
+            return this;
+        }
+
+        /**
+         * Have Riak return the objects as part of the index stream, instead of
+         * fetching each key separately.
+         * <p>
+         * This is only supported for the {@code $bucket} and {@code $key} indexes,
+         * and only by Riak instances that support parallel extract. Any entry
+         * returned without its object is still fetched separately.
+         * </p>
+         *
+         * @param returnBody true to return the objects with the index stream.
+         * @return a reference to this object.
+         * @throws IllegalArgumentException if the query is not on $bucket or $key.
+         */
+        public Builder withReturnBody(boolean returnBody)
+        {
+            if (returnBody && !IndexNames.BUCKET.equals(query.getIndexName())
+                && !IndexNames.KEY.equals(query.getIndexName()))
+            {
+                throw new IllegalArgumentException("returnBody is only supported for the $bucket and $key indexes");
+            }
+            this.returnBody = returnBody;
+            return this;
+        }
+
+        /**
+         * A {@link FetchValue.Option} to use with each fetch.
+         *
+         * @param option an option
+         * @param value  the option's associated value
+         * @param <U>    the type of the option's value
+         * @return a reference to this object.
+         */
+        public <U> Builder withOption(FetchValue.Option<U> option, U value)
+        {
+            this.options.put(option, value);
+            return this;
+        }
+
+        /**
+         * Set the Riak-side timeout value for each fetch.
+         *
+         * @param timeout the timeout in milliseconds to be sent to riak.
+         * @return a reference to this object.
+         */
+        public Builder withTimeout(int timeout)
+        {
+            return withOption(FetchValue.Option.TIMEOUT, timeout);
+        }
+
+        /**
+         * Construct the IndexFetch command.
+         *
+         * @return a new IndexFetch command.
+         */
+        public IndexFetch build()
+        {
+            return new IndexFetch(this);
+        }
+    }
+
+    /**
+     * The fetched values, streamed back as the fetches complete.
+     * <p>
+     * The response can only be iterated once. Its iterator blocks until the
+     * next value arrives; if the 2i query or a fetch fails, it throws a
+     * {@link RuntimeException} wrapping the cause once the values already
+     * fetched have been consumed.
+     * </p>
+     */
+    public static class Response implements Iterable<FetchValue.Response>
+    {
+        private final Deque<FetchValue.Response> values = new ArrayDeque<>();
+        private final int maxBuffered;
+        // Values waiting to be read plus fetches in flight
+        private int reserved;
+        private boolean finished;
+        private Throwable failure;
+        private boolean iterated;
+
+        Response(int maxBuffered)
+        {
+            this.maxBuffered = maxBuffered;
+        }
+
+        synchronized void reserve() throws InterruptedException
+        {
+            while (reserved >= maxBuffered)
+            {
+                wait();
+            }
+            reserved++;
+        }
+
+        synchronized void unreserve()
+        {
+            reserved--;
+            notifyAll();
+        }
+
+        synchronized void add(FetchValue.Response value)
+        {
+            values.add(value);
+            notifyAll();
+        }
+
+        synchronized void finish(Throwable failure)
+        {
+            this.finished = true;
+            this.failure = failure;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized Iterator<FetchValue.Response> iterator()
+        {
+            if (iterated)
+            {
+                throw new IllegalStateException("The response can only be iterated once");
+            }
+            iterated = true;
+
+            return new Iterator<FetchValue.Response>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    synchronized (Response.this)
+                    {
+                        while (values.isEmpty())
+                        {
+                            if (failure != null)
+                            {
+                                throw new RuntimeException("Fetching the indexed objects failed", failure);
+                            }
+
+                            if (finished)
+                            {
+                                return false;
+                            }
+
+                            try
+                            {
+                                Response.this.wait();
+                            }
+                            catch (InterruptedException ex)
+                            {
+                                Thread.currentThread().interrupt();
+                                throw new RuntimeException("Interrupted while waiting for the next value", ex);
+                            }
+                        }
+                        return true;
+                    }
+                }
+
+                @Override
+                public FetchValue.Response next()
+                {
+                    synchronized (Response.this)
+                    {
+                        if (hasNext())
+                        {
+                            unreserve();
+                            return values.poll();
+                        }
+                        throw new NoSuchElementException();
+                    }
+                }
+            };
+        }
+    }
+}
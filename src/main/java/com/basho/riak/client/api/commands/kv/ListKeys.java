@@ -21,6 +21,7 @@ import com.basho.riak.client.api.commands.ChunkedResponseIterator;
 import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.StreamingRiakFuture;
 import com.basho.riak.client.core.operations.ListKeysOperation;
+import com.basho.riak.client.core.query.CompactKeyList;
 import com.basho.riak.client.core.query.ConvertibleIterator;
 import com.basho.riak.client.core.query.Location;
 import com.basho.riak.client.core.query.Namespace;
@@ -78,11 +79,13 @@ public final class ListKeys extends StreamableRiakCommand.StreamableRiakCommandW
 {
     private final Namespace namespace;
     private final int timeout;
+    private final boolean compactKeys;
 
     ListKeys(Builder builder) throws ListException
     {
         this.namespace = builder.namespace;
         this.timeout = builder.timeout;
+        this.compactKeys = builder.compactKeys;
 
         if (!builder.allowListing)
         {
@@ -94,6 +97,10 @@ public final class ListKeys extends StreamableRiakCommand.StreamableRiakCommandW
     protected Response convertResponse(FutureOperation<ListKeysOperation.Response, ?, Namespace> request,
                                        ListKeysOperation.Response coreResponse)
     {
+        if (coreResponse.hasCompactKeys())
+        {
+            return new Response(coreResponse.getCompactKeys());
+        }
         return new Response(namespace, coreResponse.getKeys());
     }
 
@@ -114,6 +121,7 @@ public final class ListKeys extends StreamableRiakCommand.StreamableRiakCommandW
         }
 
         builder.streamResults(streamResults);
+        builder.compactKeys(compactKeys);
 
         return builder.build();
     }
@@ -122,11 +130,20 @@ public final class ListKeys extends StreamableRiakCommand.StreamableRiakCommandW
     {
         private final Namespace namespace;
         private final List<BinaryValue> keys;
+        private final CompactKeyList compactKeys;
 
         public Response(Namespace namespace, List<BinaryValue> keys)
         {
             this.namespace = namespace;
             this.keys = keys;
+            this.compactKeys = null;
+        }
+
+        Response(CompactKeyList compactKeys)
+        {
+            this.namespace = compactKeys.getNamespace();
+            this.keys = null;
+            this.compactKeys = compactKeys;
         }
 
         Response(Namespace namespace,
@@ -140,6 +157,32 @@ public final class ListKeys extends StreamableRiakCommand.StreamableRiakCommandW
 
             this.namespace = namespace;
             this.keys = null;
+            this.compactKeys = null;
+        }
+
+        /**
+         * Get the keys, stored compactly.
+         * <p>
+         * Only available when the command was built with
+         * {@link Builder#withCompactKeys(boolean)}.
+         * </p>
+         *
+         * @return the keys.
+         * @throws IllegalStateException when called while using the streaming API,
+         *                               or if the command didn't ask for compact keys.
+         */
+        public CompactKeyList getCompactKeys()
+        {
+            if (isStreaming())
+            {
+                throw new IllegalStateException("Use the iterator() while using the streaming API");
+            }
+            else if (compactKeys == null)
+            {
+                throw new IllegalStateException("The command was not built with compact keys");
+            }
+
+            return compactKeys;
         }
 
         @Override
@@ -149,6 +192,10 @@ public final class ListKeys extends StreamableRiakCommand.StreamableRiakCommandW
             {
                 return super.iterator();
             }
+            else if (compactKeys != null)
+            {
+                return compactKeys.iterator();
+            }
 
             assert keys != null;
             return new ConvertibleIterator<BinaryValue, Location>(keys.iterator())
@@ -170,6 +217,7 @@ public final class ListKeys extends StreamableRiakCommand.StreamableRiakCommandW
         private final Namespace namespace;
         private int timeout;
         private boolean allowListing;
+        private boolean compactKeys;
 
         /**
          * Constructs a Builder for a ListKeys command.
@@ -214,6 +262,26 @@ public final class ListKeys extends StreamableRiakCommand.StreamableRiakCommandW
             return this;
         }
 
+        /**
+         * Store the keys compactly.
+         * <p>
+         * When true, the keys are copied into a single byte slab as they are
+         * received, rather than each being kept as its own object until the
+         * listing is done. The keys are available through
+         * {@link Response#getCompactKeys()}, and iterating the response
+         * creates each {@link Location} as it is reached. This has no effect
+         * when streaming.
+         * </p>
+         * @param compactKeys true to store the keys compactly.
+         * @return a reference to this object.
+         * @since 2.1.2
+         */
+        public Builder withCompactKeys(boolean compactKeys)
+        {
+            this.compactKeys = compactKeys;
+            return this;
+        }
+
         /**
          * Construct the ListKeys command.
          * @return A ListKeys command.
@@ -231,6 +299,7 @@ public final class ListKeys extends StreamableRiakCommand.StreamableRiakCommandW
         int result = 1;
         result = prime * result + (namespace != null ? namespace.hashCode() : 0);
         result = prime * result + timeout;
+        result = prime * result + (compactKeys ? 1 : 0);
         return result;
     }
 
@@ -259,6 +328,10 @@ public final class ListKeys extends StreamableRiakCommand.StreamableRiakCommandW
         {
             return false;
         }
+        if (this.compactKeys != other.compactKeys)
+        {
+            return false;
+        }
         return true;
     }
 
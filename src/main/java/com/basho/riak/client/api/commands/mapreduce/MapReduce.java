@@ -22,7 +22,6 @@ import com.basho.riak.client.core.operations.MapReduceOperation;
 import com.basho.riak.client.core.query.functions.Function;
 import com.basho.riak.client.core.util.BinaryValue;
 import com.fasterxml.jackson.core.JsonEncoding;
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -47,11 +46,20 @@ public abstract class MapReduce extends StreamableRiakCommand.StreamableRiakComm
         MapReduceOperation.Response>
 {
     private final MapReduceSpec spec;
+    private final Class<?> resultType;
+    private final QueryJson queryJson;
 
     @SuppressWarnings("unchecked")
     protected MapReduce(MapReduceInput input, Builder builder)
     {
         this.spec = new MapReduceSpec(input, builder.phases, builder.timeout);
+        this.resultType = builder.resultType;
+
+        // Only share the template's serialized phases if no phases were added after copying them
+        final QueryJson template = builder.queryTemplate;
+        this.queryJson = template != null && template.phases.equals(builder.phases)
+                ? template
+                : new QueryJson(builder.phases);
     }
 
     @Override
@@ -68,30 +76,36 @@ public abstract class MapReduce extends StreamableRiakCommand.StreamableRiakComm
             throw new RuntimeException(e);
         }
 
-        return new MapReduceOperation.Builder(jobSpec)
-                .streamResults(streamResults)
-                .build();
+        final MapReduceOperation.Builder builder = new MapReduceOperation.Builder(jobSpec)
+                .streamResults(streamResults);
+
+        if (resultType != null)
+        {
+            builder.withResultType(mrObjectMapper.getTypeFactory().constructType(resultType));
+        }
+
+        return builder.build();
     }
 
     @Override
     protected Response convertResponse(FutureOperation<MapReduceOperation.Response, ?, BinaryValue> request,
                                        MapReduceOperation.Response coreResponse)
     {
-        return new Response(coreResponse.getResults());
+        return new Response(coreResponse, resultType);
     }
 
     @Override
     protected Response createResponse(int timeout, StreamingRiakFuture<MapReduceOperation.Response, BinaryValue> coreFuture)
     {
-        return new Response(coreFuture, timeout);
+        return new Response(coreFuture, timeout, resultType);
     }
 
     /**
      * Creates the JSON string of the M/R job for submitting to the client
      * <p/>
-     * Uses Jackson to write out the JSON string. I'm not very happy with this method, it is a candidate for change.
-     * <p/>
-     * TODO re-evaluate this method, look for something smaller and more elegant.
+     * Uses Jackson to write out the JSON string. The phases ("query") are
+     * serialized once and the result cached, so only the inputs and timeout
+     * are written for each job. The layout matches that of {@link MapReduceSpec}.
      *
      * @return a String of JSON
      * @throws RiakException if, for some reason, we can't create a JSON string.
@@ -102,13 +116,19 @@ public abstract class MapReduce extends StreamableRiakCommand.StreamableRiakComm
 
         try
         {
-            JsonGenerator jg = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+            final String query = queryJson.get();
 
-            jg.setCodec(mrObjectMapper);
+            JsonGenerator jg = mrObjectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
 
-            List<MapReducePhase> phases = spec.getPhases();
-            phases.get(phases.size() - 1).setKeep(true);
-            jg.writeObject(spec);
+            jg.writeStartObject();
+            jg.writeObjectField("inputs", spec.getInputs());
+            if (spec.getTimeout() != null)
+            {
+                jg.writeNumberField("timeout", spec.getTimeout());
+            }
+            jg.writeFieldName("query");
+            jg.writeRawValue(query);
+            jg.writeEndObject();
 
             jg.flush();
 
@@ -120,7 +140,38 @@ public abstract class MapReduce extends StreamableRiakCommand.StreamableRiakComm
         }
     }
 
-    static ObjectMapper mrObjectMapper = initializeMRObjectMapper();
+    /**
+     * The phases of a job and, once written, their JSON.
+     * <p>
+     * Shared between commands built with {@link Builder#withPhasesFrom(MapReduce)}.
+     * </p>
+     */
+    static final class QueryJson
+    {
+        private final List<MapReducePhase> phases;
+        private volatile String json;
+
+        QueryJson(List<MapReducePhase> phases)
+        {
+            this.phases = phases;
+        }
+
+        String get() throws IOException
+        {
+            String result = json;
+            if (result == null)
+            {
+                phases.get(phases.size() - 1).setKeep(true);
+                result = mrObjectMapper.writeValueAsString(phases);
+                json = result;
+            }
+            return result;
+        }
+    }
+
+    // Shared by all MapReduce commands; ObjectMapper is thread safe once configured,
+    // and its JsonFactory is used to create the generators.
+    static final ObjectMapper mrObjectMapper = initializeMRObjectMapper();
 
     private static ObjectMapper initializeMRObjectMapper()
     {
@@ -145,6 +196,8 @@ public abstract class MapReduce extends StreamableRiakCommand.StreamableRiakComm
     {
         protected final List<MapReducePhase> phases = new LinkedList<>();
         protected Long timeout;
+        protected Class<?> resultType;
+        private QueryJson queryTemplate;
 
         /**
          * Set the operations timeout
@@ -158,6 +211,67 @@ public abstract class MapReduce extends StreamableRiakCommand.StreamableRiakComm
             return self();
         }
 
+        /**
+         * Use the phases of another MapReduce command.
+         * <p>
+         * For running many jobs that differ only in their inputs. The phases
+         * of the template are added to this builder, and the JSON written for
+         * them is shared, so it is only produced once for all of the jobs.
+         * Adding further phases to this builder is allowed, but the JSON is
+         * then written afresh.
+         * </p>
+         * <pre class="prettyprint">
+         * {@code
+         * BucketKeyMapReduce template = new BucketKeyMapReduce.Builder()
+         *     .withLocation(new Location(ns, "template"))
+         *     .withMapPhase(Function.newAnonymousJsFunction(mapSource))
+         *     .withReducePhase(Function.newErlangFunction("riak_kv_mapreduce", "reduce_sum"))
+         *     .build();
+         *
+         * for (Location location : locations)
+         * {
+         *     BucketKeyMapReduce job = new BucketKeyMapReduce.Builder()
+         *         .withLocation(location)
+         *         .withPhasesFrom(template)
+         *         .build();
+         *     MapReduce.Response response = client.execute(job);
+         * }}</pre>
+         *
+         * @param template the command to take the phases from.
+         * @return a reference to this object.
+         */
+        public T withPhasesFrom(MapReduce template)
+        {
+            synchronized (phases)
+            {
+                phases.addAll(template.queryJson.phases);
+            }
+            this.queryTemplate = template.queryJson;
+            return self();
+        }
+
+        /**
+         * Set the type the results are decoded to.
+         * <p>
+         * By default the results are parsed into a JSON tree, and
+         * {@link Response#getResultsFromAllPhases(Class)} converts that tree
+         * afterwards. With a result type set, each element of the results is
+         * bound to the type straight from the response bytes as each chunk
+         * arrives, so no tree is built. The results are then read with
+         * {@link Response#getResultForPhase(int, Class)} and
+         * {@link Response#getResultsFromAllPhases(Class)}; the
+         * {@link ArrayNode} accessors are not available.
+         * </p>
+         *
+         * @param resultType the type of each result element.
+         * @return a reference to this object.
+         */
+        public T withResultType(Class<?> resultType)
+        {
+            this.resultType = resultType;
+            return self();
+        }
+
         /**
          * Add {@link MapPhase} to the query
          *
@@ -339,18 +453,32 @@ public abstract class MapReduce extends StreamableRiakCommand.StreamableRiakComm
     public static class Response extends StreamableRiakCommand.StreamableResponse<Response, BinaryValue>
     {
         private final Map<Integer, ArrayNode> results;
+        private final Map<Integer, List<Object>> typedResults;
+        private final Class<?> resultType;
         private final MapReduceResponseIterator responseIterator;
 
         Response(StreamingRiakFuture<MapReduceOperation.Response, BinaryValue> coreFuture,
-                          int pollTimeout)
+                          int pollTimeout, Class<?> resultType)
         {
             responseIterator = new MapReduceResponseIterator(coreFuture, pollTimeout);
             results = null;
+            typedResults = null;
+            this.resultType = resultType;
+        }
+
+        Response(MapReduceOperation.Response coreResponse, Class<?> resultType)
+        {
+            this.results = coreResponse.getResults();
+            this.typedResults = coreResponse.getTypedResults();
+            this.resultType = resultType;
+            responseIterator = null;
         }
 
         public Response(Map<Integer, ArrayNode> results)
         {
             this.results = results;
+            this.typedResults = null;
+            this.resultType = null;
             responseIterator = null;
         }
 
@@ -362,27 +490,73 @@ public abstract class MapReduce extends StreamableRiakCommand.StreamableRiakComm
 
         public boolean hasResultForPhase(int i)
         {
-            return results.containsKey(i);
+            return typedResults != null ? typedResults.containsKey(i) : results.containsKey(i);
         }
 
         public ArrayNode getResultForPhase(int i)
         {
+            checkNotTyped();
             return results.get(i);
         }
 
+        /**
+         * Get the results of a phase, decoded to the supplied type.
+         *
+         * @param i the phase.
+         * @param resultType the type of each result element.
+         * @param <T> the type of each result element.
+         * @return the results of the phase, or an empty list if the phase has no results.
+         */
+        public <T> List<T> getResultForPhase(int i, Class<T> resultType)
+        {
+            if (typedResults != null)
+            {
+                checkResultType(resultType);
+                final List<Object> phaseResults = typedResults.get(i);
+                return phaseResults == null ? Collections.<T>emptyList() : castList(phaseResults);
+            }
+
+            final ArrayNode phaseResults = results.get(i);
+            return phaseResults == null
+                    ? Collections.<T>emptyList()
+                    : convertTree(phaseResults, resultType);
+        }
+
         public ArrayNode getResultsFromAllPhases()
         {
+            checkNotTyped();
             return flattenResults();
         }
 
         public <T> Collection<T> getResultsFromAllPhases(Class<T> resultType)
         {
-            ArrayNode flat = flattenResults();
-            ObjectMapper mapper = new ObjectMapper();
+            if (typedResults != null)
+            {
+                checkResultType(resultType);
+                final List<T> flat = new ArrayList<>();
+                for (List<Object> phaseResults : typedResults.values())
+                {
+                    flat.addAll(castList(phaseResults));
+                }
+                return flat;
+            }
+
+            return convertTree(flattenResults(), resultType);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> List<T> castList(List<Object> list)
+        {
+            return (List<T>) list;
+        }
+
+        private static <T> List<T> convertTree(ArrayNode tree, Class<T> resultType)
+        {
+            final ObjectMapper mapper = mrObjectMapper;
             try
             {
-                return mapper.readValue(flat.toString(),
-                                        mapper.getTypeFactory().constructCollectionType(Collection.class, resultType));
+                return mapper.readValue(mapper.treeAsTokens(tree),
+                                        mapper.getTypeFactory().constructCollectionType(List.class, resultType));
             }
             catch (IOException ex)
             {
@@ -390,6 +564,24 @@ public abstract class MapReduce extends StreamableRiakCommand.StreamableRiakComm
             }
         }
 
+        private void checkNotTyped()
+        {
+            if (typedResults != null)
+            {
+                throw new IllegalStateException("Results were decoded to " + this.resultType.getName()
+                                                    + "; use the typed accessors");
+            }
+        }
+
+        private void checkResultType(Class<?> requested)
+        {
+            if (!requested.isAssignableFrom(this.resultType))
+            {
+                throw new IllegalArgumentException("Results were decoded to " + this.resultType.getName()
+                                                       + ", not " + requested.getName());
+            }
+        }
+
         private ArrayNode flattenResults()
         {
             final JsonNodeFactory factory = JsonNodeFactory.instance;
@@ -506,7 +698,7 @@ public abstract class MapReduce extends StreamableRiakCommand.StreamableRiakComm
             public Response next()
             {
                 final MapReduceOperation.Response responseChunk = resultsQueue.remove();
-                return new Response(responseChunk.getResults());
+                return new Response(responseChunk, resultType);
             }
         }
     }
@@ -84,6 +84,7 @@ public final class Search extends AsIsRiakCommand<SearchOperation.Response, Bina
     private final String filterQuery;
     private final String sortField;
     private final List<String> returnFields;
+    private final boolean compactResults;
     private final Map<Option<?>, Object> options = new HashMap<>();
 
     public Search(Builder builder)
@@ -96,11 +97,22 @@ public final class Search extends AsIsRiakCommand<SearchOperation.Response, Bina
         this.filterQuery = builder.filterQuery;
         this.sortField = builder.sortField;
         this.returnFields = builder.returnFields;
+        this.compactResults = builder.compactResults;
         this.options.putAll(builder.options);
     }
 
     @Override
     protected SearchOperation buildCoreOperation()
+    {
+        return createCoreBuilder().build();
+    }
+
+    /**
+     * Create a builder for the core operation described by this search.
+     * Used by {@link SearchCursor} to request each page, overriding the
+     * start, sort and filter. A new builder is returned on each call.
+     */
+    SearchOperation.Builder createCoreBuilder()
     {
         SearchOperation.Builder builder = new SearchOperation.Builder(BinaryValue.create(index), query);
 
@@ -147,7 +159,34 @@ public final class Search extends AsIsRiakCommand<SearchOperation.Response, Bina
             builder.withReturnFields(returnFields);
         }
 
-        return builder.build();
+        builder.withCompactResults(compactResults);
+
+        return builder;
+    }
+
+    int getStart()
+    {
+        return start;
+    }
+
+    int getRows()
+    {
+        return rows;
+    }
+
+    String getFilterQuery()
+    {
+        return filterQuery;
+    }
+
+    String getSortField()
+    {
+        return sortField;
+    }
+
+    List<String> getReturnFields()
+    {
+        return returnFields;
     }
 
     /*
@@ -200,6 +239,7 @@ public final class Search extends AsIsRiakCommand<SearchOperation.Response, Bina
         private String filterQuery;
         private String sortField;
         private List<String> returnFields;
+        private boolean compactResults;
         private Map<Option<?>, Object> options = new HashMap<>();
 
         /**
@@ -311,6 +351,33 @@ public final class Search extends AsIsRiakCommand<SearchOperation.Response, Bina
             return this;
         }
 
+        /**
+         * Store the results compactly.
+         * <p>
+         * Large pages of results are expensive to hold as maps of lists. With
+         * this set, the field names are shared between the documents and the
+         * values are kept together as bytes, decoded only when they are
+         * read through {@link SearchOperation.Response#getCompactResults()}.
+         * The documents can also be bound straight to a class:
+         * </p>
+         * <pre class="prettyprint">
+         * {@code
+         * Search search = new Search.Builder("people", "name_s:Al*")
+         *     .withRows(10000)
+         *     .withCompactResults(true)
+         *     .build();
+         * SearchOperation.Response response = client.execute(search);
+         * Iterator<Person> people = response.getCompactResults().iterator(Person.class);}</pre>
+         *
+         * @param compactResults true to store the results compactly.
+         * @return a reference to this object.
+         */
+        public Builder withCompactResults(boolean compactResults)
+        {
+            this.compactResults = compactResults;
+            return this;
+        }
+
         /**
          * Construct the Search command.
          * @return the new Search command.
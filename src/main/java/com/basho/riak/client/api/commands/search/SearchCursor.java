@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.search;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.PrefetchingPageIterator;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.SearchOperation;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Iterates over every page of a search as one continuous stream of documents.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * Pages are requested {@link Search.Builder#withRows(int) rows} documents at a
+ * time. The request for the next page is issued as soon as the previous page
+ * arrives, rather than once the caller has finished processing it. Up to
+ * {@code prefetchDepth} pages are buffered ahead of the caller; once the
+ * buffer is full, fetching resumes as pages are consumed.
+ * </p>
+ * <p>
+ * By default each page is requested with an increasing start, which Solr
+ * answers by collecting and skipping every earlier result, so each page costs
+ * more than the last. For deep paging, such as exporting a whole index, set a
+ * sort key with {@link Builder#withSortKey(String)}. The results are then sorted
+ * on that field, and each page is requested from the start with a filter for
+ * values after the last one seen, so every page costs the same. The field must
+ * hold a single, unique value per document; {@code _yz_id} does.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * Search search = new Search.Builder("people", "*:*").withRows(1000).build();
+ * SearchCursor cursor = new SearchCursor.Builder(client, search)
+ *                                       .withSortKey("_yz_id")
+ *                                       .build();
+ * while (cursor.hasNext())
+ * {
+ *     Map<String, List<String>> doc = cursor.next();
+ *     ...
+ * }}</pre>
+ * <p>
+ * If a page request fails, {@link #hasNext()} throws a {@link RuntimeException}
+ * wrapping the cause once the pages already received have been consumed.
+ * </p>
+ *
+ * @since 2.1.2
+ */
+public class SearchCursor
+        extends PrefetchingPageIterator<SearchOperation.Response, SearchOperation.Response, Map<String, List<String>>>
+{
+    /**
+     * The default number of pages buffered ahead of the caller.
+     */
+    public static final int DEFAULT_PREFETCH_DEPTH = 2;
+
+    /**
+     * The number of rows Riak returns when the search doesn't set one.
+     */
+    static final int DEFAULT_ROWS = 10;
+
+    private final RiakCluster cluster;
+    private final Search search;
+    private final String sortKey;
+    private final int rows;
+
+    private int nextStart;
+    private String nextAfter;
+
+    private SearchCursor(Builder builder)
+    {
+        super(builder.prefetchDepth);
+        this.cluster = builder.client.getRiakCluster();
+        this.search = builder.search;
+        this.sortKey = builder.sortKey;
+        this.rows = search.getRows() >= 0 ? search.getRows() : DEFAULT_ROWS;
+        this.nextStart = search.getStart() >= 0 ? search.getStart() : 0;
+        start();
+    }
+
+    @Override
+    protected RiakFuture<SearchOperation.Response, ?> fetchPage()
+    {
+        final SearchOperation.Builder builder = search.createCoreBuilder().withNumRows(rows);
+
+        if (sortKey == null)
+        {
+            builder.withStart(nextStart);
+        }
+        else
+        {
+            builder.withStart(0).withSortField(sortKey + " asc");
+            if (nextAfter != null)
+            {
+                final String after = sortKey + ":{" + quote(nextAfter) + " TO *]";
+                builder.withFilterQuery(search.getFilterQuery() == null
+                                            ? after
+                                            : "(" + search.getFilterQuery() + ") AND " + after);
+            }
+        }
+
+        return cluster.execute(builder.build());
+    }
+
+    @Override
+    protected SearchOperation.Response convertPage(SearchOperation.Response response)
+    {
+        return response;
+    }
+
+    @Override
+    protected boolean advance(SearchOperation.Response response, SearchOperation.Response page)
+    {
+        final List<Map<String, List<String>>> docs = page.getAllResults();
+
+        if (docs.size() < rows || (sortKey == null && nextStart + docs.size() >= page.numResults()))
+        {
+            return false;
+        }
+        else if (sortKey == null)
+        {
+            nextStart += docs.size();
+            return true;
+        }
+
+        final List<String> lastValue = docs.get(docs.size() - 1).get(sortKey);
+        if (lastValue == null || lastValue.isEmpty())
+        {
+            throw new IllegalStateException("Search result has no value for sort key " + sortKey);
+        }
+        nextAfter = lastValue.get(0);
+        return true;
+    }
+
+    @Override
+    protected Iterator<Map<String, List<String>>> iterate(SearchOperation.Response page)
+    {
+        return page.iterator();
+    }
+
+    private static String quote(String value)
+    {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * Used to construct a SearchCursor.
+     */
+    public static class Builder
+    {
+        private final RiakClient client;
+        private final Search search;
+        private String sortKey;
+        private int prefetchDepth = DEFAULT_PREFETCH_DEPTH;
+
+        /**
+         * Construct a Builder for a SearchCursor.
+         *
+         * @param client the client to execute the page requests with.
+         * @param search the search; its rows set the page size.
+         */
+        public Builder(RiakClient client, Search search)
+        {
+            if (search.getRows() == 0)
+            {
+                throw new IllegalArgumentException("Rows must be greater than 0 to page through a search");
+            }
+            this.client = client;
+            this.search = search;
+        }
+
+        /**
+         * Page through the results sorted on a field, rather than by start.
+         * <p>
+         * The field must hold a single, unique value per document, and must
+         * be returned with the results. The search must not set its own
+         * sort or start.
+         * </p>
+         *
+         * @param sortKey the field to sort and page on.
+         * @return a reference to this object.
+         * @throws IllegalArgumentException if the search sets a sort or start, or
+         *                                  doesn't return the field.
+         */
+        public Builder withSortKey(String sortKey)
+        {
+            if (sortKey == null || sortKey.isEmpty())
+            {
+                throw new IllegalArgumentException("Sort key cannot be null or zero length");
+            }
+            if (search.getSortField() != null || search.getStart() > 0)
+            {
+                throw new IllegalArgumentException("Cannot page on a sort key when the search sets a sort or start");
+            }
+            if (search.getReturnFields() != null && !search.getReturnFields().contains(sortKey))
+            {
+                throw new IllegalArgumentException("The search must return the sort key field " + sortKey);
+            }
+            this.sortKey = sortKey;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of pages to buffer ahead of the caller.
+         *
+         * @param prefetchDepth the number of pages.
+         * @return a reference to this object.
+         * @throws IllegalArgumentException if prefetchDepth is less than 1.
+         */
+        public Builder withPrefetchDepth(int prefetchDepth)
+        {
+            if (prefetchDepth < 1)
+            {
+                throw new IllegalArgumentException("Prefetch depth must be at least 1");
+            }
+            this.prefetchDepth = prefetchDepth;
+            return this;
+        }
+
+        /**
+         * Construct the SearchCursor, which requests the first page straight away.
+         *
+         * @return a new SearchCursor.
+         */
+        public SearchCursor build()
+        {
+            return new SearchCursor(this);
+        }
+    }
+}
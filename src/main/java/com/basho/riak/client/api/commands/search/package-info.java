@@ -3,6 +3,7 @@
  * <h4>Search commands</h4>
  * <ul>
  * <li>{@link com.basho.riak.client.api.commands.search.Search}</li>
+ * <li>{@link com.basho.riak.client.api.commands.search.SearchCursor}</li>
  * <li>{@link com.basho.riak.client.api.commands.search.FetchIndex}</li>
  * <li>{@link com.basho.riak.client.api.commands.search.StoreIndex}</li>
  * <li>{@link com.basho.riak.client.api.commands.search.DeleteIndex}</li>
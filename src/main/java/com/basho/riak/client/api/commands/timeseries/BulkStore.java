@@ -0,0 +1,520 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.api.RiakCommand;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.ts.StoreOperation;
+import com.basho.riak.client.core.query.timeseries.Cell;
+import com.basho.riak.client.core.query.timeseries.FullColumnDescription;
+import com.basho.riak.client.core.query.timeseries.Quantum;
+import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.client.core.query.timeseries.TableDefinition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time Series Store Command for large numbers of rows.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * Where {@link Store} sends every row in a single request, BulkStore groups
+ * the rows by partition (the values of the partition key columns, with the
+ * quantum column truncated to its quantum) and splits each group into batches
+ * bounded by row count and approximate encoded size. Every batch therefore
+ * lands on a single partition, and the batches are stored in parallel.
+ * </p>
+ * <p>
+ * The number of batches in flight adapts to the cluster: it grows by one with
+ * each successful batch, up to {@code maxInFlight}, and is halved when a batch
+ * fails. Failed batches are retried up to {@code maxRetries} times; rows that
+ * still could not be stored are reported in the {@link Response} rather than
+ * failing the whole command.
+ * </p>
+ * <p>
+ * Each row must have its cells ordered the same as the table definition.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * TableDefinition table = client.execute(new DescribeTable("GeoCheckin"));
+ * BulkStore store = new BulkStore.Builder(table).withRows(rows).build();
+ * BulkStore.Response response = client.execute(store);
+ * if (response.hasFailures())
+ * {
+ *     ...
+ * }}</pre>
+ *
+ * @since 2.1.2
+ */
+public class BulkStore extends RiakCommand<BulkStore.Response, String>
+{
+    private static final int DEFAULT_MAX_IN_FLIGHT = 10;
+    private static final int DEFAULT_MAX_BATCH_ROWS = 1000;
+    private static final int DEFAULT_MAX_BATCH_BYTES = 1024 * 1024;
+    private static final int DEFAULT_MAX_RETRIES = 2;
+
+    private final TableDefinition table;
+    private final List<Row> rows;
+    private final int maxInFlight;
+    private final int maxBatchRows;
+    private final int maxBatchBytes;
+    private final int maxRetries;
+
+    private BulkStore(Builder builder)
+    {
+        this.table = builder.table;
+        this.rows = builder.rows;
+        this.maxInFlight = builder.maxInFlight;
+        this.maxBatchRows = builder.maxBatchRows;
+        this.maxBatchBytes = builder.maxBatchBytes;
+        this.maxRetries = builder.maxRetries;
+    }
+
+    @Override
+    protected RiakFuture<Response, String> executeAsync(RiakCluster cluster)
+    {
+        final SettableRiakFuture<Response, String> future = new SettableRiakFuture<>(table.getTableName());
+        new Execution(cluster, createBatches(), future).start();
+        return future;
+    }
+
+    List<List<Row>> createBatches()
+    {
+        final List<List<Row>> batches = new ArrayList<>();
+
+        for (List<Row> group : groupByPartition().values())
+        {
+            List<Row> batch = new ArrayList<>();
+            int batchBytes = 0;
+
+            for (Row row : group)
+            {
+                final int rowBytes = estimateSize(row);
+                if (!batch.isEmpty() && (batch.size() >= maxBatchRows || batchBytes + rowBytes > maxBatchBytes))
+                {
+                    batches.add(batch);
+                    batch = new ArrayList<>();
+                    batchBytes = 0;
+                }
+                batch.add(row);
+                batchBytes += rowBytes;
+            }
+
+            if (!batch.isEmpty())
+            {
+                batches.add(batch);
+            }
+        }
+
+        return batches;
+    }
+
+    private Map<List<Cell>, List<Row>> groupByPartition()
+    {
+        final Map<String, Integer> positions = new HashMap<>();
+        for (FullColumnDescription column : table.getFullColumnDescriptions())
+        {
+            positions.put(column.getName(), positions.size());
+        }
+
+        final Collection<FullColumnDescription> partitionKey = table.getPartitionKeyColumnDescriptions();
+        final int[] keyPositions = new int[partitionKey.size()];
+        final long[] quanta = new long[partitionKey.size()];
+        int i = 0;
+        for (FullColumnDescription column : partitionKey)
+        {
+            keyPositions[i] = positions.get(column.getName());
+            if (column.hasQuantum())
+            {
+                final Quantum quantum = column.getQuantum();
+                quanta[i] = quantum.getUnit().toMillis(quantum.getInterval());
+            }
+            i++;
+        }
+
+        final Map<List<Cell>, List<Row>> groups = new LinkedHashMap<>();
+        for (Row row : rows)
+        {
+            final Cell[] key = new Cell[keyPositions.length];
+            int position = 0;
+            for (Cell cell : row)
+            {
+                for (int k = 0; k < keyPositions.length; k++)
+                {
+                    if (keyPositions[k] == position)
+                    {
+                        key[k] = quanta[k] > 0 && cell != null
+                            ? Cell.newTimestamp(cell.getTimestamp() - Math.floorMod(cell.getTimestamp(), quanta[k]))
+                            : cell;
+                    }
+                }
+                position++;
+            }
+
+            groups.computeIfAbsent(Arrays.asList(key), k -> new ArrayList<>()).add(row);
+        }
+
+        return groups;
+    }
+
+    private static int estimateSize(Row row)
+    {
+        int size = 8;
+        for (Cell cell : row)
+        {
+            if (cell == null)
+            {
+                size += 1;
+            }
+            else if (cell.hasVarcharValue())
+            {
+                size += cell.getVarcharValue().length() + 5;
+            }
+            else if (cell.hasBlob())
+            {
+                size += cell.getBlob().length + 5;
+            }
+            else
+            {
+                size += 9;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("BulkStore {table: %s, rows: %d, maxInFlight: %d, maxBatchRows: %d, maxBatchBytes: %d}",
+                             table.getTableName(), rows.size(), maxInFlight, maxBatchRows, maxBatchBytes);
+    }
+
+    private static class Batch
+    {
+        private final List<Row> rows;
+        private int attempts;
+
+        private Batch(List<Row> rows)
+        {
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Stores the batches, adjusting the number in flight as they complete.
+     */
+    private class Execution
+    {
+        private final RiakCluster cluster;
+        private final SettableRiakFuture<Response, String> future;
+        private final Deque<Batch> pending = new ArrayDeque<>();
+        private final int batchCount;
+        private final List<Row> failedRows = new ArrayList<>();
+        private final List<Throwable> failureCauses = new ArrayList<>();
+        private int inFlight;
+        private int limit = maxInFlight;
+        private int writtenRows;
+
+        private Execution(RiakCluster cluster, List<List<Row>> batches,
+                          SettableRiakFuture<Response, String> future)
+        {
+            this.cluster = cluster;
+            this.future = future;
+            this.batchCount = batches.size();
+            for (List<Row> batch : batches)
+            {
+                pending.add(new Batch(batch));
+            }
+        }
+
+        private void start()
+        {
+            if (pending.isEmpty())
+            {
+                future.setResponse(new Response(0, 0, failedRows, failureCauses));
+                return;
+            }
+            launchAvailable();
+        }
+
+        private void launchAvailable()
+        {
+            final List<Batch> toLaunch = new ArrayList<>();
+            synchronized (this)
+            {
+                while (inFlight < limit && !pending.isEmpty())
+                {
+                    final Batch batch = pending.poll();
+                    batch.attempts++;
+                    inFlight++;
+                    toLaunch.add(batch);
+                }
+            }
+
+            for (Batch batch : toLaunch)
+            {
+                final StoreOperation operation = new StoreOperation.Builder(table.getTableName())
+                                                                   .withRows(batch.rows)
+                                                                   .build();
+
+                cluster.execute(operation).addListener(f -> onComplete(batch, f.isSuccess() ? null : f.cause()));
+            }
+        }
+
+        private void onComplete(Batch batch, Throwable cause)
+        {
+            final Response response;
+            synchronized (this)
+            {
+                inFlight--;
+
+                if (cause == null)
+                {
+                    writtenRows += batch.rows.size();
+                    limit = Math.min(maxInFlight, limit + 1);
+                }
+                else
+                {
+                    limit = Math.max(1, limit / 2);
+                    if (batch.attempts <= maxRetries)
+                    {
+                        pending.addFirst(batch);
+                    }
+                    else
+                    {
+                        failedRows.addAll(batch.rows);
+                        failureCauses.add(cause);
+                    }
+                }
+
+                response = inFlight == 0 && pending.isEmpty()
+                    ? new Response(writtenRows, batchCount, failedRows, failureCauses)
+                    : null;
+            }
+
+            if (response != null)
+            {
+                future.setResponse(response);
+            }
+            else
+            {
+                launchAvailable();
+            }
+        }
+    }
+
+    /**
+     * The outcome of a BulkStore command.
+     */
+    public static class Response
+    {
+        private final int writtenRowCount;
+        private final int batchCount;
+        private final List<Row> failedRows;
+        private final List<Throwable> failureCauses;
+
+        private Response(int writtenRowCount, int batchCount, List<Row> failedRows, List<Throwable> failureCauses)
+        {
+            this.writtenRowCount = writtenRowCount;
+            this.batchCount = batchCount;
+            this.failedRows = Collections.unmodifiableList(failedRows);
+            this.failureCauses = Collections.unmodifiableList(failureCauses);
+        }
+
+        /**
+         * @return the number of rows that were stored.
+         */
+        public int getWrittenRowCount()
+        {
+            return writtenRowCount;
+        }
+
+        /**
+         * @return the number of batches the rows were split into.
+         */
+        public int getBatchCount()
+        {
+            return batchCount;
+        }
+
+        /**
+         * @return true if some rows could not be stored.
+         */
+        public boolean hasFailures()
+        {
+            return !failedRows.isEmpty();
+        }
+
+        /**
+         * @return the rows that could not be stored after all retries.
+         */
+        public List<Row> getFailedRows()
+        {
+            return failedRows;
+        }
+
+        /**
+         * @return the cause of the final failure of each failed batch.
+         */
+        public List<Throwable> getFailureCauses()
+        {
+            return failureCauses;
+        }
+    }
+
+    /**
+     * Used to construct a Time Series BulkStore command.
+     */
+    public static class Builder
+    {
+        private final TableDefinition table;
+        private final List<Row> rows = new ArrayList<>();
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private int maxBatchRows = DEFAULT_MAX_BATCH_ROWS;
+        private int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+
+        /**
+         * Construct a Builder for a Time Series BulkStore command.
+         * @param table Required. The definition of the table to store data to,
+         *              as returned by {@link DescribeTable}.
+         */
+        public Builder(TableDefinition table)
+        {
+            if (table == null)
+            {
+                throw new IllegalArgumentException("Table Definition must not be null");
+            }
+            this.table = table;
+        }
+
+        /**
+         * Add a single Row object to the store command.
+         * @param row Required. The row to add.
+         * @return a reference to this object.
+         */
+        public Builder withRow(Row row)
+        {
+            this.rows.add(row);
+            return this;
+        }
+
+        /**
+         * Add a collection of Row objects to the store command.
+         * @param rows Required. The rows to add.
+         * @return a reference to this object.
+         */
+        public Builder withRows(Iterable<Row> rows)
+        {
+            for (Row r : rows)
+            {
+                this.rows.add(r);
+            }
+            return this;
+        }
+
+        /**
+         * Set the maximum number of batches to be in progress simultaneously.
+         * <p>
+         * Defaults to 10.
+         * </p>
+         * @param maxInFlight the max number of outstanding batches.
+         * @return a reference to this object.
+         */
+        public Builder withMaxInFlight(int maxInFlight)
+        {
+            if (maxInFlight <= 0)
+            {
+                throw new IllegalArgumentException("Max in flight must be greater than zero.");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of rows in a batch.
+         * <p>
+         * Defaults to 1000.
+         * </p>
+         * @param maxBatchRows the max number of rows sent in one request.
+         * @return a reference to this object.
+         */
+        public Builder withMaxBatchRows(int maxBatchRows)
+        {
+            if (maxBatchRows <= 0)
+            {
+                throw new IllegalArgumentException("Max batch rows must be greater than zero.");
+            }
+            this.maxBatchRows = maxBatchRows;
+            return this;
+        }
+
+        /**
+         * Set the approximate maximum encoded size of a batch.
+         * <p>
+         * A row larger than this is sent in a batch of its own. Defaults to 1MB.
+         * </p>
+         * @param maxBatchBytes the max number of bytes sent in one request.
+         * @return a reference to this object.
+         */
+        public Builder withMaxBatchBytes(int maxBatchBytes)
+        {
+            if (maxBatchBytes <= 0)
+            {
+                throw new IllegalArgumentException("Max batch bytes must be greater than zero.");
+            }
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * Set the number of times a failed batch is retried.
+         * <p>
+         * Defaults to 2.
+         * </p>
+         * @param maxRetries the number of retries, zero to disable them.
+         * @return a reference to this object.
+         */
+        public Builder withMaxRetries(int maxRetries)
+        {
+            if (maxRetries < 0)
+            {
+                throw new IllegalArgumentException("Max retries must not be negative.");
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Construct a Time Series BulkStore object.
+         * @return a new Time Series BulkStore instance.
+         */
+        public BulkStore build()
+        {
+            return new BulkStore(this);
+        }
+    }
+}
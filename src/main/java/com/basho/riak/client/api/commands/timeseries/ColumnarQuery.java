@@ -0,0 +1,84 @@
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.api.AsIsRiakCommand;
+import com.basho.riak.client.core.operations.ts.ColumnarQueryOperation;
+import com.basho.riak.client.core.operations.ts.QueryOperation;
+import com.basho.riak.client.core.query.timeseries.ColumnarQueryResult;
+
+/**
+ * Time Series Query Command returning a column-oriented result.
+ * <p>
+ * Runs the same query as {@link Query}, but the response is decoded straight
+ * into a {@link ColumnarQueryResult}, holding one primitive array per column
+ * instead of a {@link com.basho.riak.client.core.query.timeseries.Cell} per value.
+ * This greatly reduces the memory used by large result sets.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * ColumnarQuery query = new ColumnarQuery.Builder("select * from GeoCheckin where ...").build();
+ * ColumnarQueryResult result = client.execute(query);
+ * int temperature = result.getColumnIndex("temperature");
+ * double[] temperatures = result.getDoubleColumn(temperature);}</pre>
+ *
+ * @since 2.1.2
+ */
+public class ColumnarQuery extends AsIsRiakCommand<ColumnarQueryResult, String>
+{
+    private final Builder builder;
+
+    private ColumnarQuery(Builder builder)
+    {
+        this.builder = builder;
+    }
+
+    @Override
+    protected ColumnarQueryOperation buildCoreOperation()
+    {
+        return new QueryOperation.Builder(builder.queryText)
+                                 .withCoverageContext(builder.coverageContext)
+                                 .buildColumnar();
+    }
+
+    /**
+     * Used to construct a Time Series ColumnarQuery command.
+     */
+    public static class Builder
+    {
+        private final String queryText;
+        private byte[] coverageContext = null;
+
+        /**
+         * Construct a Builder for a Time Series ColumnarQuery command.
+         * @param queryText Required. The query to run.
+         */
+        public Builder(String queryText)
+        {
+            if (queryText == null || queryText.isEmpty())
+            {
+                throw new IllegalArgumentException("Query Text must not be null or empty");
+            }
+            this.queryText = queryText;
+        }
+
+        /**
+         * Run the query against a single coverage entry.
+         * @param coverageContext the context of a
+         * {@link com.basho.riak.client.core.query.timeseries.CoverageEntry}.
+         * @return a reference to this object.
+         */
+        public Builder withCoverageContext(byte[] coverageContext)
+        {
+            this.coverageContext = coverageContext;
+            return this;
+        }
+
+        /**
+         * Construct a Time Series ColumnarQuery object.
+         * @return a new Time Series ColumnarQuery instance.
+         */
+        public ColumnarQuery build()
+        {
+            return new ColumnarQuery(this);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.api.AsIsRiakCommand;
+import com.basho.riak.client.core.operations.ts.MappedQueryOperation;
+import com.basho.riak.client.core.operations.ts.QueryOperation;
+import com.basho.riak.client.core.query.timeseries.TsRowMapper;
+
+import java.util.List;
+
+/**
+ * Time Series Query Command that maps the result rows to objects.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * The response is decoded straight into objects with a {@link TsRowMapper},
+ * without creating a Row or Cell per value.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * TsRowMapper<Reading> mapper = TsRowMapper.forClass(Reading.class, tableDefinition);
+ * MappedQuery<Reading> query = new MappedQuery.Builder<>("select * from GeoCheckin where ...", mapper).build();
+ * List<Reading> readings = client.execute(query);}</pre>
+ *
+ * @param <T> the type rows are mapped to.
+ * @since 2.1.2
+ */
+public class MappedQuery<T> extends AsIsRiakCommand<List<T>, String>
+{
+    private final Builder<T> builder;
+
+    private MappedQuery(Builder<T> builder)
+    {
+        this.builder = builder;
+    }
+
+    @Override
+    protected MappedQueryOperation<T> buildCoreOperation()
+    {
+        return new QueryOperation.Builder(builder.queryText)
+                                 .withCoverageContext(builder.coverageContext)
+                                 .buildMapped(builder.mapper);
+    }
+
+    /**
+     * Used to construct a Time Series MappedQuery command.
+     * @param <T> the type rows are mapped to.
+     */
+    public static class Builder<T>
+    {
+        private final String queryText;
+        private final TsRowMapper<T> mapper;
+        private byte[] coverageContext = null;
+
+        /**
+         * Construct a Builder for a Time Series MappedQuery command.
+         * @param queryText Required. The query to run.
+         * @param mapper Required. The mapper to decode the rows with.
+         */
+        public Builder(String queryText, TsRowMapper<T> mapper)
+        {
+            if (queryText == null || queryText.isEmpty())
+            {
+                throw new IllegalArgumentException("Query Text must not be null or empty");
+            }
+            if (mapper == null)
+            {
+                throw new IllegalArgumentException("Mapper must not be null");
+            }
+            this.queryText = queryText;
+            this.mapper = mapper;
+        }
+
+        /**
+         * Run the query against a single coverage entry.
+         * @param coverageContext the context of a
+         * {@link com.basho.riak.client.core.query.timeseries.CoverageEntry}.
+         * @return a reference to this object.
+         */
+        public Builder<T> withCoverageContext(byte[] coverageContext)
+        {
+            this.coverageContext = coverageContext;
+            return this;
+        }
+
+        /**
+         * Construct a Time Series MappedQuery object.
+         * @return a new Time Series MappedQuery instance.
+         */
+        public MappedQuery<T> build()
+        {
+            return new MappedQuery<>(this);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.api.AsIsRiakCommand;
+import com.basho.riak.client.core.operations.ts.StoreOperation;
+import com.basho.riak.client.core.query.timeseries.TsRowMapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Time Series Store Command that stores objects of your own class.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * The objects are encoded straight into the request with a {@link TsRowMapper},
+ * without creating a Row or Cell per value. The table is the one the
+ * mapper was compiled against.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * TsRowMapper<Reading> mapper = TsRowMapper.forClass(Reading.class, tableDefinition);
+ * MappedStore<Reading> store = new MappedStore.Builder<>(mapper).withObjects(readings).build();
+ * client.execute(store);}</pre>
+ *
+ * @param <T> the type of the stored objects.
+ * @since 2.1.2
+ */
+public class MappedStore<T> extends AsIsRiakCommand<Void, String>
+{
+    private final Builder<T> builder;
+
+    private MappedStore(Builder<T> builder)
+    {
+        this.builder = builder;
+    }
+
+    @Override
+    protected StoreOperation buildCoreOperation()
+    {
+        return new StoreOperation.Builder(builder.mapper.getTableName())
+                .withObjects(builder.objects, builder.mapper)
+                .build();
+    }
+
+    /**
+     * Used to construct a Time Series MappedStore command.
+     * @param <T> the type of the stored objects.
+     */
+    public static class Builder<T>
+    {
+        private final TsRowMapper<T> mapper;
+        private final List<T> objects = new ArrayList<>();
+
+        /**
+         * Construct a Builder for a Time Series MappedStore command.
+         * @param mapper Required. The mapper to encode the objects with.
+         * @throws IllegalStateException if the mapper cannot write complete rows.
+         */
+        public Builder(TsRowMapper<T> mapper)
+        {
+            if (mapper == null)
+            {
+                throw new IllegalArgumentException("Mapper must not be null");
+            }
+            mapper.checkWritable();
+            this.mapper = mapper;
+        }
+
+        /**
+         * Add a single object to the store command.
+         * @param object Required. The object to add.
+         * @return a reference to this object.
+         */
+        public Builder<T> withObject(T object)
+        {
+            this.objects.add(object);
+            return this;
+        }
+
+        /**
+         * Add a collection of objects to the store command.
+         * @param objects Required. The objects to add.
+         * @return a reference to this object.
+         */
+        public Builder<T> withObjects(Collection<? extends T> objects)
+        {
+            this.objects.addAll(objects);
+            return this;
+        }
+
+        /**
+         * Construct a Time Series MappedStore object.
+         * @return a new Time Series MappedStore instance.
+         */
+        public MappedStore<T> build()
+        {
+            return new MappedStore<>(this);
+        }
+    }
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.api.RiakCommand;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.ts.QueryOperation;
+import com.basho.riak.client.core.query.timeseries.CollectionConverters;
+import com.basho.riak.client.core.query.timeseries.ColumnDescription;
+import com.basho.riak.client.core.query.timeseries.CoverageEntry;
+import com.basho.riak.client.core.query.timeseries.CoveragePlanResult;
+import com.basho.riak.client.core.query.timeseries.QueryResult;
+import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.client.core.util.HostAndPort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Time Series Query Command that runs one sub-query per coverage entry in parallel.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * The coverage plan for the query is fetched first. Then the query is run once
+ * for every {@link CoverageEntry} of the plan (see {@link Query.Builder#withCoverageContext(byte[])}),
+ * each sub-query being sent to the host of its entry where possible, with at
+ * most {@code maxInFlight} sub-queries running at a time. Wide time range
+ * queries are thus spread over the cluster rather than being funneled through
+ * a single coordinator.
+ * </p>
+ * <p>
+ * The response is an {@link Iterable} of the sub-query results. By default
+ * the command completes once every sub-query has, and the results are ordered
+ * by the lower bound of their coverage entry; since each sub-query covers one
+ * quantum and is sorted by the local key, rows are in local key order when it
+ * starts with the quantum field. In streaming mode the command completes as
+ * soon as the sub-queries have been started and the results are returned in
+ * the order they complete, blocking while waiting for more.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * ParallelQuery query = new ParallelQuery.Builder("GeoCheckin", queryText)
+ *                                        .withMaxInFlight(4)
+ *                                        .build();
+ * ParallelQuery.Response response = client.execute(query);
+ * for (QueryResult subResult : response)
+ * {
+ *     ...
+ * }}</pre>
+ *
+ * @since 2.1.2
+ */
+public class ParallelQuery extends RiakCommand<ParallelQuery.Response, String>
+{
+    private static final int DEFAULT_MAX_IN_FLIGHT = 10;
+
+    private final String tableName;
+    private final String queryText;
+    private final int maxInFlight;
+    private final boolean streaming;
+
+    private ParallelQuery(Builder builder)
+    {
+        this.tableName = builder.tableName;
+        this.queryText = builder.queryText;
+        this.maxInFlight = builder.maxInFlight;
+        this.streaming = builder.streaming;
+    }
+
+    @Override
+    protected RiakFuture<Response, String> executeAsync(final RiakCluster cluster)
+    {
+        final SettableRiakFuture<Response, String> future = new SettableRiakFuture<>(queryText);
+
+        fetchEntries(cluster, tableName, queryText, future, entries ->
+            new Execution(cluster, queryText, entries, maxInFlight, streaming, future).start());
+
+        return future;
+    }
+
+    /**
+     * Fetch the coverage plan of a query and pass its entries, ordered by
+     * lower bound, to a consumer. If the plan can't be fetched the future
+     * fails instead.
+     */
+    static void fetchEntries(RiakCluster cluster, String tableName, String queryText,
+                             SettableRiakFuture<?, String> future, Consumer<List<CoverageEntry>> consumer)
+    {
+        cluster.execute(new CoveragePlan.Builder(tableName, queryText).buildOperation()).addListener(f ->
+        {
+            if (!f.isSuccess())
+            {
+                future.setException(f.cause());
+                return;
+            }
+
+            consumer.accept(sortedEntries(f.getNow()));
+        });
+    }
+
+    private static List<CoverageEntry> sortedEntries(CoveragePlanResult plan)
+    {
+        final List<CoverageEntry> entries = new ArrayList<>();
+        for (CoverageEntry entry : plan)
+        {
+            entries.add(entry);
+        }
+        entries.sort(Comparator.comparingLong(CoverageEntry::getLowerBound));
+        return entries;
+    }
+
+    /**
+     * Run the query for a single coverage entry on the entry's host.
+     */
+    static RiakFuture<QueryResult, String> executeSubQuery(RiakCluster cluster, String queryText,
+                                                           CoverageEntry entry)
+    {
+        final QueryOperation operation = new QueryOperation.Builder(queryText)
+                                                           .withCoverageContext(entry.getCoverageContext())
+                                                           .build();
+
+        return cluster.executeOnHost(operation, HostAndPort.fromParts(entry.getHost(), entry.getPort()));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("ParallelQuery {table: %s, query: %s, maxInFlight: %d, streaming: %s}",
+                             tableName, queryText, maxInFlight, streaming);
+    }
+
+    /**
+     * Runs the sub-queries, starting the next one whenever one completes.
+     */
+    private static class Execution
+    {
+        private final RiakCluster cluster;
+        private final String queryText;
+        private final List<CoverageEntry> entries;
+        private final int maxInFlight;
+        private final boolean streaming;
+        private final SettableRiakFuture<Response, String> future;
+        private final QueryResult[] results;
+        private final Response response;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final AtomicBoolean failed = new AtomicBoolean();
+
+        private Execution(RiakCluster cluster, String queryText, List<CoverageEntry> entries, int maxInFlight,
+                          boolean streaming, SettableRiakFuture<Response, String> future)
+        {
+            this.cluster = cluster;
+            this.queryText = queryText;
+            this.entries = entries;
+            this.maxInFlight = maxInFlight;
+            this.streaming = streaming;
+            this.future = future;
+            this.results = new QueryResult[entries.size()];
+            this.remaining = new AtomicInteger(entries.size());
+            this.response = streaming ? new Response(new LinkedBlockingQueue<>()) : new Response(results);
+        }
+
+        private void start()
+        {
+            if (entries.isEmpty())
+            {
+                response.add(Response.END);
+                future.setResponse(response);
+                return;
+            }
+
+            for (int i = 0; i < Math.min(maxInFlight, entries.size()); i++)
+            {
+                launch();
+            }
+
+            if (streaming)
+            {
+                future.setResponse(response);
+            }
+        }
+
+        private void launch()
+        {
+            final int index = next.getAndIncrement();
+            if (index >= entries.size() || failed.get())
+            {
+                return;
+            }
+
+            executeSubQuery(cluster, queryText, entries.get(index)).addListener(f ->
+            {
+                if (!f.isSuccess())
+                {
+                    if (failed.compareAndSet(false, true))
+                    {
+                        response.add(f.cause());
+                        future.setException(f.cause());
+                    }
+                    return;
+                }
+
+                results[index] = f.getNow();
+                response.add(f.getNow());
+
+                if (remaining.decrementAndGet() == 0)
+                {
+                    response.add(Response.END);
+                    future.setResponse(response);
+                }
+                else
+                {
+                    launch();
+                }
+            });
+        }
+    }
+
+    /**
+     * The results of the sub-queries of a ParallelQuery.
+     * <p>
+     * When not streaming, iteration is in coverage entry order. When streaming,
+     * iteration is in completion order and blocks until the next sub-query
+     * completes; if a sub-query fails the iterator throws a RuntimeException
+     * wrapping the cause.
+     * </p>
+     */
+    public static class Response implements Iterable<QueryResult>
+    {
+        private static final Object END = new Object();
+
+        private final List<QueryResult> results;
+        private final BlockingQueue<Object> queue;
+        private final AtomicBoolean iterated = new AtomicBoolean();
+
+        private Response(QueryResult[] results)
+        {
+            this.results = Arrays.asList(results);
+            this.queue = null;
+        }
+
+        private Response(BlockingQueue<Object> queue)
+        {
+            this.results = null;
+            this.queue = queue;
+        }
+
+        private void add(Object resultOrFailure)
+        {
+            if (queue != null)
+            {
+                queue.add(resultOrFailure);
+            }
+        }
+
+        public boolean isStreaming()
+        {
+            return queue != null;
+        }
+
+        /**
+         * An iterator over the results of the sub-queries.
+         * <p>
+         * A streaming response can be iterated only once.
+         * </p>
+         * @return an iterator.
+         */
+        @Override
+        public Iterator<QueryResult> iterator()
+        {
+            if (queue == null)
+            {
+                return results.iterator();
+            }
+
+            if (!iterated.compareAndSet(false, true))
+            {
+                throw new IllegalStateException("A streaming response can only be iterated once.");
+            }
+
+            return new Iterator<QueryResult>()
+            {
+                private Object next;
+
+                @Override
+                public boolean hasNext()
+                {
+                    if (next == null)
+                    {
+                        try
+                        {
+                            next = queue.take();
+                        }
+                        catch (InterruptedException ex)
+                        {
+                            Thread.currentThread().interrupt();
+                            throw new RuntimeException("Interrupted while waiting for the next sub-query", ex);
+                        }
+                    }
+
+                    if (next instanceof Throwable)
+                    {
+                        throw new RuntimeException("Time Series sub-query failed", (Throwable) next);
+                    }
+                    return next != END;
+                }
+
+                @Override
+                public QueryResult next()
+                {
+                    if (!hasNext())
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    final QueryResult result = (QueryResult) next;
+                    next = null;
+                    return result;
+                }
+            };
+        }
+
+        /**
+         * Merge the results of all sub-queries into one.
+         * <p>
+         * The rows of each sub-query are appended in iteration order; they
+         * are not merge sorted. Rows are therefore in local key order only
+         * when the local key starts with the quantum field. For a streaming
+         * response this consumes the iterator, blocking until every sub-query
+         * has completed.
+         * </p>
+         * @return a QueryResult containing the rows of every sub-query.
+         */
+        public QueryResult toQueryResult()
+        {
+            List<ColumnDescription> columns = null;
+            final List<Row> rows = new ArrayList<>();
+
+            for (QueryResult result : this)
+            {
+                if (columns == null || columns.isEmpty())
+                {
+                    columns = result.getColumnDescriptionsCopy();
+                }
+                for (Row row : result)
+                {
+                    rows.add(row);
+                }
+            }
+
+            if (columns == null)
+            {
+                return QueryResult.EMPTY;
+            }
+
+            return new QueryResult(new ArrayList<>(CollectionConverters.convertColumnDescriptionsToPb(columns)),
+                                   rows.toArray(new Row[rows.size()]));
+        }
+    }
+
+    /**
+     * Used to construct a Time Series ParallelQuery command.
+     * <p>
+     * Results are ordered by coverage entry, that is by quantum, and each
+     * sub-query's rows are in local key order. Rows of different sub-queries
+     * are not merged on the local key, so the combined rows are in local key
+     * order only when the local key starts with the quantum field; otherwise
+     * sort them after the query completes.
+     * </p>
+     */
+    public static class Builder
+    {
+        private final String tableName;
+        private final String queryText;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private boolean streaming = false;
+
+        /**
+         * Construct a Builder for a Time Series ParallelQuery command.
+         * @param tableName Required. The table being queried.
+         * @param queryText Required. The query to run.
+         */
+        public Builder(String tableName, String queryText)
+        {
+            if (tableName == null || tableName.isEmpty())
+            {
+                throw new IllegalArgumentException("Table Name must not be null or empty");
+            }
+            if (queryText == null || queryText.isEmpty())
+            {
+                throw new IllegalArgumentException("Query Text must not be null or empty");
+            }
+            this.tableName = tableName;
+            this.queryText = queryText;
+        }
+
+        /**
+         * Set the maximum number of sub-queries to be in progress simultaneously.
+         * <p>
+         * Defaults to 10.
+         * </p>
+         * @param maxInFlight the max number of outstanding sub-queries.
+         * @return a reference to this object.
+         */
+        public Builder withMaxInFlight(int maxInFlight)
+        {
+            if (maxInFlight <= 0)
+            {
+                throw new IllegalArgumentException("Max in flight must be greater than zero.");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Set whether sub-query results are streamed in completion order.
+         * <p>
+         * Defaults to false.
+         * </p>
+         * @param streaming true to stream results as they arrive.
+         * @return a reference to this object.
+         */
+        public Builder withStreaming(boolean streaming)
+        {
+            this.streaming = streaming;
+            return this;
+        }
+
+        /**
+         * Construct a Time Series ParallelQuery object.
+         * @return a new Time Series ParallelQuery instance.
+         */
+        public ParallelQuery build()
+        {
+            return new ParallelQuery(this);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.core.codec.TsQueryTemplate;
+
+import java.util.List;
+
+/**
+ * A Time Series query that is parsed once and executed many times with different parameters.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * The query text may contain named parameters such as {@code :start}.
+ * Preparing it finds the parameters and caches the encoded request around
+ * them, so each {@link Query} built from it only has to encode the parameter
+ * values. Parameters are substituted on the client as SQL literals. A
+ * PreparedQuery is immutable and can be shared between threads.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * PreparedQuery prepared = new PreparedQuery(
+ *     "select * from GeoCheckin where region = :region and time > :start and time < :end");
+ *
+ * Query query = prepared.bind()
+ *                       .with("region", "South Atlantic")
+ *                       .with("start", start)
+ *                       .with("end", end)
+ *                       .build();
+ * QueryResult result = client.execute(query);}</pre>
+ *
+ * @since 2.1.2
+ */
+public final class PreparedQuery
+{
+    private final TsQueryTemplate template;
+
+    /**
+     * Prepare a Time Series query.
+     * @param queryText Required. The query, with {@code :name} parameters.
+     */
+    public PreparedQuery(String queryText)
+    {
+        this.template = new TsQueryTemplate(queryText);
+    }
+
+    public String getQueryText()
+    {
+        return template.getQueryText();
+    }
+
+    /**
+     * @return the names of the query's parameters, without the leading colon.
+     */
+    public List<String> getParameterNames()
+    {
+        return template.getParameterNames();
+    }
+
+    /**
+     * Start building a Query from this prepared query.
+     * @return a new Binder.
+     */
+    public Binder bind()
+    {
+        return new Binder(template.bind());
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("PreparedQuery {query: %s, parameters: %s}", getQueryText(), getParameterNames());
+    }
+
+    /**
+     * Used to set the parameters of a PreparedQuery and build a Query.
+     * <p>
+     * Parameter names may be given with or without the leading colon.
+     * Every parameter must be set before building.
+     * </p>
+     */
+    public static class Binder
+    {
+        private final TsQueryTemplate.Binding binding;
+        private byte[] coverageContext;
+
+        private Binder(TsQueryTemplate.Binding binding)
+        {
+            this.binding = binding;
+        }
+
+        public Binder with(String name, long value)
+        {
+            binding.set(name, value);
+            return this;
+        }
+
+        public Binder with(String name, double value)
+        {
+            binding.set(name, value);
+            return this;
+        }
+
+        public Binder with(String name, boolean value)
+        {
+            binding.set(name, value);
+            return this;
+        }
+
+        public Binder with(String name, String value)
+        {
+            binding.set(name, value);
+            return this;
+        }
+
+        public Binder withCoverageContext(byte[] coverageContext)
+        {
+            this.coverageContext = coverageContext;
+            return this;
+        }
+
+        /**
+         * Construct a Time Series Query object.
+         * @return a new Time Series Query instance.
+         * @throws IllegalStateException if a parameter has not been set.
+         */
+        public Query build()
+        {
+            binding.checkComplete();
+            return new Query.Builder(binding.copy()).withCoverageContext(coverageContext).build();
+        }
+    }
+}
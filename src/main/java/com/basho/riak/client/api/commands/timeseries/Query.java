@@ -1,6 +1,7 @@
 package com.basho.riak.client.api.commands.timeseries;
 
 import com.basho.riak.client.api.AsIsRiakCommand;
+import com.basho.riak.client.core.codec.TsQueryTemplate;
 import com.basho.riak.client.core.operations.ts.QueryOperation;
 import com.basho.riak.client.core.query.timeseries.QueryResult;
 import com.basho.riak.client.core.util.BinaryValue;
@@ -32,9 +33,11 @@ public class Query extends AsIsRiakCommand<QueryResult, String>
     @Override
     protected QueryOperation buildCoreOperation()
     {
-        return new QueryOperation.Builder(builder.queryText)
-                                           .withCoverageContext(builder.coverageContext)
-                                           .build();
+        final QueryOperation.Builder operationBuilder = builder.binding == null
+            ? new QueryOperation.Builder(builder.queryText)
+            : new QueryOperation.Builder(builder.binding);
+
+        return operationBuilder.withCoverageContext(builder.coverageContext).build();
     }
 
     /**
@@ -49,6 +52,7 @@ public class Query extends AsIsRiakCommand<QueryResult, String>
         private final Map<String, BinaryValue> interpolations = new HashMap<>();
         private final Set<String> knownParams;
         private byte[] coverageContext = null;
+        private TsQueryTemplate.Binding binding = null;
 
         /**
          * Construct a Builder for a Time Series Query command.
@@ -81,6 +85,13 @@ public class Query extends AsIsRiakCommand<QueryResult, String>
             }
         }
 
+        Builder(TsQueryTemplate.Binding binding)
+        {
+            this.queryText = binding.getTemplate().getQueryText();
+            this.knownParams = Collections.emptySet();
+            this.binding = binding;
+        }
+
         public Builder(String queryText, byte[] coverageContext)
         {
             this(queryText);
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.api.ListException;
+import com.basho.riak.client.api.StreamableRiakCommand;
+import com.basho.riak.client.api.commands.ChunkedResponseIterator;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.StreamingRiakFuture;
+import com.basho.riak.client.core.operations.ts.ListKeysOperation;
+import com.basho.riak.client.core.query.timeseries.QueryResult;
+import com.basho.riak.client.core.query.timeseries.Row;
+
+import java.util.Iterator;
+
+/**
+ * Time Series command used to list the primary keys of a table, with support for streaming.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * Unlike {@link ListKeys}, which only returns once every key has been
+ * received, this command can be executed with
+ * {@link com.basho.riak.client.api.RiakClient#executeAsyncStreaming(StreamableRiakCommand, int)}.
+ * Keys are then decoded one response chunk at a time and handed to the
+ * response's iterator as they arrive, and chunks are released once they have
+ * been iterated.
+ * </p>
+ * <p>
+ * Reads from Riak are not paused for a slow reader: chunks that arrive
+ * faster than they are iterated are queued without limit, so the reader
+ * should keep up with the listing to avoid holding most of the keys.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * StreamingListKeys lk = new StreamingListKeys.Builder("GeoCheckin").withAllowListing().build();
+ * StreamingListKeys.Response response = client.executeAsyncStreaming(lk, 200).get();
+ * for (Row key : response)
+ * {
+ *     ...
+ * }}</pre>
+ * <p>
+ * <b>This is a very expensive operation and is not recommended for use on a production system</b>
+ * </p>
+ *
+ * @since 2.1.2
+ */
+public class StreamingListKeys extends StreamableRiakCommand.StreamableRiakCommandWithSameInfo<StreamingListKeys.Response,
+        String, QueryResult>
+{
+    private final String tableName;
+    private final int timeout;
+
+    private StreamingListKeys(Builder builder) throws ListException
+    {
+        this.tableName = builder.tableName;
+        this.timeout = builder.timeout;
+
+        if (!builder.allowListing)
+        {
+            throw new ListException();
+        }
+    }
+
+    @Override
+    protected Response convertResponse(FutureOperation<QueryResult, ?, String> request, QueryResult coreResponse)
+    {
+        return new Response(coreResponse);
+    }
+
+    @Override
+    protected Response createResponse(int timeout, StreamingRiakFuture<QueryResult, String> coreFuture)
+    {
+        return new Response(timeout, coreFuture);
+    }
+
+    @Override
+    protected ListKeysOperation buildCoreOperation(boolean streamResults)
+    {
+        ListKeysOperation.Builder builder = new ListKeysOperation.Builder(tableName);
+
+        if (this.timeout > 0)
+        {
+            builder.withTimeout(this.timeout);
+        }
+
+        builder.streamResults(streamResults);
+
+        return builder.build();
+    }
+
+    /**
+     * The keys of a Time Series table, as rows of their primary key cells.
+     */
+    public static class Response extends StreamableRiakCommand.StreamableResponse<Row, Row>
+    {
+        private final QueryResult keys;
+
+        Response(QueryResult keys)
+        {
+            this.keys = keys;
+        }
+
+        Response(int pollTimeout, StreamingRiakFuture<QueryResult, String> coreFuture)
+        {
+            super(new ChunkedResponseIterator<>(coreFuture,
+                    pollTimeout,
+                    (key) -> key,
+                    QueryResult::iterator));
+
+            this.keys = null;
+        }
+
+        @Override
+        public Iterator<Row> iterator()
+        {
+            if (isStreaming())
+            {
+                return super.iterator();
+            }
+
+            assert keys != null;
+            return keys.iterator();
+        }
+    }
+
+    /**
+     * Used to construct a Time Series StreamingListKeys command.
+     */
+    public static class Builder
+    {
+        private final String tableName;
+        private int timeout;
+        private boolean allowListing;
+
+        /**
+         * Construct a Builder for a Time Series StreamingListKeys command.
+         * @param tableName Required. The table to list the keys of.
+         */
+        public Builder(String tableName)
+        {
+            this.tableName = tableName;
+        }
+
+        /**
+         * Allow this listing command.
+         * @return a reference to this object.
+         */
+        public Builder withAllowListing()
+        {
+            this.allowListing = true;
+            return this;
+        }
+
+        /**
+         * Set the Riak-side timeout value.
+         * @param timeout the timeout in milliseconds to be sent to riak.
+         * @return a reference to this object.
+         */
+        public Builder withTimeout(int timeout)
+        {
+            if (timeout < 1)
+            {
+                throw new IllegalArgumentException("Timeout must be a positive integer");
+            }
+
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Construct the StreamingListKeys command.
+         * @return a StreamingListKeys command.
+         * @throws ListException if listing has not been allowed.
+         */
+        public StreamingListKeys build() throws ListException
+        {
+            return new StreamingListKeys(this);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.api.RiakCommand;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.query.timeseries.ColumnDescription;
+import com.basho.riak.client.core.query.timeseries.CoverageEntry;
+import com.basho.riak.client.core.query.timeseries.QueryResult;
+import com.basho.riak.client.core.query.timeseries.Row;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Time Series Query Command that streams the resulting rows.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * Riak TS returns the result of a query in a single response, so a plain
+ * {@link Query} holds every row in memory before the first one can be read.
+ * StreamingQuery instead splits the query along its coverage plan, one
+ * sub-query per quantum, and hands out the rows of each sub-query as it is
+ * iterated. At most {@code prefetch} sub-queries are running or waiting to be
+ * read at any time; the next one is only started when the iterator moves past
+ * a completed one. A slow reader therefore holds the query back instead of
+ * buffering the whole range, and memory use is bounded by the size of
+ * {@code prefetch} quanta.
+ * </p>
+ * <p>
+ * Rows are returned in coverage entry order, so they are in local key order
+ * when it starts with the quantum field.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * StreamingQuery query = new StreamingQuery.Builder("GeoCheckin", queryText).build();
+ * StreamingQuery.Response response = client.execute(query);
+ * for (Row row : response)
+ * {
+ *     ...
+ * }}</pre>
+ *
+ * @since 2.1.2
+ */
+public class StreamingQuery extends RiakCommand<StreamingQuery.Response, String>
+{
+    private static final int DEFAULT_PREFETCH = 2;
+
+    private final String tableName;
+    private final String queryText;
+    private final int prefetch;
+
+    private StreamingQuery(Builder builder)
+    {
+        this.tableName = builder.tableName;
+        this.queryText = builder.queryText;
+        this.prefetch = builder.prefetch;
+    }
+
+    @Override
+    protected RiakFuture<Response, String> executeAsync(final RiakCluster cluster)
+    {
+        final SettableRiakFuture<Response, String> future = new SettableRiakFuture<>(queryText);
+
+        ParallelQuery.fetchEntries(cluster, tableName, queryText, future, entries ->
+            future.setResponse(new Response(cluster, queryText, entries, prefetch)));
+
+        return future;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("StreamingQuery {table: %s, query: %s, prefetch: %d}", tableName, queryText, prefetch);
+    }
+
+    /**
+     * The rows of a StreamingQuery.
+     * <p>
+     * Iteration blocks while waiting for the next sub-query to complete. If a
+     * sub-query fails the iterator throws a RuntimeException wrapping the cause.
+     * The response can be iterated only once.
+     * </p>
+     */
+    public static class Response implements Iterable<Row>
+    {
+        private final RiakCluster cluster;
+        private final String queryText;
+        private final List<CoverageEntry> entries;
+        private final List<RiakFuture<QueryResult, String>> window = new ArrayList<>();
+        private final AtomicBoolean iterated = new AtomicBoolean();
+        private List<ColumnDescription> columnDescriptions = Collections.emptyList();
+        private int launched;
+
+        private Response(RiakCluster cluster, String queryText, List<CoverageEntry> entries, int prefetch)
+        {
+            this.cluster = cluster;
+            this.queryText = queryText;
+            this.entries = entries;
+
+            while (launched < Math.min(prefetch, entries.size()))
+            {
+                launchNext();
+            }
+        }
+
+        private void launchNext()
+        {
+            window.add(ParallelQuery.executeSubQuery(cluster, queryText, entries.get(launched++)));
+        }
+
+        private QueryResult takeNext() throws InterruptedException
+        {
+            // Left in the window until it completes, so an interrupted reader can carry on
+            final QueryResult result;
+            try
+            {
+                result = window.get(0).get();
+            }
+            catch (ExecutionException ex)
+            {
+                throw new RuntimeException("Time Series sub-query failed", ex.getCause());
+            }
+            window.remove(0);
+
+            if (launched < entries.size())
+            {
+                launchNext();
+            }
+            return result;
+        }
+
+        /**
+         * The number of sub-queries the query was split into.
+         * @return the number of coverage entries.
+         */
+        public int getSubQueryCount()
+        {
+            return entries.size();
+        }
+
+        /**
+         * The column descriptions of the result.
+         * <p>
+         * Available once the first row has been read; empty before that.
+         * </p>
+         * @return the column descriptions.
+         */
+        public List<ColumnDescription> getColumnDescriptionsCopy()
+        {
+            return new ArrayList<>(columnDescriptions);
+        }
+
+        @Override
+        public Iterator<Row> iterator()
+        {
+            if (!iterated.compareAndSet(false, true))
+            {
+                throw new IllegalStateException("A streaming response can only be iterated once.");
+            }
+
+            return new Iterator<Row>()
+            {
+                private Iterator<Row> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext()
+                {
+                    while (!current.hasNext())
+                    {
+                        if (window.isEmpty())
+                        {
+                            return false;
+                        }
+
+                        try
+                        {
+                            final QueryResult result = takeNext();
+                            if (columnDescriptions.isEmpty())
+                            {
+                                columnDescriptions = result.getColumnDescriptionsCopy();
+                            }
+                            current = result.iterator();
+                        }
+                        catch (InterruptedException ex)
+                        {
+                            Thread.currentThread().interrupt();
+                            throw new RuntimeException("Interrupted while waiting for the next sub-query", ex);
+                        }
+                    }
+                    return true;
+                }
+
+                @Override
+                public Row next()
+                {
+                    if (!hasNext())
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+            };
+        }
+    }
+
+    /**
+     * Used to construct a Time Series StreamingQuery command.
+     */
+    public static class Builder
+    {
+        private final String tableName;
+        private final String queryText;
+        private int prefetch = DEFAULT_PREFETCH;
+
+        /**
+         * Construct a Builder for a Time Series StreamingQuery command.
+         * @param tableName Required. The table being queried.
+         * @param queryText Required. The query to run.
+         */
+        public Builder(String tableName, String queryText)
+        {
+            if (tableName == null || tableName.isEmpty())
+            {
+                throw new IllegalArgumentException("Table Name must not be null or empty");
+            }
+            if (queryText == null || queryText.isEmpty())
+            {
+                throw new IllegalArgumentException("Query Text must not be null or empty");
+            }
+            this.tableName = tableName;
+            this.queryText = queryText;
+        }
+
+        /**
+         * Set the number of sub-queries that may be running or waiting to be read.
+         * <p>
+         * Higher values hide more latency at the cost of memory. Defaults to 2.
+         * </p>
+         * @param prefetch the number of sub-queries fetched ahead of the reader.
+         * @return a reference to this object.
+         */
+        public Builder withPrefetch(int prefetch)
+        {
+            if (prefetch <= 0)
+            {
+                throw new IllegalArgumentException("Prefetch must be greater than zero.");
+            }
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        /**
+         * Construct a Time Series StreamingQuery object.
+         * @return a new Time Series StreamingQuery instance.
+         */
+        public StreamingQuery build()
+        {
+            return new StreamingQuery(this);
+        }
+    }
+}
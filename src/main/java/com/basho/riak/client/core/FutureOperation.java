@@ -15,6 +15,7 @@
  */
 package com.basho.riak.client.core;
 
+import io.netty.buffer.ByteBufAllocator;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -270,6 +271,13 @@ public abstract class FutureOperation<T, U, S> implements RiakFuture<T,S>
         return message;
     }
 
+    public synchronized final Object channelMessage(ByteBufAllocator allocator)
+    {
+        final Object message = createChannelMessage(allocator);
+        state = State.WRITTEN;
+        return message;
+    }
+
     @Override
     public final boolean cancel(boolean mayInterruptIfRunning)
     {
@@ -420,6 +428,22 @@ public abstract class FutureOperation<T, U, S> implements RiakFuture<T,S>
 
     abstract protected RiakMessage createChannelMessage();
 
+    /**
+     * Create the message to write to the channel.
+     * <p>
+     * Operations that can encode themselves straight into a frame override
+     * this to return a {@link io.netty.buffer.ByteBuf} taken from the channel's
+     * allocator, which bypasses the RiakMessage codec. By default this returns
+     * {@link #createChannelMessage()}.
+     * </p>
+     * @param allocator the channel's buffer allocator.
+     * @return a RiakMessage, or a ByteBuf holding a complete frame.
+     */
+    protected Object createChannelMessage(ByteBufAllocator allocator)
+    {
+        return createChannelMessage();
+    }
+
     abstract protected U decode(RiakMessage rawMessage);
 
     @Override
@@ -36,6 +36,7 @@ public abstract class PBStreamingFutureOperation<ReturnType, ResponseType, Query
 {
     private final TransferQueue<ReturnType> responseQueue;
     private boolean streamResults;
+    private volatile boolean discardResults;
 
     protected PBStreamingFutureOperation(final byte reqMessageCode,
                                          final byte respMessageCode,
@@ -57,10 +58,39 @@ public abstract class PBStreamingFutureOperation<ReturnType, ResponseType, Query
             return;
         }
 
+        if (discardResults)
+        {
+            return;
+        }
+
         final ReturnType r = processStreamingChunk(decodedMessage);
         assert this.responseQueue != null;
         final boolean chunkAdded = responseQueue.offer(r);
         assert chunkAdded;
+
+        if (discardResults)
+        {
+            // Raced with discardResults()
+            responseQueue.clear();
+        }
+    }
+
+    /**
+     * Stop queueing streamed results, once their reader has gone away.
+     * <p>
+     * Results already queued are dropped, and the remaining responses are
+     * read and discarded until the operation completes, so the connection is
+     * returned to the pool as usual. Has no effect if results are not streamed.
+     * </p>
+     * @since 2.1.2
+     */
+    public final void discardResults()
+    {
+        if (streamResults)
+        {
+            discardResults = true;
+            responseQueue.clear();
+        }
     }
 
     abstract protected ReturnType processStreamingChunk(ResponseType rawResponseChunk);
@@ -20,6 +20,7 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 
+import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.*;
 import java.util.concurrent.*;
@@ -233,6 +234,84 @@ public class  RiakCluster implements OperationRetrier, NodeStateListener
         return operation;
     }
 
+    /**
+     * Execute an operation, preferring the node at the given host and port.
+     * <p>
+     * This is used to route requests to the node that holds the data, e.g.
+     * the host of a coverage plan entry. If there is no running node at that
+     * address, or it has no connection available, the operation is executed
+     * as if by {@link #execute(FutureOperation)}. Retries use the normal
+     * node selection.
+     * </p>
+     * @param operation the operation to execute.
+     * @param preferredHost the address of the preferred node; may be null.
+     * @return a future for the operation.
+     * @since 2.1.2
+     */
+    public <V,S> RiakFuture<V,S> executeOnHost(FutureOperation<V, ?, S> operation, HostAndPort preferredHost)
+    {
+        final RiakNode node = preferredHost == null ? null : findNode(preferredHost);
+
+        if (node != null && node.getNodeState() == RiakNode.State.RUNNING)
+        {
+            stateCheck(State.RUNNING, State.QUEUING);
+            operation.setRetrier(this, executionAttempts);
+            inFlightCount.incrementAndGet();
+
+            try
+            {
+                if (node.execute(operation))
+                {
+                    return operation;
+                }
+            }
+            catch (IllegalStateException ex)
+            {
+                logger.debug("Preferred node {}:{} not available", node.getRemoteAddress(), node.getPort());
+            }
+            inFlightCount.decrementAndGet();
+        }
+
+        return executeFutureOperation(operation);
+    }
+
+    /**
+     * Find the node at the given address. Coverage plans name hosts by IP
+     * while nodes are usually configured by hostname, so a node whose
+     * configured address doesn't match is compared by the IP it resolved
+     * when it started; nothing is resolved here, as this runs per request.
+     */
+    private RiakNode findNode(HostAndPort hostAndPort)
+    {
+        try
+        {
+            nodeListLock.readLock().lock();
+            for (RiakNode node : nodeList)
+            {
+                if (node.getPort() == hostAndPort.getPort()
+                    && (node.getRemoteAddress().equals(hostAndPort.getHost())
+                        || isResolvedTo(node, hostAndPort.getHost())))
+                {
+                    return node;
+                }
+            }
+        }
+        finally
+        {
+            nodeListLock.readLock().unlock();
+        }
+
+        logger.debug("No node matches preferred host {}:{}, using any node",
+                     hostAndPort.getHost(), hostAndPort.getPort());
+        return null;
+    }
+
+    private static boolean isResolvedTo(RiakNode node, String ip)
+    {
+        final InetAddress address = node.getResolvedAddress();
+        return address != null && address.getHostAddress().equals(ip);
+    }
+
     private <V, S> RiakFuture<V, S> executeFutureOperation(FutureOperation<V, ?, S> operation)
     {
         stateCheck(State.RUNNING, State.QUEUING);
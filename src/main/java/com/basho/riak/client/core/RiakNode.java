@@ -35,6 +35,7 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.security.KeyStore;
@@ -76,6 +77,7 @@ public class RiakNode implements RiakResponseListener
     private final AtomicLong consecutiveFailedConnectionAttempts = new AtomicLong(0);
 
     private volatile Bootstrap bootstrap;
+    private volatile InetAddress resolvedAddress;
     private volatile boolean ownsBootstrap;
     private volatile ScheduledExecutorService executor;
     private volatile boolean ownsExecutor;
@@ -296,6 +298,7 @@ public class RiakNode implements RiakResponseListener
         }
 
         bootstrap.remoteAddress(socketAddress);
+        resolvedAddress = socketAddress.getAddress();
     }
 
     public synchronized Future<Boolean> shutdown()
@@ -951,6 +954,16 @@ public class RiakNode implements RiakResponseListener
         return remoteAddress;
     }
 
+    /**
+     * Returns the address {@code remoteAddress} last resolved to.
+     *
+     * @return the address, or null if the node hasn't been started.
+     */
+    InetAddress getResolvedAddress()
+    {
+        return resolvedAddress;
+    }
+
     /**
      * returns the remote port for this RiakNode
      *
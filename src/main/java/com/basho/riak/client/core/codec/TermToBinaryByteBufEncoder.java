@@ -0,0 +1,417 @@
+package com.basho.riak.client.core.codec;
+
+import com.basho.riak.client.core.query.timeseries.Cell;
+import com.basho.riak.client.core.query.timeseries.Row;
+import com.ericsson.otp.erlang.OtpExternal;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Encodes Time Series requests as complete Riak protocol frames directly into
+ * a {@link ByteBuf}.
+ * <p>
+ * The size of each request is computed first, so the buffer is taken from the
+ * allocator once, at its final size, and the frame is written without going
+ * through an intermediate {@code OtpOutputStream} or {@code byte[]}. Varchar
+ * cells are UTF-8 encoded straight into the buffer and blob cells are copied
+ * from their backing arrays. The bytes produced are the same as those of the
+ * {@link TermToBinaryCodec} encoders.
+ * </p>
+ * @since 2.1.2
+ */
+public final class TermToBinaryByteBufEncoder
+{
+    private static final int FRAME_HEADER_SIZE = 5;
+    private static final int ERL_INT_MIN = -(1 << 27);
+    private static final int ERL_INT_MAX = (1 << 27) - 1;
+
+    private static final byte[] TS_GET_REQ = atomBytes("tsgetreq");
+    private static final byte[] TS_PUT_REQ = atomBytes("tsputreq");
+    private static final byte[] TS_QUERY_REQ = atomBytes(TermToBinaryCodec.TS_QUERY_REQ);
+    private static final byte[] TS_INTERPOLATION = atomBytes(TermToBinaryCodec.TS_INTERPOLATION);
+    private static final byte[] UNDEFINED = atomBytes(TermToBinaryCodec.UNDEFINED);
+    private static final byte[] TRUE = atomBytes("true");
+    private static final byte[] FALSE = atomBytes("false");
+
+    private TermToBinaryByteBufEncoder()
+    {
+    }
+
+    public static ByteBuf encodeTsPutRequest(ByteBufAllocator allocator,
+                                             byte messageCode,
+                                             String tableName,
+                                             Collection<String> columns,
+                                             Collection<Row> rows)
+    {
+        final byte[] table = tableName.getBytes(StandardCharsets.UTF_8);
+        final byte[][] columnNames = new byte[columns == null ? 0 : columns.size()][];
+        if (columns != null)
+        {
+            int i = 0;
+            for (String column : columns)
+            {
+                columnNames[i++] = column.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        // {'tsputreq', tableName, [columns], [rows]}
+        int size = 1 + tupleHeadSize(4) + TS_PUT_REQ.length + binarySize(table.length);
+        for (byte[] column : columnNames)
+        {
+            size += binarySize(column.length);
+        }
+        size += (columnNames.length > 0 ? listHeadSize(columnNames.length) : 0) + 1;
+
+        size += listHeadSize(rows.size());
+        for (Row row : rows)
+        {
+            size += tupleHeadSize(row.getCellsCount());
+            for (Cell cell : row)
+            {
+                size += cellSize(cell);
+            }
+        }
+        size += 1;
+
+        final ByteBuf buf = startFrame(allocator, messageCode, size);
+        writeTupleHead(buf, 4);
+        buf.writeBytes(TS_PUT_REQ);
+        writeBinary(buf, table);
+
+        if (columnNames.length > 0)
+        {
+            writeListHead(buf, columnNames.length);
+            for (byte[] column : columnNames)
+            {
+                writeBinary(buf, column);
+            }
+        }
+        buf.writeByte(OtpExternal.nilTag);
+
+        writeListHead(buf, rows.size());
+        for (Row row : rows)
+        {
+            writeTupleHead(buf, row.getCellsCount());
+            for (Cell cell : row)
+            {
+                writeCell(buf, cell);
+            }
+        }
+        buf.writeByte(OtpExternal.nilTag);
+
+        return buf;
+    }
+
+    public static ByteBuf encodeTsQueryRequest(ByteBufAllocator allocator,
+                                               byte messageCode,
+                                               String queryText,
+                                               byte[] coverageContext)
+    {
+        final byte[] query = queryText.getBytes(StandardCharsets.UTF_8);
+
+        // {'tsqueryreq', {'tsinterpolation', <<query>>, []}, false, CoverContext}
+        final int size = 1 + tupleHeadSize(4) + TS_QUERY_REQ.length
+                           + tupleHeadSize(3) + TS_INTERPOLATION.length + binarySize(query.length) + 1
+                           + FALSE.length
+                           + (coverageContext == null ? UNDEFINED.length : binarySize(coverageContext.length));
+
+        final ByteBuf buf = startFrame(allocator, messageCode, size);
+        writeTupleHead(buf, 4);
+        buf.writeBytes(TS_QUERY_REQ);
+        writeTupleHead(buf, 3);
+        buf.writeBytes(TS_INTERPOLATION);
+        writeBinary(buf, query);
+        buf.writeByte(OtpExternal.nilTag);
+        buf.writeBytes(FALSE);
+
+        if (coverageContext == null)
+        {
+            buf.writeBytes(UNDEFINED);
+        }
+        else
+        {
+            writeBinary(buf, coverageContext);
+        }
+
+        return buf;
+    }
+
+    public static ByteBuf encodeTsGetRequest(ByteBufAllocator allocator,
+                                             byte messageCode,
+                                             String tableName,
+                                             Collection<Cell> keyValues,
+                                             int timeout)
+    {
+        final byte[] table = tableName.getBytes(StandardCharsets.UTF_8);
+
+        // {'tsgetreq', tableName, [key values], timeout}
+        int size = 1 + tupleHeadSize(4) + TS_GET_REQ.length + binarySize(table.length)
+                     + listHeadSize(keyValues.size()) + 1
+                     + (timeout != 0 ? longSize(timeout) : UNDEFINED.length);
+        for (Cell cell : keyValues)
+        {
+            size += cellSize(cell);
+        }
+
+        final ByteBuf buf = startFrame(allocator, messageCode, size);
+        writeTupleHead(buf, 4);
+        buf.writeBytes(TS_GET_REQ);
+        writeBinary(buf, table);
+
+        writeListHead(buf, keyValues.size());
+        for (Cell cell : keyValues)
+        {
+            writeCell(buf, cell);
+        }
+        buf.writeByte(OtpExternal.nilTag);
+
+        if (timeout != 0)
+        {
+            writeLong(buf, timeout);
+        }
+        else
+        {
+            buf.writeBytes(UNDEFINED);
+        }
+
+        return buf;
+    }
+
+    /**
+     * Frame an already encoded message.
+     * @param allocator the allocator to take the buffer from.
+     * @param messageCode the Riak message code.
+     * @param body the encoded message.
+     * @return a buffer holding the complete frame.
+     */
+    public static ByteBuf encodeFrame(ByteBufAllocator allocator, byte messageCode, byte[] body)
+    {
+        final ByteBuf buf = allocator.buffer(FRAME_HEADER_SIZE + body.length);
+        buf.writeInt(body.length + 1);
+        buf.writeByte(messageCode);
+        buf.writeBytes(body);
+        return buf;
+    }
+
+    private static ByteBuf startFrame(ByteBufAllocator allocator, byte messageCode, int size)
+    {
+        final ByteBuf buf = allocator.buffer(FRAME_HEADER_SIZE + size);
+        buf.writeInt(size + 1);
+        buf.writeByte(messageCode);
+        buf.writeByte(OtpExternal.versionTag);
+        return buf;
+    }
+
+    private static byte[] atomBytes(String atom)
+    {
+        final byte[] name = atom.getBytes(StandardCharsets.ISO_8859_1);
+        final byte[] bytes = new byte[3 + name.length];
+        bytes[0] = (byte) OtpExternal.atomTag;
+        bytes[1] = (byte) (name.length >>> 8);
+        bytes[2] = (byte) name.length;
+        System.arraycopy(name, 0, bytes, 3, name.length);
+        return bytes;
+    }
+
+    private static int tupleHeadSize(int arity)
+    {
+        return arity < 0xff ? 2 : 5;
+    }
+
+    private static int listHeadSize(int arity)
+    {
+        return arity == 0 ? 1 : 5;
+    }
+
+    private static int binarySize(int length)
+    {
+        return 5 + length;
+    }
+
+    private static int longSize(long value)
+    {
+        if ((value & 0xffL) == value)
+        {
+            return 2;
+        }
+        if (value >= ERL_INT_MIN && value <= ERL_INT_MAX)
+        {
+            return 5;
+        }
+        return 3 + magnitudeLength(value);
+    }
+
+    private static int magnitudeLength(long value)
+    {
+        final long magnitude = value < 0 ? -value : value;
+        // Long.MIN_VALUE has no positive counterpart, but its magnitude still fits in 8 unsigned bytes
+        return (64 - Long.numberOfLeadingZeros(magnitude) + 7) / 8;
+    }
+
+    private static int cellSize(Cell cell)
+    {
+        if (cell == null)
+        {
+            return 1;
+        }
+        if (cell.hasVarcharValue())
+        {
+            return binarySize(utf8Length(cell.getVarcharAsUTF8String()));
+        }
+        if (cell.hasLong())
+        {
+            return longSize(cell.getLong());
+        }
+        if (cell.hasTimestamp())
+        {
+            return longSize(cell.getTimestamp());
+        }
+        if (cell.hasBoolean())
+        {
+            return cell.getBoolean() ? TRUE.length : FALSE.length;
+        }
+        if (cell.hasDouble())
+        {
+            return 9;
+        }
+        if (cell.hasBlob())
+        {
+            return binarySize(cell.getBlob().length);
+        }
+        throw new IllegalArgumentException("Unknown TS cell type encountered.");
+    }
+
+    private static int utf8Length(String value)
+    {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++)
+        {
+            final char c = value.charAt(i);
+            if (c < 0x80)
+            {
+                length += 1;
+            }
+            else if (c < 0x800)
+            {
+                length += 2;
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                         && Character.isLowSurrogate(value.charAt(i + 1)))
+            {
+                length += 4;
+                i++;
+            }
+            else if (Character.isSurrogate(c))
+            {
+                // Unpaired surrogates are written as '?'
+                length += 1;
+            }
+            else
+            {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static void writeTupleHead(ByteBuf buf, int arity)
+    {
+        if (arity < 0xff)
+        {
+            buf.writeByte(OtpExternal.smallTupleTag);
+            buf.writeByte(arity);
+        }
+        else
+        {
+            buf.writeByte(OtpExternal.largeTupleTag);
+            buf.writeInt(arity);
+        }
+    }
+
+    private static void writeListHead(ByteBuf buf, int arity)
+    {
+        if (arity == 0)
+        {
+            buf.writeByte(OtpExternal.nilTag);
+        }
+        else
+        {
+            buf.writeByte(OtpExternal.listTag);
+            buf.writeInt(arity);
+        }
+    }
+
+    private static void writeBinary(ByteBuf buf, byte[] bytes)
+    {
+        buf.writeByte(OtpExternal.binTag);
+        buf.writeInt(bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    private static void writeLong(ByteBuf buf, long value)
+    {
+        if ((value & 0xffL) == value)
+        {
+            buf.writeByte(OtpExternal.smallIntTag);
+            buf.writeByte((int) value);
+        }
+        else if (value >= ERL_INT_MIN && value <= ERL_INT_MAX)
+        {
+            buf.writeByte(OtpExternal.intTag);
+            buf.writeInt((int) value);
+        }
+        else
+        {
+            final int length = magnitudeLength(value);
+            final long magnitude = value < 0 ? -value : value;
+            buf.writeByte(OtpExternal.smallBigTag);
+            buf.writeByte(length);
+            buf.writeByte(value < 0 ? 1 : 0);
+            for (int i = 0; i < length; i++)
+            {
+                buf.writeByte((int) (magnitude >>> (8 * i)));
+            }
+        }
+    }
+
+    private static void writeCell(ByteBuf buf, Cell cell)
+    {
+        if (cell == null)
+        {
+            // NB: Null cells are represented as empty lists
+            buf.writeByte(OtpExternal.nilTag);
+        }
+        else if (cell.hasVarcharValue())
+        {
+            final String varchar = cell.getVarcharAsUTF8String();
+            buf.writeByte(OtpExternal.binTag);
+            buf.writeInt(utf8Length(varchar));
+            ByteBufUtil.writeUtf8(buf, varchar);
+        }
+        else if (cell.hasLong())
+        {
+            writeLong(buf, cell.getLong());
+        }
+        else if (cell.hasTimestamp())
+        {
+            writeLong(buf, cell.getTimestamp());
+        }
+        else if (cell.hasBoolean())
+        {
+            buf.writeBytes(cell.getBoolean() ? TRUE : FALSE);
+        }
+        else if (cell.hasDouble())
+        {
+            buf.writeByte(OtpExternal.newFloatTag);
+            buf.writeLong(Double.doubleToLongBits(cell.getDouble()));
+        }
+        else
+        {
+            writeBinary(buf, cell.getBlob());
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.basho.riak.client.core.codec;
 
 import com.basho.riak.client.core.query.timeseries.Cell;
+import com.basho.riak.client.core.query.timeseries.CollectionConverters;
+import com.basho.riak.client.core.query.timeseries.ColumnarQueryResult;
 import com.basho.riak.client.core.query.timeseries.QueryResult;
 import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.client.core.query.timeseries.TsRowMapper;
 import com.basho.riak.client.core.util.CharsetUtils;
 import com.basho.riak.protobuf.RiakTsPB;
 import com.ericsson.otp.erlang.*;
@@ -17,11 +20,11 @@ public class TermToBinaryCodec
 {
     private static final String TS_GET_REQ = "tsgetreq";
     private static final String TS_GET_RESP = "tsgetresp";
-    private static final String TS_QUERY_REQ = "tsqueryreq";
+    static final String TS_QUERY_REQ = "tsqueryreq";
     private static final String TS_QUERY_RESP = "tsqueryresp";
-    private static final String TS_INTERPOLATION = "tsinterpolation";
+    static final String TS_INTERPOLATION = "tsinterpolation";
     private static final String TS_PUT_REQ = "tsputreq";
-    private static final String UNDEFINED = "undefined";
+    static final String UNDEFINED = "undefined";
     private static final Logger logger = LoggerFactory.getLogger(TermToBinaryCodec.class);
 
     public static OtpOutputStream encodeTsGetRequest(String tableName, Collection<Cell> keyValues, int timeout)
@@ -59,6 +62,75 @@ public class TermToBinaryCodec
         return decodeTsResponse(response);
     }
 
+    public static ColumnarQueryResult decodeTsColumnarResultResponse(byte[] response)
+            throws OtpErlangDecodeException, InvalidTermToBinaryException
+    {
+        final OtpInputStream is = new OtpInputStream(response);
+
+        final int firstByte = is.read1skip_version();
+        is.reset();
+
+        if (firstByte != OtpExternal.smallTupleTag && firstByte != OtpExternal.largeTupleTag)
+        {
+            parseAtomResult(is);
+            return ColumnarQueryResult.EMPTY;
+        }
+
+        return parseColumnarTupleResult(is);
+    }
+
+    /**
+     * Decode a query response straight into objects, without creating Rows or Cells.
+     */
+    public static <T> List<T> decodeTsResultResponse(byte[] response, TsRowMapper<T> mapper)
+            throws OtpErlangDecodeException, InvalidTermToBinaryException
+    {
+        final OtpInputStream is = new OtpInputStream(response);
+
+        final int firstByte = is.read1skip_version();
+        is.reset();
+
+        if (firstByte != OtpExternal.smallTupleTag && firstByte != OtpExternal.largeTupleTag)
+        {
+            parseAtomResult(is);
+            return new ArrayList<>(0);
+        }
+
+        readResponseHeader(is);
+
+        final ArrayList<RiakTsPB.TsColumnDescription> columnDescriptions = parseColumnDescriptions(is);
+        final RiakTsPB.TsColumnType[] columnTypes = getColumnTypes(columnDescriptions);
+        final List<TsRowMapper.Column<T>> columns = mapper.bind(columnDescriptions);
+
+        final int rowCount = is.read_list_head();
+        final List<T> objects = new ArrayList<>(rowCount);
+        final MappedCellSink<T> sink = new MappedCellSink<>();
+
+        for (int rowIdx = 0; rowIdx < rowCount; rowIdx++)
+        {
+            final int rowDataCount = is.read_tuple_head();
+            assert (columnTypes.length == rowDataCount);
+
+            sink.object = mapper.newInstance();
+            for (int j = 0; j < rowDataCount; j++)
+            {
+                final TsRowMapper.Column<T> column = columns.get(j);
+                if (column == null)
+                {
+                    parseCell(is, columnTypes[j], SKIPPED_CELL);
+                }
+                else
+                {
+                    sink.column = column;
+                    parseCell(is, columnTypes[j], sink);
+                }
+            }
+            objects.add(sink.object);
+        }
+
+        return objects;
+    }
+
     public static OtpOutputStream encodeTsQueryRequest(String queryText, byte[] coverageContext)
     {
         final OtpOutputStream os = new OtpOutputStream();
@@ -149,6 +221,81 @@ public class TermToBinaryCodec
         return os;
     }
 
+    /**
+     * Encode a TsPutReq straight from objects, without creating Rows or Cells.
+     * Each object is written as a complete row in table order, so no columns may be listed.
+     */
+    public static <T> OtpOutputStream encodeTsPutRequest(String tableName,
+                                                         Collection<String> columns,
+                                                         Collection<T> objects,
+                                                         TsRowMapper<T> mapper)
+    {
+        if (columns != null && !columns.isEmpty())
+        {
+            // Mapped objects are always written as complete rows in table order
+            throw new IllegalArgumentException("Columns can not be listed when storing mapped objects");
+        }
+        mapper.checkWritable();
+        final List<TsRowMapper.Column<T>> tableColumns = mapper.getColumns();
+
+        final OtpOutputStream os = new OtpOutputStream();
+        os.write(OtpExternal.versionTag); // NB: this is the reqired 0x83 (131) value
+
+        // TsPutReq is a 4-tuple: {'tsputreq', tableName, [columns], [rows]}
+        os.write_tuple_head(4);
+        os.write_atom(TS_PUT_REQ);
+        os.write_binary(tableName.getBytes(StandardCharsets.UTF_8));
+
+        // Columns List, always empty
+        os.write_nil();
+
+        os.write_list_head(objects.size());
+        for (T object : objects)
+        {
+            os.write_tuple_head(tableColumns.size());
+            for (TsRowMapper.Column<T> column : tableColumns)
+            {
+                if (column == null || column.isNull(object))
+                {
+                    // NB: Null cells are represented as empty lists
+                    os.write_nil();
+                }
+                else
+                {
+                    writeMappedValueToStream(os, column, object);
+                }
+            }
+        }
+        os.write_nil();
+
+        return os;
+    }
+
+    private static <T> void writeMappedValueToStream(OtpOutputStream stream, TsRowMapper.Column<T> column, T object)
+    {
+        switch (column.getType())
+        {
+            case VARCHAR:
+                stream.write_binary(column.getVarchar(object).getBytes(StandardCharsets.UTF_8));
+                break;
+            case BLOB:
+                stream.write_binary(column.getBlob(object));
+                break;
+            case SINT64:
+            case TIMESTAMP:
+                stream.write_long(column.getLong(object));
+                break;
+            case DOUBLE:
+                stream.write_double(column.getDouble(object));
+                break;
+            case BOOLEAN:
+                stream.write_boolean(column.getBoolean(object));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown TS column type encountered: " + column.getType());
+        }
+    }
+
     private static void writeTsCellToStream(OtpOutputStream stream, Cell cell)
     {
         if (cell.hasVarcharValue())
@@ -215,7 +362,16 @@ public class TermToBinaryCodec
     private static QueryResult parseTupleResult(OtpInputStream is)
             throws OtpErlangDecodeException, InvalidTermToBinaryException
     {
-        final QueryResult result;
+        readResponseHeader(is);
+
+        final ArrayList<RiakTsPB.TsColumnDescription> columnDescriptions = parseColumnDescriptions(is);
+        final Row[] rows = parseRows(is, columnDescriptions);
+
+        return new QueryResult(columnDescriptions, rows);
+    }
+
+    private static void readResponseHeader(OtpInputStream is) throws OtpErlangDecodeException
+    {
         final int msgArity = is.read_tuple_head();
         // Response is:
         // {'rpberrorresp', ErrMsg, ErrCode}
@@ -230,20 +386,42 @@ public class TermToBinaryCodec
 
                 final int dataArity = is.read_tuple_head();
                 assert (dataArity == 3);
-
-                final ArrayList<RiakTsPB.TsColumnDescription> columnDescriptions = parseColumnDescriptions(is);
-
-                final ArrayList<RiakTsPB.TsRow> rows = parseRows(is, columnDescriptions);
-
-                result = new QueryResult(columnDescriptions, rows);
-
                 break;
             default:
                 final String errorMsg = "Unsupported response message received: " + respAtom;
                 logger.error(errorMsg);
                 throw new IllegalArgumentException(errorMsg);
         }
-        return result;
+    }
+
+    private static ColumnarQueryResult parseColumnarTupleResult(OtpInputStream is)
+            throws OtpErlangDecodeException, InvalidTermToBinaryException
+    {
+        readResponseHeader(is);
+
+        final ArrayList<RiakTsPB.TsColumnDescription> columnDescriptions = parseColumnDescriptions(is);
+        final RiakTsPB.TsColumnType[] columnTypes = getColumnTypes(columnDescriptions);
+
+        final int rowCount = is.read_list_head();
+        final ColumnarQueryResult.Builder builder =
+                new ColumnarQueryResult.Builder(CollectionConverters.convertPBColumnDescriptions(columnDescriptions),
+                                                rowCount);
+
+        final ColumnarCellSink sink = new ColumnarCellSink(builder);
+
+        for (int rowIdx = 0; rowIdx < rowCount; rowIdx++)
+        {
+            final int rowDataCount = is.read_tuple_head();
+            assert (columnTypes.length == rowDataCount);
+
+            for (int j = 0; j < rowDataCount; j++)
+            {
+                sink.column = j;
+                parseCell(is, columnTypes[j], sink);
+            }
+        }
+
+        return builder.build();
     }
 
     private static ArrayList<RiakTsPB.TsColumnDescription> parseColumnDescriptions(OtpInputStream is)
@@ -289,100 +467,342 @@ public class TermToBinaryCodec
         return columnDescriptions;
     }
 
-    private static ArrayList<RiakTsPB.TsRow> parseRows(OtpInputStream is,
-                                                       List<RiakTsPB.TsColumnDescription> columnDescriptions)
+    private static Row[] parseRows(OtpInputStream is, List<RiakTsPB.TsColumnDescription> columnDescriptions)
             throws OtpErlangDecodeException, InvalidTermToBinaryException
     {
+        // Resolve the column types once, rather than per cell
+        final RiakTsPB.TsColumnType[] columnTypes = getColumnTypes(columnDescriptions);
+
         final int rowCount = is.read_list_head();
-        final ArrayList<RiakTsPB.TsRow> rows = new ArrayList<>(rowCount);
+        final Row[] rows = new Row[rowCount];
+        final RowCellSink sink = new RowCellSink();
 
         for (int rowIdx = 0; rowIdx < rowCount; rowIdx++)
         {
-            rows.add(parseRow(is, columnDescriptions));
+            rows[rowIdx] = parseRow(is, columnTypes, sink);
         }
         return rows;
     }
 
-    private static RiakTsPB.TsRow parseRow(OtpInputStream is, List<RiakTsPB.TsColumnDescription> columnDescriptions)
+    private static RiakTsPB.TsColumnType[] getColumnTypes(List<RiakTsPB.TsColumnDescription> columnDescriptions)
+    {
+        final RiakTsPB.TsColumnType[] columnTypes = new RiakTsPB.TsColumnType[columnDescriptions.size()];
+        for (int i = 0; i < columnTypes.length; i++)
+        {
+            columnTypes[i] = columnDescriptions.get(i).getType();
+        }
+        return columnTypes;
+    }
+
+    private static Row parseRow(OtpInputStream is, RiakTsPB.TsColumnType[] columnTypes, RowCellSink sink)
             throws OtpErlangDecodeException, InvalidTermToBinaryException
     {
         final int rowDataCount = is.read_tuple_head();
-        assert (columnDescriptions.size() == rowDataCount);
+        assert (columnTypes.length == rowDataCount);
 
         final Cell[] cells = new Cell[rowDataCount];
         for (int j = 0; j < rowDataCount; j++)
         {
-            final OtpErlangObject cell = is.read_any();
-            cells[j] = parseCell(columnDescriptions, j, cell);
+            parseCell(is, columnTypes[j], sink);
+            cells[j] = sink.cell;
         }
 
-        return new Row(cells).getPbRow();
+        return new Row(cells);
     }
 
-    private static Cell parseCell(List<RiakTsPB.TsColumnDescription> columnDescriptions, int j, OtpErlangObject cell)
-            throws InvalidTermToBinaryException
+    /**
+     * Reads a cell straight from the stream and hands its value to a sink,
+     * without materializing an intermediate OtpErlangObject.
+     */
+    private static void parseCell(OtpInputStream is, RiakTsPB.TsColumnType type, CellSink sink)
+            throws OtpErlangDecodeException, InvalidTermToBinaryException
     {
-        if (cell instanceof OtpErlangBinary)
+        final int tag = is.peek1skip_version();
+
+        if (tag == OtpExternal.nilTag)
         {
-            final OtpErlangBinary v = (OtpErlangBinary) cell;
-            final RiakTsPB.TsColumnType type = columnDescriptions.get(j).getType();
-            switch (type)
-            {
-                case VARCHAR:
-                    final String s = new String(v.binaryValue(), StandardCharsets.UTF_8);
-                    return new Cell(s);
-
-                case BLOB:
-                    return new Cell(v.binaryValue());
-
-                default:
-                    throw new IllegalStateException(
-                            String.format(
-                                    "Type '%s' from the provided ColumnDescription contradicts to the actual OtpErlangBinary value",
-                                    type.name()
-                            )
-                    );
-            }
+            // NB: Null cells are represented as empty lists
+            is.read_nil();
+            sink.acceptNull();
+            return;
         }
-        else if (cell instanceof OtpErlangLong)
+
+        switch (type)
         {
-            final OtpErlangLong v = (OtpErlangLong) cell;
-            final RiakTsPB.TsColumnType type = columnDescriptions.get(j).getType();
-            switch (type)
-            {
-                case TIMESTAMP:
-                    return Cell.newTimestamp(v.longValue());
-
-                case SINT64:
-                    return new Cell(v.longValue());
-
-                default:
-                    throw new IllegalStateException(
-                            String.format(
-                                    "Type '%s' from the provided ColumnDescription contradicts to the actual OtpErlangLong value",
-                                    type.name()
-                            )
-                    );
-            }
+            case VARCHAR:
+                checkTag(type, tag, OtpExternal.binTag);
+                sink.acceptVarchar(is.read_binary());
+                break;
+
+            case BLOB:
+                checkTag(type, tag, OtpExternal.binTag);
+                sink.acceptBlob(is.read_binary());
+                break;
+
+            case TIMESTAMP:
+                checkIntegerTag(type, tag);
+                sink.acceptTimestamp(is.read_long());
+                break;
+
+            case SINT64:
+                checkIntegerTag(type, tag);
+                sink.acceptSint64(is.read_long());
+                break;
+
+            case DOUBLE:
+                if (tag != OtpExternal.newFloatTag && tag != OtpExternal.floatTag)
+                {
+                    throw contradiction(type, tag);
+                }
+                sink.acceptDouble(is.read_double());
+                break;
+
+            case BOOLEAN:
+                sink.acceptBoolean(is.read_boolean());
+                break;
+
+            default:
+                throw new InvalidTermToBinaryException("Unknown cell type encountered: " + type +
+                                                       ", unable to continue parsing.");
         }
-        else if (cell instanceof OtpErlangDouble)
+    }
+
+    private static void checkTag(RiakTsPB.TsColumnType type, int tag, int expected)
+    {
+        if (tag != expected)
         {
-            final OtpErlangDouble v = (OtpErlangDouble) cell;
-            return new Cell(v.doubleValue());
+            throw contradiction(type, tag);
         }
-        else if (cell instanceof OtpErlangAtom)
+    }
+
+    private static void checkIntegerTag(RiakTsPB.TsColumnType type, int tag)
+    {
+        if (tag != OtpExternal.smallIntTag && tag != OtpExternal.intTag
+                && tag != OtpExternal.smallBigTag && tag != OtpExternal.largeBigTag)
         {
-            final OtpErlangAtom v = (OtpErlangAtom) cell;
-            return new Cell(v.booleanValue());
+            throw contradiction(type, tag);
         }
-        else if (cell instanceof OtpErlangList)
+    }
+
+    private static IllegalStateException contradiction(RiakTsPB.TsColumnType type, int tag)
+    {
+        return new IllegalStateException(
+                String.format("Type '%s' from the provided ColumnDescription contradicts to the actual value (tag %d)",
+                              type.name(), tag));
+    }
+
+    /**
+     * Receives the value of each cell as it is parsed from the stream.
+     */
+    private interface CellSink
+    {
+        void acceptNull();
+
+        void acceptVarchar(byte[] value);
+
+        void acceptBlob(byte[] value);
+
+        void acceptTimestamp(long value);
+
+        void acceptSint64(long value);
+
+        void acceptDouble(double value);
+
+        void acceptBoolean(boolean value);
+    }
+
+    private static final CellSink SKIPPED_CELL = new CellSink()
+    {
+        @Override
+        public void acceptNull()
+        {
+        }
+
+        @Override
+        public void acceptVarchar(byte[] value)
+        {
+        }
+
+        @Override
+        public void acceptBlob(byte[] value)
+        {
+        }
+
+        @Override
+        public void acceptTimestamp(long value)
+        {
+        }
+
+        @Override
+        public void acceptSint64(long value)
+        {
+        }
+
+        @Override
+        public void acceptDouble(double value)
+        {
+        }
+
+        @Override
+        public void acceptBoolean(boolean value)
+        {
+        }
+    };
+
+    /**
+     * Holds the last parsed cell as a {@link Cell}.
+     */
+    private static final class RowCellSink implements CellSink
+    {
+        private Cell cell;
+
+        @Override
+        public void acceptNull()
+        {
+            cell = null;
+        }
+
+        @Override
+        public void acceptVarchar(byte[] value)
+        {
+            cell = new Cell(new String(value, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void acceptBlob(byte[] value)
         {
-            final OtpErlangList l = (OtpErlangList) cell;
-            assert (l.arity() == 0);
-            return null;
+            cell = new Cell(value);
         }
 
-        throw new InvalidTermToBinaryException("Unknown cell type encountered: " + cell.toString() +
-                                               ", unable to continue parsing.");
+        @Override
+        public void acceptTimestamp(long value)
+        {
+            cell = Cell.newTimestamp(value);
+        }
+
+        @Override
+        public void acceptSint64(long value)
+        {
+            cell = new Cell(value);
+        }
+
+        @Override
+        public void acceptDouble(double value)
+        {
+            cell = new Cell(value);
+        }
+
+        @Override
+        public void acceptBoolean(boolean value)
+        {
+            cell = new Cell(value);
+        }
+    }
+
+    /**
+     * Appends each parsed cell to the current column of a columnar result.
+     */
+    private static final class ColumnarCellSink implements CellSink
+    {
+        private final ColumnarQueryResult.Builder builder;
+        private int column;
+
+        ColumnarCellSink(ColumnarQueryResult.Builder builder)
+        {
+            this.builder = builder;
+        }
+
+        @Override
+        public void acceptNull()
+        {
+            builder.appendNull(column);
+        }
+
+        @Override
+        public void acceptVarchar(byte[] value)
+        {
+            builder.appendVarchar(column, value);
+        }
+
+        @Override
+        public void acceptBlob(byte[] value)
+        {
+            builder.appendBlob(column, value);
+        }
+
+        @Override
+        public void acceptTimestamp(long value)
+        {
+            builder.appendLong(column, value);
+        }
+
+        @Override
+        public void acceptSint64(long value)
+        {
+            builder.appendLong(column, value);
+        }
+
+        @Override
+        public void acceptDouble(double value)
+        {
+            builder.appendDouble(column, value);
+        }
+
+        @Override
+        public void acceptBoolean(boolean value)
+        {
+            builder.appendBoolean(column, value);
+        }
+    }
+
+    /**
+     * Writes each parsed cell to the current column of the current mapped object.
+     */
+    private static final class MappedCellSink<T> implements CellSink
+    {
+        private TsRowMapper.Column<T> column;
+        private T object;
+
+        @Override
+        public void acceptNull()
+        {
+            column.setNull(object);
+        }
+
+        @Override
+        public void acceptVarchar(byte[] value)
+        {
+            column.setVarchar(object, new String(value, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void acceptBlob(byte[] value)
+        {
+            column.setBlob(object, value);
+        }
+
+        @Override
+        public void acceptTimestamp(long value)
+        {
+            column.setLong(object, value);
+        }
+
+        @Override
+        public void acceptSint64(long value)
+        {
+            column.setLong(object, value);
+        }
+
+        @Override
+        public void acceptDouble(double value)
+        {
+            column.setDouble(object, value);
+        }
+
+        @Override
+        public void acceptBoolean(boolean value)
+        {
+            column.setBoolean(object, value);
+        }
     }
 }
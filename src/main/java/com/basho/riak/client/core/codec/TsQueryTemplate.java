@@ -0,0 +1,306 @@
+package com.basho.riak.client.core.codec;
+
+import com.ericsson.otp.erlang.OtpExternal;
+import com.ericsson.otp.erlang.OtpOutputStream;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A time series query whose {@code :name} parameters are filled in on the client.
+ * <p>
+ * The query text is split into literal segments and parameter slots once, and
+ * the TTB encoding of a TsQueryReq is cached as a prefix before the query
+ * binary and a suffix after it. Encoding a {@link Binding} then only renders
+ * the bound values and copies the cached bytes into a single exactly-sized
+ * array. Templates are immutable and can be shared between threads.
+ * </p>
+ * @since 2.1.2
+ */
+public final class TsQueryTemplate
+{
+    private final String queryText;
+    private final byte[][] segments;
+    private final int[] slotParameters;
+    private final List<String> parameterNames;
+    private final int literalLength;
+
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    public TsQueryTemplate(String queryText)
+    {
+        if (queryText == null || queryText.isEmpty())
+        {
+            throw new IllegalArgumentException("Query Text must not be null or empty");
+        }
+
+        this.queryText = queryText;
+
+        final List<byte[]> segmentList = new ArrayList<>();
+        final List<Integer> slotList = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+
+        boolean quoted = false;
+        int segmentStart = 0;
+        int i = 0;
+        while (i < queryText.length())
+        {
+            final char c = queryText.charAt(i);
+            if (c == '\'')
+            {
+                quoted = !quoted;
+            }
+            else if (c == ':' && !quoted && i + 1 < queryText.length() && isLetter(queryText.charAt(i + 1)))
+            {
+                int end = i + 2;
+                while (end < queryText.length() && isIdentifierPart(queryText.charAt(end)))
+                {
+                    end++;
+                }
+
+                final String name = queryText.substring(i + 1, end);
+                if (!names.contains(name))
+                {
+                    names.add(name);
+                }
+
+                segmentList.add(queryText.substring(segmentStart, i).getBytes(StandardCharsets.UTF_8));
+                slotList.add(names.indexOf(name));
+                segmentStart = end;
+                i = end;
+                continue;
+            }
+            i++;
+        }
+        segmentList.add(queryText.substring(segmentStart).getBytes(StandardCharsets.UTF_8));
+
+        this.segments = segmentList.toArray(new byte[segmentList.size()][]);
+        this.slotParameters = new int[slotList.size()];
+        for (int s = 0; s < slotParameters.length; s++)
+        {
+            slotParameters[s] = slotList.get(s);
+        }
+        this.parameterNames = Collections.unmodifiableList(names);
+
+        int length = 0;
+        for (byte[] segment : segments)
+        {
+            length += segment.length;
+        }
+        this.literalLength = length;
+
+        // {'tsqueryreq', {'tsinterpolation', <<query>>, []}, false, CoverContext}
+        final OtpOutputStream head = new OtpOutputStream();
+        head.write(OtpExternal.versionTag);
+        head.write_tuple_head(4);
+        head.write_atom(TermToBinaryCodec.TS_QUERY_REQ);
+        head.write_tuple_head(3);
+        head.write_atom(TermToBinaryCodec.TS_INTERPOLATION);
+        this.prefix = head.toByteArray();
+        this.suffix = encodeSuffix(null);
+    }
+
+    private static boolean isLetter(char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isIdentifierPart(char c)
+    {
+        return isLetter(c) || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static byte[] encodeSuffix(byte[] coverageContext)
+    {
+        final OtpOutputStream tail = new OtpOutputStream();
+        tail.write_nil();
+        tail.write_boolean(false);
+        if (coverageContext == null)
+        {
+            tail.write_atom(TermToBinaryCodec.UNDEFINED);
+        }
+        else
+        {
+            tail.write_binary(coverageContext);
+        }
+        return tail.toByteArray();
+    }
+
+    public String getQueryText()
+    {
+        return queryText;
+    }
+
+    /**
+     * @return the distinct parameter names, without the leading colon, in order of appearance.
+     */
+    public List<String> getParameterNames()
+    {
+        return parameterNames;
+    }
+
+    public Binding bind()
+    {
+        return new Binding();
+    }
+
+    /**
+     * A set of values for the parameters of a template.
+     * <p>
+     * Parameter names may be given with or without the leading colon. Values
+     * are rendered as SQL literals: numbers and booleans as is, strings
+     * single-quoted with embedded quotes doubled.
+     * </p>
+     */
+    public final class Binding
+    {
+        private final byte[][] values = new byte[parameterNames.size()][];
+
+        private Binding()
+        {
+        }
+
+        public TsQueryTemplate getTemplate()
+        {
+            return TsQueryTemplate.this;
+        }
+
+        public Binding set(String name, long value)
+        {
+            return setLiteral(name, Long.toString(value));
+        }
+
+        public Binding set(String name, double value)
+        {
+            if (Double.isNaN(value) || Double.isInfinite(value))
+            {
+                throw new IllegalArgumentException("Query parameters must be finite numbers");
+            }
+            return setLiteral(name, BigDecimal.valueOf(value).toPlainString());
+        }
+
+        public Binding set(String name, boolean value)
+        {
+            return setLiteral(name, Boolean.toString(value));
+        }
+
+        public Binding set(String name, String value)
+        {
+            if (value == null)
+            {
+                throw new IllegalArgumentException("Query parameter values must not be null");
+            }
+            return setLiteral(name, "'" + value.replace("'", "''") + "'");
+        }
+
+        private Binding setLiteral(String name, String literal)
+        {
+            final String key = name != null && name.startsWith(":") ? name.substring(1) : name;
+            final int index = parameterNames.indexOf(key);
+            if (index < 0)
+            {
+                throw new IllegalArgumentException("Unknown query parameter: " + name);
+            }
+            values[index] = literal.getBytes(StandardCharsets.UTF_8);
+            return this;
+        }
+
+        /**
+         * Check that every parameter has a value.
+         * @throws IllegalStateException if a parameter is unbound.
+         */
+        public void checkComplete()
+        {
+            for (int i = 0; i < values.length; i++)
+            {
+                if (values[i] == null)
+                {
+                    throw new IllegalStateException("Query parameter not bound: " + parameterNames.get(i));
+                }
+            }
+        }
+
+        /**
+         * @return a new Binding with the same values, unaffected by later changes to this one.
+         */
+        public Binding copy()
+        {
+            final Binding copy = new Binding();
+            System.arraycopy(values, 0, copy.values, 0, values.length);
+            return copy;
+        }
+
+        /**
+         * @return the query text with the bound values substituted.
+         */
+        public String getQueryText()
+        {
+            return new String(render(), StandardCharsets.UTF_8);
+        }
+
+        private byte[] render()
+        {
+            checkComplete();
+            final byte[] text = new byte[queryLength()];
+            writeQuery(text, 0);
+            return text;
+        }
+
+        private int queryLength()
+        {
+            int length = literalLength;
+            for (int slot : slotParameters)
+            {
+                length += values[slot].length;
+            }
+            return length;
+        }
+
+        private int writeQuery(byte[] dest, int offset)
+        {
+            int pos = offset;
+            for (int s = 0; s < segments.length; s++)
+            {
+                System.arraycopy(segments[s], 0, dest, pos, segments[s].length);
+                pos += segments[s].length;
+                if (s < slotParameters.length)
+                {
+                    final byte[] value = values[slotParameters[s]];
+                    System.arraycopy(value, 0, dest, pos, value.length);
+                    pos += value.length;
+                }
+            }
+            return pos;
+        }
+
+        /**
+         * Encode a TsQueryReq for the bound query.
+         * @param coverageContext the coverage context to send, or null.
+         * @return the TTB encoded request.
+         */
+        public byte[] encode(byte[] coverageContext)
+        {
+            checkComplete();
+            final byte[] tail = coverageContext == null ? suffix : encodeSuffix(coverageContext);
+            final int queryLength = queryLength();
+
+            final byte[] message = new byte[prefix.length + 5 + queryLength + tail.length];
+            System.arraycopy(prefix, 0, message, 0, prefix.length);
+
+            int pos = prefix.length;
+            message[pos++] = (byte) OtpExternal.binTag;
+            message[pos++] = (byte) (queryLength >>> 24);
+            message[pos++] = (byte) (queryLength >>> 16);
+            message[pos++] = (byte) (queryLength >>> 8);
+            message[pos++] = (byte) queryLength;
+            pos = writeQuery(message, pos);
+
+            System.arraycopy(tail, 0, message, pos, tail.length);
+            return message;
+        }
+    }
+}
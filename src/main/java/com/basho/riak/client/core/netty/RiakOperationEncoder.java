@@ -30,6 +30,6 @@ public class RiakOperationEncoder extends MessageToMessageEncoder<FutureOperatio
     @Override
     protected void encode(ChannelHandlerContext ctx, FutureOperation operation, List<Object> out) throws Exception
     {
-        out.add(operation.channelMessage());
+        out.add(operation.channelMessage(ctx.alloc()));
     }
 }
@@ -174,6 +174,24 @@ public class CoveragePlanOperation extends FutureOperation<CoveragePlanOperation
         {
             return namespace;
         }
+
+        /**
+         * Returns the minimum number of partitions requested.
+         * @return the minimum partitions, or 0 if not set.
+         */
+        public int getMinPartitions()
+        {
+            return reqBuilder.getMinPartitions();
+        }
+
+        /**
+         * Returns whether this plan replaces an entry of an earlier plan.
+         * @return true if a replacement or unavailable coverage context was set.
+         */
+        public boolean hasCoverageReplacements()
+        {
+            return reqBuilder.hasReplaceCover() || reqBuilder.getUnavailableCoverCount() > 0;
+        }
     }
 
     public static class Response implements Iterable<Response.CoverageEntry>
@@ -16,19 +16,23 @@
 package com.basho.riak.client.core.operations;
 
 import com.basho.riak.client.core.PBStreamingFutureOperation;
+import com.basho.riak.client.core.query.CompactKeyList;
 import com.basho.riak.client.core.query.Namespace;
 import com.basho.riak.client.core.util.BinaryValue;
 import com.basho.riak.protobuf.RiakKvPB;
 import com.basho.riak.protobuf.RiakMessageCodes;
 import com.google.protobuf.ByteString;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
 
 public class ListKeysOperation extends PBStreamingFutureOperation<ListKeysOperation.Response, RiakKvPB.RpbListKeysResp, Namespace>
 {
     private final Namespace namespace;
+    private final CompactKeyList.Builder gatheredKeys;
 
     private ListKeysOperation(Builder builder)
     {
@@ -39,11 +43,19 @@ public class ListKeysOperation extends PBStreamingFutureOperation<ListKeysOperat
                 builder.streamResults);
 
         this.namespace = builder.namespace;
+        this.gatheredKeys = builder.compactKeys && !builder.streamResults
+                ? new CompactKeyList.Builder(builder.namespace)
+                : null;
     }
 
     @Override
     protected Response convert(List<RiakKvPB.RpbListKeysResp> rawResponse)
     {
+        if (gatheredKeys != null)
+        {
+            return new Response.Builder().withCompactKeys(gatheredKeys.build()).build();
+        }
+
         Response.Builder builder = new Response.Builder();
         for (RiakKvPB.RpbListKeysResp resp : rawResponse)
         {
@@ -52,6 +64,23 @@ public class ListKeysOperation extends PBStreamingFutureOperation<ListKeysOperat
         return builder.build();
     }
 
+    @Override
+    protected void processBatchMessage(RiakKvPB.RpbListKeysResp decodedMessage)
+    {
+        if (gatheredKeys != null && decodedMessage.getKeysCount() > 0)
+        {
+            // Copy the keys into the slab as they arrive, so the gathered
+            // messages don't hold on to them until the operation is done.
+            for (ByteString key : decodedMessage.getKeysList())
+            {
+                gatheredKeys.add(key);
+            }
+            decodedMessage = decodedMessage.toBuilder().clearKeys().build();
+        }
+
+        super.processBatchMessage(decodedMessage);
+    }
+
     private List<BinaryValue> convertSingleResponse(RiakKvPB.RpbListKeysResp resp)
     {
         List<BinaryValue> keys = new ArrayList<>(resp.getKeysCount());
@@ -88,6 +117,7 @@ public class ListKeysOperation extends PBStreamingFutureOperation<ListKeysOperat
             RiakKvPB.RpbListKeysReq.newBuilder();
         private final Namespace namespace;
         private boolean streamResults;
+        private boolean compactKeys;
 
         /**
          * Construct a builder for a ListKeysOperaiton.
@@ -132,6 +162,25 @@ public class ListKeysOperation extends PBStreamingFutureOperation<ListKeysOperat
             return this;
         }
 
+        /**
+         * Set whether to store the returned keys in a {@link CompactKeyList}.
+         * <p>
+         * When true, and results are not streamed, the keys are copied into a
+         * single byte slab as they are received rather than each being
+         * wrapped in a {@link BinaryValue}. The keys are available through
+         * {@link Response#getCompactKeys()}; {@link Response#getKeys()} still
+         * works but creates each key as it is reached.
+         * </p>
+         *
+         * @param compactKeys true to store the keys in a CompactKeyList.
+         * @return A reference to this object.
+         */
+        public Builder compactKeys(boolean compactKeys)
+        {
+            this.compactKeys = compactKeys;
+            return this;
+        }
+
         public ListKeysOperation build()
         {
             return new ListKeysOperation(this);
@@ -141,25 +190,89 @@ public class ListKeysOperation extends PBStreamingFutureOperation<ListKeysOperat
     public static class Response implements Iterable<BinaryValue>
     {
         private final List<BinaryValue> keys;
+        private final CompactKeyList compactKeys;
+
         private Response(Builder builder)
         {
-            this.keys = builder.keys;
+            this.compactKeys = builder.compactKeys;
+            this.keys = compactKeys != null ? new CompactKeys(compactKeys) : builder.keys;
         }
 
+        /**
+         * Get the keys.
+         * <p>
+         * When the keys are stored in a {@link CompactKeyList} this is a
+         * read-only view that creates each key as it is reached.
+         * </p>
+         *
+         * @return the keys.
+         */
         public List<BinaryValue> getKeys()
         {
             return keys;
         }
 
+        /**
+         * Determine if the keys were stored in a {@link CompactKeyList}.
+         *
+         * @return true if the operation was built with compactKeys.
+         */
+        public boolean hasCompactKeys()
+        {
+            return compactKeys != null;
+        }
+
+        /**
+         * Get the keys stored in a {@link CompactKeyList}.
+         *
+         * @return the keys, or null if the operation was not built with compactKeys.
+         */
+        public CompactKeyList getCompactKeys()
+        {
+            return compactKeys;
+        }
+
         @Override
         public Iterator<BinaryValue> iterator()
         {
             return keys.iterator();
         }
 
+        /**
+         * Keys of a CompactKeyList, created on each access and not kept.
+         */
+        private static final class CompactKeys extends AbstractList<BinaryValue> implements RandomAccess
+        {
+            private final CompactKeyList keys;
+
+            private CompactKeys(CompactKeyList keys)
+            {
+                this.keys = keys;
+            }
+
+            @Override
+            public BinaryValue get(int index)
+            {
+                return keys.getKey(index);
+            }
+
+            @Override
+            public int size()
+            {
+                return keys.size();
+            }
+        }
+
         static class Builder
         {
             private List<BinaryValue> keys = new ArrayList<>();
+            private CompactKeyList compactKeys;
+
+            Builder withCompactKeys(CompactKeyList compactKeys)
+            {
+                this.compactKeys = compactKeys;
+                return this;
+            }
 
             Builder addKeys(List<BinaryValue> keys)
             {
@@ -19,13 +19,18 @@ import com.basho.riak.client.core.PBStreamingFutureOperation;
 import com.basho.riak.client.core.util.BinaryValue;
 import com.basho.riak.protobuf.RiakMessageCodes;
 import com.basho.riak.protobuf.RiakKvPB;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.google.protobuf.ByteString;
 import java.io.IOException;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,8 +46,11 @@ public class MapReduceOperation extends PBStreamingFutureOperation<MapReduceOper
 {
     private final BinaryValue mapReduce;
     private final Logger logger = LoggerFactory.getLogger(MapReduceOperation.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // ObjectMapper is thread safe once configured, and expensive to create, so all operations share one.
+    private static final ObjectMapper objectMapper = new ObjectMapper();
     private final JsonNodeFactory jsonNodeFactory = JsonNodeFactory.instance;
+    private final ObjectReader resultReader;
+    private final Map<Integer, List<Object>> gatheredResults;
 
     private MapReduceOperation(Builder builder)
     {
@@ -52,11 +60,20 @@ public class MapReduceOperation extends PBStreamingFutureOperation<MapReduceOper
                 RiakKvPB.RpbMapRedResp.PARSER,
                 builder.streamResults);
         this.mapReduce = builder.mapReduce;
+        this.resultReader = builder.resultType == null ? null : objectMapper.readerFor(builder.resultType);
+        this.gatheredResults = resultReader != null && !builder.streamResults
+                ? new LinkedHashMap<>()
+                : null;
     }
 
     @Override
     protected Response convert(List<RiakKvPB.RpbMapRedResp> rawResponse)
     {
+        if (gatheredResults != null)
+        {
+            return new Response(null, gatheredResults);
+        }
+
         final Map<Integer, ArrayNode> resultMap = new LinkedHashMap<>();
 
         for (RiakKvPB.RpbMapRedResp response : rawResponse)
@@ -66,6 +83,65 @@ public class MapReduceOperation extends PBStreamingFutureOperation<MapReduceOper
         return new Response(resultMap);
     }
 
+    @Override
+    protected void processBatchMessage(RiakKvPB.RpbMapRedResp decodedMessage)
+    {
+        if (gatheredResults != null && decodedMessage.hasResponse())
+        {
+            // Bind each chunk to the result type as it arrives, so the gathered
+            // messages don't hold on to the JSON until the operation is done.
+            convertTypedResponse(gatheredResults, decodedMessage);
+            decodedMessage = decodedMessage.toBuilder().clearResponse().build();
+        }
+
+        super.processBatchMessage(decodedMessage);
+    }
+
+    private void convertTypedResponse(Map<Integer, List<Object>> typedResultMap,
+                                      RiakKvPB.RpbMapRedResp response)
+    {
+        // Each element of the JSON array in the chunk is bound straight to the
+        // result type from the parser, rather than being built into a tree first.
+        if (!response.hasResponse())
+        {
+            return;
+        }
+
+        final int phase = response.hasPhase() ? response.getPhase() : 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(response.getResponse().newInput()))
+        {
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+            {
+                logger.error("Mapreduce job returned JSON that wasn't an array; {}",
+                             response.getResponse().toStringUtf8());
+                return;
+            }
+
+            List<Object> results = typedResultMap.get(phase);
+            if (results == null)
+            {
+                results = new ArrayList<>();
+                typedResultMap.put(phase, results);
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+            {
+                if (token == null)
+                {
+                    throw new IOException("Unexpected end of JSON array");
+                }
+                results.add(resultReader.readValue(parser));
+            }
+        }
+        catch (IOException ex)
+        {
+            logger.error("Mapreduce job returned non-JSON; {}", response.getResponse().toStringUtf8());
+            throw new RuntimeException("Non-JSON response from MR job", ex);
+        }
+    }
+
     private void convertSingleResponse(Map<Integer, ArrayNode> resultMap,
                                        RiakKvPB.RpbMapRedResp response)
     {
@@ -128,6 +204,14 @@ public class MapReduceOperation extends PBStreamingFutureOperation<MapReduceOper
     @Override
     protected Response processStreamingChunk(RiakKvPB.RpbMapRedResp rawResponseChunk)
     {
+        if (resultReader != null)
+        {
+            final Map<Integer, List<Object>> typedResultMap = new LinkedHashMap<>();
+
+            convertTypedResponse(typedResultMap, rawResponseChunk);
+            return new Response(null, typedResultMap);
+        }
+
         final Map<Integer, ArrayNode> resultMap = new LinkedHashMap<>();
 
         convertSingleResponse(resultMap, rawResponseChunk);
@@ -140,6 +224,7 @@ public class MapReduceOperation extends PBStreamingFutureOperation<MapReduceOper
             RiakKvPB.RpbMapRedReq.newBuilder();
         private final BinaryValue mapReduce;
         private boolean streamResults;
+        private JavaType resultType;
 
         /**
          * Create a MapReduce operation builder with the given function.
@@ -176,6 +261,23 @@ public class MapReduceOperation extends PBStreamingFutureOperation<MapReduceOper
             return this;
         }
 
+        /**
+         * Set the type the results are decoded to.
+         *
+         * If set, each element of the JSON results is bound to this type
+         * directly from the response bytes as it arrives, and the results are
+         * available through {@link Response#getTypedResults()} rather than
+         * {@link Response#getResults()}.
+         *
+         * @param resultType the type of each result element.
+         * @return A reference to this object.
+         */
+        public Builder withResultType(JavaType resultType)
+        {
+            this.resultType = resultType;
+            return this;
+        }
+
         public MapReduceOperation build()
         {
             return new MapReduceOperation(this);
@@ -185,15 +287,47 @@ public class MapReduceOperation extends PBStreamingFutureOperation<MapReduceOper
     public static class Response
     {
         private final Map<Integer, ArrayNode> resultMap;
+        private final Map<Integer, List<Object>> typedResultMap;
 
         Response(Map<Integer, ArrayNode> results)
+        {
+            this(results, null);
+        }
+
+        Response(Map<Integer, ArrayNode> results, Map<Integer, List<Object>> typedResults)
         {
             this.resultMap = results;
+            this.typedResultMap = typedResults;
         }
 
+        /**
+         * Get the results of each phase as JSON.
+         *
+         * @return the results, or null if the operation was built with a result type.
+         */
         public Map<Integer, ArrayNode> getResults()
         {
             return resultMap;
         }
+
+        /**
+         * Determine if the results were decoded to a result type.
+         *
+         * @return true if the operation was built with a result type.
+         */
+        public boolean hasTypedResults()
+        {
+            return typedResultMap != null;
+        }
+
+        /**
+         * Get the results of each phase, decoded to the result type.
+         *
+         * @return the results, or null if the operation was not built with a result type.
+         */
+        public Map<Integer, List<Object>> getTypedResults()
+        {
+            return typedResultMap;
+        }
     }
 }
@@ -17,6 +17,7 @@ package com.basho.riak.client.core.operations;
 
 import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.query.search.CompactSearchResults;
 import com.basho.riak.client.core.util.BinaryValue;
 import com.basho.riak.protobuf.RiakMessageCodes;
 import com.basho.riak.protobuf.RiakPB.RpbPair;
@@ -24,11 +25,14 @@ import com.basho.riak.protobuf.RiakSearchPB;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 /**
  * A Riak Search or Yokozuna query operation.
@@ -48,12 +52,14 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
     private final String queryString;
     private final BinaryValue indexName;
     private final RiakSearchPB.RpbSearchQueryReq.Builder reqBuilder;
+    private final boolean compactResults;
 
     private SearchOperation(Builder builder)
     {
         this.reqBuilder = builder.reqBuilder;
         this.queryString = builder.queryString;
         this.indexName = builder.indexName;
+        this.compactResults = builder.compactResults;
     }
 
     @Override
@@ -61,6 +67,21 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
     {
         // This isn't a streaming op, there will only be one protobuf
         RiakSearchPB.RpbSearchQueryResp resp = rawResponse.get(0);
+
+        if (compactResults)
+        {
+            final CompactSearchResults.Builder builder = new CompactSearchResults.Builder();
+            for (RiakSearchPB.RpbSearchDoc pbDoc : resp.getDocsList())
+            {
+                builder.startDocument();
+                for (RpbPair pair : pbDoc.getFieldsList())
+                {
+                    builder.addValue(pair.getKey(), pair.getValue());
+                }
+            }
+            return new Response(builder.build(), resp.getMaxScore(), resp.getNumFound());
+        }
+
         List<Map<String, List<String>>> docList = new LinkedList<>();
         for (RiakSearchPB.RpbSearchDoc pbDoc : resp.getDocsList())
         {
@@ -114,6 +135,7 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
         private final String queryString;
         private final RiakSearchPB.RpbSearchQueryReq.Builder reqBuilder =
             RiakSearchPB.RpbSearchQueryReq.newBuilder();
+        private boolean compactResults;
 
         public Builder(BinaryValue indexName, String queryString)
         {
@@ -253,6 +275,22 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
             return this;
         }
 
+        /**
+         * Store the results compactly.
+         * By default each document is decoded into a map of lists. When set,
+         * the documents are kept in {@link CompactSearchResults}, which shares
+         * the field names between documents and decodes values only when
+         * they are asked for.
+         *
+         * @param compactResults true to store the results compactly.
+         * @return a reference to this object.
+         */
+        public Builder withCompactResults(boolean compactResults)
+        {
+            this.compactResults = compactResults;
+            return this;
+        }
+
         private void stringCheck(String arg)
         {
             if (null == arg || arg.length() == 0)
@@ -269,6 +307,7 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
 
     public static class Response implements Iterable
     {
+        private final CompactSearchResults compactResults;
         private final List<Map<String, List<String>>> results;
         private final float maxScore;
         private final int numResults;
@@ -276,6 +315,15 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
         Response(List<Map<String,List<String>>> results, float maxScore, int numResults)
         {
             this.results = results;
+            this.compactResults = null;
+            this.maxScore = maxScore;
+            this.numResults = numResults;
+        }
+
+        Response(CompactSearchResults compactResults, float maxScore, int numResults)
+        {
+            this.results = new CompactDocuments(compactResults);
+            this.compactResults = compactResults;
             this.maxScore = maxScore;
             this.numResults = numResults;
         }
@@ -283,7 +331,55 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
         @Override
         public Iterator<Map<String, List<String>>> iterator()
         {
-            return results.iterator();
+            return getAllResults().iterator();
+        }
+
+        /**
+         * Determine if the results were stored compactly.
+         * @return true if the operation was built with compact results.
+         */
+        public boolean hasCompactResults()
+        {
+            return compactResults != null;
+        }
+
+        /**
+         * Returns the compactly stored results.
+         * @return the results, or null if the operation was not built with compact results.
+         */
+        public CompactSearchResults getCompactResults()
+        {
+            return compactResults;
+        }
+
+        /**
+         * Returns the results from the search query, each bound to the supplied type.
+         * <p>
+         * Fields with a single value are bound as that value, and fields with
+         * more than one as an array. Fields the type doesn't have are ignored.
+         * </p>
+         * @param type the type to bind each result to.
+         * @param <T> the type to bind each result to.
+         * @return a list of the bound results.
+         */
+        public <T> List<T> getAllResultsAs(Class<T> type)
+        {
+            final List<T> bound = new ArrayList<>(compactResults != null ? compactResults.size() : results.size());
+            if (compactResults != null)
+            {
+                for (CompactSearchResults.Document doc : compactResults)
+                {
+                    bound.add(doc.as(type));
+                }
+            }
+            else
+            {
+                for (Map<String, List<String>> doc : results)
+                {
+                    bound.add(CompactSearchResults.bind(doc, type));
+                }
+            }
+            return bound;
         }
 
         /**
@@ -306,11 +402,41 @@ public class SearchOperation extends FutureOperation<SearchOperation.Response, R
 
         /**
          * Returns the entire list of results from the search query.
+         * <p>
+         * When the results are stored compactly this is a read-only view
+         * that creates each document's map as it is reached.
+         * </p>
          * @return a list containing all the result sets.
          */
         public List<Map<String, List<String>>> getAllResults()
         {
             return results;
         }
+
+        /**
+         * Documents of CompactSearchResults, copied into a map on each access and not kept.
+         */
+        private static final class CompactDocuments extends AbstractList<Map<String, List<String>>>
+            implements RandomAccess
+        {
+            private final CompactSearchResults documents;
+
+            private CompactDocuments(CompactSearchResults documents)
+            {
+                this.documents = documents;
+            }
+
+            @Override
+            public Map<String, List<String>> get(int index)
+            {
+                return documents.get(index).toMap();
+            }
+
+            @Override
+            public int size()
+            {
+                return documents.size();
+            }
+        }
     }
 }
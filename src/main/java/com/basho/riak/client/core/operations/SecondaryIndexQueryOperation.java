@@ -17,6 +17,7 @@ package com.basho.riak.client.core.operations;
 
 import com.basho.riak.client.core.PBStreamingFutureOperation;
 import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.query.CompactKeyList;
 import com.basho.riak.client.core.query.Namespace;
 import com.basho.riak.client.core.query.indexes.IndexNames;
 import com.basho.riak.client.core.util.BinaryValue;
@@ -26,10 +27,12 @@ import com.basho.riak.protobuf.RiakPB.RpbPair;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  *
@@ -43,6 +46,8 @@ public class SecondaryIndexQueryOperation
 {
     private final RiakKvPB.RpbIndexReq pbReq;
     private final Query query;
+    private final boolean compactKeys;
+    private final CompactKeyList.Builder gatheredKeys;
 
     private SecondaryIndexQueryOperation(Builder builder)
     {
@@ -57,6 +62,10 @@ public class SecondaryIndexQueryOperation
         // Yo dawg, we don't ever not want to use streaming.
         builder.pbReqBuilder.setStream(true);
         this.query = builder.query;
+        this.compactKeys = builder.compactKeys;
+        this.gatheredKeys = builder.compactKeys && !builder.streamResults
+                ? new CompactKeyList.Builder(builder.query.namespace)
+                : null;
 
         // TODO: get rid of pbReq usage by switching to use query insted
         this.pbReq = builder.pbReqBuilder.build();
@@ -72,6 +81,11 @@ public class SecondaryIndexQueryOperation
                                         !rawResponse.isEmpty() &&
                                         objectIsIndexBodyResp(rawResponse.get(0));
 
+        if (gatheredKeys != null)
+        {
+            responseBuilder.withCompactKeys(gatheredKeys);
+        }
+
         for (Object o : rawResponse)
         {
             convertSingleResponse(responseBuilder, isIndexBodyResp, o);
@@ -80,6 +94,27 @@ public class SecondaryIndexQueryOperation
         return responseBuilder.build();
     }
 
+    @Override
+    protected void processBatchMessage(Object decodedMessage)
+    {
+        if (gatheredKeys != null && decodedMessage instanceof RiakKvPB.RpbIndexResp)
+        {
+            final RiakKvPB.RpbIndexResp pbEntry = (RiakKvPB.RpbIndexResp) decodedMessage;
+            if (pbEntry.getKeysCount() > 0)
+            {
+                // Copy the keys into the slab as they arrive, so the gathered
+                // messages don't hold on to them until the operation is done.
+                for (ByteString objKey : pbEntry.getKeysList())
+                {
+                    gatheredKeys.add(objKey);
+                }
+                decodedMessage = pbEntry.toBuilder().clearKeys().build();
+            }
+        }
+
+        super.processBatchMessage(decodedMessage);
+    }
+
     private boolean objectIsIndexBodyResp(Object o)
     {
         return o instanceof RiakKvPB.RpbIndexBodyResp;
@@ -146,6 +181,15 @@ public class SecondaryIndexQueryOperation
         /**
          * If return_terms wasn't specified only the object keys are returned
          */
+        if (builder.compactKeys != null)
+        {
+            for (ByteString objKey : pbEntry.getKeysList())
+            {
+                builder.compactKeys.add(objKey);
+            }
+            return;
+        }
+
         for (ByteString objKey : pbEntry.getKeysList())
         {
             builder.addEntry(new Response.Entry(BinaryValue.unsafeCreate(objKey.toByteArray())));
@@ -234,6 +278,11 @@ public class SecondaryIndexQueryOperation
 
         final boolean bodyResp = objectIsIndexBodyResp(rawResponseChunk);
 
+        if (compactKeys)
+        {
+            responseBuilder.withCompactKeys(new CompactKeyList.Builder(query.namespace));
+        }
+
         convertSingleResponse(responseBuilder, bodyResp, rawResponseChunk);
 
         final Response response = responseBuilder.build();
@@ -260,6 +309,7 @@ public class SecondaryIndexQueryOperation
         private final RiakKvPB.RpbIndexReq.Builder pbReqBuilder = RiakKvPB.RpbIndexReq.newBuilder();
         private final Query query;
         private boolean streamResults = false;
+        private boolean compactKeys = false;
 
         /**
          * Constructs a builder for a QueryOperation.
@@ -364,6 +414,33 @@ public class SecondaryIndexQueryOperation
             return this;
         }
 
+        /**
+         * Set whether to store the returned keys in a {@link CompactKeyList}.
+         * <p>
+         * When true, the object keys are copied into a single byte slab as
+         * they are received rather than each being wrapped in an {@link Response.Entry}.
+         * The keys are available through {@link Response#getCompactKeys()};
+         * {@link Response#getEntryList()} still works but creates the entries on demand.
+         * </p>
+         * <p>
+         * Only the object keys can be stored this way, so this cannot be used
+         * together with returnKeyAndIndex or returnBody.
+         * </p>
+         *
+         * @param compactKeys true to store the keys in a CompactKeyList.
+         * @return A reference to this object.
+         */
+        public Builder compactKeys(boolean compactKeys)
+        {
+            if (compactKeys && (query.returnKeyAndIndex || query.returnBody))
+            {
+                throw new IllegalArgumentException(
+                        "Compact keys cannot be used with returnKeyAndIndex or returnBody");
+            }
+            this.compactKeys = compactKeys;
+            return this;
+        }
+
         /**
          * Construct a new QueryOperation.
          * @return a QueryOperation
@@ -724,12 +801,22 @@ public class SecondaryIndexQueryOperation
     public static class Response implements Iterable<Response.Entry>
     {
         private final BinaryValue continuation;
+        private final CompactKeyList compactKeys;
         private final List<Response.Entry> entryList;
 
         private Response(Builder builder)
         {
             this.continuation = builder.continuation;
-            this.entryList = builder.entryList;
+            if (builder.compactKeys != null)
+            {
+                this.compactKeys = builder.compactKeys.build();
+                this.entryList = new CompactEntryList(compactKeys);
+            }
+            else
+            {
+                this.compactKeys = null;
+                this.entryList = builder.entryList;
+            }
         }
 
         public boolean hasContinuation()
@@ -742,17 +829,71 @@ public class SecondaryIndexQueryOperation
             return continuation;
         }
 
+        /**
+         * Get the result entries.
+         * <p>
+         * When the keys are stored in a {@link CompactKeyList} this is a
+         * read-only view that creates each entry as it is reached.
+         * </p>
+         *
+         * @return the result entries.
+         */
         public List<Response.Entry> getEntryList()
         {
             return entryList;
         }
 
+        /**
+         * Determine if the keys were stored in a {@link CompactKeyList}.
+         *
+         * @return true if the operation was built with compactKeys.
+         */
+        public boolean hasCompactKeys()
+        {
+            return compactKeys != null;
+        }
+
+        /**
+         * Get the keys stored in a {@link CompactKeyList}.
+         *
+         * @return the keys, or null if the operation was not built with compactKeys.
+         */
+        public CompactKeyList getCompactKeys()
+        {
+            return compactKeys;
+        }
+
         @Override
         public Iterator<Entry> iterator()
         {
             return getEntryList().iterator();
         }
 
+        /**
+         * Entries over a CompactKeyList, created on each access and not kept.
+         */
+        private static final class CompactEntryList extends AbstractList<Entry> implements RandomAccess
+        {
+            private final CompactKeyList keys;
+
+            private CompactEntryList(CompactKeyList keys)
+            {
+                this.keys = keys;
+            }
+
+            @Override
+            public Entry get(int index)
+            {
+                return new Entry(keys.getKey(index));
+            }
+
+            @Override
+            public int size()
+            {
+                return keys.size();
+            }
+        }
+
         public static class Entry
         {
             private final BinaryValue indexKey;
@@ -811,6 +952,13 @@ public class SecondaryIndexQueryOperation
         {
             private BinaryValue continuation;
             private List<Response.Entry> entryList = new ArrayList<>();
+            private CompactKeyList.Builder compactKeys;
+
+            Builder withCompactKeys(CompactKeyList.Builder compactKeys)
+            {
+                this.compactKeys = compactKeys;
+                return this;
+            }
 
             Builder withContinuation(BinaryValue continuation)
             {
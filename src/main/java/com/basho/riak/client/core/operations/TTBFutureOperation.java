@@ -2,7 +2,10 @@ package com.basho.riak.client.core.operations;
 
 import com.basho.riak.client.core.FutureOperation;
 import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.codec.TermToBinaryByteBufEncoder;
 import com.basho.riak.protobuf.RiakMessageCodes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 
 /**
  * An abstract TTB operation that introduces generic encoding/decoding
@@ -33,6 +36,12 @@ public abstract class TTBFutureOperation<T, S> extends FutureOperation<T, byte[]
         return new RiakMessage(reqMessageCode, requestBuilder.build(), false);
     }
 
+    @Override
+    protected Object createChannelMessage(ByteBufAllocator allocator)
+    {
+        return requestBuilder.buildFrame(allocator, reqMessageCode);
+    }
+
     @Override
     protected byte[] decode(RiakMessage rawMessage)
     {
@@ -51,6 +60,17 @@ public abstract class TTBFutureOperation<T, S> extends FutureOperation<T, byte[]
     public interface TTBEncoder
     {
         byte[] build();
+
+        /**
+         * Encode the request as a complete frame into a buffer from the given allocator.
+         * @param allocator the channel's buffer allocator.
+         * @param messageCode the Riak message code of the frame.
+         * @return a buffer holding the frame.
+         */
+        default ByteBuf buildFrame(ByteBufAllocator allocator, byte messageCode)
+        {
+            return TermToBinaryByteBufEncoder.encodeFrame(allocator, messageCode, build());
+        }
     }
 
     public interface TTBParser<T>
@@ -0,0 +1,38 @@
+package com.basho.riak.client.core.operations.ts;
+
+import com.basho.riak.client.core.operations.TTBFutureOperation;
+import com.basho.riak.client.core.query.timeseries.ColumnarQueryResult;
+
+import java.util.List;
+
+/**
+ * An operation to query data from a Riak Time Series table, decoding the
+ * response directly into a {@link ColumnarQueryResult}.
+ *
+ * @since 2.1.2
+ * @see QueryOperation.Builder#buildColumnar()
+ */
+public class ColumnarQueryOperation extends TTBFutureOperation<ColumnarQueryResult, String>
+{
+    private final String queryText;
+
+    ColumnarQueryOperation(QueryOperation.Builder builder)
+    {
+        super(new TTBConverters.QueryEncoder(builder), new TTBConverters.ColumnarQueryResultDecoder());
+        this.queryText = builder.getQueryText();
+    }
+
+    @Override
+    protected ColumnarQueryResult convert(List<byte[]> responses)
+    {
+        // This is not a streaming op, there will only be one response
+        final byte[] response = checkAndGetSingleResponse(responses);
+        return this.responseParser.parseFrom(response);
+    }
+
+    @Override
+    public String getQueryInfo()
+    {
+        return this.queryText;
+    }
+}
@@ -1,12 +1,13 @@
 package com.basho.riak.client.core.operations.ts;
 
-import com.basho.riak.client.core.operations.PBFutureOperation;
+import com.basho.riak.client.core.PBStreamingFutureOperation;
 import com.basho.riak.client.core.query.timeseries.QueryResult;
 import com.basho.riak.client.core.query.timeseries.PbResultFactory;
 import com.basho.riak.protobuf.RiakMessageCodes;
 import com.basho.riak.protobuf.RiakTsPB;
 import com.google.protobuf.ByteString;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -14,7 +15,7 @@ import java.util.List;
  * @author Sergey Galkin <srggal at gmail dot com>
  * @since 2.0.3
  */
-public class ListKeysOperation extends PBFutureOperation<QueryResult, RiakTsPB.TsListKeysResp, String>
+public class ListKeysOperation extends PBStreamingFutureOperation<QueryResult, RiakTsPB.TsListKeysResp, String>
 {
     private final Builder builder;
     private String queryInfoMessage;
@@ -24,7 +25,8 @@ public class ListKeysOperation extends PBFutureOperation<QueryResult, RiakTsPB.T
         super(RiakMessageCodes.MSG_TsListKeysReq,
               RiakMessageCodes.MSG_TsListKeysResp,
               builder.reqBuilder,
-              RiakTsPB.TsListKeysResp.PARSER);
+              RiakTsPB.TsListKeysResp.PARSER,
+              builder.streamResults);
 
         this.builder = builder;
     }
@@ -35,6 +37,12 @@ public class ListKeysOperation extends PBFutureOperation<QueryResult, RiakTsPB.T
         return PbResultFactory.convertPbListKeysResp(rawResponses);
     }
 
+    @Override
+    protected QueryResult processStreamingChunk(RiakTsPB.TsListKeysResp rawResponseChunk)
+    {
+        return PbResultFactory.convertPbListKeysResp(Collections.singletonList(rawResponseChunk));
+    }
+
     @Override
     public String getQueryInfo()
     {
@@ -64,6 +72,7 @@ public class ListKeysOperation extends PBFutureOperation<QueryResult, RiakTsPB.T
         private final RiakTsPB.TsListKeysReq.Builder reqBuilder =
                 RiakTsPB.TsListKeysReq.newBuilder();
         private final String tableName;
+        private boolean streamResults;
 
         /**
          * Construct a builder for a ListKeysOperation.
@@ -99,6 +108,25 @@ public class ListKeysOperation extends PBFutureOperation<QueryResult, RiakTsPB.T
             return this;
         }
 
+        /**
+         * Set the streamResults flag.
+         *
+         * If unset or false, the entire result set will be available through the {@link ListKeysOperation#get()}
+         * method once the operation is complete.
+         *
+         * If set to true, each chunk of keys will be pushed to the queue available through the
+         * {@link ListKeysOperation#getResultsQueue()} method as soon as it is decoded, and is not
+         * retained by the operation.
+         *
+         * @param streamResults whether to stream results to {@link ListKeysOperation#get()}(false), or {@link ListKeysOperation#getResultsQueue()}(true)
+         * @return A reference to this object.
+         */
+        public Builder streamResults(boolean streamResults)
+        {
+            this.streamResults = streamResults;
+            return this;
+        }
+
         public ListKeysOperation build()
         {
             return new ListKeysOperation(this);
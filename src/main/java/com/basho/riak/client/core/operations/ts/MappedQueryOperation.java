@@ -0,0 +1,39 @@
+package com.basho.riak.client.core.operations.ts;
+
+import com.basho.riak.client.core.operations.TTBFutureOperation;
+import com.basho.riak.client.core.query.timeseries.TsRowMapper;
+
+import java.util.List;
+
+/**
+ * An operation to query data from a Riak Time Series table, decoding the
+ * response rows directly into objects with a {@link TsRowMapper}.
+ *
+ * @param <T> the type rows are mapped to.
+ * @since 2.1.2
+ * @see QueryOperation.Builder#buildMapped(TsRowMapper)
+ */
+public class MappedQueryOperation<T> extends TTBFutureOperation<List<T>, String>
+{
+    private final String queryText;
+
+    MappedQueryOperation(QueryOperation.Builder builder, TsRowMapper<T> mapper)
+    {
+        super(new TTBConverters.QueryEncoder(builder), new TTBConverters.MappedQueryResultDecoder<>(mapper));
+        this.queryText = builder.getQueryText();
+    }
+
+    @Override
+    protected List<T> convert(List<byte[]> responses)
+    {
+        // This is not a streaming op, there will only be one response
+        final byte[] response = checkAndGetSingleResponse(responses);
+        return this.responseParser.parseFrom(response);
+    }
+
+    @Override
+    public String getQueryInfo()
+    {
+        return this.queryText;
+    }
+}
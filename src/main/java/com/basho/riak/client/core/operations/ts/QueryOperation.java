@@ -1,9 +1,11 @@
 package com.basho.riak.client.core.operations.ts;
 
+import com.basho.riak.client.core.codec.TsQueryTemplate;
 import com.basho.riak.client.core.operations.TTBFutureOperation;
 import java.util.List;
 
 import com.basho.riak.client.core.query.timeseries.QueryResult;
+import com.basho.riak.client.core.query.timeseries.TsRowMapper;
 import com.basho.riak.protobuf.RiakTsPB;
 import com.google.protobuf.ByteString;
 
@@ -43,6 +45,7 @@ public class QueryOperation extends TTBFutureOperation<QueryResult, String>
         private final String queryText;
         private final RiakTsPB.TsQueryReq.Builder reqBuilder = RiakTsPB.TsQueryReq.newBuilder();
         private byte[] coverageContext;
+        private TsQueryTemplate.Binding binding;
 
         public Builder(String queryText)
         {
@@ -59,6 +62,20 @@ public class QueryOperation extends TTBFutureOperation<QueryResult, String>
             reqBuilder.setQuery(interpolationBuilder);
         }
 
+        /**
+         * Construct a builder for a query prepared as a {@link TsQueryTemplate}.
+         * <p>
+         * The request is encoded from the template's cached TTB prefix and
+         * suffix and the binding's values. The query info is the template text.
+         * </p>
+         * @param binding the values for every parameter of the template.
+         */
+        public Builder(TsQueryTemplate.Binding binding)
+        {
+            this(binding.getTemplate().getQueryText());
+            this.binding = binding;
+        }
+
         public Builder withCoverageContext(byte[] coverageContext)
         {
             if (coverageContext != null)
@@ -78,9 +95,34 @@ public class QueryOperation extends TTBFutureOperation<QueryResult, String>
             return coverageContext;
         }
 
+        public TsQueryTemplate.Binding getBinding()
+        {
+            return binding;
+        }
+
         public QueryOperation build()
         {
             return new QueryOperation(this);
         }
+
+        /**
+         * Build an operation that returns the result in column-oriented form.
+         * @return a new ColumnarQueryOperation.
+         */
+        public ColumnarQueryOperation buildColumnar()
+        {
+            return new ColumnarQueryOperation(this);
+        }
+
+        /**
+         * Build an operation that maps the result rows to objects.
+         * @param mapper the mapper to decode the rows with.
+         * @param <T> the type rows are mapped to.
+         * @return a new MappedQueryOperation.
+         */
+        public <T> MappedQueryOperation<T> buildMapped(TsRowMapper<T> mapper)
+        {
+            return new MappedQueryOperation<>(this, mapper);
+        }
     }
 }
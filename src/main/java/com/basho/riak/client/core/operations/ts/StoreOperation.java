@@ -5,6 +5,7 @@ import com.basho.riak.client.core.query.timeseries.CollectionConverters;
 import com.basho.riak.client.core.query.timeseries.ColumnDescription;
 import com.basho.riak.client.core.query.timeseries.ConvertibleIterable;
 import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.client.core.query.timeseries.TsRowMapper;
 import com.basho.riak.protobuf.RiakTsPB;
 import com.google.protobuf.ByteString;
 
@@ -59,6 +60,8 @@ public class StoreOperation extends TTBFutureOperation<Void, String>
         private final String tableName;
         private Collection<Row> rows;
         private Collection<String> columns;
+        private Collection<?> objects;
+        private TsRowMapper<?> mapper;
 
         public Builder(String tableName)
         {
@@ -110,6 +113,24 @@ public class StoreOperation extends TTBFutureOperation<Void, String>
             return this;
         }
 
+        /**
+         * Store objects instead of Rows, encoding them straight into the
+         * request with a mapper.
+         * Each object is written as a complete row in table order, so this
+         * can not be combined with {@link #withColumns(Collection)}.
+         * @param objects The objects to store.
+         * @param mapper The mapper to encode the objects with.
+         * @param <T> the type of the objects.
+         * @return a reference to this object
+         */
+        public <T> Builder withObjects(Collection<T> objects, TsRowMapper<T> mapper)
+        {
+            mapper.checkWritable();
+            this.objects = objects;
+            this.mapper = mapper;
+            return this;
+        }
+
         public String getTableName()
         {
             return tableName;
@@ -125,8 +146,22 @@ public class StoreOperation extends TTBFutureOperation<Void, String>
             return columns;
         }
 
+        public Collection<?> getObjects()
+        {
+            return objects;
+        }
+
+        public TsRowMapper<?> getMapper()
+        {
+            return mapper;
+        }
+
         public StoreOperation build()
         {
+            if (mapper != null && columns != null && !columns.isEmpty())
+            {
+                throw new IllegalArgumentException("Columns can not be listed when storing mapped objects");
+            }
             return new StoreOperation(this);
         }
     }
@@ -1,16 +1,24 @@
 package com.basho.riak.client.core.operations.ts;
 
 import com.basho.riak.client.core.codec.InvalidTermToBinaryException;
+import com.basho.riak.client.core.codec.TermToBinaryByteBufEncoder;
 import com.basho.riak.client.core.codec.TermToBinaryCodec;
 import com.basho.riak.client.core.operations.TTBFutureOperation;
 import com.basho.riak.client.core.query.timeseries.Cell;
+import com.basho.riak.client.core.query.timeseries.ColumnarQueryResult;
 import com.basho.riak.client.core.query.timeseries.QueryResult;
+import com.basho.riak.client.core.query.timeseries.TsRowMapper;
 import com.ericsson.otp.erlang.OtpErlangDecodeException;
 import com.ericsson.otp.erlang.OtpOutputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 
 class TTBConverters
 {
@@ -44,8 +52,30 @@ class TTBConverters
         @Override
         OtpOutputStream buildMessage()
         {
+            if (builder.getMapper() != null)
+            {
+                return encodeMapped(builder.getMapper(), builder.getObjects());
+            }
             return TermToBinaryCodec.encodeTsPutRequest(builder.getTableName(), builder.getColumns(), builder.getRows());
         }
+
+        @SuppressWarnings("unchecked")
+        private <T> OtpOutputStream encodeMapped(TsRowMapper<T> mapper, Collection<?> objects)
+        {
+            return TermToBinaryCodec.encodeTsPutRequest(builder.getTableName(), builder.getColumns(),
+                                                        (Collection<T>) objects, mapper);
+        }
+
+        @Override
+        public ByteBuf buildFrame(ByteBufAllocator allocator, byte messageCode)
+        {
+            if (builder.getMapper() != null)
+            {
+                return TermToBinaryByteBufEncoder.encodeFrame(allocator, messageCode, build());
+            }
+            return TermToBinaryByteBufEncoder.encodeTsPutRequest(allocator, messageCode, builder.getTableName(),
+                                                                 builder.getColumns(), builder.getRows());
+        }
     }
 
     static class FetchEncoder extends BuilderTTBEncoder<FetchOperation.Builder>
@@ -66,6 +96,18 @@ class TTBConverters
             }
             return TermToBinaryCodec.encodeTsGetRequest(builder.getTableName(), list, builder.getTimeout());
         }
+
+        @Override
+        public ByteBuf buildFrame(ByteBufAllocator allocator, byte messageCode)
+        {
+            final List<Cell> keyValues = new ArrayList<>();
+            for (Cell c : builder.getKeyValues())
+            {
+                keyValues.add(c);
+            }
+            return TermToBinaryByteBufEncoder.encodeTsGetRequest(allocator, messageCode, builder.getTableName(),
+                                                                 keyValues, builder.getTimeout());
+        }
     }
 
     static class QueryEncoder extends BuilderTTBEncoder<QueryOperation.Builder>
@@ -80,6 +122,28 @@ class TTBConverters
         {
             return TermToBinaryCodec.encodeTsQueryRequest(builder.getQueryText(), builder.getCoverageContext());
         }
+
+        @Override
+        public byte[] build()
+        {
+            if (builder.getBinding() != null)
+            {
+                return builder.getBinding().encode(builder.getCoverageContext());
+            }
+            return super.build();
+        }
+
+        @Override
+        public ByteBuf buildFrame(ByteBufAllocator allocator, byte messageCode)
+        {
+            if (builder.getBinding() != null)
+            {
+                return TermToBinaryByteBufEncoder.encodeFrame(allocator, messageCode,
+                                                              builder.getBinding().encode(builder.getCoverageContext()));
+            }
+            return TermToBinaryByteBufEncoder.encodeTsQueryRequest(allocator, messageCode, builder.getQueryText(),
+                                                                   builder.getCoverageContext());
+        }
     }
 
     static class VoidDecoder implements TTBFutureOperation.TTBParser<Void>
@@ -112,4 +176,47 @@ class TTBConverters
             return rv;
         }
     }
+
+    static class ColumnarQueryResultDecoder implements TTBFutureOperation.TTBParser<ColumnarQueryResult>
+    {
+        @Override
+        public ColumnarQueryResult parseFrom(byte[] data)
+        {
+            try
+            {
+                return TermToBinaryCodec.decodeTsColumnarResultResponse(data);
+            }
+            catch (OtpErlangDecodeException | InvalidTermToBinaryException ex)
+            {
+                final String errorMsg = "Error decoding Riak TTB response";
+                logger.error(errorMsg, ex);
+                throw new IllegalArgumentException(errorMsg, ex);
+            }
+        }
+    }
+
+    static class MappedQueryResultDecoder<T> implements TTBFutureOperation.TTBParser<List<T>>
+    {
+        private final TsRowMapper<T> mapper;
+
+        MappedQueryResultDecoder(TsRowMapper<T> mapper)
+        {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public List<T> parseFrom(byte[] data)
+        {
+            try
+            {
+                return TermToBinaryCodec.decodeTsResultResponse(data, mapper);
+            }
+            catch (OtpErlangDecodeException | InvalidTermToBinaryException ex)
+            {
+                final String errorMsg = "Error decoding Riak TTB response";
+                logger.error(errorMsg, ex);
+                throw new IllegalArgumentException(errorMsg, ex);
+            }
+        }
+    }
 }
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.query;
+
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.client.core.util.DefaultCharset;
+import com.google.protobuf.ByteString;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A list of keys in a Namespace, stored back to back in a single byte array.
+ * <p>
+ * Holding a large result set as {@link Location}s costs several objects per
+ * key. A CompactKeyList instead holds every key in one byte slab, with an
+ * array of offsets into it, so a list of millions of keys is two arrays.
+ * {@link Location}s are only created when asked for; a {@link KeyView} can be
+ * used to walk the keys without creating any objects at all.
+ * </p>
+ *
+ * @since 2.1.2
+ */
+public final class CompactKeyList implements Iterable<Location>
+{
+    private final Namespace namespace;
+    private final byte[] slab;
+    private final int[] offsets;
+    private final int size;
+
+    private CompactKeyList(Builder builder)
+    {
+        this.namespace = builder.namespace;
+        this.size = builder.size;
+        this.slab = Arrays.copyOf(builder.slab, builder.offsets[size]);
+        this.offsets = Arrays.copyOf(builder.offsets, size + 1);
+    }
+
+    /**
+     * Get the Namespace the keys are in.
+     *
+     * @return the namespace.
+     */
+    public Namespace getNamespace()
+    {
+        return namespace;
+    }
+
+    /**
+     * Get the number of keys in the list.
+     *
+     * @return the number of keys.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Determine if the list is empty.
+     *
+     * @return true if there are no keys.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Get a copy of a key.
+     *
+     * @param index the index of the key.
+     * @return the key.
+     */
+    public BinaryValue getKey(int index)
+    {
+        checkIndex(index);
+        return BinaryValue.unsafeCreate(Arrays.copyOfRange(slab, offsets[index], offsets[index + 1]));
+    }
+
+    /**
+     * Get the Location of a key.
+     *
+     * @param index the index of the key.
+     * @return a new Location for the key.
+     */
+    public Location getLocation(int index)
+    {
+        return new Location(namespace, getKey(index));
+    }
+
+    /**
+     * Create a view over the keys in this list.
+     * <p>
+     * The view starts before the first key; call {@link KeyView#next()} to move it.
+     * </p>
+     *
+     * @return a new view.
+     */
+    public KeyView view()
+    {
+        return new KeyView();
+    }
+
+    /**
+     * Returns an iterator that creates a Location for each key as it is reached.
+     *
+     * @return an iterator over the locations of the keys.
+     */
+    @Override
+    public Iterator<Location> iterator()
+    {
+        return new Iterator<Location>()
+        {
+            private int index;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < size;
+            }
+
+            @Override
+            public Location next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return getLocation(index++);
+            }
+        };
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompactKeyList{namespace: " + namespace + ", size: " + size + ", bytes: " + slab.length + "}";
+    }
+
+    /**
+     * A reusable cursor over the keys of a CompactKeyList.
+     * <p>
+     * A view reads the key it is positioned on straight from the slab, so
+     * comparing or copying keys through it creates no objects. A
+     * {@link Location} is only created when {@link #toLocation()} is called.
+     * </p>
+     */
+    public final class KeyView
+    {
+        private int index = -1;
+
+        private KeyView()
+        {
+        }
+
+        /**
+         * Move to the next key.
+         *
+         * @return true if the view is on a key, false if there are no more.
+         */
+        public boolean next()
+        {
+            if (index < size)
+            {
+                index++;
+            }
+            return index < size;
+        }
+
+        /**
+         * Move to the key at the supplied index.
+         *
+         * @param index the index of the key.
+         * @return this view.
+         */
+        public KeyView moveTo(int index)
+        {
+            checkIndex(index);
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * Get the index of the current key.
+         *
+         * @return the index.
+         */
+        public int getIndex()
+        {
+            return index;
+        }
+
+        /**
+         * Get the length of the current key in bytes.
+         *
+         * @return the key length.
+         */
+        public int getKeyLength()
+        {
+            checkIndex(index);
+            return offsets[index + 1] - offsets[index];
+        }
+
+        /**
+         * Copy the current key into the supplied array.
+         *
+         * @param dest the array to copy into.
+         * @param destOffset the position in the array to copy to.
+         */
+        public void copyKey(byte[] dest, int destOffset)
+        {
+            System.arraycopy(slab, offsets[index], dest, destOffset, getKeyLength());
+        }
+
+        /**
+         * Determine if the current key is equal to the supplied bytes.
+         *
+         * @param key the key to compare with.
+         * @return true if they are equal.
+         */
+        public boolean keyEquals(byte[] key)
+        {
+            final int length = getKeyLength();
+            if (key.length != length)
+            {
+                return false;
+            }
+
+            final int offset = offsets[index];
+            for (int i = 0; i < length; i++)
+            {
+                if (slab[offset + i] != key[i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Get the current key as a String, using the default Charset.
+         *
+         * @return the key as a String.
+         */
+        public String getKeyAsString()
+        {
+            return getKeyAsString(DefaultCharset.get());
+        }
+
+        /**
+         * Get the current key as a String.
+         *
+         * @param charset the Charset used to convert the key.
+         * @return the key as a String.
+         */
+        public String getKeyAsString(Charset charset)
+        {
+            return new String(slab, offsets[index], getKeyLength(), charset);
+        }
+
+        /**
+         * Create a Location for the current key.
+         *
+         * @return a new Location.
+         */
+        public Location toLocation()
+        {
+            return getLocation(index);
+        }
+    }
+
+    /**
+     * Used to construct a CompactKeyList.
+     */
+    public static class Builder
+    {
+        private static final int INITIAL_SLAB_SIZE = 1024;
+        private static final int INITIAL_KEY_COUNT = 64;
+
+        private final Namespace namespace;
+        private byte[] slab = new byte[INITIAL_SLAB_SIZE];
+        private int[] offsets = new int[INITIAL_KEY_COUNT + 1];
+        private int size;
+
+        /**
+         * Construct a Builder for a CompactKeyList.
+         *
+         * @param namespace the namespace the keys are in.
+         */
+        public Builder(Namespace namespace)
+        {
+            this.namespace = namespace;
+        }
+
+        /**
+         * Append a key.
+         *
+         * @param key the key.
+         * @return a reference to this object.
+         */
+        public Builder add(byte[] key)
+        {
+            final int offset = reserve(key.length);
+            System.arraycopy(key, 0, slab, offset, key.length);
+            return this;
+        }
+
+        /**
+         * Append a key, copying it straight from a protocol buffer.
+         *
+         * @param key the key.
+         * @return a reference to this object.
+         */
+        public Builder add(ByteString key)
+        {
+            final int offset = reserve(key.size());
+            key.copyTo(slab, offset);
+            return this;
+        }
+
+        /**
+         * Get the number of keys appended so far.
+         *
+         * @return the number of keys.
+         */
+        public int size()
+        {
+            return size;
+        }
+
+        private int reserve(int length)
+        {
+            final int offset = offsets[size];
+            if (offset + length > slab.length)
+            {
+                slab = Arrays.copyOf(slab, Math.max(slab.length * 2, offset + length));
+            }
+            if (size + 2 > offsets.length)
+            {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[++size] = offset + length;
+            return offset;
+        }
+
+        /**
+         * Construct the CompactKeyList, trimming the slab to the keys it holds.
+         *
+         * @return a new CompactKeyList.
+         */
+        public CompactKeyList build()
+        {
+            return new CompactKeyList(this);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.query.search;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.google.protobuf.ByteString;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The documents from a search query, stored compactly.
+ * <p>
+ * Every field name is decoded once and shared by all of the documents, and
+ * the values of every document are kept back to back as UTF-8 in a single
+ * byte array. Nothing is decoded until a {@link Document} is asked for a
+ * value, and documents are only created as they are iterated over.
+ * </p>
+ *
+ * @since 2.1.2
+ */
+public final class CompactSearchResults implements Iterable<CompactSearchResults.Document>
+{
+    private static final ObjectMapper objectMapper =
+        new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final String[] fieldNames;
+    private final int[] valueFields;
+    private final int[] valueOffsets;
+    private final int[] docStarts;
+    private final byte[] slab;
+    private final int size;
+
+    private CompactSearchResults(Builder builder)
+    {
+        final int valueCount = builder.valueCount;
+        this.fieldNames = builder.fieldNames.toArray(new String[builder.fieldNames.size()]);
+        this.valueFields = Arrays.copyOf(builder.valueFields, valueCount);
+        this.valueOffsets = Arrays.copyOf(builder.valueOffsets, valueCount + 1);
+        this.size = builder.size;
+        this.docStarts = Arrays.copyOf(builder.docStarts, size + 1);
+        this.docStarts[size] = valueCount;
+        this.slab = Arrays.copyOf(builder.slab, builder.valueOffsets[valueCount]);
+    }
+
+    /**
+     * Get the number of documents.
+     *
+     * @return the number of documents.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Get the names of every field that appears in the documents.
+     *
+     * @return the field names.
+     */
+    public List<String> getFieldNames()
+    {
+        return Collections.unmodifiableList(Arrays.asList(fieldNames));
+    }
+
+    /**
+     * Get a document.
+     *
+     * @param index the index of the document.
+     * @return a view of the document.
+     */
+    public Document get(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new Document(index);
+    }
+
+    /**
+     * Returns an iterator that creates each document view as it is reached.
+     *
+     * @return an iterator over the documents.
+     */
+    @Override
+    public Iterator<Document> iterator()
+    {
+        return new Iterator<Document>()
+        {
+            private int index;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < size;
+            }
+
+            @Override
+            public Document next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return new Document(index++);
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator that binds each document to the supplied type as it is reached.
+     *
+     * @param type the type to bind the documents to.
+     * @param <T> the type to bind the documents to.
+     * @return an iterator over the bound documents.
+     * @see Document#as(Class)
+     */
+    public <T> Iterator<T> iterator(final Class<T> type)
+    {
+        final Iterator<Document> documents = iterator();
+        return new Iterator<T>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return documents.hasNext();
+            }
+
+            @Override
+            public T next()
+            {
+                return documents.next().as(type);
+            }
+        };
+    }
+
+    private String decode(int value)
+    {
+        return new String(slab, valueOffsets[value], valueOffsets[value + 1] - valueOffsets[value],
+                          StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Bind a document, as its fields and values, to the supplied type.
+     * <p>
+     * Fields with a single value are bound as that value, and fields with
+     * more than one as an array. Fields the type doesn't have are ignored.
+     * </p>
+     *
+     * @param fields the fields of the document and their values.
+     * @param type the type to bind the document to.
+     * @param <T> the type to bind the document to.
+     * @return the bound document.
+     */
+    public static <T> T bind(Map<String, List<String>> fields, Class<T> type)
+    {
+        final TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+        try
+        {
+            buffer.writeStartObject();
+            for (Map.Entry<String, List<String>> field : fields.entrySet())
+            {
+                buffer.writeFieldName(field.getKey());
+                writeValues(buffer, field.getValue());
+            }
+            buffer.writeEndObject();
+        }
+        catch (IOException ex)
+        {
+            throw new IllegalArgumentException("Could not bind search document to " + type.getName(), ex);
+        }
+        return read(buffer, type);
+    }
+
+    private static <T> T read(TokenBuffer buffer, Class<T> type)
+    {
+        try
+        {
+            return objectMapper.readValue(buffer.asParser(), type);
+        }
+        catch (IOException ex)
+        {
+            throw new IllegalArgumentException("Could not bind search document to " + type.getName(), ex);
+        }
+    }
+
+    private static void writeValues(TokenBuffer buffer, List<String> values) throws IOException
+    {
+        if (values.size() == 1)
+        {
+            buffer.writeString(values.get(0));
+        }
+        else
+        {
+            buffer.writeStartArray();
+            for (String value : values)
+            {
+                buffer.writeString(value);
+            }
+            buffer.writeEndArray();
+        }
+    }
+
+    /**
+     * A view of a single document.
+     * <p>
+     * Values are decoded from the shared byte array each time they are asked for.
+     * </p>
+     */
+    public final class Document
+    {
+        private final int index;
+
+        private Document(int index)
+        {
+            this.index = index;
+        }
+
+        /**
+         * Get the first value of a field.
+         *
+         * @param fieldName the name of the field.
+         * @return the value, or null if the document doesn't have the field.
+         */
+        public String getFirst(String fieldName)
+        {
+            for (int v = docStarts[index]; v < docStarts[index + 1]; v++)
+            {
+                if (fieldNames[valueFields[v]].equals(fieldName))
+                {
+                    return decode(v);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Get every value of a field.
+         *
+         * @param fieldName the name of the field.
+         * @return the values, which are empty if the document doesn't have the field.
+         */
+        public List<String> getAll(String fieldName)
+        {
+            List<String> values = Collections.emptyList();
+            for (int v = docStarts[index]; v < docStarts[index + 1]; v++)
+            {
+                if (fieldNames[valueFields[v]].equals(fieldName))
+                {
+                    if (values.isEmpty())
+                    {
+                        values = new ArrayList<>(1);
+                    }
+                    values.add(decode(v));
+                }
+            }
+            return values;
+        }
+
+        /**
+         * Copy this document into a map of field names to values.
+         *
+         * @return the fields of the document and their values.
+         */
+        public Map<String, List<String>> toMap()
+        {
+            final Map<String, List<String>> map = new LinkedHashMap<>();
+            for (int v = docStarts[index]; v < docStarts[index + 1]; v++)
+            {
+                final String fieldName = fieldNames[valueFields[v]];
+                List<String> values = map.get(fieldName);
+                if (values == null)
+                {
+                    values = new ArrayList<>(1);
+                    map.put(fieldName, values);
+                }
+                values.add(decode(v));
+            }
+            return map;
+        }
+
+        /**
+         * Bind this document to the supplied type.
+         * <p>
+         * The values are written straight from the shared byte array to the
+         * binder, without building a map of the fields first.
+         * </p>
+         *
+         * @param type the type to bind the document to.
+         * @param <T> the type to bind the document to.
+         * @return the bound document.
+         * @see CompactSearchResults#bind(Map, Class)
+         */
+        public <T> T as(Class<T> type)
+        {
+            final int start = docStarts[index];
+            final int end = docStarts[index + 1];
+            final TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+            try
+            {
+                buffer.writeStartObject();
+                for (int v = start; v < end; v++)
+                {
+                    final int field = valueFields[v];
+                    if (!isFirstValue(start, v, field))
+                    {
+                        continue;
+                    }
+
+                    buffer.writeFieldName(fieldNames[field]);
+                    if (isLastValue(v, end, field))
+                    {
+                        buffer.writeString(decode(v));
+                    }
+                    else
+                    {
+                        buffer.writeStartArray();
+                        for (int w = v; w < end; w++)
+                        {
+                            if (valueFields[w] == field)
+                            {
+                                buffer.writeString(decode(w));
+                            }
+                        }
+                        buffer.writeEndArray();
+                    }
+                }
+                buffer.writeEndObject();
+            }
+            catch (IOException ex)
+            {
+                throw new IllegalArgumentException("Could not bind search document to " + type.getName(), ex);
+            }
+            return read(buffer, type);
+        }
+
+        private boolean isFirstValue(int start, int value, int field)
+        {
+            for (int v = start; v < value; v++)
+            {
+                if (valueFields[v] == field)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isLastValue(int value, int end, int field)
+        {
+            for (int v = value + 1; v < end; v++)
+            {
+                if (valueFields[v] == field)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toMap().toString();
+        }
+    }
+
+    /**
+     * Used to construct CompactSearchResults.
+     */
+    public static class Builder
+    {
+        private final Map<ByteString, Integer> fieldIds = new HashMap<>();
+        private final List<String> fieldNames = new ArrayList<>();
+        private int[] valueFields = new int[64];
+        private int[] valueOffsets = new int[65];
+        private int[] docStarts = new int[17];
+        private byte[] slab = new byte[1024];
+        private int valueCount;
+        private int size;
+
+        /**
+         * Start a new document. Values added after this belong to it.
+         *
+         * @return a reference to this object.
+         */
+        public Builder startDocument()
+        {
+            if (size + 2 > docStarts.length)
+            {
+                docStarts = Arrays.copyOf(docStarts, docStarts.length * 2);
+            }
+            docStarts[size++] = valueCount;
+            return this;
+        }
+
+        /**
+         * Add a value of a field to the current document.
+         *
+         * @param fieldName the UTF-8 name of the field.
+         * @param value the UTF-8 value.
+         * @return a reference to this object.
+         */
+        public Builder addValue(ByteString fieldName, ByteString value)
+        {
+            if (size == 0)
+            {
+                throw new IllegalStateException("startDocument() must be called before adding values");
+            }
+
+            Integer fieldId = fieldIds.get(fieldName);
+            if (fieldId == null)
+            {
+                fieldId = fieldNames.size();
+                fieldIds.put(fieldName, fieldId);
+                fieldNames.add(fieldName.toStringUtf8());
+            }
+
+            if (valueCount == valueFields.length)
+            {
+                valueFields = Arrays.copyOf(valueFields, valueCount * 2);
+                valueOffsets = Arrays.copyOf(valueOffsets, valueCount * 2 + 1);
+            }
+
+            final int offset = valueOffsets[valueCount];
+            if (offset + value.size() > slab.length)
+            {
+                slab = Arrays.copyOf(slab, Math.max(slab.length * 2, offset + value.size()));
+            }
+            value.copyTo(slab, offset);
+
+            valueFields[valueCount] = fieldId;
+            valueOffsets[++valueCount] = offset + value.size();
+            return this;
+        }
+
+        /**
+         * Construct the CompactSearchResults, trimming the arrays to what they hold.
+         *
+         * @return new CompactSearchResults.
+         */
+        public CompactSearchResults build()
+        {
+            return new CompactSearchResults(this);
+        }
+    }
+}
@@ -0,0 +1,668 @@
+package com.basho.riak.client.core.query.timeseries;
+
+import com.basho.riak.client.core.util.BinaryValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Holds a result set from a query in column-oriented form.
+ * <p>
+ * Where a {@link QueryResult} holds a {@link Row} of {@link Cell}s for every
+ * row, a ColumnarQueryResult holds one primitive array per column:
+ * {@code long[]} for SINT64 and TIMESTAMP columns, {@code double[]} for DOUBLE
+ * and {@code boolean[]} for BOOLEAN columns. VARCHAR columns are dictionary
+ * encoded, so repeated values (e.g. a family or series name) are stored once,
+ * and BLOB columns hold a {@code byte[]} per row. Null values are tracked
+ * in a bitmap per column.
+ * </p>
+ * <p>
+ * Values are read with the typed accessors, either directly by row and column
+ * index, through a {@link RowView} while iterating, or, for scans, from the
+ * backing arrays returned by {@link #getLongColumn(int)} and friends.
+ * </p>
+ * Immutable once created; the arrays returned by the column accessors are
+ * not copied and must not be modified.
+ *
+ * @since 2.1.2
+ */
+public final class ColumnarQueryResult implements Iterable<ColumnarQueryResult.RowView>
+{
+    public static final ColumnarQueryResult EMPTY =
+        new ColumnarQueryResult(Collections.<ColumnDescription>emptyList(), new Column[0], 0);
+
+    private final List<ColumnDescription> columnDescriptions;
+    private final Column[] columns;
+    private final int rowCount;
+
+    private ColumnarQueryResult(List<ColumnDescription> columnDescriptions, Column[] columns, int rowCount)
+    {
+        this.columnDescriptions = Collections.unmodifiableList(columnDescriptions);
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Convert a row-oriented result to a columnar one.
+     * @param queryResult the result to convert. Must include column descriptions.
+     * @return a new ColumnarQueryResult.
+     */
+    public static ColumnarQueryResult from(QueryResult queryResult)
+    {
+        final List<ColumnDescription> descriptions = queryResult.getColumnDescriptionsCopy();
+        final Builder builder = new Builder(descriptions, queryResult.getRowsCount());
+
+        for (Row row : queryResult)
+        {
+            int col = 0;
+            for (Cell cell : row)
+            {
+                builder.appendCell(col++, cell);
+            }
+        }
+
+        return builder.build();
+    }
+
+    public List<ColumnDescription> getColumnDescriptions()
+    {
+        return columnDescriptions;
+    }
+
+    public int getColumnCount()
+    {
+        return columns.length;
+    }
+
+    public int getRowsCount()
+    {
+        return rowCount;
+    }
+
+    /**
+     * Returns the index of a column.
+     * @param columnName the name of the column.
+     * @return the index of the column, or -1 if there is no such column.
+     */
+    public int getColumnIndex(String columnName)
+    {
+        for (int i = 0; i < columnDescriptions.size(); i++)
+        {
+            if (columnDescriptions.get(i).getName().equals(columnName))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isNull(int row, int column)
+    {
+        return columns[column].isNull(row);
+    }
+
+    /**
+     * Get a SINT64 or TIMESTAMP value.
+     * @param row the row index.
+     * @param column the column index.
+     * @return the value, or 0 if the value is null.
+     */
+    public long getLong(int row, int column)
+    {
+        return columns[column].longs(columnDescriptions.get(column))[row];
+    }
+
+    public double getDouble(int row, int column)
+    {
+        return columns[column].doubles(columnDescriptions.get(column))[row];
+    }
+
+    public boolean getBoolean(int row, int column)
+    {
+        return columns[column].booleans(columnDescriptions.get(column))[row];
+    }
+
+    /**
+     * Get a VARCHAR value.
+     * @param row the row index.
+     * @param column the column index.
+     * @return the value, or null if the value is null.
+     */
+    public String getVarchar(int row, int column)
+    {
+        final Column c = columns[column];
+        return c.isNull(row) ? null : c.dictionary(columnDescriptions.get(column))[c.codes[row]];
+    }
+
+    public byte[] getBlob(int row, int column)
+    {
+        return columns[column].blobs(columnDescriptions.get(column))[row];
+    }
+
+    /**
+     * Returns the backing array of a SINT64 or TIMESTAMP column.
+     * <p>
+     * Null values are stored as 0; see {@link #isNull(int, int)}.
+     * </p>
+     * @param column the column index.
+     * @return the values of the column, one per row.
+     */
+    public long[] getLongColumn(int column)
+    {
+        return columns[column].longs(columnDescriptions.get(column));
+    }
+
+    public double[] getDoubleColumn(int column)
+    {
+        return columns[column].doubles(columnDescriptions.get(column));
+    }
+
+    public boolean[] getBooleanColumn(int column)
+    {
+        return columns[column].booleans(columnDescriptions.get(column));
+    }
+
+    /**
+     * Returns the dictionary codes of a VARCHAR column.
+     * <p>
+     * Each code is an index into {@link #getVarcharDictionary(int)}, so rows
+     * can be grouped or filtered on the code without comparing strings.
+     * </p>
+     * @param column the column index.
+     * @return the dictionary codes of the column, one per row.
+     */
+    public int[] getVarcharCodes(int column)
+    {
+        columns[column].dictionary(columnDescriptions.get(column));
+        return columns[column].codes;
+    }
+
+    public List<String> getVarcharDictionary(int column)
+    {
+        return Collections.unmodifiableList(Arrays.asList(columns[column].dictionary(columnDescriptions.get(column))));
+    }
+
+    /**
+     * Convert this result to row-oriented form.
+     * @return a new QueryResult.
+     */
+    public QueryResult toQueryResult()
+    {
+        final Row[] rows = new Row[rowCount];
+        for (int row = 0; row < rowCount; row++)
+        {
+            rows[row] = new RowView(row).toRow();
+        }
+        return new QueryResult(new ArrayList<>(CollectionConverters.convertColumnDescriptionsToPb(columnDescriptions)),
+                               rows);
+    }
+
+    /**
+     * An iterator over lightweight views of each row.
+     * @return an iterator.
+     */
+    @Override
+    public Iterator<RowView> iterator()
+    {
+        return new Iterator<RowView>()
+        {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < rowCount;
+            }
+
+            @Override
+            public RowView next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return new RowView(next++);
+            }
+        };
+    }
+
+    /**
+     * A view of a single row of a ColumnarQueryResult.
+     * <p>
+     * A RowView holds no values itself; it reads them from the columns of the
+     * result it belongs to.
+     * </p>
+     */
+    public final class RowView
+    {
+        private final int row;
+
+        private RowView(int row)
+        {
+            this.row = row;
+        }
+
+        public int getRowIndex()
+        {
+            return row;
+        }
+
+        public boolean isNull(int column)
+        {
+            return ColumnarQueryResult.this.isNull(row, column);
+        }
+
+        public long getLong(int column)
+        {
+            return ColumnarQueryResult.this.getLong(row, column);
+        }
+
+        public double getDouble(int column)
+        {
+            return ColumnarQueryResult.this.getDouble(row, column);
+        }
+
+        public boolean getBoolean(int column)
+        {
+            return ColumnarQueryResult.this.getBoolean(row, column);
+        }
+
+        public String getVarchar(int column)
+        {
+            return ColumnarQueryResult.this.getVarchar(row, column);
+        }
+
+        public byte[] getBlob(int column)
+        {
+            return ColumnarQueryResult.this.getBlob(row, column);
+        }
+
+        /**
+         * Materialize this row as a {@link Row} of {@link Cell}s.
+         * @return a new Row.
+         */
+        public Row toRow()
+        {
+            final Cell[] cells = new Cell[columns.length];
+            for (int col = 0; col < columns.length; col++)
+            {
+                if (isNull(col))
+                {
+                    continue;
+                }
+
+                switch (columnDescriptions.get(col).getType())
+                {
+                    case VARCHAR:
+                        cells[col] = new Cell(getVarchar(col));
+                        break;
+                    case SINT64:
+                        cells[col] = new Cell(getLong(col));
+                        break;
+                    case TIMESTAMP:
+                        cells[col] = Cell.newTimestamp(getLong(col));
+                        break;
+                    case DOUBLE:
+                        cells[col] = new Cell(getDouble(col));
+                        break;
+                    case BOOLEAN:
+                        cells[col] = new Cell(getBoolean(col));
+                        break;
+                    case BLOB:
+                        cells[col] = new Cell(getBlob(col));
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown column type: " + columnDescriptions.get(col).getType());
+                }
+            }
+            return new Row(cells);
+        }
+    }
+
+    /**
+     * The values of a single column. Only the array for the column's type is allocated.
+     */
+    private static final class Column
+    {
+        private final ColumnDescription.ColumnType type;
+        private long[] longs;
+        private double[] doubles;
+        private boolean[] booleans;
+        private int[] codes;
+        private byte[][] blobs;
+        private String[] dictionary;
+        private Map<BinaryValue, Integer> dictionaryIndex;
+        private List<String> dictionaryValues;
+        private long[] nulls;
+        private int size;
+
+        private Column(ColumnDescription.ColumnType type, int capacity)
+        {
+            this.type = type;
+            switch (type)
+            {
+                case SINT64:
+                case TIMESTAMP:
+                    longs = new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles = new double[capacity];
+                    break;
+                case BOOLEAN:
+                    booleans = new boolean[capacity];
+                    break;
+                case VARCHAR:
+                    codes = new int[capacity];
+                    dictionaryIndex = new HashMap<>();
+                    dictionaryValues = new ArrayList<>();
+                    break;
+                case BLOB:
+                    blobs = new byte[capacity][];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown column type: " + type);
+            }
+        }
+
+        private boolean isNull(int row)
+        {
+            if (row < 0 || row >= size)
+            {
+                throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + size + " rows.");
+            }
+            return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+
+        private long[] longs(ColumnDescription description)
+        {
+            return check(longs, description);
+        }
+
+        private double[] doubles(ColumnDescription description)
+        {
+            return check(doubles, description);
+        }
+
+        private boolean[] booleans(ColumnDescription description)
+        {
+            return check(booleans, description);
+        }
+
+        private byte[][] blobs(ColumnDescription description)
+        {
+            return check(blobs, description);
+        }
+
+        private String[] dictionary(ColumnDescription description)
+        {
+            return check(dictionary, description);
+        }
+
+        private static <A> A check(A array, ColumnDescription description)
+        {
+            if (array == null)
+            {
+                throw new IllegalArgumentException("Column '" + description.getName() + "' is of type " +
+                                                   description.getType());
+            }
+            return array;
+        }
+
+        /**
+         * Returns the index of the next value, growing the arrays if needed.
+         */
+        private int next()
+        {
+            final int capacity;
+            switch (type)
+            {
+                case SINT64:
+                case TIMESTAMP:
+                    capacity = longs.length;
+                    break;
+                case DOUBLE:
+                    capacity = doubles.length;
+                    break;
+                case BOOLEAN:
+                    capacity = booleans.length;
+                    break;
+                case VARCHAR:
+                    capacity = codes.length;
+                    break;
+                default:
+                    capacity = blobs.length;
+                    break;
+            }
+
+            if (size == capacity)
+            {
+                resize(Math.max(16, capacity * 2));
+            }
+            return size++;
+        }
+
+        private void resize(int capacity)
+        {
+            if (longs != null)
+            {
+                longs = Arrays.copyOf(longs, capacity);
+            }
+            if (doubles != null)
+            {
+                doubles = Arrays.copyOf(doubles, capacity);
+            }
+            if (booleans != null)
+            {
+                booleans = Arrays.copyOf(booleans, capacity);
+            }
+            if (codes != null)
+            {
+                codes = Arrays.copyOf(codes, capacity);
+            }
+            if (blobs != null)
+            {
+                blobs = Arrays.copyOf(blobs, capacity);
+            }
+        }
+
+        private void setNull(int row)
+        {
+            if (nulls == null)
+            {
+                nulls = new long[(Math.max(row, size) >>> 6) + 1];
+            }
+            else if ((row >>> 6) >= nulls.length)
+            {
+                nulls = Arrays.copyOf(nulls, Math.max(nulls.length * 2, (row >>> 6) + 1));
+            }
+            nulls[row >>> 6] |= 1L << row;
+        }
+
+        private void freeze()
+        {
+            int capacity = size;
+            if ((longs != null && longs.length != capacity) || (doubles != null && doubles.length != capacity)
+                || (booleans != null && booleans.length != capacity) || (codes != null && codes.length != capacity)
+                || (blobs != null && blobs.length != capacity))
+            {
+                resize(capacity);
+            }
+
+            if (codes != null)
+            {
+                dictionary = dictionaryValues.toArray(new String[dictionaryValues.size()]);
+                dictionaryIndex = null;
+                dictionaryValues = null;
+            }
+        }
+    }
+
+    /**
+     * Used to construct a ColumnarQueryResult one value at a time.
+     * <p>
+     * Values are appended to each column in row order.
+     * </p>
+     */
+    public static class Builder
+    {
+        private final List<ColumnDescription> columnDescriptions;
+        private final Column[] columns;
+
+        /**
+         * Construct a Builder.
+         * @param columnDescriptions the columns of the result.
+         * @param expectedRowCount the number of rows, used to size the columns.
+         */
+        public Builder(List<ColumnDescription> columnDescriptions, int expectedRowCount)
+        {
+            this.columnDescriptions = new ArrayList<>(columnDescriptions);
+            this.columns = new Column[columnDescriptions.size()];
+
+            for (int i = 0; i < columns.length; i++)
+            {
+                columns[i] = new Column(columnDescriptions.get(i).getType(), Math.max(expectedRowCount, 0));
+            }
+        }
+
+        public Builder appendLong(int column, long value)
+        {
+            final Column c = columns[column];
+            c.longs(columnDescriptions.get(column));
+            final int row = c.next();
+            c.longs[row] = value;
+            return this;
+        }
+
+        public Builder appendDouble(int column, double value)
+        {
+            final Column c = columns[column];
+            c.doubles(columnDescriptions.get(column));
+            final int row = c.next();
+            c.doubles[row] = value;
+            return this;
+        }
+
+        public Builder appendBoolean(int column, boolean value)
+        {
+            final Column c = columns[column];
+            c.booleans(columnDescriptions.get(column));
+            final int row = c.next();
+            c.booleans[row] = value;
+            return this;
+        }
+
+        /**
+         * Append a VARCHAR value from its UTF-8 encoding.
+         * <p>
+         * Only values not yet in the column's dictionary are decoded.
+         * </p>
+         * @param column the column index.
+         * @param utf8 the UTF-8 encoded value; the array is not copied.
+         * @return a reference to this object.
+         */
+        public Builder appendVarchar(int column, byte[] utf8)
+        {
+            final Column c = columns[column];
+            if (c.codes == null)
+            {
+                Column.check(null, columnDescriptions.get(column));
+            }
+
+            final BinaryValue key = BinaryValue.unsafeCreate(utf8);
+            Integer code = c.dictionaryIndex.get(key);
+            if (code == null)
+            {
+                code = c.dictionaryValues.size();
+                c.dictionaryValues.add(new String(utf8, StandardCharsets.UTF_8));
+                c.dictionaryIndex.put(key, code);
+            }
+
+            final int row = c.next();
+            c.codes[row] = code;
+            return this;
+        }
+
+        public Builder appendVarchar(int column, String value)
+        {
+            return appendVarchar(column, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public Builder appendBlob(int column, byte[] value)
+        {
+            final Column c = columns[column];
+            c.blobs(columnDescriptions.get(column));
+            final int row = c.next();
+            c.blobs[row] = value;
+            return this;
+        }
+
+        public Builder appendNull(int column)
+        {
+            final Column c = columns[column];
+            final int row = c.next();
+            c.setNull(row);
+            return this;
+        }
+
+        /**
+         * Append the value of a Cell.
+         * @param column the column index.
+         * @param cell the cell; may be null.
+         * @return a reference to this object.
+         */
+        public Builder appendCell(int column, Cell cell)
+        {
+            if (cell == null)
+            {
+                return appendNull(column);
+            }
+
+            switch (columnDescriptions.get(column).getType())
+            {
+                case VARCHAR:
+                    return appendVarchar(column, cell.getVarcharAsUTF8String());
+                case SINT64:
+                    return appendLong(column, cell.getLong());
+                case TIMESTAMP:
+                    return appendLong(column, cell.getTimestamp());
+                case DOUBLE:
+                    return appendDouble(column, cell.getDouble());
+                case BOOLEAN:
+                    return appendBoolean(column, cell.getBoolean());
+                case BLOB:
+                    return appendBlob(column, cell.getBlob());
+                default:
+                    throw new IllegalStateException("Unknown column type: " + columnDescriptions.get(column).getType());
+            }
+        }
+
+        /**
+         * Construct the ColumnarQueryResult.
+         * @return a new ColumnarQueryResult.
+         * @throws IllegalStateException if the columns have different numbers of values.
+         */
+        public ColumnarQueryResult build()
+        {
+            final int rowCount = columns.length == 0 ? 0 : columns[0].size;
+
+            for (int i = 0; i < columns.length; i++)
+            {
+                if (columns[i].size != rowCount)
+                {
+                    throw new IllegalStateException("Column '" + columnDescriptions.get(i).getName() + "' has " +
+                                                    columns[i].size + " values, expected " + rowCount);
+                }
+                columns[i].freeze();
+            }
+
+            return new ColumnarQueryResult(columnDescriptions, columns, rowCount);
+        }
+    }
+}
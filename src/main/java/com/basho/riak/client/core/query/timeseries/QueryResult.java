@@ -60,6 +60,14 @@ public class QueryResult implements Iterable<Row>
         this.pbColumnDescriptions = Collections.emptyList();
     }
 
+    public QueryResult(List<RiakTsPB.TsColumnDescription> columnsList, Row[] rows)
+    {
+        this.rows = rows;
+        this.rowCount = rows.length;
+        this.pbRows = Collections.emptyList();
+        this.pbColumnDescriptions = columnsList;
+    }
+
     /**
      * Provides a deep copy of the ColumnDescription List, if one was returned from the operation.
      * @return a deep copy of the ColumnDescriptions
@@ -0,0 +1,1189 @@
+package com.basho.riak.client.core.query.timeseries;
+
+import com.basho.riak.client.api.annotations.RiakTsColumn;
+import com.basho.riak.client.core.query.timeseries.ColumnDescription.ColumnType;
+import com.basho.riak.protobuf.RiakTsPB;
+import com.google.protobuf.ByteString;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Maps the rows of a Riak Time Series table to and from objects of your own class.
+ * <script src="https://google-code-prettify.googlecode.com/svn/loader/run_prettify.js"></script>
+ * <p>
+ * A mapper is compiled once per class against a {@link TableDefinition}, either
+ * from {@link RiakTsColumn} annotated fields with {@link #forClass(Class, TableDefinition)},
+ * or from getter and setter lambdas with a {@link Builder}. The codecs then read
+ * response values straight into the objects, and write the objects straight
+ * into a TsPutReq, without creating a {@link Row} or {@link Cell} in between.
+ * </p>
+ * <pre class="prettyprint">
+ * {@code
+ * TsRowMapper<Reading> mapper = new TsRowMapper.Builder<>(tableDefinition, Reading::new)
+ *     .withVarchar("region", Reading::getRegion, Reading::setRegion)
+ *     .withLong("time", Reading::getTime, Reading::setTime)
+ *     .withDouble("temperature", Reading::getTemperature, Reading::setTemperature)
+ *     .build();
+ *
+ * List<Reading> readings = client.execute(new MappedQuery.Builder<>(queryText, mapper).build());}</pre>
+ * <p>
+ * Null values in the response leave the mapped field untouched, unless the
+ * field is of a boxed or reference type, or the column is mapped with one of
+ * the nullable builder methods such as {@link Builder#withNullableLong}. Columns of the response that are
+ * not mapped are skipped. A TsRowMapper is immutable and can be shared
+ * between threads.
+ * </p>
+ *
+ * @param <T> the type rows are mapped to.
+ * @since 2.1.2
+ */
+public final class TsRowMapper<T>
+{
+    private final TableDefinition tableDefinition;
+    private final Supplier<T> factory;
+    private final List<Column<T>> columns;
+    private final Map<String, Column<T>> columnsByName;
+    private final String unwritableReason;
+
+    private TsRowMapper(TableDefinition tableDefinition, Supplier<T> factory, Map<String, Column<T>> columnsByName)
+    {
+        this.tableDefinition = tableDefinition;
+        this.factory = factory;
+        this.columnsByName = columnsByName;
+
+        final List<Column<T>> tableColumns = new ArrayList<>(columnsByName.size());
+        String reason = null;
+        for (FullColumnDescription description : tableDefinition.getFullColumnDescriptions())
+        {
+            final Column<T> column = columnsByName.get(description.getName());
+            if (column == null && !description.isNullable() && reason == null)
+            {
+                reason = "Column '" + description.getName() + "' is not nullable and is not mapped";
+            }
+            tableColumns.add(column);
+        }
+        this.columns = Collections.unmodifiableList(tableColumns);
+        this.unwritableReason = reason;
+    }
+
+    /**
+     * Compile a mapper from the {@link RiakTsColumn} annotated fields of a class.
+     * <p>
+     * The class must declare a no-argument constructor, which may be private.
+     * </p>
+     * @param type the class to map.
+     * @param tableDefinition the table the rows belong to.
+     * @param <T> the type rows are mapped to.
+     * @return a new TsRowMapper.
+     * @throws IllegalArgumentException if a field does not match its column.
+     */
+    public static <T> TsRowMapper<T> forClass(final Class<T> type, TableDefinition tableDefinition)
+    {
+        final Constructor<T> constructor;
+        try
+        {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        }
+        catch (NoSuchMethodException ex)
+        {
+            throw new IllegalArgumentException(type.getName() + " has no no-argument constructor", ex);
+        }
+
+        final Builder<T> builder = new Builder<>(tableDefinition, () ->
+        {
+            try
+            {
+                return constructor.newInstance();
+            }
+            catch (ReflectiveOperationException ex)
+            {
+                throw new IllegalStateException("Unable to create an instance of " + type.getName(), ex);
+            }
+        });
+
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+        {
+            for (Field field : c.getDeclaredFields())
+            {
+                final RiakTsColumn annotation = field.getAnnotation(RiakTsColumn.class);
+                if (annotation == null || Modifier.isStatic(field.getModifiers()))
+                {
+                    continue;
+                }
+
+                final String name = annotation.name().isEmpty() ? field.getName() : annotation.name();
+                final ColumnType accessorType = accessorType(field.getType());
+                if (accessorType == null)
+                {
+                    throw new IllegalArgumentException("Unsupported type " + field.getType().getName() +
+                                                       " for column '" + name + "' in " + type.getName());
+                }
+
+                field.setAccessible(true);
+                builder.add(new FieldColumn<T>(builder.checkColumn(name, accessorType), field));
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static ColumnType accessorType(Class<?> fieldType)
+    {
+        if (fieldType == String.class)
+        {
+            return ColumnType.VARCHAR;
+        }
+        else if (fieldType == byte[].class)
+        {
+            return ColumnType.BLOB;
+        }
+        else if (fieldType == long.class || fieldType == Long.class)
+        {
+            return ColumnType.SINT64;
+        }
+        else if (fieldType == double.class || fieldType == Double.class)
+        {
+            return ColumnType.DOUBLE;
+        }
+        else if (fieldType == boolean.class || fieldType == Boolean.class)
+        {
+            return ColumnType.BOOLEAN;
+        }
+        return null;
+    }
+
+    private static boolean isCompatible(ColumnType columnType, ColumnType accessorType)
+    {
+        if (columnType == accessorType)
+        {
+            return true;
+        }
+        // SINT64 and TIMESTAMP values are both read and written as longs
+        return (columnType == ColumnType.SINT64 || columnType == ColumnType.TIMESTAMP) &&
+               (accessorType == ColumnType.SINT64 || accessorType == ColumnType.TIMESTAMP);
+    }
+
+    public TableDefinition getTableDefinition()
+    {
+        return tableDefinition;
+    }
+
+    public String getTableName()
+    {
+        return tableDefinition.getTableName();
+    }
+
+    /**
+     * Create a new, empty object to map a row into.
+     * @return a new object.
+     */
+    public T newInstance()
+    {
+        return factory.get();
+    }
+
+    /**
+     * Get the mapped columns in table order.
+     * @return an unmodifiable list with an entry per table column, which is null for unmapped columns.
+     */
+    public List<Column<T>> getColumns()
+    {
+        return columns;
+    }
+
+    /**
+     * Check that this mapper can write complete rows.
+     * @throws IllegalStateException if a column that is not nullable is not mapped.
+     */
+    public void checkWritable()
+    {
+        if (unwritableReason != null)
+        {
+            throw new IllegalStateException(unwritableReason + ", unable to write rows of " + getTableName());
+        }
+    }
+
+    /**
+     * Resolve the mapped columns for the columns of a response, once per response.
+     * @param columnDescriptions the columns of the response, in order.
+     * @return a list with the column for each response column, which is null for unmapped columns.
+     * @throws IllegalStateException if a response column contradicts the mapped column type.
+     */
+    public List<Column<T>> bind(List<RiakTsPB.TsColumnDescription> columnDescriptions)
+    {
+        final List<Column<T>> bound = new ArrayList<>(columnDescriptions.size());
+        for (int i = 0; i < columnDescriptions.size(); i++)
+        {
+            final RiakTsPB.TsColumnDescription description = columnDescriptions.get(i);
+            final Column<T> column = columnsByName.get(description.getName().toStringUtf8());
+            bound.add(column);
+            if (column == null)
+            {
+                continue;
+            }
+
+            final ColumnType responseType = ColumnType.valueOf(description.getType().name());
+            if (!isCompatible(column.getType(), responseType))
+            {
+                throw new IllegalStateException(
+                    String.format("Type '%s' of response column '%s' contradicts the mapped type '%s'",
+                                  responseType.name(), column.getName(), column.getType().name()));
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Map Protocol Buffers rows to objects.
+     * @param columnDescriptions the columns of the response, in order.
+     * @param rows the rows of the response.
+     * @return a new list with an object per row.
+     */
+    public List<T> fromPbRows(List<RiakTsPB.TsColumnDescription> columnDescriptions, List<RiakTsPB.TsRow> rows)
+    {
+        final List<Column<T>> bound = bind(columnDescriptions);
+        final List<T> objects = new ArrayList<>(rows.size());
+
+        for (RiakTsPB.TsRow row : rows)
+        {
+            final T object = newInstance();
+            for (int i = 0; i < bound.size(); i++)
+            {
+                final Column<T> column = bound.get(i);
+                if (column != null)
+                {
+                    readPbCell(column, row.getCells(i), object);
+                }
+            }
+            objects.add(object);
+        }
+        return objects;
+    }
+
+    private void readPbCell(Column<T> column, RiakTsPB.TsCell cell, T object)
+    {
+        switch (column.getType())
+        {
+            case VARCHAR:
+                if (cell.hasVarcharValue())
+                {
+                    column.setVarchar(object, cell.getVarcharValue().toStringUtf8());
+                    return;
+                }
+                break;
+            case BLOB:
+                if (cell.hasVarcharValue())
+                {
+                    column.setBlob(object, cell.getVarcharValue().toByteArray());
+                    return;
+                }
+                break;
+            case SINT64:
+            case TIMESTAMP:
+                if (cell.hasSint64Value())
+                {
+                    column.setLong(object, cell.getSint64Value());
+                    return;
+                }
+                else if (cell.hasTimestampValue())
+                {
+                    column.setLong(object, cell.getTimestampValue());
+                    return;
+                }
+                break;
+            case DOUBLE:
+                if (cell.hasDoubleValue())
+                {
+                    column.setDouble(object, cell.getDoubleValue());
+                    return;
+                }
+                break;
+            case BOOLEAN:
+                if (cell.hasBooleanValue())
+                {
+                    column.setBoolean(object, cell.getBooleanValue());
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        column.setNull(object);
+    }
+
+    /**
+     * Map an object to a Protocol Buffers row, in table order.
+     * @param object the object to map.
+     * @return a new TsRow.
+     * @throws IllegalStateException if this mapper cannot write complete rows.
+     */
+    public RiakTsPB.TsRow toPbRow(T object)
+    {
+        checkWritable();
+
+        final RiakTsPB.TsRow.Builder row = RiakTsPB.TsRow.newBuilder();
+        for (Column<T> column : columns)
+        {
+            if (column == null || column.isNull(object))
+            {
+                row.addCells(RiakTsPB.TsCell.getDefaultInstance());
+                continue;
+            }
+
+            final RiakTsPB.TsCell.Builder cell = RiakTsPB.TsCell.newBuilder();
+            switch (column.getType())
+            {
+                case VARCHAR:
+                    cell.setVarcharValue(ByteString.copyFromUtf8(column.getVarchar(object)));
+                    break;
+                case BLOB:
+                    cell.setVarcharValue(ByteString.copyFrom(column.getBlob(object)));
+                    break;
+                case SINT64:
+                    cell.setSint64Value(column.getLong(object));
+                    break;
+                case TIMESTAMP:
+                    cell.setTimestampValue(column.getLong(object));
+                    break;
+                case DOUBLE:
+                    cell.setDoubleValue(column.getDouble(object));
+                    break;
+                case BOOLEAN:
+                    cell.setBooleanValue(column.getBoolean(object));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown column type: " + column.getType());
+            }
+            row.addCells(cell);
+        }
+        return row.build();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("TsRowMapper {table: %s, columns: %s}", getTableName(), columnsByName.keySet());
+    }
+
+    /**
+     * The mapping of a table column to an object.
+     * <p>
+     * Only the accessors matching the column type are supported: the long
+     * accessors for SINT64 and TIMESTAMP columns, and so on. VARCHAR and BLOB
+     * columns, and columns mapped with the nullable builder methods, are null
+     * when their value is null. Columns mapped with primitive getters and
+     * setters are never null, and setting them to null leaves the object
+     * untouched.
+     * </p>
+     * @param <T> the type rows are mapped to.
+     */
+    public abstract static class Column<T>
+    {
+        private final String name;
+        private final ColumnType type;
+
+        Column(ColumnDescription description)
+        {
+            this.name = description.getName();
+            this.type = description.getType();
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return the type of the table column.
+         */
+        public ColumnType getType()
+        {
+            return type;
+        }
+
+        public abstract boolean isNull(T object);
+
+        public abstract void setNull(T object);
+
+        public long getLong(T object)
+        {
+            throw unsupported();
+        }
+
+        public void setLong(T object, long value)
+        {
+            throw unsupported();
+        }
+
+        public double getDouble(T object)
+        {
+            throw unsupported();
+        }
+
+        public void setDouble(T object, double value)
+        {
+            throw unsupported();
+        }
+
+        public boolean getBoolean(T object)
+        {
+            throw unsupported();
+        }
+
+        public void setBoolean(T object, boolean value)
+        {
+            throw unsupported();
+        }
+
+        public String getVarchar(T object)
+        {
+            throw unsupported();
+        }
+
+        public void setVarchar(T object, String value)
+        {
+            throw unsupported();
+        }
+
+        public byte[] getBlob(T object)
+        {
+            throw unsupported();
+        }
+
+        public void setBlob(T object, byte[] value)
+        {
+            throw unsupported();
+        }
+
+        IllegalStateException unsupported()
+        {
+            return new IllegalStateException("Column '" + name + "' is not mapped for this access");
+        }
+    }
+
+    /**
+     * Used to construct a TsRowMapper from getter and setter lambdas.
+     * <p>
+     * Getters are only needed to store objects and setters are only needed to
+     * query them, so either may be null. Columns that are not nullable must
+     * be mapped to store objects.
+     * </p>
+     * @param <T> the type rows are mapped to.
+     */
+    public static class Builder<T>
+    {
+        private final TableDefinition tableDefinition;
+        private final Supplier<T> factory;
+        private final Map<String, Column<T>> columns = new HashMap<>();
+
+        /**
+         * Construct a Builder for a TsRowMapper.
+         * @param tableDefinition Required. The table the rows belong to.
+         * @param factory Required. Creates an empty object to map a row into.
+         */
+        public Builder(TableDefinition tableDefinition, Supplier<T> factory)
+        {
+            if (tableDefinition == null)
+            {
+                throw new IllegalArgumentException("TableDefinition can not be null");
+            }
+            if (factory == null)
+            {
+                throw new IllegalArgumentException("Factory can not be null");
+            }
+            this.tableDefinition = tableDefinition;
+            this.factory = factory;
+        }
+
+        public Builder<T> withVarchar(String columnName, Function<T, String> getter, BiConsumer<T, String> setter)
+        {
+            return add(new VarcharColumn<>(checkColumn(columnName, ColumnType.VARCHAR), getter, setter));
+        }
+
+        public Builder<T> withBlob(String columnName, Function<T, byte[]> getter, BiConsumer<T, byte[]> setter)
+        {
+            return add(new BlobColumn<>(checkColumn(columnName, ColumnType.BLOB), getter, setter));
+        }
+
+        /**
+         * Map a SINT64 or TIMESTAMP column.
+         * @param columnName the name of the column.
+         * @param getter reads the value from an object, may be null.
+         * @param setter writes the value to an object, may be null.
+         * @return a reference to this object.
+         */
+        public Builder<T> withLong(String columnName, ToLongFunction<T> getter, ObjLongConsumer<T> setter)
+        {
+            return add(new LongColumn<>(checkColumn(columnName, ColumnType.SINT64), getter, setter));
+        }
+
+        public Builder<T> withDouble(String columnName, ToDoubleFunction<T> getter, ObjDoubleConsumer<T> setter)
+        {
+            return add(new DoubleColumn<>(checkColumn(columnName, ColumnType.DOUBLE), getter, setter));
+        }
+
+        public Builder<T> withBoolean(String columnName, Predicate<T> getter, BiConsumer<T, Boolean> setter)
+        {
+            return add(new BooleanColumn<>(checkColumn(columnName, ColumnType.BOOLEAN), getter, setter));
+        }
+
+        /**
+         * Map a SINT64 or TIMESTAMP column to a boxed value, which is null when the column is null.
+         * @param columnName the name of the column.
+         * @param getter reads the value from an object, may be null.
+         * @param setter writes the value to an object, may be null.
+         * @return a reference to this object.
+         */
+        public Builder<T> withNullableLong(String columnName, Function<T, Long> getter, BiConsumer<T, Long> setter)
+        {
+            return add(new NullableLongColumn<>(checkColumn(columnName, ColumnType.SINT64), getter, setter));
+        }
+
+        /**
+         * Map a DOUBLE column to a boxed value, which is null when the column is null.
+         * @param columnName the name of the column.
+         * @param getter reads the value from an object, may be null.
+         * @param setter writes the value to an object, may be null.
+         * @return a reference to this object.
+         */
+        public Builder<T> withNullableDouble(String columnName, Function<T, Double> getter,
+                                             BiConsumer<T, Double> setter)
+        {
+            return add(new NullableDoubleColumn<>(checkColumn(columnName, ColumnType.DOUBLE), getter, setter));
+        }
+
+        /**
+         * Map a BOOLEAN column to a boxed value, which is null when the column is null.
+         * @param columnName the name of the column.
+         * @param getter reads the value from an object, may be null.
+         * @param setter writes the value to an object, may be null.
+         * @return a reference to this object.
+         */
+        public Builder<T> withNullableBoolean(String columnName, Function<T, Boolean> getter,
+                                              BiConsumer<T, Boolean> setter)
+        {
+            return add(new NullableBooleanColumn<>(checkColumn(columnName, ColumnType.BOOLEAN), getter, setter));
+        }
+
+        /**
+         * Construct the TsRowMapper.
+         * @return a new TsRowMapper.
+         */
+        public TsRowMapper<T> build()
+        {
+            if (columns.isEmpty())
+            {
+                throw new IllegalArgumentException("At least one column must be mapped");
+            }
+            return new TsRowMapper<>(tableDefinition, factory, new HashMap<>(columns));
+        }
+
+        private ColumnDescription checkColumn(String columnName, ColumnType accessorType)
+        {
+            final FullColumnDescription description = tableDefinition.getDescriptionByColumnName(columnName);
+            if (description == null)
+            {
+                throw new IllegalArgumentException("Table " + tableDefinition.getTableName() +
+                                                   " has no column '" + columnName + "'");
+            }
+            if (!isCompatible(description.getType(), accessorType))
+            {
+                throw new IllegalArgumentException(
+                    String.format("Column '%s' is of type '%s' and can not be mapped as '%s'",
+                                  columnName, description.getType().name(), accessorType.name()));
+            }
+            return description;
+        }
+
+        private Builder<T> add(Column<T> column)
+        {
+            if (columns.put(column.getName(), column) != null)
+            {
+                throw new IllegalArgumentException("Column '" + column.getName() + "' is mapped more than once");
+            }
+            return this;
+        }
+    }
+
+    private static final class VarcharColumn<T> extends Column<T>
+    {
+        private final Function<T, String> getter;
+        private final BiConsumer<T, String> setter;
+
+        VarcharColumn(ColumnDescription description, Function<T, String> getter, BiConsumer<T, String> setter)
+        {
+            super(description);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public boolean isNull(T object)
+        {
+            return getVarchar(object) == null;
+        }
+
+        @Override
+        public void setNull(T object)
+        {
+            setVarchar(object, null);
+        }
+
+        @Override
+        public String getVarchar(T object)
+        {
+            if (getter == null)
+            {
+                throw unsupported();
+            }
+            return getter.apply(object);
+        }
+
+        @Override
+        public void setVarchar(T object, String value)
+        {
+            if (setter == null)
+            {
+                throw unsupported();
+            }
+            setter.accept(object, value);
+        }
+    }
+
+    private static final class BlobColumn<T> extends Column<T>
+    {
+        private final Function<T, byte[]> getter;
+        private final BiConsumer<T, byte[]> setter;
+
+        BlobColumn(ColumnDescription description, Function<T, byte[]> getter, BiConsumer<T, byte[]> setter)
+        {
+            super(description);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public boolean isNull(T object)
+        {
+            return getBlob(object) == null;
+        }
+
+        @Override
+        public void setNull(T object)
+        {
+            setBlob(object, null);
+        }
+
+        @Override
+        public byte[] getBlob(T object)
+        {
+            if (getter == null)
+            {
+                throw unsupported();
+            }
+            return getter.apply(object);
+        }
+
+        @Override
+        public void setBlob(T object, byte[] value)
+        {
+            if (setter == null)
+            {
+                throw unsupported();
+            }
+            setter.accept(object, value);
+        }
+    }
+
+    private static final class LongColumn<T> extends Column<T>
+    {
+        private final ToLongFunction<T> getter;
+        private final ObjLongConsumer<T> setter;
+
+        LongColumn(ColumnDescription description, ToLongFunction<T> getter, ObjLongConsumer<T> setter)
+        {
+            super(description);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public boolean isNull(T object)
+        {
+            return false;
+        }
+
+        @Override
+        public void setNull(T object)
+        {
+        }
+
+        @Override
+        public long getLong(T object)
+        {
+            if (getter == null)
+            {
+                throw unsupported();
+            }
+            return getter.applyAsLong(object);
+        }
+
+        @Override
+        public void setLong(T object, long value)
+        {
+            if (setter == null)
+            {
+                throw unsupported();
+            }
+            setter.accept(object, value);
+        }
+    }
+
+    private static final class DoubleColumn<T> extends Column<T>
+    {
+        private final ToDoubleFunction<T> getter;
+        private final ObjDoubleConsumer<T> setter;
+
+        DoubleColumn(ColumnDescription description, ToDoubleFunction<T> getter, ObjDoubleConsumer<T> setter)
+        {
+            super(description);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public boolean isNull(T object)
+        {
+            return false;
+        }
+
+        @Override
+        public void setNull(T object)
+        {
+        }
+
+        @Override
+        public double getDouble(T object)
+        {
+            if (getter == null)
+            {
+                throw unsupported();
+            }
+            return getter.applyAsDouble(object);
+        }
+
+        @Override
+        public void setDouble(T object, double value)
+        {
+            if (setter == null)
+            {
+                throw unsupported();
+            }
+            setter.accept(object, value);
+        }
+    }
+
+    private static final class BooleanColumn<T> extends Column<T>
+    {
+        private final Predicate<T> getter;
+        private final BiConsumer<T, Boolean> setter;
+
+        BooleanColumn(ColumnDescription description, Predicate<T> getter, BiConsumer<T, Boolean> setter)
+        {
+            super(description);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public boolean isNull(T object)
+        {
+            return false;
+        }
+
+        @Override
+        public void setNull(T object)
+        {
+        }
+
+        @Override
+        public boolean getBoolean(T object)
+        {
+            if (getter == null)
+            {
+                throw unsupported();
+            }
+            return getter.test(object);
+        }
+
+        @Override
+        public void setBoolean(T object, boolean value)
+        {
+            if (setter == null)
+            {
+                throw unsupported();
+            }
+            setter.accept(object, value);
+        }
+    }
+
+    private static final class NullableLongColumn<T> extends Column<T>
+    {
+        private final Function<T, Long> getter;
+        private final BiConsumer<T, Long> setter;
+
+        NullableLongColumn(ColumnDescription description, Function<T, Long> getter, BiConsumer<T, Long> setter)
+        {
+            super(description);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        private Long get(T object)
+        {
+            if (getter == null)
+            {
+                throw unsupported();
+            }
+            return getter.apply(object);
+        }
+
+        private void set(T object, Long value)
+        {
+            if (setter == null)
+            {
+                throw unsupported();
+            }
+            setter.accept(object, value);
+        }
+
+        @Override
+        public boolean isNull(T object)
+        {
+            return get(object) == null;
+        }
+
+        @Override
+        public void setNull(T object)
+        {
+            set(object, null);
+        }
+
+        @Override
+        public long getLong(T object)
+        {
+            return get(object);
+        }
+
+        @Override
+        public void setLong(T object, long value)
+        {
+            set(object, value);
+        }
+    }
+
+    private static final class NullableDoubleColumn<T> extends Column<T>
+    {
+        private final Function<T, Double> getter;
+        private final BiConsumer<T, Double> setter;
+
+        NullableDoubleColumn(ColumnDescription description, Function<T, Double> getter, BiConsumer<T, Double> setter)
+        {
+            super(description);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        private Double get(T object)
+        {
+            if (getter == null)
+            {
+                throw unsupported();
+            }
+            return getter.apply(object);
+        }
+
+        private void set(T object, Double value)
+        {
+            if (setter == null)
+            {
+                throw unsupported();
+            }
+            setter.accept(object, value);
+        }
+
+        @Override
+        public boolean isNull(T object)
+        {
+            return get(object) == null;
+        }
+
+        @Override
+        public void setNull(T object)
+        {
+            set(object, null);
+        }
+
+        @Override
+        public double getDouble(T object)
+        {
+            return get(object);
+        }
+
+        @Override
+        public void setDouble(T object, double value)
+        {
+            set(object, value);
+        }
+    }
+
+    private static final class NullableBooleanColumn<T> extends Column<T>
+    {
+        private final Function<T, Boolean> getter;
+        private final BiConsumer<T, Boolean> setter;
+
+        NullableBooleanColumn(ColumnDescription description, Function<T, Boolean> getter, BiConsumer<T, Boolean> setter)
+        {
+            super(description);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        private Boolean get(T object)
+        {
+            if (getter == null)
+            {
+                throw unsupported();
+            }
+            return getter.apply(object);
+        }
+
+        private void set(T object, Boolean value)
+        {
+            if (setter == null)
+            {
+                throw unsupported();
+            }
+            setter.accept(object, value);
+        }
+
+        @Override
+        public boolean isNull(T object)
+        {
+            return get(object) == null;
+        }
+
+        @Override
+        public void setNull(T object)
+        {
+            set(object, null);
+        }
+
+        @Override
+        public boolean getBoolean(T object)
+        {
+            return get(object);
+        }
+
+        @Override
+        public void setBoolean(T object, boolean value)
+        {
+            set(object, value);
+        }
+    }
+
+    /**
+     * Maps a column to an annotated field. Primitive fields are read and
+     * written without boxing, boxed fields hold null values.
+     */
+    private static final class FieldColumn<T> extends Column<T>
+    {
+        private final Field field;
+        private final boolean primitive;
+
+        FieldColumn(ColumnDescription description, Field field)
+        {
+            super(description);
+            this.field = field;
+            this.primitive = field.getType().isPrimitive();
+        }
+
+        private Object get(T object)
+        {
+            try
+            {
+                return field.get(object);
+            }
+            catch (IllegalAccessException ex)
+            {
+                throw new IllegalStateException("Unable to read field " + field.getName(), ex);
+            }
+        }
+
+        private void set(T object, Object value)
+        {
+            try
+            {
+                field.set(object, value);
+            }
+            catch (IllegalAccessException ex)
+            {
+                throw new IllegalStateException("Unable to write field " + field.getName(), ex);
+            }
+        }
+
+        @Override
+        public boolean isNull(T object)
+        {
+            return !primitive && get(object) == null;
+        }
+
+        @Override
+        public void setNull(T object)
+        {
+            if (!primitive)
+            {
+                set(object, null);
+            }
+        }
+
+        @Override
+        public long getLong(T object)
+        {
+            try
+            {
+                return primitive ? field.getLong(object) : (Long) field.get(object);
+            }
+            catch (IllegalAccessException ex)
+            {
+                throw new IllegalStateException("Unable to read field " + field.getName(), ex);
+            }
+        }
+
+        @Override
+        public void setLong(T object, long value)
+        {
+            try
+            {
+                if (primitive)
+                {
+                    field.setLong(object, value);
+                }
+                else
+                {
+                    field.set(object, value);
+                }
+            }
+            catch (IllegalAccessException ex)
+            {
+                throw new IllegalStateException("Unable to write field " + field.getName(), ex);
+            }
+        }
+
+        @Override
+        public double getDouble(T object)
+        {
+            try
+            {
+                return primitive ? field.getDouble(object) : (Double) field.get(object);
+            }
+            catch (IllegalAccessException ex)
+            {
+                throw new IllegalStateException("Unable to read field " + field.getName(), ex);
+            }
+        }
+
+        @Override
+        public void setDouble(T object, double value)
+        {
+            try
+            {
+                if (primitive)
+                {
+                    field.setDouble(object, value);
+                }
+                else
+                {
+                    field.set(object, value);
+                }
+            }
+            catch (IllegalAccessException ex)
+            {
+                throw new IllegalStateException("Unable to write field " + field.getName(), ex);
+            }
+        }
+
+        @Override
+        public boolean getBoolean(T object)
+        {
+            try
+            {
+                return primitive ? field.getBoolean(object) : (Boolean) field.get(object);
+            }
+            catch (IllegalAccessException ex)
+            {
+                throw new IllegalStateException("Unable to read field " + field.getName(), ex);
+            }
+        }
+
+        @Override
+        public void setBoolean(T object, boolean value)
+        {
+            try
+            {
+                if (primitive)
+                {
+                    field.setBoolean(object, value);
+                }
+                else
+                {
+                    field.set(object, value);
+                }
+            }
+            catch (IllegalAccessException ex)
+            {
+                throw new IllegalStateException("Unable to write field " + field.getName(), ex);
+            }
+        }
+
+        @Override
+        public String getVarchar(T object)
+        {
+            return (String) get(object);
+        }
+
+        @Override
+        public void setVarchar(T object, String value)
+        {
+            set(object, value);
+        }
+
+        @Override
+        public byte[] getBlob(T object)
+        {
+            return (byte[]) get(object);
+        }
+
+        @Override
+        public void setBlob(T object, byte[] value)
+        {
+            set(object, value);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.core.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A thread safe, weight bounded, least recently used cache.
+ * <p>
+ * Each entry is assigned a weight by the supplied {@link Weigher} when it is
+ * added. Whenever the total weight exceeds the configured maximum, the least
+ * recently used entries are evicted until it fits again. A weigher that
+ * always returns 1 gives a cache bounded by the number of entries.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @since 2.1.2
+ */
+public final class LruCache<K, V>
+{
+    /**
+     * Computes the weight of a cache entry.
+     */
+    public interface Weigher<K, V>
+    {
+        long weigh(K key, V value);
+    }
+
+    private final long maxWeight;
+    private final Weigher<? super K, ? super V> weigher;
+    private final LinkedHashMap<K, Node<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create a cache bounded by number of entries.
+     * @param maxEntries the maximum number of entries.
+     */
+    public LruCache(long maxEntries)
+    {
+        this(maxEntries, (k, v) -> 1);
+    }
+
+    /**
+     * Create a cache bounded by total weight.
+     * @param maxWeight the maximum total weight of all entries.
+     * @param weigher used to compute the weight of each entry.
+     */
+    public LruCache(long maxWeight, Weigher<? super K, ? super V> weigher)
+    {
+        if (maxWeight <= 0)
+        {
+            throw new IllegalArgumentException("Max weight must be greater than zero.");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Return the value for the key, marking it as recently used.
+     * @param key the key
+     * @return the value, or null if not present.
+     */
+    public synchronized V get(K key)
+    {
+        Node<V> node = map.get(key);
+        if (node == null)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        return node.value;
+    }
+
+    /**
+     * Add or replace the value for a key.
+     * <p>
+     * A value whose weight alone is greater than the maximum weight is
+     * not cached; any previous value for the key is removed.
+     * </p>
+     * @param key the key
+     * @param value the value
+     * @return true if the value was cached.
+     */
+    public synchronized boolean put(K key, V value)
+    {
+        final long weight = weigher.weigh(key, value);
+        remove(key);
+
+        if (weight > maxWeight)
+        {
+            return false;
+        }
+
+        map.put(key, new Node<>(value, weight));
+        totalWeight += weight;
+
+        Iterator<Map.Entry<K, Node<V>>> i = map.entrySet().iterator();
+        while (totalWeight > maxWeight && i.hasNext())
+        {
+            Node<V> eldest = i.next().getValue();
+            totalWeight -= eldest.weight;
+            evictions++;
+            i.remove();
+        }
+        return true;
+    }
+
+    /**
+     * Replace the value for a key only if the key currently maps to the expected value.
+     * @param key the key
+     * @param expected the value that must currently be cached
+     * @param value the replacement
+     * @return true if the value was replaced.
+     */
+    public synchronized boolean replace(K key, V expected, V value)
+    {
+        Node<V> node = map.get(key);
+        if (node == null || node.value != expected)
+        {
+            return false;
+        }
+        return put(key, value);
+    }
+
+    /**
+     * Remove the value for a key.
+     * @param key the key
+     * @return the removed value, or null if not present.
+     */
+    public synchronized V remove(K key)
+    {
+        Node<V> node = map.remove(key);
+        if (node == null)
+        {
+            return null;
+        }
+        totalWeight -= node.weight;
+        return node.value;
+    }
+
+    /**
+     * Remove every entry whose key matches the predicate.
+     * @param predicate the predicate
+     * @return the number of entries removed.
+     */
+    public synchronized int removeIf(Predicate<? super K> predicate)
+    {
+        int removed = 0;
+        Iterator<Map.Entry<K, Node<V>>> i = map.entrySet().iterator();
+        while (i.hasNext())
+        {
+            Map.Entry<K, Node<V>> entry = i.next();
+            if (predicate.test(entry.getKey()))
+            {
+                totalWeight -= entry.getValue().weight;
+                i.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear()
+    {
+        map.clear();
+        totalWeight = 0;
+    }
+
+    public synchronized int size()
+    {
+        return map.size();
+    }
+
+    public synchronized long getWeight()
+    {
+        return totalWeight;
+    }
+
+    public long getMaxWeight()
+    {
+        return maxWeight;
+    }
+
+    public synchronized long getHitCount()
+    {
+        return hits;
+    }
+
+    public synchronized long getMissCount()
+    {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount()
+    {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("{size: %d, weight: %d, maxWeight: %d, hits: %d, misses: %d, evictions: %d}",
+                             map.size(), totalWeight, maxWeight, hits, misses, evictions);
+    }
+
+    private static final class Node<V>
+    {
+        private final V value;
+        private final long weight;
+
+        private Node(V value, long weight)
+        {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.kv.BucketExporter;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.CoveragePlanOperation;
+import com.basho.riak.client.core.operations.CoveragePlanOperation.Response.CoverageEntry;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.client.core.util.HostAndPort;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.powermock.reflect.Whitebox;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BucketExporterTest
+{
+    private static final Namespace NAMESPACE = new Namespace("type", "bucket");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final Map<String, SettableRiakFuture<SecondaryIndexQueryOperation.Response,
+                                                 SecondaryIndexQueryOperation.Query>> reads = new HashMap<>();
+    private final List<HostAndPort> readHosts = new ArrayList<>();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init()
+    {
+        when(mockCluster.executeOnHost(any(FutureOperation.class), any(HostAndPort.class))).thenAnswer(invocation ->
+        {
+            final SecondaryIndexQueryOperation operation =
+                (SecondaryIndexQueryOperation) invocation.getArguments()[0];
+            final SecondaryIndexQueryOperation.Query query = operation.getQueryInfo();
+            final SettableRiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> future =
+                new SettableRiakFuture<>(query);
+
+            final String continuation = query.getContinuation() == null ? "" : ":" + query.getContinuation();
+            reads.put(new String(query.getCoverageContext()) + continuation, future);
+            readHosts.add((HostAndPort) invocation.getArguments()[1]);
+            return future;
+        });
+    }
+
+    private static CoverageEntry entry(String host)
+    {
+        final CoverageEntry entry = new CoverageEntry();
+        Whitebox.setInternalState(entry, "host", host);
+        Whitebox.setInternalState(entry, "port", 8087);
+        Whitebox.setInternalState(entry, "description", host);
+        Whitebox.setInternalState(entry, "coverageContext", host.getBytes());
+        return entry;
+    }
+
+    private static RiakFuture<CoveragePlanOperation.Response, Namespace> plan(CoverageEntry... entries)
+    {
+        final CoveragePlanOperation.Response plan = mock(CoveragePlanOperation.Response.class);
+        when(plan.iterator()).thenAnswer(invocation -> Arrays.asList(entries).iterator());
+        return SettableRiakFuture.completed(plan, NAMESPACE);
+    }
+
+    private static SecondaryIndexQueryOperation.Response page(int size, String continuation)
+    {
+        final List<SecondaryIndexQueryOperation.Response.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < size; i++)
+        {
+            final SecondaryIndexQueryOperation.Response.Entry entry =
+                mock(SecondaryIndexQueryOperation.Response.Entry.class);
+            when(entry.getObjectKey()).thenReturn(BinaryValue.create("key" + i));
+            entries.add(entry);
+        }
+
+        final SecondaryIndexQueryOperation.Response response = mock(SecondaryIndexQueryOperation.Response.class);
+        when(response.getEntryList()).thenReturn(entries);
+        when(response.iterator()).thenAnswer(invocation -> entries.iterator());
+        when(response.hasContinuation()).thenReturn(continuation != null);
+        when(response.getContinuation()).thenReturn(continuation == null ? null : BinaryValue.create(continuation));
+        return response;
+    }
+
+    private BucketExporter.Builder exporter()
+    {
+        return new BucketExporter.Builder(NAMESPACE, (entry, objects) -> {});
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void readsEveryEntryOnItsHostFollowingContinuations() throws Exception
+    {
+        final RiakFuture<CoveragePlanOperation.Response, Namespace> plan = plan(entry("host1"), entry("host2"));
+        when(mockCluster.execute(any(CoveragePlanOperation.class))).thenReturn(plan);
+
+        final RiakFuture<BucketExporter.Response, Namespace> future = client.executeAsync(exporter().build());
+
+        assertEquals(Arrays.asList(HostAndPort.fromParts("host1", 8087), HostAndPort.fromParts("host2", 8087)),
+                     readHosts);
+
+        reads.get("host1").setResponse(page(2, "next"));
+        reads.get("host1:next").setResponse(page(1, null));
+        assertFalse(future.isDone());
+        reads.get("host2").setResponse(page(3, null));
+
+        final BucketExporter.Response response = future.get();
+        assertEquals(2, response.getEntryCount());
+        assertEquals(3, response.getPageCount());
+        assertEquals(6, response.getObjectCount());
+        assertFalse(response.isResumed());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void boundsEntriesInFlight() throws Exception
+    {
+        final RiakFuture<CoveragePlanOperation.Response, Namespace> plan = plan(entry("host1"), entry("host2"));
+        when(mockCluster.execute(any(CoveragePlanOperation.class))).thenReturn(plan);
+
+        client.executeAsync(exporter().withMaxInFlight(1).build());
+        assertEquals(1, readHosts.size());
+
+        reads.get("host1").setResponse(page(1, "next"));
+        assertEquals("following a continuation keeps the slot", 2, readHosts.size());
+        assertNull(reads.get("host2"));
+
+        reads.get("host1:next").setResponse(page(1, null));
+        assertNotNull(reads.get("host2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void replacesFailedEntriesFromTheirContinuation() throws Exception
+    {
+        final RiakFuture<CoveragePlanOperation.Response, Namespace> plan = plan(entry("host1"));
+        final RiakFuture<CoveragePlanOperation.Response, Namespace> replacement = plan(entry("host3"));
+        when(mockCluster.execute(any(CoveragePlanOperation.class))).thenReturn(plan, replacement);
+
+        final RiakFuture<BucketExporter.Response, Namespace> future = client.executeAsync(exporter().build());
+
+        reads.get("host1").setResponse(page(1, "next"));
+        reads.get("host1:next").setException(new Exception("node down"));
+
+        verify(mockCluster, times(2)).execute(any(CoveragePlanOperation.class));
+        assertEquals(HostAndPort.fromParts("host3", 8087), readHosts.get(2));
+        reads.get("host3:next").setResponse(page(1, null));
+
+        final BucketExporter.Response response = future.get();
+        assertEquals(1, response.getReplacedEntryCount());
+        assertEquals(2, response.getObjectCount());
+    }
+
+    @Test(expected = java.util.concurrent.ExecutionException.class)
+    @SuppressWarnings("unchecked")
+    public void failsAfterMaxRetries() throws Exception
+    {
+        final RiakFuture<CoveragePlanOperation.Response, Namespace> plan = plan(entry("host1"));
+        when(mockCluster.execute(any(CoveragePlanOperation.class))).thenReturn(plan);
+
+        final RiakFuture<BucketExporter.Response, Namespace> future =
+            client.executeAsync(exporter().withMaxRetries(0).build());
+        reads.get("host1").setException(new Exception("node down"));
+
+        future.get();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void resumesFromCheckpoint() throws Exception
+    {
+        final Path path = folder.getRoot().toPath().resolve("export.checkpoint");
+        final BucketExporter.FileCheckpointStore store = new BucketExporter.FileCheckpointStore(path);
+        final RiakFuture<CoveragePlanOperation.Response, Namespace> plan = plan(entry("host1"), entry("host2"));
+        when(mockCluster.execute(any(CoveragePlanOperation.class))).thenReturn(plan);
+
+        // The first export saves a checkpoint after each page, then stops
+        client.executeAsync(exporter().withCheckpointStore(store).build());
+        reads.get("host1").setResponse(page(1, null));
+        reads.get("host2").setResponse(page(1, "next"));
+
+        final BucketExporter.Checkpoint checkpoint = store.load();
+        assertEquals(1, checkpoint.getPositions().size());
+        assertEquals("host2", checkpoint.getPositions().get(0).getCoverageEntry().getHost());
+        assertEquals("next", new String(checkpoint.getPositions().get(0).getContinuation()));
+
+        // The second export resumes from it without fetching a plan
+        reads.clear();
+        final RiakFuture<BucketExporter.Response, Namespace> resumed =
+            client.executeAsync(exporter().withCheckpointStore(store).build());
+        verify(mockCluster, times(1)).execute(any(CoveragePlanOperation.class));
+
+        reads.get("host2:next").setResponse(page(1, null));
+        assertTrue(resumed.get().isResumed());
+        assertNull("checkpoint is cleared on completion", store.load());
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands;
+
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+
+import java.util.function.Function;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stubbing and matching helpers for tests that run commands against a mocked {@link RiakCluster}.
+ *
+ * @since 2.1.2
+ */
+public final class ClusterMocks
+{
+    private ClusterMocks()
+    {
+    }
+
+    /**
+     * Matches any operation passed to {@link RiakCluster#execute(FutureOperation)}.
+     *
+     * @return a typed matcher.
+     */
+    @SuppressWarnings("unchecked")
+    public static <V, S> FutureOperation<V, ?, S> anyOperation()
+    {
+        return any(FutureOperation.class);
+    }
+
+    /**
+     * Answers every operation executed on the cluster with the future returned by {@code answer}.
+     *
+     * @param cluster the mocked cluster.
+     * @param answer builds the future for an operation.
+     */
+    public static void answerOperations(RiakCluster cluster, Function<FutureOperation<?, ?, ?>, RiakFuture<?, ?>> answer)
+    {
+        when(cluster.execute(anyOperation()))
+            .thenAnswer(invocation -> answer.apply((FutureOperation<?, ?, ?>) invocation.getArguments()[0]));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.cap.Quorum;
+import com.basho.riak.client.api.commands.datatypes.DatatypeCache;
+import com.basho.riak.client.api.commands.datatypes.FetchCounter;
+import com.basho.riak.client.api.commands.datatypes.FetchDatatype;
+import com.basho.riak.client.api.commands.datatypes.FetchMap;
+import com.basho.riak.client.api.commands.datatypes.MapUpdate;
+import com.basho.riak.client.api.commands.datatypes.UpdateMap;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.DtFetchOperation;
+import com.basho.riak.client.core.operations.DtUpdateOperation;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.query.crdt.types.RiakMap;
+import com.basho.riak.client.core.util.BinaryValue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.basho.riak.client.api.commands.ClusterMocks.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class DatatypeCacheTest
+{
+    private final Location location = new Location(new Namespace("maps", "bucket"), "key");
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final RiakMap map = new RiakMap(new ArrayList<>());
+    private DtFetchOperation.Response fetchResponse;
+
+    @Before
+    public void init()
+    {
+        fetchResponse = mock(DtFetchOperation.Response.class);
+        when(fetchResponse.getCrdtElement()).thenReturn(map);
+        when(fetchResponse.hasContext()).thenReturn(true);
+        when(fetchResponse.getContext()).thenReturn(BinaryValue.create(new byte[] {'1'}));
+
+        DtUpdateOperation.Response updateResponse = mock(DtUpdateOperation.Response.class);
+
+        answerOperations(mockCluster, operation ->
+        {
+            if (operation instanceof DtFetchOperation)
+            {
+                return SettableRiakFuture.completed(fetchResponse, location);
+            }
+            return SettableRiakFuture.completed(updateResponse, location);
+        });
+
+        client.setDatatypeCache(new DatatypeCache.Builder().withTimeToLive(1, TimeUnit.HOURS).build());
+    }
+
+    @Test
+    public void servesCachedDatatype() throws Exception
+    {
+        FetchMap.Response first = client.execute(new FetchMap.Builder(location).build());
+        FetchMap.Response second = client.execute(new FetchMap.Builder(location).build());
+
+        verify(mockCluster, times(1)).execute(anyOperation());
+        assertSame(map, first.getDatatype());
+        assertSame(map, second.getDatatype());
+        assertArrayEquals(new byte[] {'1'}, second.getContext().getValue().getValue());
+    }
+
+    @Test
+    public void contextIsPartOfTheKey() throws Exception
+    {
+        client.execute(new FetchMap.Builder(location).build());
+        client.execute(new FetchMap.Builder(location).withOption(FetchDatatype.Option.INCLUDE_CONTEXT, false).build());
+
+        verify(mockCluster, times(2)).execute(anyOperation());
+        assertEquals(2, client.getDatatypeCache().size());
+    }
+
+    @Test
+    public void commandAndOptionsArePartOfTheKey() throws Exception
+    {
+        client.execute(new FetchMap.Builder(location).build());
+        client.execute(new FetchMap.Builder(location).withOption(FetchDatatype.Option.R, Quorum.allQuorum()).build());
+
+        verify(mockCluster, times(2)).execute(anyOperation());
+        assertEquals(2, client.getDatatypeCache().size());
+
+        RiakFuture<FetchCounter.Response, Location> counter =
+            client.executeAsync(new FetchCounter.Builder(location).build());
+        counter.await();
+        assertFalse(counter.isSuccess());
+        verify(mockCluster, times(3)).execute(anyOperation());
+
+        assertTrue(counter.cause() instanceof IllegalStateException);
+        assertEquals(2, client.getDatatypeCache().size());
+    }
+
+    @Test
+    public void updateInvalidates() throws Exception
+    {
+        client.execute(new FetchMap.Builder(location).build());
+        client.execute(new UpdateMap.Builder(location, new MapUpdate()).build());
+        assertEquals(0, client.getDatatypeCache().size());
+
+        client.execute(new FetchMap.Builder(location).build());
+        verify(mockCluster, times(3)).execute(anyOperation());
+    }
+
+    @Test
+    public void updateDuringFetchIsNotUndone() throws Exception
+    {
+        SettableRiakFuture<DtFetchOperation.Response, Location> fetchFuture = new SettableRiakFuture<>(location);
+        DtUpdateOperation.Response updateResponse = mock(DtUpdateOperation.Response.class);
+        answerOperations(mockCluster, operation ->
+        {
+            if (operation instanceof DtFetchOperation)
+            {
+                return fetchFuture;
+            }
+            return SettableRiakFuture.completed(updateResponse, location);
+        });
+
+        RiakFuture<FetchMap.Response, Location> fetch = client.executeAsync(new FetchMap.Builder(location).build());
+        client.execute(new UpdateMap.Builder(location, new MapUpdate()).build());
+        fetchFuture.setResponse(fetchResponse);
+
+        assertSame(map, fetch.get().getDatatype());
+        assertEquals(0, client.getDatatypeCache().size());
+    }
+}
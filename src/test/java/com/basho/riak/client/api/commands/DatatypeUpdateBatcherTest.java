@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.datatypes.DatatypeUpdateBatcher;
+import com.basho.riak.client.api.commands.datatypes.HllUpdate;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.operations.DtUpdateOperation;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.protobuf.RiakDtPB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.powermock.reflect.Whitebox;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.basho.riak.client.api.commands.ClusterMocks.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class DatatypeUpdateBatcherTest
+{
+    private final Location counter = new Location(new Namespace("counters", "bucket"), "views");
+    private final Location hll = new Location(new Namespace("hlls", "bucket"), "visitors");
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private DatatypeUpdateBatcher batcher;
+
+    @Before
+    public void init()
+    {
+        DtUpdateOperation.Response response = mock(DtUpdateOperation.Response.class);
+        answerOperations(mockCluster, operation -> SettableRiakFuture.completed(response, operation.getQueryInfo()));
+
+        batcher = new DatatypeUpdateBatcher.Builder(client)
+                      .withFlushInterval(1, TimeUnit.HOURS)
+                      .withMaxPendingLocations(100)
+                      .build();
+    }
+
+    @After
+    public void cleanup() throws InterruptedException
+    {
+        batcher.shutdown();
+    }
+
+    @Test
+    public void mergesUpdatesPerLocation()
+    {
+        batcher.increment(counter, 5);
+        batcher.increment(counter, -2);
+        batcher.addToHll(hll, BinaryValue.create("a"));
+        batcher.update(hll, new HllUpdate().add("a").add("b"));
+        assertEquals(2, batcher.getPendingLocationCount());
+
+        assertEquals(2, batcher.flush());
+        assertEquals(0, batcher.getPendingLocationCount());
+
+        List<DtUpdateOperation> operations = captureOperations(2);
+        for (DtUpdateOperation operation : operations)
+        {
+            RiakDtPB.DtOp op = getOp(operation);
+            if (operation.getQueryInfo().equals(counter))
+            {
+                assertEquals(3, op.getCounterOp().getIncrement());
+            }
+            else
+            {
+                assertEquals(2, new HashSet<>(op.getHllOp().getAddsList()).size());
+            }
+        }
+        assertEquals(2, batcher.getSentUpdateCount());
+        assertEquals(0, batcher.getFailedUpdateCount());
+    }
+
+    @Test
+    public void zeroDeltaIsNotSent()
+    {
+        batcher.increment(counter, 1);
+        batcher.increment(counter, -1);
+
+        assertEquals(0, batcher.flush());
+        verify(mockCluster, never()).execute(anyOperation());
+    }
+
+    @Test
+    public void thresholdTriggersFlush() throws InterruptedException
+    {
+        batcher.shutdown();
+        batcher = new DatatypeUpdateBatcher.Builder(client)
+                      .withFlushInterval(1, TimeUnit.HOURS)
+                      .withMaxPendingLocations(2)
+                      .build();
+
+        batcher.increment(counter, 1);
+        batcher.addToHll(hll, BinaryValue.create("a"));
+
+        verify(mockCluster, timeout(5000).times(2)).execute(anyOperation());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsUpdatesAfterShutdown() throws InterruptedException
+    {
+        batcher.increment(counter, 1);
+        batcher.shutdown();
+        verify(mockCluster, times(1)).execute(anyOperation());
+
+        batcher.increment(counter, 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DtUpdateOperation> captureOperations(int count)
+    {
+        ArgumentCaptor<DtUpdateOperation> captor = ArgumentCaptor.forClass(DtUpdateOperation.class);
+        verify(mockCluster, times(count)).execute(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private RiakDtPB.DtOp getOp(DtUpdateOperation operation)
+    {
+        RiakDtPB.DtUpdateReq.Builder builder =
+            (RiakDtPB.DtUpdateReq.Builder) Whitebox.getInternalState(operation, "reqBuilder");
+        return builder.getOp();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.cap.BasicVClock;
+import com.basho.riak.client.api.cap.Quorum;
+import com.basho.riak.client.api.commands.kv.FetchValue;
+import com.basho.riak.client.api.commands.kv.FetchValueCache;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.FetchOperation;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.query.RiakObject;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.powermock.reflect.Whitebox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.basho.riak.client.api.commands.ClusterMocks.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class FetchValueCacheTest
+{
+    private final Location location = new Location(new Namespace("type", "bucket"), "key");
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private FetchOperation.Response fetchResponse;
+
+    @Before
+    public void init()
+    {
+        RiakObject riakObject = new RiakObject()
+                .setValue(BinaryValue.create("value"))
+                .setVClock(new BasicVClock(new byte[] {'1'}));
+        List<RiakObject> objects = new ArrayList<>();
+        objects.add(riakObject);
+
+        fetchResponse = mock(FetchOperation.Response.class);
+        when(fetchResponse.getObjectList()).thenReturn(objects);
+
+        answerOperations(mockCluster, operation -> SettableRiakFuture.completed(fetchResponse, location));
+    }
+
+    @Test
+    public void servesFreshEntriesLocally() throws Exception
+    {
+        client.setFetchValueCache(new FetchValueCache.Builder().withTimeToLive(1, TimeUnit.HOURS).build());
+
+        FetchValue.Response first = client.execute(new FetchValue.Builder(location).build());
+        FetchValue.Response second = client.execute(new FetchValue.Builder(location).build());
+
+        verify(mockCluster, times(1)).execute(anyOperation());
+        assertNotSame(first.getValue(RiakObject.class), second.getValue(RiakObject.class));
+        assertEquals("value", second.getValue(RiakObject.class).getValue().toString());
+        assertEquals(location, second.getLocation());
+        assertEquals(1, client.getFetchValueCache().size());
+    }
+
+    @Test
+    public void callersGetTheirOwnObjects() throws Exception
+    {
+        client.setFetchValueCache(new FetchValueCache.Builder().withTimeToLive(1, TimeUnit.HOURS).build());
+
+        RiakObject first = client.execute(new FetchValue.Builder(location).build()).getValue(RiakObject.class);
+        first.setValue(BinaryValue.create("modified"));
+        first.getUserMeta().put("owner", "first");
+
+        RiakObject second = client.execute(new FetchValue.Builder(location).build()).getValue(RiakObject.class);
+        assertEquals("value", second.getValue().toString());
+        assertFalse(second.hasUserMeta());
+        assertArrayEquals(new byte[] {'1'}, second.getVClock().getBytes());
+    }
+
+    @Test
+    public void quorumFetchesBypassCache() throws Exception
+    {
+        client.setFetchValueCache(new FetchValueCache.Builder().withTimeToLive(1, TimeUnit.HOURS).build());
+
+        client.execute(new FetchValue.Builder(location).build());
+        client.execute(new FetchValue.Builder(location).withOption(FetchValue.Option.R, Quorum.allQuorum()).build());
+        client.execute(new FetchValue.Builder(location).withOption(FetchValue.Option.NOTFOUND_OK, false).build());
+
+        verify(mockCluster, times(3)).execute(anyOperation());
+    }
+
+    @Test
+    public void invalidatedEntriesAreFetchedAgain() throws Exception
+    {
+        client.setFetchValueCache(new FetchValueCache.Builder().withTimeToLive(1, TimeUnit.HOURS).build());
+
+        client.execute(new FetchValue.Builder(location).build());
+        client.getFetchValueCache().invalidate(location);
+        client.execute(new FetchValue.Builder(location).build());
+
+        verify(mockCluster, times(2)).execute(anyOperation());
+    }
+
+    @Test
+    public void invalidationDuringFetchIsNotUndone() throws Exception
+    {
+        client.setFetchValueCache(new FetchValueCache.Builder().withTimeToLive(1, TimeUnit.HOURS).build());
+
+        SettableRiakFuture<FetchOperation.Response, Location> coreFuture = new SettableRiakFuture<>(location);
+        answerOperations(mockCluster, operation -> coreFuture);
+
+        RiakFuture<FetchValue.Response, Location> fetch = client.executeAsync(new FetchValue.Builder(location).build());
+        client.getFetchValueCache().invalidate(location);
+        coreFuture.setResponse(fetchResponse);
+
+        assertNotNull(fetch.get());
+        assertEquals(0, client.getFetchValueCache().size());
+    }
+
+    @Test
+    public void headFetchesBypassCache() throws Exception
+    {
+        client.setFetchValueCache(new FetchValueCache.Builder().withTimeToLive(1, TimeUnit.HOURS).build());
+
+        FetchValue head = new FetchValue.Builder(location).withOption(FetchValue.Option.HEAD, true).build();
+        client.execute(head);
+        client.execute(head);
+
+        verify(mockCluster, times(2)).execute(anyOperation());
+        assertEquals(0, client.getFetchValueCache().size());
+    }
+
+    @Test
+    public void expiredEntriesAreRevalidated() throws Exception
+    {
+        client.setFetchValueCache(new FetchValueCache.Builder().withTimeToLive(0, TimeUnit.SECONDS).build());
+
+        FetchValue.Response first = client.execute(new FetchValue.Builder(location).build());
+
+        when(fetchResponse.isUnchanged()).thenReturn(true);
+        when(fetchResponse.getObjectList()).thenReturn(new ArrayList<>());
+        FetchValue.Response second = client.execute(new FetchValue.Builder(location).build());
+
+        ArgumentCaptor<FetchOperation> captor = ArgumentCaptor.forClass(FetchOperation.class);
+        verify(mockCluster, times(2)).execute(captor.capture());
+
+        RiakKvPB.RpbGetReq.Builder builder =
+            (RiakKvPB.RpbGetReq.Builder) Whitebox.getInternalState(captor.getAllValues().get(1), "reqBuilder");
+        assertArrayEquals(new byte[] {'1'}, builder.getIfModified().toByteArray());
+        assertEquals(first.getValue(RiakObject.class).getValue(), second.getValue(RiakObject.class).getValue());
+    }
+
+    @Test
+    public void ttlOnlyModeRefetches() throws Exception
+    {
+        client.setFetchValueCache(new FetchValueCache.Builder()
+                                      .withTimeToLive(0, TimeUnit.SECONDS)
+                                      .withRevalidation(false)
+                                      .build());
+
+        client.execute(new FetchValue.Builder(location).build());
+        client.execute(new FetchValue.Builder(location).build());
+
+        ArgumentCaptor<FetchOperation> captor = ArgumentCaptor.forClass(FetchOperation.class);
+        verify(mockCluster, times(2)).execute(captor.capture());
+
+        RiakKvPB.RpbGetReq.Builder builder =
+            (RiakKvPB.RpbGetReq.Builder) Whitebox.getInternalState(captor.getAllValues().get(1), "reqBuilder");
+        assertFalse(builder.hasIfModified());
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.indexes.BinIndexQuery;
+import com.basho.riak.client.api.commands.indexes.BucketIndexQuery;
+import com.basho.riak.client.api.commands.indexes.SecondaryIndexQuery;
+import com.basho.riak.client.api.commands.kv.FetchValue;
+import com.basho.riak.client.api.commands.kv.IndexFetch;
+import com.basho.riak.client.core.PBStreamingFutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.StreamingRiakFuture;
+import com.basho.riak.client.core.operations.FetchOperation;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.query.RiakObject;
+import com.basho.riak.client.core.util.BinaryValue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TransferQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class IndexFetchTest
+{
+    private static final Namespace NAMESPACE = new Namespace("type", "bucket");
+
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final TransferQueue<SecondaryIndexQueryOperation.Response> chunks = new LinkedTransferQueue<>();
+    private final AtomicBoolean indexDone = new AtomicBoolean();
+    private final BlockingQueue<SettableRiakFuture<FetchOperation.Response, Location>> fetches =
+        new LinkedBlockingQueue<>();
+    private SecondaryIndexQueryOperation.Query coreQuery;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init()
+    {
+        final StreamingRiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> indexFuture =
+            mock(StreamingRiakFuture.class);
+        when(indexFuture.getResultsQueue()).thenReturn(chunks);
+        when(indexFuture.isDone()).thenAnswer(invocation -> indexDone.get());
+        when(indexFuture.isSuccess()).thenAnswer(invocation -> indexDone.get());
+
+        when(mockCluster.execute(any(PBStreamingFutureOperation.class))).thenAnswer(invocation ->
+        {
+            coreQuery = ((SecondaryIndexQueryOperation) invocation.getArguments()[0]).getQueryInfo();
+            return indexFuture;
+        });
+        when(mockCluster.execute(any(FetchOperation.class))).thenAnswer(invocation ->
+        {
+            final SettableRiakFuture<FetchOperation.Response, Location> future =
+                new SettableRiakFuture<>(((FetchOperation) invocation.getArguments()[0]).getQueryInfo());
+            fetches.add(future);
+            return future;
+        });
+    }
+
+    private static SecondaryIndexQueryOperation.Response chunk(boolean withBody, String... keys)
+    {
+        final List<SecondaryIndexQueryOperation.Response.Entry> entries = new ArrayList<>();
+        for (String key : keys)
+        {
+            final SecondaryIndexQueryOperation.Response.Entry entry =
+                mock(SecondaryIndexQueryOperation.Response.Entry.class);
+            when(entry.getObjectKey()).thenReturn(BinaryValue.create(key));
+            when(entry.hasBody()).thenReturn(withBody);
+            if (withBody)
+            {
+                final FetchOperation.Response body = fetched();
+                when(entry.getBody()).thenReturn(body);
+            }
+            entries.add(entry);
+        }
+
+        final SecondaryIndexQueryOperation.Response response = mock(SecondaryIndexQueryOperation.Response.class);
+        when(response.getEntryList()).thenReturn(entries);
+        return response;
+    }
+
+    private static FetchOperation.Response fetched()
+    {
+        final FetchOperation.Response response = mock(FetchOperation.Response.class);
+        when(response.getObjectList()).thenReturn(Collections.singletonList(new RiakObject()));
+        return response;
+    }
+
+    private SettableRiakFuture<FetchOperation.Response, Location> nextFetch() throws InterruptedException
+    {
+        final SettableRiakFuture<FetchOperation.Response, Location> fetch = fetches.poll(5, TimeUnit.SECONDS);
+        assertNotNull("expected a fetch to be sent", fetch);
+        return fetch;
+    }
+
+    private static Set<String> keys(IndexFetch.Response response)
+    {
+        final Set<String> keys = new HashSet<>();
+        for (FetchValue.Response value : response)
+        {
+            assertTrue(value.hasValues());
+            keys.add(value.getLocation().getKeyAsString());
+        }
+        return keys;
+    }
+
+    private static BinIndexQuery binQuery()
+    {
+        return new BinIndexQuery.Builder(NAMESPACE, "index", "a", "z").build();
+    }
+
+    @Test(timeout = 10000)
+    public void fetchesKeysAsTheyStream() throws Exception
+    {
+        final RiakFuture<IndexFetch.Response, SecondaryIndexQuery<?, ?, ?>> future =
+            client.executeAsync(new IndexFetch.Builder(binQuery()).build());
+        assertTrue("the response is available straight away", future.getNow() != null);
+
+        chunks.add(chunk(false, "k1", "k2"));
+        final SettableRiakFuture<FetchOperation.Response, Location> first = nextFetch();
+        final SettableRiakFuture<FetchOperation.Response, Location> second = nextFetch();
+        assertFalse("fetches start before the index stream ends", future.isDone());
+
+        first.setResponse(fetched());
+        second.setResponse(fetched());
+        chunks.add(chunk(false, "k3"));
+        nextFetch().setResponse(fetched());
+        indexDone.set(true);
+
+        assertEquals(new HashSet<>(Arrays.asList("k1", "k2", "k3")), keys(future.get()));
+        future.await();
+        assertTrue(future.isSuccess());
+        assertFalse(coreQuery.isReturnBody());
+    }
+
+    @Test(timeout = 10000)
+    public void boundsFetchesInFlight() throws Exception
+    {
+        client.executeAsync(new IndexFetch.Builder(binQuery()).withMaxInFlight(1).build());
+
+        chunks.add(chunk(false, "k1", "k2"));
+        final SettableRiakFuture<FetchOperation.Response, Location> first = nextFetch();
+        assertNull(fetches.poll(200, TimeUnit.MILLISECONDS));
+
+        first.setResponse(fetched());
+        assertEquals("k2", nextFetch().getQueryInfo().getKeyAsString());
+    }
+
+    @Test(timeout = 10000)
+    public void boundsValuesAheadOfTheReader() throws Exception
+    {
+        final IndexFetch.Response response =
+            client.executeAsync(new IndexFetch.Builder(binQuery()).withMaxBuffered(1).build()).get();
+
+        chunks.add(chunk(false, "k1", "k2"));
+        nextFetch().setResponse(fetched());
+        assertNull("the unread value holds back the next fetch", fetches.poll(200, TimeUnit.MILLISECONDS));
+
+        final Iterator<FetchValue.Response> values = response.iterator();
+        assertEquals("k1", values.next().getLocation().getKeyAsString());
+        assertEquals("k2", nextFetch().getQueryInfo().getKeyAsString());
+    }
+
+    @Test(timeout = 10000)
+    public void usesReturnedBodiesWithoutFetching() throws Exception
+    {
+        final BucketIndexQuery query = new BucketIndexQuery.Builder(NAMESPACE).build();
+        final IndexFetch.Response response =
+            client.executeAsync(new IndexFetch.Builder(query).withReturnBody(true).build()).get();
+        assertTrue(coreQuery.isReturnBody());
+
+        chunks.add(chunk(true, "k1", "k2"));
+        indexDone.set(true);
+
+        assertEquals(new HashSet<>(Arrays.asList("k1", "k2")), keys(response));
+        assertTrue(fetches.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void surfacesFetchFailure() throws Exception
+    {
+        final RiakFuture<IndexFetch.Response, SecondaryIndexQuery<?, ?, ?>> future =
+            client.executeAsync(new IndexFetch.Builder(binQuery()).build());
+
+        chunks.add(chunk(false, "k1"));
+        nextFetch().setException(new Exception("node down"));
+        indexDone.set(true);
+
+        future.await();
+        assertFalse(future.isSuccess());
+        try
+        {
+            keys(future.get());
+            fail("Expected RuntimeException");
+        }
+        catch (RuntimeException ex)
+        {
+            assertEquals("node down", ex.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsReturnBodyForOtherIndexes()
+    {
+        new IndexFetch.Builder(binQuery()).withReturnBody(true);
+    }
+}
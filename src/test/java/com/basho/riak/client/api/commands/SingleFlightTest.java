@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.datatypes.FetchCounter;
+import com.basho.riak.client.api.commands.datatypes.FetchDatatype;
+import com.basho.riak.client.api.commands.datatypes.FetchSet;
+import com.basho.riak.client.api.commands.kv.FetchValue;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.FetchOperation;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.basho.riak.client.api.commands.ClusterMocks.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SingleFlightTest
+{
+    private final Location location = new Location(new Namespace("type", "bucket"), "key");
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final List<SettableRiakFuture<Object, Location>> coreFutures = new ArrayList<>();
+
+    @Before
+    public void init()
+    {
+        answerOperations(mockCluster, operation ->
+        {
+            SettableRiakFuture<Object, Location> future = new SettableRiakFuture<>(location);
+            coreFutures.add(future);
+            return future;
+        });
+        client.setSingleFlightEnabled(true);
+    }
+
+    @Test
+    public void identicalFetchesShareOneOperation() throws Exception
+    {
+        RiakFuture<FetchValue.Response, Location> first =
+            client.executeAsync(new FetchValue.Builder(location).build());
+        RiakFuture<FetchValue.Response, Location> second =
+            client.executeAsync(new FetchValue.Builder(location).build());
+
+        assertSame(first, second);
+        verify(mockCluster, times(1)).execute(anyOperation());
+
+        FetchOperation.Response response = mock(FetchOperation.Response.class);
+        when(response.getObjectList()).thenReturn(new ArrayList<>());
+        coreFutures.get(0).setResponse(response);
+        assertTrue(second.isSuccess());
+        assertNotNull(second.get());
+
+        client.executeAsync(new FetchValue.Builder(location).build());
+        verify(mockCluster, times(2)).execute(anyOperation());
+    }
+
+    @Test
+    public void fetchStartedWhileDispatchingJoinsTheSharedFuture() throws Exception
+    {
+        final List<RiakFuture<FetchValue.Response, Location>> nested = new ArrayList<>();
+        answerOperations(mockCluster, operation ->
+        {
+            if (coreFutures.isEmpty())
+            {
+                nested.add(client.executeAsync(new FetchValue.Builder(location).build()));
+            }
+            SettableRiakFuture<Object, Location> future = new SettableRiakFuture<>(location);
+            coreFutures.add(future);
+            return future;
+        });
+
+        RiakFuture<FetchValue.Response, Location> first =
+            client.executeAsync(new FetchValue.Builder(location).build());
+
+        assertSame(first, nested.get(0));
+        assertEquals(location, first.getQueryInfo());
+        verify(mockCluster, times(1)).execute(anyOperation());
+    }
+
+    @Test
+    public void differentOptionsAreNotShared()
+    {
+        client.executeAsync(new FetchValue.Builder(location).build());
+        client.executeAsync(new FetchValue.Builder(location).withOption(FetchValue.Option.HEAD, true).build());
+        client.executeAsync(new FetchCounter.Builder(location).build());
+        client.executeAsync(new FetchSet.Builder(location).build());
+        client.executeAsync(new FetchSet.Builder(location).build());
+
+        verify(mockCluster, times(4)).execute(anyOperation());
+    }
+
+    @Test
+    public void commandChangedAfterSubmissionIsReleased()
+    {
+        final FetchCounter fetch = new FetchCounter.Builder(location).build();
+        client.executeAsync(fetch);
+        fetch.withOption(FetchDatatype.Option.TIMEOUT, 100);
+        coreFutures.get(0).setException(new Exception("timeout"));
+
+        client.executeAsync(new FetchCounter.Builder(location).build());
+        verify(mockCluster, times(2)).execute(anyOperation());
+    }
+
+    @Test
+    public void disabledByDefault()
+    {
+        client.setSingleFlightEnabled(false);
+        client.executeAsync(new FetchValue.Builder(location).build());
+        client.executeAsync(new FetchValue.Builder(location).build());
+
+        verify(mockCluster, times(2)).execute(anyOperation());
+        assertFalse(new RiakClient(mockCluster).isSingleFlightEnabled());
+    }
+}
@@ -0,0 +1,88 @@
+package com.basho.riak.client.api.commands.buckets;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.operations.FetchBucketPropsOperation;
+import com.basho.riak.client.core.query.Namespace;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.basho.riak.client.api.commands.ClusterMocks.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+public class BucketPropertiesCacheTest
+{
+    private final Namespace namespace = new Namespace("type", "bucket");
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final FetchBucketPropsOperation.Response response = mock(FetchBucketPropsOperation.Response.class);
+
+    @Before
+    public void init()
+    {
+        answerOperations(mockCluster, operation ->
+        {
+            if (operation instanceof FetchBucketPropsOperation)
+            {
+                return SettableRiakFuture.completed(response, namespace);
+            }
+            return SettableRiakFuture.completed(null, operation.getQueryInfo());
+        });
+    }
+
+    @Test
+    public void servesCachedProperties() throws Exception
+    {
+        client.setBucketPropertiesCache(new BucketPropertiesCache.Builder().build());
+
+        client.execute(new FetchBucketProperties.Builder(namespace).build());
+        FetchBucketPropsOperation.Response cached = client.execute(new FetchBucketProperties.Builder(namespace).build());
+
+        assertSame(response, cached);
+        verify(mockCluster, times(1)).execute(anyOperation());
+    }
+
+    @Test
+    public void refreshesInBackground() throws Exception
+    {
+        client.setBucketPropertiesCache(new BucketPropertiesCache.Builder()
+                                            .withRefreshAfter(0, TimeUnit.SECONDS)
+                                            .build());
+
+        client.execute(new FetchBucketProperties.Builder(namespace).build());
+        FetchBucketPropsOperation.Response cached = client.execute(new FetchBucketProperties.Builder(namespace).build());
+
+        assertSame(response, cached);
+        verify(mockCluster, times(2)).execute(anyOperation());
+        assertEquals(1, client.getBucketPropertiesCache().size());
+    }
+
+    @Test
+    public void resetInvalidates() throws Exception
+    {
+        client.setBucketPropertiesCache(new BucketPropertiesCache.Builder().build());
+
+        client.execute(new FetchBucketProperties.Builder(namespace).build());
+        client.execute(new ResetBucketProperties.Builder(namespace).build());
+
+        assertEquals(0, client.getBucketPropertiesCache().size());
+    }
+
+    @Test
+    public void invalidateBucketType() throws Exception
+    {
+        BucketPropertiesCache cache = new BucketPropertiesCache.Builder().build();
+        client.setBucketPropertiesCache(cache);
+
+        client.execute(new FetchBucketProperties.Builder(namespace).build());
+        client.execute(new FetchBucketProperties.Builder(new Namespace("other", "bucket")).build());
+        cache.invalidateBucketType(namespace.getBucketType());
+
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.indexes;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.core.PBStreamingFutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.StreamingRiakFuture;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.google.protobuf.ByteString;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TransferQueue;
+
+import static com.basho.riak.client.api.commands.indexes.CombinedIndexQuery.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class CombinedIndexQueryTest
+{
+    private static final Namespace NAMESPACE = new Namespace("type", "bucket");
+
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final Map<String, List<String>> index = new HashMap<>();
+    private final List<SecondaryIndexQueryOperation.Query> coreQueries = new ArrayList<>();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init()
+    {
+        index.put("red", Arrays.asList("a", "b", "c", "e", "g"));
+        index.put("large", Arrays.asList("b", "c", "d", "g", "h"));
+        index.put("sold", Arrays.asList("c", "z"));
+        index.put("new", Arrays.asList("a", "h"));
+
+        when(mockCluster.execute(any(PBStreamingFutureOperation.class))).thenAnswer(invocation ->
+        {
+            final SecondaryIndexQueryOperation.Query query =
+                ((SecondaryIndexQueryOperation) invocation.getArguments()[0]).getQueryInfo();
+            coreQueries.add(query);
+            return stream(index.get(query.getIndexKey().toString()), true);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StreamingRiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query>
+        stream(List<String> keys, boolean success)
+    {
+        final TransferQueue<SecondaryIndexQueryOperation.Response> chunks = new LinkedTransferQueue<>();
+        // Two keys per chunk, with the last key repeated as Riak does for multi-valued indexes
+        for (int i = 0; i < keys.size(); i += 2)
+        {
+            final List<SecondaryIndexQueryOperation.Response.Entry> entries = new ArrayList<>();
+            for (String key : keys.subList(i, Math.min(i + 2, keys.size())))
+            {
+                entries.add(entry(key));
+            }
+            if (i + 2 >= keys.size())
+            {
+                entries.add(entry(keys.get(keys.size() - 1)));
+            }
+
+            final SecondaryIndexQueryOperation.Response chunk = mock(SecondaryIndexQueryOperation.Response.class);
+            when(chunk.getEntryList()).thenReturn(entries);
+            chunks.add(chunk);
+        }
+
+        final StreamingRiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> future =
+            mock(StreamingRiakFuture.class);
+        when(future.getResultsQueue()).thenReturn(chunks);
+        when(future.isDone()).thenReturn(true);
+        when(future.isSuccess()).thenReturn(success);
+        when(future.cause()).thenReturn(success ? null : new Exception("node down"));
+        return future;
+    }
+
+    private static SecondaryIndexQueryOperation.Response.Entry entry(String key)
+    {
+        final SecondaryIndexQueryOperation.Response.Entry entry =
+            mock(SecondaryIndexQueryOperation.Response.Entry.class);
+        when(entry.getObjectKey()).thenReturn(BinaryValue.create(key));
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SecondaryIndexQueryOperation> runOperations()
+    {
+        final List<SecondaryIndexQueryOperation> operations = new ArrayList<>();
+        when(mockCluster.execute(any(PBStreamingFutureOperation.class))).thenAnswer(invocation ->
+        {
+            final SecondaryIndexQueryOperation operation = (SecondaryIndexQueryOperation) invocation.getArguments()[0];
+            operations.add(operation);
+            return operation;
+        });
+        return operations;
+    }
+
+    private static RiakMessage indexResp(boolean done, String... keys)
+    {
+        final RiakKvPB.RpbIndexResp.Builder builder = RiakKvPB.RpbIndexResp.newBuilder().setDone(done);
+        for (String key : keys)
+        {
+            builder.addKeys(ByteString.copyFromUtf8(key));
+        }
+        return new RiakMessage(RiakMessageCodes.MSG_IndexResp, builder.build().toByteArray());
+    }
+
+    private static Term tag(String value)
+    {
+        return match(new BinIndexQuery.Builder(NAMESPACE, "tag", value).build());
+    }
+
+    private List<String> run(Term term) throws Exception
+    {
+        final List<String> keys = new ArrayList<>();
+        for (Location location : client.execute(new CombinedIndexQuery.Builder(term).build()))
+        {
+            assertEquals(NAMESPACE, location.getNamespace());
+            keys.add(location.getKeyAsString());
+        }
+        return keys;
+    }
+
+    @Test
+    public void intersectsIndexes() throws Exception
+    {
+        assertEquals(Arrays.asList("b", "c", "g"), run(and(tag("red"), tag("large"))));
+        for (SecondaryIndexQueryOperation.Query query : coreQueries)
+        {
+            assertTrue(query.isPaginationSort());
+        }
+    }
+
+    @Test
+    public void unitesIndexes() throws Exception
+    {
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e", "g", "h", "z"),
+                     run(or(tag("red"), tag("large"), tag("sold"))));
+    }
+
+    @Test
+    public void excludesIndexes() throws Exception
+    {
+        assertEquals(Arrays.asList("b", "g"), run(and(tag("red"), tag("large"), not(tag("sold")))));
+        assertEquals(Arrays.asList("b", "e", "g"), run(and(tag("red"), not(or(tag("sold"), tag("new"))))));
+    }
+
+    @Test
+    public void nestsTerms() throws Exception
+    {
+        assertEquals(Arrays.asList("a", "c", "h"), run(and(or(tag("red"), tag("large")), or(tag("sold"), tag("new")))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void surfacesQueryFailure() throws Exception
+    {
+        when(mockCluster.execute(any(PBStreamingFutureOperation.class)))
+            .thenAnswer(invocation -> stream(Arrays.asList("a"), false));
+        try
+        {
+            run(tag("red"));
+            fail("Expected RuntimeException");
+        }
+        catch (RuntimeException ex)
+        {
+            assertEquals("node down", ex.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void stopsOperandsOnceAndRunsOut() throws Exception
+    {
+        final List<SecondaryIndexQueryOperation> operations = runOperations();
+        final Iterator<Location> locations =
+            client.execute(new CombinedIndexQuery.Builder(and(tag("sold"), tag("red"))).build()).iterator();
+
+        final SecondaryIndexQueryOperation sold = operations.get(0);
+        final SecondaryIndexQueryOperation red = operations.get(1);
+        sold.setResponse(indexResp(true, "c"));
+        sold.setComplete();
+        red.setResponse(indexResp(false, "a", "c"));
+
+        assertEquals("c", locations.next().getKeyAsString());
+        red.setResponse(indexResp(false, "e"));
+        assertFalse(locations.hasNext());
+
+        red.setResponse(indexResp(false, "g"));
+        assertTrue(red.getResultsQueue().isEmpty());
+    }
+
+    @Test
+    public void closeStopsRunningQueries() throws Exception
+    {
+        final List<SecondaryIndexQueryOperation> operations = runOperations();
+        final CombinedIndexQuery.Response response =
+            client.execute(new CombinedIndexQuery.Builder(or(tag("red"), tag("large"))).build());
+        final Iterator<Location> locations = response.iterator();
+
+        operations.get(0).setResponse(indexResp(false, "a", "b"));
+        operations.get(1).setResponse(indexResp(false, "b"));
+        assertEquals("a", locations.next().getKeyAsString());
+
+        response.close();
+        assertFalse(locations.hasNext());
+        for (SecondaryIndexQueryOperation operation : operations)
+        {
+            operation.setResponse(indexResp(false, "z"));
+            assertTrue(operation.getResultsQueue().isEmpty());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRangeQueries()
+    {
+        match(new BinIndexQuery.Builder(NAMESPACE, "tag", "a", "z").build());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnboundNot()
+    {
+        new CombinedIndexQuery.Builder(not(tag("red")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMixedNamespaces()
+    {
+        new CombinedIndexQuery.Builder(
+            and(tag("red"), match(new BinIndexQuery.Builder(new Namespace("other"), "tag", "x").build())));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.indexes;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.operations.SecondaryIndexQueryOperation;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.util.BinaryValue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class PaginatedIndexIteratorTest
+{
+    private static final Namespace NAMESPACE = new Namespace("type", "bucket");
+
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final Map<String, SettableRiakFuture<SecondaryIndexQueryOperation.Response,
+                                                 SecondaryIndexQueryOperation.Query>> requests = new HashMap<>();
+    private final BinIndexQuery query = new BinIndexQuery.Builder(NAMESPACE, "index", "a", "z")
+        .withMaxResults(2)
+        .withPaginationSort(true)
+        .build();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init()
+    {
+        when(mockCluster.execute(any(FutureOperation.class))).thenAnswer(invocation ->
+        {
+            final SecondaryIndexQueryOperation.Query coreQuery =
+                ((SecondaryIndexQueryOperation) invocation.getArguments()[0]).getQueryInfo();
+            final SettableRiakFuture<SecondaryIndexQueryOperation.Response, SecondaryIndexQueryOperation.Query> future =
+                new SettableRiakFuture<>(coreQuery);
+            requests.put(coreQuery.getContinuation() == null ? "" : coreQuery.getContinuation().toString(), future);
+            return future;
+        });
+    }
+
+    private static SecondaryIndexQueryOperation.Response page(String continuation, String... keys)
+    {
+        final List<SecondaryIndexQueryOperation.Response.Entry> entries = new ArrayList<>();
+        for (String key : keys)
+        {
+            final SecondaryIndexQueryOperation.Response.Entry entry =
+                mock(SecondaryIndexQueryOperation.Response.Entry.class);
+            when(entry.getObjectKey()).thenReturn(BinaryValue.create(key));
+            entries.add(entry);
+        }
+
+        final SecondaryIndexQueryOperation.Response response = mock(SecondaryIndexQueryOperation.Response.class);
+        when(response.getEntryList()).thenReturn(entries);
+        when(response.hasContinuation()).thenReturn(continuation != null);
+        when(response.getContinuation()).thenReturn(continuation == null ? null : BinaryValue.create(continuation));
+        return response;
+    }
+
+    private static String nextKey(PaginatedIndexIterator<String, ?> it)
+    {
+        return it.next().getRiakObjectLocation().getKeyAsString();
+    }
+
+    @Test
+    public void requestsNextPageAsSoonAsContinuationArrives()
+    {
+        final PaginatedIndexIterator<String, BinIndexQuery.Response> it =
+            new PaginatedIndexIterator<>(client, query);
+        assertEquals(1, requests.size());
+
+        requests.get("").setResponse(page("c1", "k1", "k2"));
+        assertNotNull("next page is requested before the first is consumed", requests.get("c1"));
+
+        requests.get("c1").setResponse(page(null, "k3"));
+
+        assertEquals("k1", nextKey(it));
+        assertEquals(BinaryValue.create("c1"), it.getContinuation());
+        assertEquals("k2", nextKey(it));
+        assertEquals("k3", nextKey(it));
+        assertNull(it.getContinuation());
+        assertFalse(it.hasNext());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void stopsFetchingWhenPrefetchBufferIsFull()
+    {
+        final PaginatedIndexIterator<String, BinIndexQuery.Response> it =
+            new PaginatedIndexIterator<>(client, query, 1);
+
+        requests.get("").setResponse(page("c1", "k1", "k2"));
+        assertNull("one page is already buffered", requests.get("c1"));
+
+        assertEquals("k1", nextKey(it));
+        assertNotNull("consuming a page makes room for another", requests.get("c1"));
+
+        requests.get("c1").setResponse(page(null, "k3"));
+        int remaining = 0;
+        while (it.hasNext())
+        {
+            it.next();
+            remaining++;
+        }
+        assertEquals(2, remaining);
+    }
+
+    @Test
+    public void surfacesFailureAfterBufferedPages()
+    {
+        final PaginatedIndexIterator<String, BinIndexQuery.Response> it =
+            new PaginatedIndexIterator<>(client, query);
+
+        requests.get("").setResponse(page("c1", "k1"));
+        requests.get("c1").setException(new Exception("node down"));
+
+        assertEquals("k1", nextKey(it));
+        try
+        {
+            it.hasNext();
+            fail("Expected RuntimeException");
+        }
+        catch (RuntimeException ex)
+        {
+            assertEquals("node down", ex.getCause().getMessage());
+        }
+        assertEquals("the failed page can be resumed from", BinaryValue.create("c1"), it.getContinuation());
+    }
+
+    @Test
+    public void closeIgnoresPendingRequest()
+    {
+        final PaginatedIndexIterator<String, BinIndexQuery.Response> it =
+            new PaginatedIndexIterator<>(client, query);
+
+        it.close();
+        requests.get("").setResponse(page("c1", "k1"));
+        assertFalse(it.hasNext());
+        assertEquals(1, requests.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroPrefetchDepth()
+    {
+        new PaginatedIndexIterator<>(client, query, 0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.basho.riak.client.api.commands.kv;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.RiakNode;
+import com.basho.riak.client.core.operations.CoveragePlanOperation;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.google.protobuf.ByteString;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.basho.riak.client.api.commands.ClusterMocks.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+public class CoveragePlanCacheTest
+{
+    private final Namespace namespace = new Namespace("type", "bucket");
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+
+    @Before
+    public void init()
+    {
+        answerOperations(mockCluster, operation ->
+        {
+            final CoveragePlanOperation op = (CoveragePlanOperation) operation;
+            final RiakKvPB.RpbCoverageResp resp = RiakKvPB.RpbCoverageResp.newBuilder()
+                    .addEntries(RiakKvPB.RpbCoverageEntry.newBuilder()
+                                    .setIp(ByteString.copyFromUtf8("127.0.0.1"))
+                                    .setPort(8087)
+                                    .setCoverContext(ByteString.copyFromUtf8("context"))
+                                    .setKeyspaceDesc(ByteString.copyFromUtf8("all")))
+                    .build();
+            op.setResponse(new RiakMessage(RiakMessageCodes.MSG_CoverageResp, resp.toByteArray()));
+            op.setComplete();
+            return SettableRiakFuture.completed(op.getNow(), namespace);
+        });
+    }
+
+    @Test
+    public void cachesPerNamespaceAndMinPartitions() throws Exception
+    {
+        client.setCoveragePlanCache(new CoveragePlanCache.Builder().build());
+
+        client.execute(new CoveragePlan.Builder(namespace).build());
+        final CoveragePlan.Response cached = client.execute(new CoveragePlan.Builder(namespace).build());
+        assertSame(cached, client.execute(new CoveragePlan.Builder(namespace).build()));
+        assertEquals(1, cached.hosts().size());
+        verify(mockCluster, times(1)).execute(anyOperation());
+
+        final CoveragePlan.Builder builder = new CoveragePlan.Builder(namespace);
+        builder.withMinPartitions(8);
+        client.execute(builder.build());
+        verify(mockCluster, times(2)).execute(anyOperation());
+        assertEquals(2, client.getCoveragePlanCache().size());
+    }
+
+    @Test
+    public void nodeGoingDownInvalidates() throws Exception
+    {
+        final CoveragePlanCache cache = new CoveragePlanCache.Builder().build();
+        client.setCoveragePlanCache(cache);
+        verify(mockCluster).registerNodeStateListener(cache);
+
+        client.execute(new CoveragePlan.Builder(namespace).build());
+
+        final RiakNode node = mock(RiakNode.class);
+        cache.nodeStateChanged(node, RiakNode.State.RUNNING);
+        assertEquals(1, cache.size());
+
+        cache.nodeStateChanged(node, RiakNode.State.HEALTH_CHECKING);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void replacementBypassesAndInvalidates() throws Exception
+    {
+        client.setCoveragePlanCache(new CoveragePlanCache.Builder().build());
+
+        final CoveragePlan.Response plan = client.execute(new CoveragePlan.Builder(namespace).build());
+
+        final CoveragePlan.Builder builder = new CoveragePlan.Builder(namespace);
+        builder.withReplaceCoverageEntry(plan.iterator().next());
+        client.execute(builder.build());
+
+        verify(mockCluster, times(2)).execute(anyOperation());
+        assertEquals(0, client.getCoveragePlanCache().size());
+    }
+
+    @Test
+    public void replacingCacheUnregistersPrevious()
+    {
+        final CoveragePlanCache first = new CoveragePlanCache.Builder().build();
+        client.setCoveragePlanCache(first);
+        client.setCoveragePlanCache(null);
+
+        verify(mockCluster).removeNodeStateListener(first);
+    }
+}
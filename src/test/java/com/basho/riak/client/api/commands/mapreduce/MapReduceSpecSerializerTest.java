@@ -1,6 +1,7 @@
 package com.basho.riak.client.api.commands.mapreduce;
 
 import com.basho.riak.client.api.commands.mapreduce.filters.KeyFilter;
+import com.basho.riak.client.core.query.Location;
 import com.basho.riak.client.core.query.Namespace;
 import com.basho.riak.client.core.query.functions.Function;
 import com.basho.riak.client.core.util.BinaryValue;
@@ -89,4 +90,38 @@ public class MapReduceSpecSerializerTest
                                     "{\"reduce\":{\"language\":\"javascript\",\"name\":\"reduce_func\",\"keep\":false,\"arg\":null}}," +
                                     "{\"link\":{\"bucket\":\"bucket\",\"tag\":\"tag\"}}]}", out.toString());
     }
+
+    @Test
+    public void testWriteSpecSharesTemplatePhases() throws Exception
+    {
+        final Namespace ns = new Namespace("bucket");
+        final BucketKeyMapReduce template = new BucketKeyMapReduce.Builder()
+                .withLocation(new Location(ns, "template"))
+                .withMapPhase(Function.newNamedJsFunction("map_func"))
+                .withReducePhase(Function.newNamedJsFunction("reduce_func"))
+                .timeout(1000)
+                .build();
+
+        final String query = "\"query\":" +
+                "[{\"map\":{\"language\":\"javascript\",\"name\":\"map_func\",\"keep\":false,\"arg\":null}}," +
+                "{\"reduce\":{\"language\":\"javascript\",\"name\":\"reduce_func\",\"keep\":false,\"arg\":null}}]}";
+
+        Assert.assertEquals("{\"inputs\":[[\"bucket\",\"template\",\"\"]],\"timeout\":1000," + query,
+                            template.writeSpec());
+
+        final BucketKeyMapReduce job = new BucketKeyMapReduce.Builder()
+                .withLocation(new Location(ns, "k1"))
+                .withPhasesFrom(template)
+                .build();
+
+        Assert.assertEquals("{\"inputs\":[[\"bucket\",\"k1\",\"\"]]," + query, job.writeSpec());
+
+        final BucketKeyMapReduce extended = new BucketKeyMapReduce.Builder()
+                .withLocation(new Location(ns, "k2"))
+                .withPhasesFrom(template)
+                .withLinkPhase("bucket", "tag")
+                .build();
+
+        Assert.assertTrue(extended.writeSpec().endsWith("{\"link\":{\"bucket\":\"bucket\",\"tag\":\"tag\"}}]}"));
+    }
 }
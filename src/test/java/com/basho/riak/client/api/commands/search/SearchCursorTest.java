@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.search;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.operations.SearchOperation;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.protobuf.RiakSearchPB;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SearchCursorTest
+{
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final List<RiakSearchPB.RpbSearchQueryReq> requests = new ArrayList<>();
+    private final List<SettableRiakFuture<SearchOperation.Response, BinaryValue>> futures = new ArrayList<>();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init()
+    {
+        when(mockCluster.execute(any(FutureOperation.class))).thenAnswer(invocation ->
+        {
+            final SearchOperation op = (SearchOperation) invocation.getArguments()[0];
+            requests.add(RiakSearchPB.RpbSearchQueryReq.parseFrom(((RiakMessage) op.channelMessage()).getData()));
+            final SettableRiakFuture<SearchOperation.Response, BinaryValue> future =
+                new SettableRiakFuture<>(op.getQueryInfo());
+            futures.add(future);
+            return future;
+        });
+    }
+
+    private static SearchOperation.Response page(int numFound, String... ids)
+    {
+        final List<Map<String, List<String>>> docs = new ArrayList<>();
+        for (String id : ids)
+        {
+            docs.add(Collections.singletonMap("_yz_id", Collections.singletonList(id)));
+        }
+
+        final SearchOperation.Response response = mock(SearchOperation.Response.class);
+        when(response.getAllResults()).thenReturn(docs);
+        when(response.iterator()).thenAnswer(invocation -> docs.iterator());
+        when(response.numResults()).thenReturn(numFound);
+        return response;
+    }
+
+    private static List<String> ids(SearchCursor cursor)
+    {
+        final List<String> ids = new ArrayList<>();
+        while (cursor.hasNext())
+        {
+            ids.add(cursor.next().get("_yz_id").get(0));
+        }
+        return ids;
+    }
+
+    @Test
+    public void pagesByStartAndPrefetches()
+    {
+        final Search search = new Search.Builder("index", "*:*").withRows(2).build();
+        final SearchCursor cursor = new SearchCursor.Builder(client, search).build();
+
+        assertEquals(1, requests.size());
+        assertEquals(0, requests.get(0).getStart());
+        assertEquals(2, requests.get(0).getRows());
+
+        futures.get(0).setResponse(page(5, "a", "b"));
+        assertEquals("the next page is requested before the first is consumed", 2, requests.size());
+        assertEquals(2, requests.get(1).getStart());
+
+        futures.get(1).setResponse(page(5, "c", "d"));
+        assertEquals("two pages are buffered", 2, requests.size());
+
+        assertEquals("a", cursor.next().get("_yz_id").get(0));
+        assertEquals(3, requests.size());
+        assertEquals(4, requests.get(2).getStart());
+        futures.get(2).setResponse(page(5, "e"));
+
+        assertEquals(Arrays.asList("b", "c", "d", "e"), ids(cursor));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void pagesBySortKey()
+    {
+        final Search search = new Search.Builder("index", "*:*").withRows(2).filter("age_i:[20 TO *]").build();
+        final SearchCursor cursor = new SearchCursor.Builder(client, search).withSortKey("_yz_id").build();
+
+        assertEquals("_yz_id asc", requests.get(0).getSort().toStringUtf8());
+        assertEquals("age_i:[20 TO *]", requests.get(0).getFilter().toStringUtf8());
+
+        futures.get(0).setResponse(page(3, "a", "b\"x"));
+        assertEquals(0, requests.get(1).getStart());
+        assertEquals("(age_i:[20 TO *]) AND _yz_id:{\"b\\\"x\" TO *]", requests.get(1).getFilter().toStringUtf8());
+
+        futures.get(1).setResponse(page(3, "c"));
+        assertEquals(Arrays.asList("a", "b\"x", "c"), ids(cursor));
+    }
+
+    @Test
+    public void boundsPrefetchedPages()
+    {
+        final Search search = new Search.Builder("index", "*:*").withRows(1).build();
+        final SearchCursor cursor = new SearchCursor.Builder(client, search).withPrefetchDepth(1).build();
+
+        futures.get(0).setResponse(page(10, "a"));
+        assertEquals(1, requests.size());
+
+        assertEquals("a", cursor.next().get("_yz_id").get(0));
+        assertEquals(2, requests.size());
+        cursor.close();
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    public void surfacesPageFailure()
+    {
+        final Search search = new Search.Builder("index", "*:*").withRows(1).build();
+        final SearchCursor cursor = new SearchCursor.Builder(client, search).build();
+
+        futures.get(0).setResponse(page(10, "a"));
+        futures.get(1).setException(new Exception("node down"));
+
+        assertEquals("a", cursor.next().get("_yz_id").get(0));
+        try
+        {
+            cursor.hasNext();
+            fail("Expected RuntimeException");
+        }
+        catch (RuntimeException ex)
+        {
+            assertEquals("node down", ex.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSortKeyWithSearchSort()
+    {
+        final Search search = new Search.Builder("index", "*:*").sort("name_s").build();
+        new SearchCursor.Builder(client, search).withSortKey("_yz_id");
+    }
+}
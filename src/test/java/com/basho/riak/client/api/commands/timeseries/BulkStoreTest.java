@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.RiakFuture;
+import com.basho.riak.client.core.operations.ts.StoreOperation;
+import com.basho.riak.client.core.query.timeseries.Cell;
+import com.basho.riak.client.core.query.timeseries.ColumnDescription;
+import com.basho.riak.client.core.query.timeseries.FullColumnDescription;
+import com.basho.riak.client.core.query.timeseries.Quantum;
+import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.client.core.query.timeseries.TableDefinition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BulkStoreTest
+{
+    private static final long MINUTE = 60000L;
+
+    private final TableDefinition table = new TableDefinition("GeoCheckin", Arrays.asList(
+            new FullColumnDescription("region", ColumnDescription.ColumnType.VARCHAR, false, 1, 1),
+            new FullColumnDescription("time", ColumnDescription.ColumnType.TIMESTAMP, false, 2, 2,
+                                      new Quantum(15, TimeUnit.MINUTES)),
+            new FullColumnDescription("temperature", ColumnDescription.ColumnType.DOUBLE, true)));
+
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final List<SettableRiakFuture<Void, String>> stores = new ArrayList<>();
+
+    @Before
+    public void init()
+    {
+        when(mockCluster.execute(any(StoreOperation.class))).thenAnswer(invocation ->
+        {
+            final SettableRiakFuture<Void, String> future = new SettableRiakFuture<>("GeoCheckin");
+            stores.add(future);
+            return future;
+        });
+    }
+
+    private static Row row(String region, long time)
+    {
+        return new Row(new Cell(region), Cell.newTimestamp(time), new Cell(1.0));
+    }
+
+    @Test
+    public void groupsRowsByPartition()
+    {
+        final BulkStore store = new BulkStore.Builder(table)
+                .withRow(row("South", 0))
+                .withRow(row("North", 1 * MINUTE))
+                .withRow(row("South", 14 * MINUTE))
+                .withRow(row("South", 15 * MINUTE))
+                .withRow(row("North", 2 * MINUTE))
+                .build();
+
+        final List<List<Row>> batches = store.createBatches();
+
+        assertEquals(3, batches.size());
+        assertEquals(Arrays.asList(row("South", 0), row("South", 14 * MINUTE)), batches.get(0));
+        assertEquals(Arrays.asList(row("North", 1 * MINUTE), row("North", 2 * MINUTE)), batches.get(1));
+        assertEquals(Arrays.asList(row("South", 15 * MINUTE)), batches.get(2));
+    }
+
+    @Test
+    public void splitsPartitionsIntoBoundedBatches()
+    {
+        final BulkStore.Builder builder = new BulkStore.Builder(table).withMaxBatchRows(4);
+        for (int i = 0; i < 10; i++)
+        {
+            builder.withRow(row("South", i));
+        }
+
+        final List<List<Row>> batches = builder.build().createBatches();
+        assertEquals(3, batches.size());
+        assertEquals(2, batches.get(2).size());
+
+        final List<List<Row>> bySize = new BulkStore.Builder(table).withMaxBatchBytes(60)
+                .withRows(Arrays.asList(row("South", 0), row("South", 1), row("South", 2)))
+                .build().createBatches();
+        assertEquals(3, bySize.size());
+    }
+
+    @Test
+    public void storesBatchesAndReportsWrittenRows() throws Exception
+    {
+        final BulkStore.Builder builder = new BulkStore.Builder(table).withMaxBatchRows(1).withMaxInFlight(2);
+        for (int i = 0; i < 3; i++)
+        {
+            builder.withRow(row("South", i));
+        }
+
+        final RiakFuture<BulkStore.Response, String> future = client.executeAsync(builder.build());
+        assertEquals(2, stores.size());
+
+        stores.get(0).setResponse(null);
+        assertEquals(3, stores.size());
+        stores.get(1).setResponse(null);
+        stores.get(2).setResponse(null);
+
+        final BulkStore.Response response = future.get();
+        assertEquals(3, response.getWrittenRowCount());
+        assertEquals(3, response.getBatchCount());
+        assertFalse(response.hasFailures());
+    }
+
+    @Test
+    public void retriesAndReportsFailedBatches() throws Exception
+    {
+        final BulkStore store = new BulkStore.Builder(table)
+                .withRow(row("South", 0))
+                .withRow(row("North", 0))
+                .withMaxInFlight(2)
+                .withMaxRetries(1)
+                .build();
+
+        final RiakFuture<BulkStore.Response, String> future = client.executeAsync(store);
+        assertEquals(2, stores.size());
+
+        stores.get(0).setException(new Exception("overloaded"));
+        // Halved to one in flight, so the retry waits for the other batch.
+        assertEquals(2, stores.size());
+        stores.get(1).setResponse(null);
+        assertEquals(3, stores.size());
+        stores.get(2).setException(new Exception("still overloaded"));
+
+        final BulkStore.Response response = future.get();
+        assertEquals(1, response.getWrittenRowCount());
+        assertEquals(Arrays.asList(row("South", 0)), response.getFailedRows());
+        assertEquals("still overloaded", response.getFailureCauses().get(0).getMessage());
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.operations.ts.CoveragePlanOperation;
+import com.basho.riak.client.core.operations.ts.QueryOperation;
+import com.basho.riak.client.core.query.timeseries.Cell;
+import com.basho.riak.client.core.query.timeseries.CoverageEntry;
+import com.basho.riak.client.core.query.timeseries.CoveragePlanResult;
+import com.basho.riak.client.core.query.timeseries.QueryResult;
+import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.client.core.util.HostAndPort;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.powermock.reflect.Whitebox;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ParallelQueryTest
+{
+    private static final String QUERY = "select * from GeoCheckin where time > 0 and time < 300";
+
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final Map<String, SettableRiakFuture<QueryResult, String>> subQueries = new HashMap<>();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init()
+    {
+        final CoveragePlanResult plan = new CoveragePlanResult() {};
+        plan.addEntry(entry("host2", 200));
+        plan.addEntry(entry("host1", 100));
+
+        when(mockCluster.execute(any(CoveragePlanOperation.class)))
+            .thenReturn(SettableRiakFuture.completed(plan, QUERY));
+
+        when(mockCluster.executeOnHost(any(FutureOperation.class), any(HostAndPort.class))).thenAnswer(invocation ->
+        {
+            final QueryOperation operation = (QueryOperation) invocation.getArguments()[0];
+            final byte[] context = (byte[]) Whitebox.getInternalState(
+                Whitebox.getInternalState(Whitebox.getInternalState(operation, "requestBuilder"), "builder"),
+                "coverageContext");
+            final SettableRiakFuture<QueryResult, String> future = new SettableRiakFuture<>(QUERY);
+            subQueries.put(new String(context), future);
+            return future;
+        });
+    }
+
+    private static CoverageEntry entry(String host, long lowerBound)
+    {
+        final CoverageEntry entry = new CoverageEntry();
+        entry.setHost(host);
+        entry.setPort(8087);
+        entry.setLowerBound(lowerBound);
+        entry.setCoverageContext(host.getBytes());
+        return entry;
+    }
+
+    private static QueryResult result(long time)
+    {
+        return new QueryResult(new Row[] {new Row(Cell.newTimestamp(time))});
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void runsOneSubQueryPerEntryOnItsHost() throws Exception
+    {
+        final ParallelQuery query = new ParallelQuery.Builder("GeoCheckin", QUERY).build();
+        final ParallelQuery.Response[] response = new ParallelQuery.Response[1];
+        client.executeAsync(query).addListener(f -> response[0] = f.getNow());
+
+        final ArgumentCaptor<HostAndPort> hosts = ArgumentCaptor.forClass(HostAndPort.class);
+        verify(mockCluster, times(2)).executeOnHost(any(FutureOperation.class), hosts.capture());
+        assertEquals(HostAndPort.fromParts("host1", 8087), hosts.getAllValues().get(0));
+        assertEquals(HostAndPort.fromParts("host2", 8087), hosts.getAllValues().get(1));
+
+        subQueries.get("host2").setResponse(result(200));
+        assertNull(response[0]);
+        subQueries.get("host1").setResponse(result(100));
+
+        final List<Long> times = new ArrayList<>();
+        for (Row row : response[0].toQueryResult())
+        {
+            times.add(row.getCellsCopy().get(0).getTimestamp());
+        }
+        assertEquals(100L, (long) times.get(0));
+        assertEquals(200L, (long) times.get(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void boundsSubQueriesInFlight() throws Exception
+    {
+        final ParallelQuery query = new ParallelQuery.Builder("GeoCheckin", QUERY).withMaxInFlight(1).build();
+        client.executeAsync(query);
+
+        verify(mockCluster, times(1)).executeOnHost(any(FutureOperation.class), any(HostAndPort.class));
+        subQueries.get("host1").setResponse(result(100));
+        verify(mockCluster, times(2)).executeOnHost(any(FutureOperation.class), any(HostAndPort.class));
+    }
+
+    @Test
+    public void streamsResultsInCompletionOrder() throws Exception
+    {
+        final ParallelQuery query = new ParallelQuery.Builder("GeoCheckin", QUERY).withStreaming(true).build();
+        final ParallelQuery.Response response = client.executeAsync(query).get();
+        assertTrue(response.isStreaming());
+
+        subQueries.get("host2").setResponse(result(200));
+        subQueries.get("host1").setResponse(result(100));
+
+        final List<QueryResult> results = new ArrayList<>();
+        for (QueryResult result : response)
+        {
+            results.add(result);
+        }
+        assertEquals(2, results.size());
+        assertEquals(200L, results.get(0).getRowsCopy().get(0).getCellsCopy().get(0).getTimestamp());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void streamingIteratorReportsFailure() throws Exception
+    {
+        final ParallelQuery query = new ParallelQuery.Builder("GeoCheckin", QUERY).withStreaming(true).build();
+        final ParallelQuery.Response response = client.executeAsync(query).get();
+
+        subQueries.get("host1").setException(new Exception("boom"));
+        response.iterator().hasNext();
+    }
+
+    @Test
+    public void interruptedReaderFailsInsteadOfEndingEarly() throws Exception
+    {
+        final ParallelQuery query = new ParallelQuery.Builder("GeoCheckin", QUERY).withStreaming(true).build();
+        final ParallelQuery.Response response = client.executeAsync(query).get();
+        subQueries.get("host1").setResponse(result(100));
+
+        final Iterator<QueryResult> results = response.iterator();
+        assertTrue(results.hasNext());
+        results.next();
+
+        Thread.currentThread().interrupt();
+        try
+        {
+            results.hasNext();
+            fail("Expected RuntimeException");
+        }
+        catch (RuntimeException ex)
+        {
+            assertTrue(ex.getCause() instanceof InterruptedException);
+            assertTrue(Thread.interrupted());
+        }
+    }
+}
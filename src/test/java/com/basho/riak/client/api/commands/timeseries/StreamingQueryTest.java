@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.basho.riak.client.api.commands.timeseries;
+
+import com.basho.riak.client.api.RiakClient;
+import com.basho.riak.client.api.commands.SettableRiakFuture;
+import com.basho.riak.client.core.FutureOperation;
+import com.basho.riak.client.core.RiakCluster;
+import com.basho.riak.client.core.operations.ts.CoveragePlanOperation;
+import com.basho.riak.client.core.query.timeseries.Cell;
+import com.basho.riak.client.core.query.timeseries.CoverageEntry;
+import com.basho.riak.client.core.query.timeseries.CoveragePlanResult;
+import com.basho.riak.client.core.query.timeseries.QueryResult;
+import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.client.core.util.HostAndPort;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class StreamingQueryTest
+{
+    private static final String QUERY = "select * from GeoCheckin where time > 0 and time < 400";
+
+    private final RiakCluster mockCluster = mock(RiakCluster.class);
+    private final RiakClient client = new RiakClient(mockCluster);
+    private final List<SettableRiakFuture<QueryResult, String>> subQueries = new ArrayList<>();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init()
+    {
+        final CoveragePlanResult plan = new CoveragePlanResult() {};
+        plan.addEntry(entry("host3", 300));
+        plan.addEntry(entry("host1", 100));
+        plan.addEntry(entry("host2", 200));
+
+        when(mockCluster.execute(any(CoveragePlanOperation.class)))
+            .thenReturn(SettableRiakFuture.completed(plan, QUERY));
+
+        when(mockCluster.executeOnHost(any(FutureOperation.class), any(HostAndPort.class))).thenAnswer(invocation ->
+        {
+            final SettableRiakFuture<QueryResult, String> future = new SettableRiakFuture<>(QUERY);
+            subQueries.add(future);
+            return future;
+        });
+    }
+
+    private static CoverageEntry entry(String host, long lowerBound)
+    {
+        final CoverageEntry entry = new CoverageEntry();
+        entry.setHost(host);
+        entry.setPort(8087);
+        entry.setLowerBound(lowerBound);
+        entry.setCoverageContext(host.getBytes());
+        return entry;
+    }
+
+    private static QueryResult result(long... times)
+    {
+        final Row[] rows = new Row[times.length];
+        for (int i = 0; i < times.length; i++)
+        {
+            rows[i] = new Row(Cell.newTimestamp(times[i]));
+        }
+        return new QueryResult(rows);
+    }
+
+    @Test
+    public void fetchesAheadOnlyAsRowsAreRead() throws Exception
+    {
+        final StreamingQuery.Response response =
+            client.execute(new StreamingQuery.Builder("GeoCheckin", QUERY).withPrefetch(2).build());
+        assertEquals(3, response.getSubQueryCount());
+        assertEquals(2, subQueries.size());
+
+        subQueries.get(1).setResponse(result(200));
+        subQueries.get(0).setResponse(result(100, 101));
+
+        final Iterator<Row> rows = response.iterator();
+        assertEquals(100L, rows.next().getCellsCopy().get(0).getTimestamp());
+        assertEquals(3, subQueries.size());
+        assertEquals(101L, rows.next().getCellsCopy().get(0).getTimestamp());
+        assertEquals(200L, rows.next().getCellsCopy().get(0).getTimestamp());
+
+        subQueries.get(2).setResponse(result());
+        assertFalse(rows.hasNext());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void iteratorReportsFailure() throws Exception
+    {
+        final StreamingQuery.Response response =
+            client.execute(new StreamingQuery.Builder("GeoCheckin", QUERY).build());
+
+        subQueries.get(0).setException(new Exception("boom"));
+        response.iterator().hasNext();
+    }
+
+    @Test
+    public void interruptedReaderFailsAndCanResume() throws Exception
+    {
+        final StreamingQuery.Response response =
+            client.execute(new StreamingQuery.Builder("GeoCheckin", QUERY).withPrefetch(1).build());
+        final Iterator<Row> rows = response.iterator();
+
+        Thread.currentThread().interrupt();
+        try
+        {
+            rows.hasNext();
+            fail("Expected RuntimeException");
+        }
+        catch (RuntimeException ex)
+        {
+            assertTrue(ex.getCause() instanceof InterruptedException);
+            assertTrue(Thread.interrupted());
+        }
+
+        subQueries.get(0).setResponse(result(100));
+        assertEquals(100L, rows.next().getCellsCopy().get(0).getTimestamp());
+    }
+}
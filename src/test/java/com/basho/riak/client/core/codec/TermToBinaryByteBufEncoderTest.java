@@ -0,0 +1,92 @@
+package com.basho.riak.client.core.codec;
+
+import com.basho.riak.client.core.query.timeseries.Cell;
+import com.basho.riak.client.core.query.timeseries.Row;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TermToBinaryByteBufEncoderTest
+{
+    private static final String TABLE_NAME = "test_table";
+    private static final byte[] CONTEXT = new byte[] {(byte)131,104,1,100,0,6,102,111,111,98,97,114};
+    private final UnpooledByteBufAllocator allocator = new UnpooledByteBufAllocator(false);
+
+    private static byte[] body(ByteBuf frame)
+    {
+        try
+        {
+            Assert.assertEquals("frame is exactly sized", frame.capacity(), frame.readableBytes());
+            Assert.assertEquals(frame.readableBytes() - 4, frame.readInt());
+            Assert.assertEquals(RiakMessageCodes.MSG_TsTtbMsg, frame.readByte());
+            final byte[] body = new byte[frame.readableBytes()];
+            frame.readBytes(body);
+            return body;
+        }
+        finally
+        {
+            frame.release();
+        }
+    }
+
+    @Test
+    public void encodesPutRequestLikeTheCodec()
+    {
+        final List<Row> rows = Arrays.asList(
+            new Row(new Cell("varchar"), new Cell(0L), new Cell(255L), new Cell(256L), new Cell(-1L),
+                    Cell.newTimestamp(1443796900000L), new Cell(true), new Cell(false), new Cell(1.5),
+                    new Cell(new byte[] {1, 2, 3}), null),
+            new Row(new Cell("été 東京 😀"), new Cell(134217727L), new Cell(134217728L),
+                    new Cell(-134217728L), new Cell(-134217729L), new Cell(Long.MAX_VALUE),
+                    new Cell(Long.MIN_VALUE), new Cell(-1.0e100), new Cell(""), null, null));
+        final List<String> columns = Arrays.asList("a", "b");
+
+        Assert.assertArrayEquals(
+            TermToBinaryCodec.encodeTsPutRequest(TABLE_NAME, rows).toByteArray(),
+            body(TermToBinaryByteBufEncoder.encodeTsPutRequest(allocator, RiakMessageCodes.MSG_TsTtbMsg,
+                                                               TABLE_NAME, Collections.emptyList(), rows)));
+
+        Assert.assertArrayEquals(
+            TermToBinaryCodec.encodeTsPutRequest(TABLE_NAME, columns, rows).toByteArray(),
+            body(TermToBinaryByteBufEncoder.encodeTsPutRequest(allocator, RiakMessageCodes.MSG_TsTtbMsg,
+                                                               TABLE_NAME, columns, rows)));
+    }
+
+    @Test
+    public void encodesQueryRequestLikeTheCodec()
+    {
+        final String query = "SELECT * FROM FRAZZLE";
+
+        Assert.assertArrayEquals(
+            TermToBinaryCodec.encodeTsQueryRequest(query, null).toByteArray(),
+            body(TermToBinaryByteBufEncoder.encodeTsQueryRequest(allocator, RiakMessageCodes.MSG_TsTtbMsg,
+                                                                 query, null)));
+
+        Assert.assertArrayEquals(
+            TermToBinaryCodec.encodeTsQueryRequest(query, CONTEXT).toByteArray(),
+            body(TermToBinaryByteBufEncoder.encodeTsQueryRequest(allocator, RiakMessageCodes.MSG_TsTtbMsg,
+                                                                 query, CONTEXT)));
+    }
+
+    @Test
+    public void encodesGetRequestLikeTheCodec()
+    {
+        final List<Cell> keys = Arrays.asList(new Cell("hash1"), new Cell("user2"), Cell.newTimestamp(1443806900000L));
+
+        Assert.assertArrayEquals(
+            TermToBinaryCodec.encodeTsGetRequest(TABLE_NAME, keys, 0).toByteArray(),
+            body(TermToBinaryByteBufEncoder.encodeTsGetRequest(allocator, RiakMessageCodes.MSG_TsTtbMsg,
+                                                               TABLE_NAME, keys, 0)));
+
+        Assert.assertArrayEquals(
+            TermToBinaryCodec.encodeTsGetRequest(TABLE_NAME, keys, 5000).toByteArray(),
+            body(TermToBinaryByteBufEncoder.encodeTsGetRequest(allocator, RiakMessageCodes.MSG_TsTtbMsg,
+                                                               TABLE_NAME, keys, 5000)));
+    }
+}
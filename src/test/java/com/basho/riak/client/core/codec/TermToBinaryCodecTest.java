@@ -2,6 +2,7 @@ package com.basho.riak.client.core.codec;
 
 import com.basho.riak.client.core.query.timeseries.Cell;
 import com.basho.riak.client.core.query.timeseries.ColumnDescription;
+import com.basho.riak.client.core.query.timeseries.ColumnarQueryResult;
 import com.basho.riak.client.core.query.timeseries.QueryResult;
 import com.basho.riak.client.core.query.timeseries.Row;
 import com.ericsson.otp.erlang.OtpErlangDecodeException;
@@ -27,6 +28,41 @@ public class TermToBinaryCodecTest
     private static final byte[] CONTEXT = new byte[] {(byte)131,104,2,98,40,26,4,(byte)204,109,0,0,0,12,
                                                       (byte)131,104,1,100,0,6,102,111,111,98,97,114};
 
+    private static final byte[] QUERY_RESPONSE =
+            {(byte)131, 104, 2, // outer tuple arity 2
+                100, 0, 11, 116, 115, 113, 117, 101, 114, 121, 114, 101, 115, 112, 104, 3, // tsqueryresp atom
+                108, 0, 0, 0, 8, // list start arity 8
+                    109, 0, 0, 0, 7, 103, 101, 111, 104, 97, 115, 104, // "geohash"
+                    109, 0, 0, 0, 4, 117, 115, 101, 114, // "user
+                    109, 0, 0, 0, 4, 116, 105, 109, 101, // "time"
+                    109, 0, 0, 0, 7, 119, 101, 97, 116, 104, 101, 114, // "weather"
+                    109, 0, 0, 0, 11, 116, 101, 109, 112, 101, 114, 97, 116, 117, 114, 101, // "temperature"
+                    109, 0, 0, 0, 8, 117, 118, 95, 105, 110, 100, 101, 120, // "uv_index"
+                    109, 0, 0, 0, 8, 111, 98, 115, 101, 114, 118, 101, 100, // "observed"
+                    109, 0, 0, 0, 11, 115, 101, 110, 115, 111, 114, 95, 100, 97, 116, 97, // "sensor_data"
+                106, // list stop arity 8
+                108, 0, 0, 0, 8, // list start arity 8
+                    100, 0, 7, 118, 97, 114, 99, 104, 97, 114, // varchar atom
+                    100, 0, 7, 118, 97, 114, 99, 104, 97, 114, // varchar atom
+                    100, 0, 9, 116, 105, 109, 101, 115, 116, 97, 109, 112, // timestamp atom
+                    100, 0, 7, 118, 97, 114, 99, 104, 97, 114, // varchar atom
+                    100, 0, 6, 100, 111, 117, 98, 108, 101, // double atom
+                    100, 0, 6, 115, 105, 110, 116, 54, 52, // sint64 atom
+                    100, 0, 7, 98, 111, 111, 108, 101, 97, 110, // boolean atom
+                    100, 0, 4, 98, 108, 111, 98, // blob atom
+                106, // list stop arity 8
+                108, 0, 0, 0, 1, // list start arity 1
+                    104, 8, // tuple arity 8
+                        109, 0, 0, 0, 5, 104, 97, 115, 104, 49, // "hash1"
+                        109, 0, 0, 0, 5, 117, 115, 101, 114, 50, // "user 2
+                        110, 6, 0, 64, 91, -108, 41, 80, 1, // 1443806600000
+                        109, 0, 0, 0, 6, 99, 108, 111, 117, 100, 121, // "cloudy"
+                        106, // empty list / null cell
+                        106, // empty list / null cell
+                        100, 0, 4, 116, 114, 117, 101, // true atom
+                        109, 0, 0, 0, 8, 0, 1, 2, 3, 4, 5, 6, 7, // <<0,1,2,3,4,5,6,7>>
+             106};
+
     @Test
     public void encodesPutRequestCorrectly_1()
     {
@@ -283,40 +319,7 @@ public class TermToBinaryCodecTest
            }
          */
 
-        final byte[] input =
-                {(byte)131, 104, 2, // outer tuple arity 2
-                    100, 0, 11, 116, 115, 113, 117, 101, 114, 121, 114, 101, 115, 112, 104, 3, // tsqueryresp atom
-                    108, 0, 0, 0, 8, // list start arity 8
-                        109, 0, 0, 0, 7, 103, 101, 111, 104, 97, 115, 104, // "geohash"
-                        109, 0, 0, 0, 4, 117, 115, 101, 114, // "user
-                        109, 0, 0, 0, 4, 116, 105, 109, 101, // "time"
-                        109, 0, 0, 0, 7, 119, 101, 97, 116, 104, 101, 114, // "weather"
-                        109, 0, 0, 0, 11, 116, 101, 109, 112, 101, 114, 97, 116, 117, 114, 101, // "temperature"
-                        109, 0, 0, 0, 8, 117, 118, 95, 105, 110, 100, 101, 120, // "uv_index"
-                        109, 0, 0, 0, 8, 111, 98, 115, 101, 114, 118, 101, 100, // "observed"
-                        109, 0, 0, 0, 11, 115, 101, 110, 115, 111, 114, 95, 100, 97, 116, 97, // "sensor_data"
-                    106, // list stop arity 8
-                    108, 0, 0, 0, 8, // list start arity 8
-                        100, 0, 7, 118, 97, 114, 99, 104, 97, 114, // varchar atom
-                        100, 0, 7, 118, 97, 114, 99, 104, 97, 114, // varchar atom
-                        100, 0, 9, 116, 105, 109, 101, 115, 116, 97, 109, 112, // timestamp atom
-                        100, 0, 7, 118, 97, 114, 99, 104, 97, 114, // varchar atom
-                        100, 0, 6, 100, 111, 117, 98, 108, 101, // double atom
-                        100, 0, 6, 115, 105, 110, 116, 54, 52, // sint64 atom
-                        100, 0, 7, 98, 111, 111, 108, 101, 97, 110, // boolean atom
-                        100, 0, 4, 98, 108, 111, 98, // blob atom
-                    106, // list stop arity 8
-                    108, 0, 0, 0, 1, // list start arity 1
-                        104, 8, // tuple arity 8
-                            109, 0, 0, 0, 5, 104, 97, 115, 104, 49, // "hash1"
-                            109, 0, 0, 0, 5, 117, 115, 101, 114, 50, // "user 2
-                            110, 6, 0, 64, 91, -108, 41, 80, 1, // 1443806600000
-                            109, 0, 0, 0, 6, 99, 108, 111, 117, 100, 121, // "cloudy"
-                            106, // empty list / null cell
-                            106, // empty list / null cell
-                            100, 0, 4, 116, 114, 117, 101, // true atom
-                            109, 0, 0, 0, 8, 0, 1, 2, 3, 4, 5, 6, 7, // <<0,1,2,3,4,5,6,7>>
-                 106};
+        final byte[] input = QUERY_RESPONSE;
 
         final ColumnDescription[] expectedColumnDescriptions = new ColumnDescription[8];
         expectedColumnDescriptions[0] = new ColumnDescription("geohash", ColumnDescription.ColumnType.VARCHAR);
@@ -351,4 +354,27 @@ public class TermToBinaryCodecTest
             Assert.fail(ex.getMessage());
         }
     }
+
+    @Test
+    public void decodesColumnarQueryResultCorrectly() throws OtpErlangDecodeException, InvalidTermToBinaryException
+    {
+        final ColumnarQueryResult actual = TermToBinaryCodec.decodeTsColumnarResultResponse(QUERY_RESPONSE);
+
+        Assert.assertEquals(1, actual.getRowsCount());
+        Assert.assertEquals(8, actual.getColumnCount());
+        Assert.assertEquals(new ColumnDescription("time", ColumnDescription.ColumnType.TIMESTAMP),
+                            actual.getColumnDescriptions().get(2));
+
+        Assert.assertEquals("hash1", actual.getVarchar(0, 0));
+        Assert.assertEquals("user2", actual.getVarchar(0, 1));
+        Assert.assertEquals(1443806600000L, actual.getLong(0, 2));
+        Assert.assertEquals("cloudy", actual.getVarchar(0, 3));
+        Assert.assertTrue(actual.isNull(0, 4));
+        Assert.assertTrue(actual.isNull(0, 5));
+        Assert.assertTrue(actual.getBoolean(0, 6));
+        Assert.assertArrayEquals(new byte[] {0,1,2,3,4,5,6,7}, actual.getBlob(0, 7));
+
+        final QueryResult rows = TermToBinaryCodec.decodeTsResultResponse(QUERY_RESPONSE);
+        Assert.assertEquals(rows.getRowsCopy(), actual.toQueryResult().getRowsCopy());
+    }
 }
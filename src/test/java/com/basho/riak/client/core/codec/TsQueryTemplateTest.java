@@ -0,0 +1,70 @@
+package com.basho.riak.client.core.codec;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TsQueryTemplateTest
+{
+    private static final String TEMPLATE =
+        "select * from GeoCheckin where region = :region and time > :start and time < :end and note = 'a:b'";
+
+    private static final byte[] CONTEXT = new byte[] {(byte)131,104,1,100,0,6,102,111,111,98,97,114};
+
+    @Test
+    public void findsParametersOutsideStringLiterals()
+    {
+        TsQueryTemplate template = new TsQueryTemplate(TEMPLATE);
+        Assert.assertEquals(Arrays.asList("region", "start", "end"), template.getParameterNames());
+    }
+
+    @Test
+    public void rendersBoundValuesAsLiterals()
+    {
+        TsQueryTemplate.Binding binding = new TsQueryTemplate(TEMPLATE).bind()
+            .set(":region", "O'Hare")
+            .set("start", 1L)
+            .set("end", 2L);
+
+        Assert.assertEquals("select * from GeoCheckin where region = 'O''Hare' and time > 1 and time < 2 and note = 'a:b'",
+                            binding.getQueryText());
+    }
+
+    @Test
+    public void encodesTheSameRequestAsTheCodec()
+    {
+        TsQueryTemplate.Binding binding = new TsQueryTemplate(TEMPLATE).bind()
+            .set("region", "South")
+            .set("start", 1443796900000L)
+            .set("end", 1443796900500L);
+
+        byte[] expected = TermToBinaryCodec.encodeTsQueryRequest(binding.getQueryText(), null).toByteArray();
+        Assert.assertArrayEquals(expected, binding.encode(null));
+
+        expected = TermToBinaryCodec.encodeTsQueryRequest(binding.getQueryText(), CONTEXT).toByteArray();
+        Assert.assertArrayEquals(expected, binding.encode(CONTEXT));
+    }
+
+    @Test
+    public void copiesAreIndependent()
+    {
+        TsQueryTemplate.Binding binding = new TsQueryTemplate("select * from t where time > :t").bind().set("t", 1L);
+        TsQueryTemplate.Binding copy = binding.copy();
+        binding.set("t", 2L);
+
+        Assert.assertEquals("select * from t where time > 1", copy.getQueryText());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsUnboundParameters()
+    {
+        new TsQueryTemplate(TEMPLATE).bind().set("region", "South").encode(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownParameters()
+    {
+        new TsQueryTemplate(TEMPLATE).bind().set("nope", 1L);
+    }
+}
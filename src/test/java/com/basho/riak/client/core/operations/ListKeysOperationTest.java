@@ -0,0 +1,69 @@
+package com.basho.riak.client.core.operations;
+
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.query.CompactKeyList;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ListKeysOperationTest
+{
+    private static final Namespace NAMESPACE = new Namespace("type", "bucket");
+
+    private static RiakMessage listKeysResp(boolean done, String... keys)
+    {
+        final RiakKvPB.RpbListKeysResp.Builder builder = RiakKvPB.RpbListKeysResp.newBuilder().setDone(done);
+        for (String key : keys)
+        {
+            builder.addKeys(ByteString.copyFromUtf8(key));
+        }
+        return new RiakMessage(RiakMessageCodes.MSG_ListKeysResp, builder.build().toByteArray());
+    }
+
+    private static ListKeysOperation.Response execute(boolean compact) throws Exception
+    {
+        final ListKeysOperation op = new ListKeysOperation.Builder(NAMESPACE).compactKeys(compact).build();
+        op.setResponse(listKeysResp(false, "k1", "k2"));
+        op.setResponse(listKeysResp(true, "k3"));
+        op.setComplete();
+        return op.get();
+    }
+
+    @Test
+    public void gathersKeysIntoCompactList() throws Exception
+    {
+        final ListKeysOperation.Response response = execute(true);
+        assertTrue(response.hasCompactKeys());
+
+        final CompactKeyList keys = response.getCompactKeys();
+        assertEquals(3, keys.size());
+        assertEquals(new Location(NAMESPACE, "k3"), keys.getLocation(2));
+
+        assertEquals(execute(false).getKeys(), response.getKeys());
+        assertEquals(Arrays.asList(BinaryValue.create("k1"), BinaryValue.create("k2"), BinaryValue.create("k3")),
+                     response.getKeys());
+    }
+
+    @Test
+    public void streamingIgnoresCompactKeys() throws Exception
+    {
+        final ListKeysOperation op = new ListKeysOperation.Builder(NAMESPACE)
+                .streamResults(true)
+                .compactKeys(true)
+                .build();
+
+        op.setResponse(listKeysResp(false, "k1", "k2"));
+
+        final ListKeysOperation.Response chunk = op.getResultsQueue().poll();
+        assertFalse(chunk.hasCompactKeys());
+        assertEquals(2, chunk.getKeys().size());
+    }
+}
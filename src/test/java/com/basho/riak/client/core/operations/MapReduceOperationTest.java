@@ -0,0 +1,111 @@
+package com.basho.riak.client.core.operations;
+
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MapReduceOperationTest
+{
+    private static final BinaryValue JOB = BinaryValue.create("{\"inputs\":\"bucket\",\"query\":[]}");
+
+    public static class Count
+    {
+        public String word;
+        public int count;
+    }
+
+    private static RiakMessage mapRedResp(int phase, String json, boolean done)
+    {
+        final RiakKvPB.RpbMapRedResp.Builder builder = RiakKvPB.RpbMapRedResp.newBuilder().setDone(done);
+        if (json != null)
+        {
+            builder.setPhase(phase).setResponse(ByteString.copyFromUtf8(json));
+        }
+        return new RiakMessage(RiakMessageCodes.MSG_MapRedResp, builder.build().toByteArray());
+    }
+
+    @Test
+    public void bindsResultsToType() throws Exception
+    {
+        final MapReduceOperation op = new MapReduceOperation.Builder(JOB)
+                .withResultType(TypeFactory.defaultInstance().constructType(Count.class))
+                .build();
+
+        op.setResponse(mapRedResp(0, "[{\"word\":\"a\",\"count\":1},{\"word\":\"b\",\"count\":2}]", false));
+        op.setResponse(mapRedResp(1, "[{\"word\":\"c\",\"count\":3}]", false));
+        op.setResponse(mapRedResp(0, "[{\"word\":\"d\",\"count\":4}]", false));
+        op.setResponse(mapRedResp(0, null, true));
+        op.setComplete();
+
+        final MapReduceOperation.Response response = op.get();
+        assertTrue(response.hasTypedResults());
+        assertNull(response.getResults());
+
+        final Map<Integer, List<Object>> results = response.getTypedResults();
+        assertEquals(Arrays.asList(0, 1), new ArrayList<>(results.keySet()));
+        assertEquals(3, results.get(0).size());
+        assertEquals("d", ((Count) results.get(0).get(2)).word);
+        assertEquals(3, ((Count) results.get(1).get(0)).count);
+    }
+
+    @Test
+    public void streamsTypedChunks() throws Exception
+    {
+        final MapReduceOperation op = new MapReduceOperation.Builder(JOB)
+                .streamResults(true)
+                .withResultType(TypeFactory.defaultInstance().constructType(Integer.class))
+                .build();
+
+        op.setResponse(mapRedResp(2, "[1,2,3]", false));
+
+        final MapReduceOperation.Response chunk = op.getResultsQueue().poll();
+        assertEquals(Collections.singletonMap(2, Arrays.<Object>asList(1, 2, 3)), chunk.getTypedResults());
+    }
+
+    @Test
+    public void keepsJsonTreeWithoutType() throws Exception
+    {
+        final MapReduceOperation op = new MapReduceOperation.Builder(JOB).build();
+
+        op.setResponse(mapRedResp(0, "[1,2]", true));
+        op.setComplete();
+
+        final MapReduceOperation.Response response = op.get();
+        assertFalse(response.hasTypedResults());
+        assertEquals(2, response.getResults().get(0).size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void rejectsTruncatedJson()
+    {
+        final MapReduceOperation op = new MapReduceOperation.Builder(JOB)
+                .streamResults(true)
+                .withResultType(TypeFactory.defaultInstance().constructType(Integer.class))
+                .build();
+
+        op.setResponse(mapRedResp(0, "[1,2", false));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void decodesGatheredChunksAsTheyArrive()
+    {
+        final MapReduceOperation op = new MapReduceOperation.Builder(JOB)
+                .withResultType(TypeFactory.defaultInstance().constructType(Integer.class))
+                .build();
+
+        op.setResponse(mapRedResp(0, "[1,2]", false));
+        op.setResponse(mapRedResp(0, "[3,", false));
+    }
+}
@@ -0,0 +1,116 @@
+package com.basho.riak.client.core.operations;
+
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.query.search.CompactSearchResults;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.basho.riak.protobuf.RiakPB.RpbPair;
+import com.basho.riak.protobuf.RiakSearchPB;
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SearchOperationTest
+{
+    public static class Person
+    {
+        public String name_s;
+        public int age_i;
+        public List<String> tags_ss;
+    }
+
+    private static RiakMessage searchResp(int docs)
+    {
+        final RiakSearchPB.RpbSearchQueryResp.Builder builder =
+            RiakSearchPB.RpbSearchQueryResp.newBuilder().setMaxScore(1.5f).setNumFound(docs);
+        for (int i = 0; i < docs; i++)
+        {
+            builder.addDocs(RiakSearchPB.RpbSearchDoc.newBuilder()
+                                .addFields(pair("_yz_rk", "key" + i))
+                                .addFields(pair("name_s", "näme" + i))
+                                .addFields(pair("age_i", String.valueOf(20 + i)))
+                                .addFields(pair("tags_ss", "a"))
+                                .addFields(pair("tags_ss", "b")));
+        }
+        return new RiakMessage(RiakMessageCodes.MSG_SearchQueryResp, builder.build().toByteArray());
+    }
+
+    private static RpbPair pair(String key, String value)
+    {
+        return RpbPair.newBuilder().setKey(ByteString.copyFromUtf8(key)).setValue(ByteString.copyFromUtf8(value)).build();
+    }
+
+    private static SearchOperation.Response execute(boolean compact, int docs) throws Exception
+    {
+        final SearchOperation op = new SearchOperation.Builder(BinaryValue.create("index"), "*:*")
+                .withCompactResults(compact)
+                .build();
+        op.setResponse(searchResp(docs));
+        op.setComplete();
+        return op.get();
+    }
+
+    @Test
+    public void storesResultsCompactly() throws Exception
+    {
+        final SearchOperation.Response response = execute(true, 100);
+        assertTrue(response.hasCompactResults());
+        assertEquals(100, response.numResults());
+
+        final CompactSearchResults results = response.getCompactResults();
+        assertEquals(100, results.size());
+        assertEquals(Arrays.asList("_yz_rk", "name_s", "age_i", "tags_ss"), results.getFieldNames());
+
+        final CompactSearchResults.Document doc = results.get(42);
+        assertEquals("näme42", doc.getFirst("name_s"));
+        assertEquals(Arrays.asList("a", "b"), doc.getAll("tags_ss"));
+        assertNull(doc.getFirst("missing"));
+        assertEquals(Collections.emptyList(), doc.getAll("missing"));
+
+        assertEquals(execute(false, 100).getAllResults(), response.getAllResults());
+        assertNotSame("maps are not kept", response.getAllResults().get(0), response.getAllResults().get(0));
+    }
+
+    @Test
+    public void bindsInterleavedFields()
+    {
+        final CompactSearchResults results = new CompactSearchResults.Builder()
+                .startDocument()
+                .addValue(ByteString.copyFromUtf8("tags_ss"), ByteString.copyFromUtf8("a"))
+                .addValue(ByteString.copyFromUtf8("name_s"), ByteString.copyFromUtf8("n"))
+                .addValue(ByteString.copyFromUtf8("tags_ss"), ByteString.copyFromUtf8("b"))
+                .build();
+
+        final Person person = results.get(0).as(Person.class);
+        assertEquals("n", person.name_s);
+        assertEquals(Arrays.asList("a", "b"), person.tags_ss);
+    }
+
+    @Test
+    public void bindsResultsToType() throws Exception
+    {
+        final Iterator<Person> people = execute(true, 3).getCompactResults().iterator(Person.class);
+        final Person first = people.next();
+        assertEquals("näme0", first.name_s);
+        assertEquals(20, first.age_i);
+        assertEquals(Arrays.asList("a", "b"), first.tags_ss);
+
+        final List<Person> bound = execute(false, 3).getAllResultsAs(Person.class);
+        assertEquals(3, bound.size());
+        assertEquals(22, bound.get(2).age_i);
+    }
+
+    @Test
+    public void handlesEmptyResults() throws Exception
+    {
+        final SearchOperation.Response response = execute(true, 0);
+        assertEquals(0, response.getCompactResults().size());
+        assertFalse(response.iterator().hasNext());
+    }
+}
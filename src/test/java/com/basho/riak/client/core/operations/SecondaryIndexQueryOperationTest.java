@@ -0,0 +1,135 @@
+package com.basho.riak.client.core.operations;
+
+import com.basho.riak.client.core.RiakMessage;
+import com.basho.riak.client.core.query.CompactKeyList;
+import com.basho.riak.client.core.query.Location;
+import com.basho.riak.client.core.query.Namespace;
+import com.basho.riak.client.core.util.BinaryValue;
+import com.basho.riak.protobuf.RiakKvPB;
+import com.basho.riak.protobuf.RiakMessageCodes;
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SecondaryIndexQueryOperationTest
+{
+    private static final Namespace NAMESPACE = new Namespace("type", "bucket");
+
+    private static SecondaryIndexQueryOperation.Query.Builder query()
+    {
+        return new SecondaryIndexQueryOperation.Query.Builder(NAMESPACE, BinaryValue.create("tag_bin"))
+                .withIndexKey(BinaryValue.create("red"));
+    }
+
+    private static RiakMessage indexResp(boolean done, String... keys)
+    {
+        final RiakKvPB.RpbIndexResp.Builder builder = RiakKvPB.RpbIndexResp.newBuilder().setDone(done);
+        for (String key : keys)
+        {
+            builder.addKeys(ByteString.copyFromUtf8(key));
+        }
+        return new RiakMessage(RiakMessageCodes.MSG_IndexResp, builder.build().toByteArray());
+    }
+
+    @Test
+    public void gathersKeysIntoCompactList() throws Exception
+    {
+        final SecondaryIndexQueryOperation op =
+                new SecondaryIndexQueryOperation.Builder(query().build()).compactKeys(true).build();
+
+        op.setResponse(indexResp(false, "k1", "k2"));
+        op.setResponse(indexResp(true, "k3"));
+        op.setComplete();
+
+        final SecondaryIndexQueryOperation.Response response = op.get();
+        assertTrue(response.hasCompactKeys());
+
+        final CompactKeyList keys = response.getCompactKeys();
+        assertEquals(3, keys.size());
+        assertEquals(NAMESPACE, keys.getNamespace());
+        assertEquals(BinaryValue.create("k2"), keys.getKey(1));
+
+        final List<String> entryKeys = new ArrayList<>();
+        for (SecondaryIndexQueryOperation.Response.Entry entry : response)
+        {
+            entryKeys.add(entry.getObjectKey().toString());
+        }
+        assertEquals(Arrays.asList("k1", "k2", "k3"), entryKeys);
+        assertNotSame("entries are not kept", response.getEntryList().get(0), response.getEntryList().get(0));
+    }
+
+    @Test
+    public void streamsCompactChunks() throws Exception
+    {
+        final SecondaryIndexQueryOperation op =
+                new SecondaryIndexQueryOperation.Builder(query().build())
+                        .streamResults(true)
+                        .compactKeys(true)
+                        .build();
+
+        op.setResponse(indexResp(false, "k1", "k2"));
+        op.setResponse(indexResp(true));
+
+        final SecondaryIndexQueryOperation.Response chunk = op.getResultsQueue().poll();
+        assertEquals(2, chunk.getCompactKeys().size());
+        assertEquals(0, op.getResultsQueue().poll().getCompactKeys().size());
+    }
+
+    @Test
+    public void keepsEntriesWithoutCompactKeys() throws Exception
+    {
+        final SecondaryIndexQueryOperation op = new SecondaryIndexQueryOperation.Builder(query().build()).build();
+
+        op.setResponse(indexResp(true, "k1"));
+        op.setComplete();
+
+        final SecondaryIndexQueryOperation.Response response = op.get();
+        assertFalse(response.hasCompactKeys());
+        assertEquals(1, response.getEntryList().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCompactKeysWithTerms()
+    {
+        new SecondaryIndexQueryOperation.Builder(query().withReturnKeyAndIndex(true).build()).compactKeys(true);
+    }
+
+    @Test
+    public void compactKeyListViews()
+    {
+        final CompactKeyList.Builder builder = new CompactKeyList.Builder(NAMESPACE);
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+        {
+            expected.add("key-" + i);
+            builder.add(("key-" + i).getBytes());
+        }
+
+        final CompactKeyList keys = builder.build();
+        assertEquals(500, keys.size());
+
+        final CompactKeyList.KeyView view = keys.view();
+        int i = 0;
+        while (view.next())
+        {
+            assertEquals(expected.get(i), view.getKeyAsString());
+            assertTrue(view.keyEquals(expected.get(i).getBytes()));
+            i++;
+        }
+        assertEquals(expected.size(), i);
+
+        final Location location = keys.view().moveTo(42).toLocation();
+        assertEquals(new Location(NAMESPACE, "key-42"), location);
+
+        i = 0;
+        for (Location l : keys)
+        {
+            assertEquals(expected.get(i++), l.getKeyAsString());
+        }
+    }
+}
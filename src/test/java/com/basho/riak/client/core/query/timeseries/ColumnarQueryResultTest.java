@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 Basho Technologies Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.basho.riak.client.core.query.timeseries;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ColumnarQueryResultTest
+{
+    private final List<ColumnDescription> columns = Arrays.asList(
+            new ColumnDescription("family", ColumnDescription.ColumnType.VARCHAR),
+            new ColumnDescription("time", ColumnDescription.ColumnType.TIMESTAMP),
+            new ColumnDescription("temperature", ColumnDescription.ColumnType.DOUBLE));
+
+    private ColumnarQueryResult build(int rows)
+    {
+        final ColumnarQueryResult.Builder builder = new ColumnarQueryResult.Builder(columns, 1);
+        for (int i = 0; i < rows; i++)
+        {
+            builder.appendVarchar(0, i % 2 == 0 ? "even" : "odd")
+                   .appendLong(1, 1000L + i);
+
+            if (i % 3 == 0)
+            {
+                builder.appendNull(2);
+            }
+            else
+            {
+                builder.appendDouble(2, i * 1.5);
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void storesValuesByColumn()
+    {
+        final ColumnarQueryResult result = build(100);
+
+        assertEquals(100, result.getRowsCount());
+        assertEquals(1, result.getColumnIndex("time"));
+        assertEquals(Arrays.asList("even", "odd"), result.getVarcharDictionary(0));
+        assertEquals(1, result.getVarcharCodes(0)[99]);
+        assertEquals("odd", result.getVarchar(99, 0));
+        assertEquals(1099L, result.getLongColumn(1)[99]);
+        assertEquals(100, result.getLongColumn(1).length);
+
+        assertTrue(result.isNull(99, 2));
+        assertFalse(result.isNull(98, 2));
+        assertEquals(98 * 1.5, result.getDouble(98, 2), 0.0);
+    }
+
+    @Test
+    public void iteratesRowViews()
+    {
+        int count = 0;
+        for (ColumnarQueryResult.RowView row : build(10))
+        {
+            assertEquals(1000L + row.getRowIndex(), row.getLong(1));
+            count++;
+        }
+        assertEquals(10, count);
+    }
+
+    @Test
+    public void convertsToAndFromRows()
+    {
+        final ColumnarQueryResult result = build(10);
+        final QueryResult rows = result.toQueryResult();
+
+        assertEquals(10, rows.getRowsCount());
+        assertEquals(columns, rows.getColumnDescriptionsCopy());
+        assertNull(rows.getRowsCopy().get(0).getCellsCopy().get(2));
+
+        final ColumnarQueryResult roundTrip = ColumnarQueryResult.from(rows);
+        assertEquals(rows.getRowsCopy(), roundTrip.toQueryResult().getRowsCopy());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAccessOfTheWrongType()
+    {
+        build(1).getDouble(0, 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsRaggedColumns()
+    {
+        new ColumnarQueryResult.Builder(columns, 1).appendLong(1, 1L).build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.basho.riak.client.core.query.timeseries;
+
+import com.basho.riak.client.core.operations.ts.ListKeysOperation;
+import com.basho.riak.protobuf.RiakTsPB;
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Time Series ListKeys Operation Unit Tests
+ * @since 2.1.2
+ */
+public class ListKeysOpTest
+{
+    private static RiakTsPB.TsListKeysResp chunk(String... keys)
+    {
+        final RiakTsPB.TsListKeysResp.Builder builder = RiakTsPB.TsListKeysResp.newBuilder();
+        for (String key : keys)
+        {
+            builder.addKeys(RiakTsPB.TsRow.newBuilder()
+                    .addCells(RiakTsPB.TsCell.newBuilder().setVarcharValue(ByteString.copyFromUtf8(key))));
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void shouldBuildADescriptiveQueryInfoString()
+    {
+        ListKeysOperation op = new ListKeysOperation.Builder("my_table").build();
+        assertEquals("SELECT PRIMARY KEY FROM my_table", op.getQueryInfo());
+    }
+
+    @Test
+    public void shouldQueueEachChunkWhenStreaming() throws Exception
+    {
+        ListKeysOperation op = new ListKeysOperation.Builder("my_table").streamResults(true).build();
+
+        Whitebox.invokeMethod(op, "processMessage", chunk("a", "b"));
+        Whitebox.invokeMethod(op, "processMessage", chunk("c"));
+
+        assertEquals(2, op.getResultsQueue().size());
+
+        QueryResult first = op.getResultsQueue().poll();
+        assertEquals(2, first.getRowsCount());
+        assertEquals("a", first.getRowsCopy().get(0).getCellsCopy().get(0).getVarcharAsUTF8String());
+        assertEquals("c", op.getResultsQueue().poll().getRowsCopy().get(0)
+                            .getCellsCopy().get(0).getVarcharAsUTF8String());
+        assertTrue(op.getResultsQueue().isEmpty());
+    }
+}
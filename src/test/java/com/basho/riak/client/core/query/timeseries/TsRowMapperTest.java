@@ -0,0 +1,230 @@
+package com.basho.riak.client.core.query.timeseries;
+
+import com.basho.riak.client.api.annotations.RiakTsColumn;
+import com.basho.riak.client.core.codec.TermToBinaryCodec;
+import com.basho.riak.client.core.query.timeseries.ColumnDescription.ColumnType;
+import com.basho.riak.protobuf.RiakTsPB;
+import com.ericsson.otp.erlang.OtpExternal;
+import com.ericsson.otp.erlang.OtpOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TsRowMapperTest
+{
+    private static final TableDefinition TABLE = new TableDefinition("GeoCheckin", Arrays.asList(
+        new FullColumnDescription("region", ColumnType.VARCHAR, false, 1),
+        new FullColumnDescription("time", ColumnType.TIMESTAMP, false, 2),
+        new FullColumnDescription("temperature", ColumnType.DOUBLE, true),
+        new FullColumnDescription("count", ColumnType.SINT64, true),
+        new FullColumnDescription("valid", ColumnType.BOOLEAN, true),
+        new FullColumnDescription("payload", ColumnType.BLOB, true)));
+
+    public static class Reading
+    {
+        @RiakTsColumn
+        private String region;
+
+        @RiakTsColumn(name = "time")
+        private long timestamp;
+
+        @RiakTsColumn
+        private Double temperature;
+
+        @RiakTsColumn
+        private long count;
+
+        @RiakTsColumn
+        private boolean valid;
+
+        @RiakTsColumn
+        private byte[] payload;
+
+        private Reading()
+        {
+        }
+
+        Reading(String region, long timestamp, Double temperature, long count, boolean valid, byte[] payload)
+        {
+            this.region = region;
+            this.timestamp = timestamp;
+            this.temperature = temperature;
+            this.count = count;
+            this.valid = valid;
+            this.payload = payload;
+        }
+    }
+
+    private static final List<Reading> READINGS = Arrays.asList(
+        new Reading("South Atlantic", 1443796900000L, 23.5, 7L, true, new byte[] {1, 2}),
+        new Reading("North", 1443796901000L, null, -300000000000L, false, null));
+
+    private static final List<Row> ROWS = Arrays.asList(
+        new Row(new Cell("South Atlantic"), Cell.newTimestamp(1443796900000L), new Cell(23.5), new Cell(7L),
+                new Cell(true), new Cell(new byte[] {1, 2})),
+        new Row(new Cell("North"), Cell.newTimestamp(1443796901000L), null, new Cell(-300000000000L),
+                new Cell(false), null));
+
+    @Test
+    public void encodesObjectsLikeRows()
+    {
+        final TsRowMapper<Reading> mapper = TsRowMapper.forClass(Reading.class, TABLE);
+
+        Assert.assertArrayEquals(
+            TermToBinaryCodec.encodeTsPutRequest("GeoCheckin", ROWS).toByteArray(),
+            TermToBinaryCodec.encodeTsPutRequest("GeoCheckin", Collections.<String>emptyList(), READINGS, mapper)
+                             .toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsListedColumnsForObjects()
+    {
+        final TsRowMapper<Reading> mapper = TsRowMapper.forClass(Reading.class, TABLE);
+        TermToBinaryCodec.encodeTsPutRequest("GeoCheckin", Arrays.asList("region", "time"), READINGS, mapper);
+    }
+
+    @Test
+    public void decodesTtbResponseIntoObjects() throws Exception
+    {
+        final TsRowMapper<Reading> mapper = TsRowMapper.forClass(Reading.class, TABLE);
+        final List<Reading> readings = TermToBinaryCodec.decodeTsResultResponse(ttbQueryResponse(), mapper);
+
+        Assert.assertEquals(2, readings.size());
+        assertReading(READINGS.get(0), readings.get(0));
+        assertReading(READINGS.get(1), readings.get(1));
+    }
+
+    @Test
+    public void lambdaMapperRoundTripsPbRows()
+    {
+        final TsRowMapper<Reading> mapper = new TsRowMapper.Builder<>(TABLE, Reading::new)
+            .withVarchar("region", r -> r.region, (r, v) -> r.region = v)
+            .withLong("time", r -> r.timestamp, (r, v) -> r.timestamp = v)
+            .withDouble("temperature", r -> r.temperature == null ? 0 : r.temperature, (r, v) -> r.temperature = v)
+            .withLong("count", r -> r.count, (r, v) -> r.count = v)
+            .build();
+
+        final Reading reading = new Reading("South", 1443796900000L, 1.5, 3L, true, null);
+        final RiakTsPB.TsRow pbRow = mapper.toPbRow(reading);
+        Assert.assertEquals(new Row(new Cell("South"), Cell.newTimestamp(1443796900000L), new Cell(1.5),
+                                    new Cell(3L), null, null).getPbRow(),
+                            pbRow);
+
+        final List<Reading> readings = mapper.fromPbRows(
+            new ArrayList<>(CollectionConverters.convertColumnDescriptionsToPb(
+                new ArrayList<ColumnDescription>(TABLE.getFullColumnDescriptions()))),
+            Collections.singletonList(pbRow));
+        Assert.assertEquals(1, readings.size());
+        Assert.assertEquals("South", readings.get(0).region);
+        Assert.assertEquals(1443796900000L, readings.get(0).timestamp);
+        Assert.assertEquals(1.5, readings.get(0).temperature, 0);
+        Assert.assertEquals(3L, readings.get(0).count);
+        Assert.assertFalse("unmapped columns are skipped", readings.get(0).valid);
+    }
+
+    @Test
+    public void nullableLambdaColumnsRoundTripNulls() throws Exception
+    {
+        final TsRowMapper<Reading> mapper = new TsRowMapper.Builder<>(TABLE, Reading::new)
+            .withVarchar("region", r -> r.region, (r, v) -> r.region = v)
+            .withLong("time", r -> r.timestamp, (r, v) -> r.timestamp = v)
+            .withNullableDouble("temperature", r -> r.temperature, (r, v) -> r.temperature = v)
+            .withNullableLong("count", r -> r.count == 0 ? null : r.count, (r, v) -> r.count = v == null ? -1 : v)
+            .withNullableBoolean("valid", r -> r.valid ? true : null, (r, v) -> r.valid = v != null)
+            .build();
+
+        final Reading reading = new Reading("North", 1443796901000L, null, 0L, false, null);
+        Assert.assertEquals(new Row(new Cell("North"), Cell.newTimestamp(1443796901000L), null, null, null, null)
+                                .getPbRow(),
+                            mapper.toPbRow(reading));
+
+        final List<Reading> readings = TermToBinaryCodec.decodeTsResultResponse(ttbQueryResponse(), mapper);
+        Assert.assertEquals(23.5, readings.get(0).temperature, 0);
+        Assert.assertEquals(7L, readings.get(0).count);
+        Assert.assertNull(readings.get(1).temperature);
+        Assert.assertEquals(-300000000000L, readings.get(1).count);
+        Assert.assertTrue(readings.get(0).valid);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMismatchedColumnTypes()
+    {
+        new TsRowMapper.Builder<>(TABLE, Reading::new).withDouble("region", r -> 0, (r, v) -> {});
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsWritingWithoutRequiredColumns()
+    {
+        new TsRowMapper.Builder<>(TABLE, Reading::new)
+            .withVarchar("region", r -> r.region, (r, v) -> r.region = v)
+            .build()
+            .checkWritable();
+    }
+
+    private static void assertReading(Reading expected, Reading actual)
+    {
+        Assert.assertEquals(expected.region, actual.region);
+        Assert.assertEquals(expected.timestamp, actual.timestamp);
+        Assert.assertEquals(expected.temperature, actual.temperature);
+        Assert.assertEquals(expected.count, actual.count);
+        Assert.assertEquals(expected.valid, actual.valid);
+        Assert.assertArrayEquals(expected.payload, actual.payload);
+    }
+
+    private static byte[] ttbQueryResponse()
+    {
+        final OtpOutputStream os = new OtpOutputStream();
+        os.write(OtpExternal.versionTag);
+        os.write_tuple_head(2);
+        os.write_atom("tsqueryresp");
+        os.write_tuple_head(3);
+
+        os.write_list_head(TABLE.getFullColumnDescriptions().size());
+        for (FullColumnDescription column : TABLE.getFullColumnDescriptions())
+        {
+            os.write_binary(column.getName().getBytes(StandardCharsets.UTF_8));
+        }
+        os.write_nil();
+
+        os.write_list_head(TABLE.getFullColumnDescriptions().size());
+        for (FullColumnDescription column : TABLE.getFullColumnDescriptions())
+        {
+            os.write_atom(column.getType().name().toLowerCase());
+        }
+        os.write_nil();
+
+        os.write_list_head(READINGS.size());
+        for (Reading reading : READINGS)
+        {
+            os.write_tuple_head(6);
+            os.write_binary(reading.region.getBytes(StandardCharsets.UTF_8));
+            os.write_long(reading.timestamp);
+            if (reading.temperature == null)
+            {
+                os.write_nil();
+            }
+            else
+            {
+                os.write_double(reading.temperature);
+            }
+            os.write_long(reading.count);
+            os.write_boolean(reading.valid);
+            if (reading.payload == null)
+            {
+                os.write_nil();
+            }
+            else
+            {
+                os.write_binary(reading.payload);
+            }
+        }
+        os.write_nil();
+
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,82 @@
+package com.basho.riak.client.core.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LruCacheTest
+{
+    @Test
+    public void evictsLeastRecentlyUsed()
+    {
+        LruCache<String, String> cache = new LruCache<>(2);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+
+        cache.put("c", "3");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void evictsByWeight()
+    {
+        LruCache<String, byte[]> cache = new LruCache<>(10, (k, v) -> v.length);
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        assertEquals(8, cache.getWeight());
+
+        cache.put("c", new byte[6]);
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(10, cache.getWeight());
+
+        cache.put("d", new byte[1]);
+
+        assertNull(cache.get("b"));
+        assertEquals(7, cache.getWeight());
+    }
+
+    @Test
+    public void rejectsOversizedValues()
+    {
+        LruCache<String, byte[]> cache = new LruCache<>(10, (k, v) -> v.length);
+        cache.put("a", new byte[4]);
+
+        assertFalse(cache.put("a", new byte[11]));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void replaceOnlyMatchingValue()
+    {
+        LruCache<String, String> cache = new LruCache<>(10);
+        String original = "1";
+        cache.put("a", original);
+
+        assertFalse(cache.replace("a", "other", "2"));
+        assertTrue(cache.replace("a", original, "2"));
+        assertEquals("2", cache.get("a"));
+    }
+
+    @Test
+    public void removeIfMatching()
+    {
+        LruCache<String, String> cache = new LruCache<>(10);
+        cache.put("a1", "1");
+        cache.put("a2", "2");
+        cache.put("b1", "3");
+
+        assertEquals(2, cache.removeIf(k -> k.startsWith("a")));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getWeight());
+    }
+}